@@ -14,8 +14,10 @@ import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import java.lang.reflect.Method;
 import java.time.LocalDateTime;
@@ -165,8 +167,10 @@ public class OperationLogAspect {
             Object arg = args[i];
             // 过滤掉Servlet相关对象
             if (arg instanceof HttpServletRequest ||
+                    arg instanceof HttpServletResponse ||
                     arg instanceof HttpSession ||
-                    arg instanceof ServletRequestAttributes) {
+                    arg instanceof ServletRequestAttributes ||
+                    arg instanceof WebRequest) {
                 filteredArgs[i] = "[FILTERED]";
             } else {
                 filteredArgs[i] = arg;
@@ -1,6 +1,7 @@
 package com.projectmanagement.config;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -53,4 +54,104 @@ public class AsyncConfig {
         log.info("操作日志异步执行器初始化完成");
         return executor;
     }
-}
\ No newline at end of file
+
+    /**
+     * 邮件队列分发执行器
+     * 线程数即并行发送的worker数，每个worker独立领取一批队列记录
+     */
+    @Bean("emailDispatchExecutor")
+    public Executor emailDispatchExecutor(@Value("${app.email.dispatch.workers:4}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        // 核心线程数与最大线程数一致，worker数量固定
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+
+        // 每轮最多提交workers个任务，队列只需容纳一轮
+        executor.setQueueCapacity(workers);
+
+        executor.setKeepAliveSeconds(60);
+        executor.setThreadNamePrefix("email-dispatch-");
+
+        // 拒绝策略：调用者运行
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+
+        // 等待正在发送的邮件完成后再关闭线程池
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+
+        executor.initialize();
+
+        log.info("邮件分发执行器初始化完成，worker数: {}", workers);
+        return executor;
+    }
+
+    /**
+     * 任务通知事件处理执行器
+     * 单线程顺序处理事件总线中的事件，便于同一任务的事件合并
+     */
+    @Bean("todoNotificationExecutor")
+    public Executor todoNotificationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("todo-notification-");
+
+        // 事件总线关闭时会先处理完剩余事件，这里只需等待处理线程退出
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+
+        executor.initialize();
+
+        log.info("任务通知执行器初始化完成");
+        return executor;
+    }
+
+    /**
+     * 项目工作计划生成执行器
+     * 每个分块的项目在线程池中并行生成内容，队列满时由调用线程生成
+     */
+    @Bean("workPlanExecutor")
+    public Executor workPlanExecutor(@Value("${app.work-plan.workers:4}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers * 50);
+        executor.setThreadNamePrefix("work-plan-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+
+        executor.initialize();
+
+        log.info("工作计划生成执行器初始化完成，线程数: {}", workers);
+        return executor;
+    }
+
+    /**
+     * 报告生成执行器
+     * 线程数和队列容量都有上限，队列满时拒绝新任务（由提交方返回繁忙提示），不占用请求线程
+     */
+    @Bean("reportJobExecutor")
+    public Executor reportJobExecutor(@Value("${app.report.job.workers:2}") int workers,
+                                      @Value("${app.report.job.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-job-");
+
+        // 拒绝策略：直接拒绝
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+
+        // 等待正在生成的报告完成后再关闭线程池
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+
+        executor.initialize();
+
+        log.info("报告生成执行器初始化完成，线程数: {}，队列容量: {}", workers, queueCapacity);
+        return executor;
+    }
+}
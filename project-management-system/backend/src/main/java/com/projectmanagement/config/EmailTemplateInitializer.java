@@ -3,6 +3,7 @@ package com.projectmanagement.config;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.projectmanagement.entity.EmailTemplate;
 import com.projectmanagement.mapper.EmailTemplateMapper;
+import com.projectmanagement.service.impl.EmailTemplateRenderer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
@@ -22,6 +23,9 @@ public class EmailTemplateInitializer implements ApplicationRunner {
     @Autowired
     private EmailTemplateMapper emailTemplateMapper;
 
+    @Autowired
+    private EmailTemplateRenderer templateRenderer;
+
     @Override
     public void run(ApplicationArguments args) throws Exception {
         log.info("=== 开始初始化邮件模板 ===");
@@ -38,6 +42,9 @@ public class EmailTemplateInitializer implements ApplicationRunner {
         // 确保TASK_STATUS_CHANGE模板存在且正确
         ensureTaskStatusChangeTemplate();
 
+        // 模板可能已被更新，丢弃启动过程中编译的旧版本
+        templateRenderer.invalidateAll();
+
         log.info("=== 邮件模板初始化完成 ===");
     }
 
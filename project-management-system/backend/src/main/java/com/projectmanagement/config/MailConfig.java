@@ -37,15 +37,25 @@ public class MailConfig {
     @Value("${spring.mail.protocol:smtp}")
     private String mailProtocol;
 
+    @Value("${app.email.smtp-pool.max-connections:4}")
+    private int poolMaxConnections;
+
+    @Value("${app.email.smtp-pool.idle-timeout-millis:60000}")
+    private long poolIdleTimeoutMillis;
+
+    @Value("${app.email.smtp-pool.borrow-timeout-millis:10000}")
+    private long poolBorrowTimeoutMillis;
+
     /**
      * 自定义JavaMailSender配置
-     * 确保总是有可用的JavaMailSender Bean
+     * 确保总是有可用的JavaMailSender Bean，SMTP连接由连接池保持和复用
      */
     @Bean
     @Primary
     @ConditionalOnMissingBean(name = "mailSender")
     public JavaMailSender javaMailSender() {
-        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        PooledJavaMailSender mailSender = new PooledJavaMailSender(
+                poolMaxConnections, poolIdleTimeoutMillis, poolBorrowTimeoutMillis);
         
         // 基本配置
         mailSender.setHost(mailHost);
@@ -63,7 +73,8 @@ public class MailConfig {
         props.put("mail.smtp.ssl.enable", "false");
         props.put("mail.debug", "true");
         
-        System.out.println("📧 创建自定义JavaMailSender: " + mailHost + ":" + mailPort);
+        System.out.println("📧 创建自定义JavaMailSender: " + mailHost + ":" + mailPort
+                + "（连接池上限: " + poolMaxConnections + "）");
         
         return mailSender;
     }
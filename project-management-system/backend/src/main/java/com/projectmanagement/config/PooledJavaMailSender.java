@@ -0,0 +1,306 @@
+package com.projectmanagement.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import javax.mail.Address;
+import javax.mail.AuthenticationFailedException;
+import javax.mail.MessagingException;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 带连接池的邮件发送器
+ * 保持已认证的SMTP连接并在多次发送之间复用，避免每封邮件都重新建立连接、握手和认证；
+ * 批量会话内同一线程的所有邮件复用同一个连接
+ */
+@Slf4j
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private static final String HEADER_MESSAGE_ID = "Message-ID";
+
+    /**
+     * 空闲超过该时长的连接在复用前先用NOOP校验是否仍然可用
+     */
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = 2000;
+
+    /**
+     * 最大连接数（空闲+使用中）
+     */
+    private final int maxConnections;
+
+    /**
+     * 空闲连接最长保留时间（毫秒），超过后关闭
+     */
+    private final long idleTimeoutMillis;
+
+    /**
+     * 连接池耗尽时等待空闲连接的最长时间（毫秒）
+     */
+    private final long borrowTimeoutMillis;
+
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Semaphore openPermits;
+    private final ThreadLocal<BatchSession> currentSession = new ThreadLocal<>();
+
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong reusedCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong brokenCount = new AtomicLong();
+    private final AtomicLong sentCount = new AtomicLong();
+
+    public PooledJavaMailSender(int maxConnections, long idleTimeoutMillis, long borrowTimeoutMillis) {
+        this.maxConnections = Math.max(1, maxConnections);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.openPermits = new Semaphore(this.maxConnections);
+    }
+
+    /**
+     * 开启批量发送会话
+     * 会话关闭前，当前线程发送的所有邮件都通过同一个SMTP连接发送
+     */
+    public BatchSession openBatchSession() {
+        BatchSession existing = currentSession.get();
+        if (existing != null) {
+            return BatchSession.NESTED;
+        }
+        BatchSession session = new BatchSession(this);
+        currentSession.set(session);
+        return session;
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        BatchSession session = currentSession.get();
+        PooledConnection connection = session != null ? session.connection : null;
+
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                if (connection == null) {
+                    try {
+                        connection = borrowConnection();
+                    } catch (AuthenticationFailedException ex) {
+                        throw new MailAuthenticationException(ex);
+                    } catch (Exception ex) {
+                        for (int j = i; j < mimeMessages.length; j++) {
+                            Object original = (originalMessages != null ? originalMessages[j] : mimeMessages[j]);
+                            failedMessages.put(original, ex);
+                        }
+                        throw new MailSendException("Mail server connection failed", ex, failedMessages);
+                    }
+                }
+
+                MimeMessage mimeMessage = mimeMessages[i];
+                try {
+                    if (mimeMessage.getSentDate() == null) {
+                        mimeMessage.setSentDate(new Date());
+                    }
+                    String messageId = mimeMessage.getMessageID();
+                    mimeMessage.saveChanges();
+                    if (messageId != null) {
+                        mimeMessage.setHeader(HEADER_MESSAGE_ID, messageId);
+                    }
+                    Address[] addresses = mimeMessage.getAllRecipients();
+                    connection.transport.sendMessage(mimeMessage, (addresses != null ? addresses : new Address[0]));
+                    sentCount.incrementAndGet();
+                } catch (Exception ex) {
+                    Object original = (originalMessages != null ? originalMessages[i] : mimeMessage);
+                    failedMessages.put(original, ex);
+                    // 连接已断开则丢弃，后续邮件重新获取连接
+                    if (!connection.transport.isConnected()) {
+                        discardConnection(connection);
+                        connection = null;
+                    }
+                }
+            }
+        } finally {
+            if (session != null) {
+                session.connection = connection;
+            } else if (connection != null) {
+                returnConnection(connection);
+            }
+        }
+
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    /**
+     * 从池中获取可用连接，池中无可用连接且未达上限时新建
+     */
+    private PooledConnection borrowConnection() throws MessagingException, InterruptedException {
+        long deadline = System.currentTimeMillis() + borrowTimeoutMillis;
+        while (true) {
+            PooledConnection connection = idleConnections.pollFirst();
+            if (connection == null) {
+                if (openPermits.tryAcquire()) {
+                    return createConnection();
+                }
+                long waitMillis = deadline - System.currentTimeMillis();
+                if (waitMillis <= 0) {
+                    throw new MessagingException("SMTP连接池已耗尽，等待超时");
+                }
+                // 分段等待，期间有连接被关闭释放名额时可以及时新建
+                connection = idleConnections.pollFirst(Math.min(waitMillis, 100), TimeUnit.MILLISECONDS);
+                if (connection == null) {
+                    continue;
+                }
+            }
+
+            if (connection.isExpired(idleTimeoutMillis)
+                    || (connection.isExpired(VALIDATE_AFTER_IDLE_MILLIS) && !connection.transport.isConnected())) {
+                closeConnection(connection);
+                evictedCount.incrementAndGet();
+                continue;
+            }
+            reusedCount.incrementAndGet();
+            return connection;
+        }
+    }
+
+    private PooledConnection createConnection() throws MessagingException {
+        try {
+            Transport transport = connectTransport();
+            createdCount.incrementAndGet();
+            log.debug("新建SMTP连接: {}:{}", getHost(), getPort());
+            return new PooledConnection(transport);
+        } catch (MessagingException | RuntimeException ex) {
+            openPermits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * 归还连接到池中，最近使用的连接优先被复用
+     */
+    void returnConnection(PooledConnection connection) {
+        connection.lastUsedMillis = System.currentTimeMillis();
+        idleConnections.offerFirst(connection);
+    }
+
+    private void discardConnection(PooledConnection connection) {
+        brokenCount.incrementAndGet();
+        closeConnection(connection);
+    }
+
+    private void closeConnection(PooledConnection connection) {
+        try {
+            connection.transport.close();
+        } catch (Exception ex) {
+            log.debug("关闭SMTP连接失败: {}", ex.getMessage());
+        } finally {
+            openPermits.release();
+        }
+    }
+
+    /**
+     * 关闭空闲超时的连接
+     *
+     * @return 关闭的连接数
+     */
+    public int evictIdleConnections() {
+        int evicted = 0;
+        int scanned = idleConnections.size();
+        // 最久未使用的连接在队尾
+        for (int i = 0; i < scanned; i++) {
+            PooledConnection connection = idleConnections.pollLast();
+            if (connection == null) {
+                break;
+            }
+            if (connection.isExpired(idleTimeoutMillis)) {
+                closeConnection(connection);
+                evictedCount.incrementAndGet();
+                evicted++;
+            } else {
+                idleConnections.offerLast(connection);
+                break;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * 连接池统计信息
+     */
+    public Map<String, Object> getPoolStats() {
+        int idle = idleConnections.size();
+        int open = maxConnections - openPermits.availablePermits();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxConnections", maxConnections);
+        stats.put("openConnections", open);
+        stats.put("idleConnections", idle);
+        stats.put("activeConnections", Math.max(0, open - idle));
+        stats.put("createdCount", createdCount.get());
+        stats.put("reusedCount", reusedCount.get());
+        stats.put("evictedCount", evictedCount.get());
+        stats.put("brokenCount", brokenCount.get());
+        stats.put("sentCount", sentCount.get());
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        PooledConnection connection;
+        while ((connection = idleConnections.pollFirst()) != null) {
+            closeConnection(connection);
+        }
+    }
+
+    /**
+     * 池中的SMTP连接
+     */
+    static class PooledConnection {
+        private final Transport transport;
+        private volatile long lastUsedMillis;
+
+        PooledConnection(Transport transport) {
+            this.transport = transport;
+            this.lastUsedMillis = System.currentTimeMillis();
+        }
+
+        boolean isExpired(long idleTimeoutMillis) {
+            return System.currentTimeMillis() - lastUsedMillis > idleTimeoutMillis;
+        }
+    }
+
+    /**
+     * 批量发送会话，关闭时将占用的连接归还连接池
+     */
+    public static class BatchSession implements AutoCloseable {
+
+        private static final BatchSession NESTED = new BatchSession(null);
+
+        private final PooledJavaMailSender sender;
+        private PooledConnection connection;
+
+        private BatchSession(PooledJavaMailSender sender) {
+            this.sender = sender;
+        }
+
+        @Override
+        public void close() {
+            if (sender == null) {
+                return;
+            }
+            sender.currentSession.remove();
+            if (connection != null) {
+                sender.returnConnection(connection);
+                connection = null;
+            }
+        }
+    }
+}
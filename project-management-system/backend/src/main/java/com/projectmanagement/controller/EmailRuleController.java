@@ -12,6 +12,7 @@ import com.projectmanagement.annotation.OperationLog;
 import com.projectmanagement.enums.BusinessModule;
 import com.projectmanagement.enums.OperationType;
 import com.projectmanagement.service.EmailRuleService;
+import com.projectmanagement.service.EmailSendService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -28,6 +29,9 @@ public class EmailRuleController {
     @Autowired
     private EmailRuleService emailRuleService;
 
+    @Autowired
+    private EmailSendService emailSendService;
+
     /**
      * 分页查询邮件规则
      */
@@ -170,6 +174,14 @@ public class EmailRuleController {
         return Result.success(templates);
     }
 
+    /**
+     * 获取SMTP连接池统计信息
+     */
+    @GetMapping("/smtp-pool/stats")
+    public Result<Map<String, Object>> getSmtpPoolStats() {
+        return Result.success(emailSendService.getSmtpPoolStats());
+    }
+
     /**
      * 测试执行邮件规则
      */
@@ -9,14 +9,35 @@ import com.projectmanagement.annotation.OperationLog;
 import com.projectmanagement.enums.BusinessModule;
 import com.projectmanagement.enums.OperationType;
 import com.projectmanagement.service.ProjectService;
+import com.projectmanagement.service.impl.CriticalPathCache;
+import com.projectmanagement.service.impl.GanttModelCache;
+import com.projectmanagement.service.impl.GanttSnapshot;
+import com.projectmanagement.service.impl.GanttWindow;
+import com.projectmanagement.service.impl.ProjectListCache;
+import com.projectmanagement.service.impl.ProjectMembershipIndex;
+import com.projectmanagement.service.impl.ProjectWorkPlanJob;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * 项目管理控制器
@@ -28,6 +49,15 @@ import java.util.Map;
 public class ProjectController {
 
     private final ProjectService projectService;
+    private final GanttModelCache ganttModelCache;
+    private final ProjectWorkPlanJob projectWorkPlanJob;
+    private final ProjectListCache projectListCache;
+    private final ProjectMembershipIndex projectMembershipIndex;
+    private final CriticalPathCache criticalPathCache;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.gantt.stream-gzip:true}")
+    private boolean ganttStreamGzip;
 
     @GetMapping
     @OperationLog(type = OperationType.QUERY, module = BusinessModule.PROJECT, description = "查询项目列表")
@@ -179,16 +209,33 @@ public class ProjectController {
         }
     }
 
+    /**
+     * 查询工作计划更新进度
+     */
+    @GetMapping("/update-work-plans/progress")
+    public Result<Map<String, Object>> getWorkPlanProgress(HttpSession session) {
+        User currentUser = (User) session.getAttribute("currentUser");
+        if (currentUser == null) {
+            return Result.unauthorized();
+        }
+        return Result.success(projectWorkPlanJob.getProgress());
+    }
+
 
 
     /**
-     * 获取项目甘特图数据
+     * 获取项目甘特图数据，指定日期范围时只查询与范围相交的任务和里程碑
      */
     @GetMapping("/{id}/gantt")
     @OperationLog(type = OperationType.QUERY, module = BusinessModule.PROJECT, description = "获取项目甘特图数据")
-    public Result<Map<String, Object>> getProjectGantt(@PathVariable Long id) {
+    public Result<Map<String, Object>> getProjectGantt(@PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) {
+        if (startDate != null && endDate != null && endDate.isBefore(startDate)) {
+            return Result.error("结束日期不能早于开始日期");
+        }
         try {
-            Map<String, Object> ganttData = projectService.getProjectGanttData(id);
+            Map<String, Object> ganttData = projectService.getProjectGanttData(id, startDate, endDate);
             return Result.success(ganttData);
         } catch (Exception e) {
             log.error("获取项目甘特图数据失败", e);
@@ -196,23 +243,127 @@ public class ProjectController {
         }
     }
 
+    /**
+     * 获取项目关键路径：按任务依赖计算的项目开始、完成日期和关键路径上的任务
+     */
+    @GetMapping("/{id}/critical-path")
+    @OperationLog(type = OperationType.QUERY, module = BusinessModule.PROJECT, description = "获取项目关键路径")
+    public Result<Map<String, Object>> getProjectCriticalPath(@PathVariable Long id) {
+        return Result.success(projectService.getProjectSchedule(id));
+    }
+
     /**
      * 获取用户相关的所有项目甘特图数据
+     * 逐条轨道流式写出响应，客户端支持时使用gzip压缩，响应结构与 Result 一致。
+     * 可按可视日期范围只返回相交的任务和里程碑，并按 offset/limit 或上一页返回的 cursor 分页加载项目轨道
      */
     @GetMapping("/gantt")
     @OperationLog(type = OperationType.QUERY, module = BusinessModule.PROJECT, description = "获取用户全局甘特图数据")
-    public Result<Map<String, Object>> getUserProjectsGantt(HttpSession session) {
+    public void getUserProjectsGantt(HttpSession session, HttpServletRequest request, HttpServletResponse response,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @RequestParam(required = false) Integer offset,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) throws IOException {
         User currentUser = (User) session.getAttribute("currentUser");
         if (currentUser == null) {
-            return Result.unauthorized();
+            writeJson(response, Result.unauthorized());
+            return;
         }
 
+        GanttWindow window;
         try {
-            Map<String, Object> ganttData = projectService.getUserProjectsGanttData(currentUser.getId());
-            return Result.success(ganttData);
+            window = GanttWindow.of(startDate, endDate, offset, limit, cursor);
+        } catch (IllegalArgumentException e) {
+            writeJson(response, Result.error(e.getMessage()));
+            return;
+        }
+
+        GanttSnapshot snapshot;
+        try {
+            snapshot = ganttModelCache.snapshotUserGantt(currentUser.getId(), window);
         } catch (Exception e) {
             log.error("获取用户甘特图数据失败", e);
-            return Result.error("获取甘特图数据失败：" + e.getMessage());
+            writeJson(response, Result.error("获取甘特图数据失败：" + e.getMessage()));
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = ganttStreamGzip && acceptsGzip(request);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream(), 8192) : response.getOutputStream();
+        Result<Void> ok = Result.success();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeNumberField("code", ok.getCode());
+            generator.writeStringField("msg", ok.getMsg());
+            generator.writeFieldName("data");
+            snapshot.writeTo(generator);
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeJson(HttpServletResponse response, Result<?> result) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), result);
+    }
+
+    private boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    /**
+     * 获取项目列表缓存统计（命中率、失效次数）
+     */
+    @GetMapping("/cache-stats")
+    public Result<Map<String, Object>> getProjectListCacheStats(HttpSession session) {
+        User currentUser = (User) session.getAttribute("currentUser");
+        if (currentUser == null) {
+            return Result.unauthorized();
+        }
+        return Result.success(projectListCache.getStats());
+    }
+
+    /**
+     * 获取用户-项目关系索引统计（用户数、关系数、重建和修正次数）
+     */
+    @GetMapping("/membership-index/stats")
+    public Result<Map<String, Object>> getMembershipIndexStats(HttpSession session) {
+        User currentUser = (User) session.getAttribute("currentUser");
+        if (currentUser == null) {
+            return Result.unauthorized();
+        }
+        return Result.success(projectMembershipIndex.getStats());
+    }
+
+    /**
+     * 获取全局甘特图缓存统计（命中、修补、淘汰次数和数据陈旧时间）
+     */
+    @GetMapping("/gantt/cache-stats")
+    public Result<Map<String, Object>> getGanttCacheStats(HttpSession session) {
+        User currentUser = (User) session.getAttribute("currentUser");
+        if (currentUser == null) {
+            return Result.unauthorized();
+        }
+        return Result.success(ganttModelCache.getStats());
+    }
+
+    /**
+     * 获取关键路径缓存统计（构建、增量更新次数和最近一次构建耗时）
+     */
+    @GetMapping("/critical-path/cache-stats")
+    public Result<Map<String, Object>> getCriticalPathCacheStats(HttpSession session) {
+        User currentUser = (User) session.getAttribute("currentUser");
+        if (currentUser == null) {
+            return Result.unauthorized();
         }
+        return Result.success(criticalPathCache.getStats());
     }
-}
\ No newline at end of file
+}
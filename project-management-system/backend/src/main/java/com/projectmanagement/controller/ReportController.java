@@ -2,15 +2,25 @@ package com.projectmanagement.controller;
 
 import com.projectmanagement.common.Result;
 import com.projectmanagement.dto.ReportDTO;
+import com.projectmanagement.dto.ReportPage;
 import com.projectmanagement.entity.Report;
 import com.projectmanagement.annotation.OperationLog;
 import com.projectmanagement.enums.BusinessModule;
 import com.projectmanagement.enums.OperationType;
 import com.projectmanagement.service.ReportService;
+import com.projectmanagement.service.impl.ProjectSnapshotJob;
+import com.projectmanagement.service.impl.ReportJobManager;
+import com.projectmanagement.service.impl.ReportStatsCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 报告管理控制器
@@ -23,6 +33,15 @@ public class ReportController {
     @Autowired
     private ReportService reportService;
 
+    @Autowired
+    private ReportJobManager reportJobManager;
+
+    @Autowired
+    private ProjectSnapshotJob projectSnapshotJob;
+
+    @Autowired
+    private ReportStatsCache reportStatsCache;
+
     /**
      * 获取报告列表
      */
@@ -48,16 +67,35 @@ public class ReportController {
         return Result.success(reports);
     }
 
+    /**
+     * 按游标分页获取报告摘要列表，带 limit 参数时生效；摘要不含报告正文，正文通过报告详情获取
+     * 不带 limit 时仍返回完整列表以兼容旧客户端
+     */
+    @GetMapping(params = "limit")
+    @OperationLog(type = OperationType.QUERY, module = BusinessModule.REPORT, description = "分页查询报告列表")
+    public Result<ReportPage> getReportPage(
+            @RequestParam(required = false) Long projectId,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Long creatorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam Integer limit) {
+        return Result.success(reportService.getReportPage(projectId, type, creatorId, cursor, limit));
+    }
+
     /**
      * 根据ID获取报告详情
+     * 响应带 ETag，请求头 If-None-Match 与之一致时返回 304，不再传输报告正文
      */
     @GetMapping("/{id}")
     @OperationLog(type = OperationType.QUERY, module = BusinessModule.REPORT, description = "查询报告详情")
-    public Result<Report> getReport(@PathVariable Long id) {
+    public Result<Report> getReport(@PathVariable Long id, WebRequest webRequest) {
         Report report = reportService.getReportById(id);
         if (report == null) {
             return Result.error("报告不存在");
         }
+        if (webRequest.checkNotModified(etagOf(report))) {
+            return null;
+        }
         return Result.success(report);
     }
 
@@ -75,6 +113,78 @@ public class ReportController {
         }
     }
 
+    /**
+     * 提交后台报告生成任务，返回任务ID和当前进度；相同参数的任务进行中时返回同一个任务
+     */
+    @PostMapping("/jobs")
+    @OperationLog(type = OperationType.CREATE, module = BusinessModule.REPORT, description = "提交报告生成任务")
+    public Result<Map<String, Object>> submitReportJob(@RequestBody ReportDTO reportDTO) {
+        return Result.success(reportJobManager.submit(reportDTO).toMap());
+    }
+
+    /**
+     * 查询报告生成任务进度
+     */
+    @GetMapping("/jobs/{jobId}")
+    public Result<Map<String, Object>> getReportJob(@PathVariable String jobId) {
+        return Result.success(reportJobManager.getJob(jobId).toMap());
+    }
+
+    /**
+     * 获取报告生成任务的结果
+     */
+    @GetMapping("/jobs/{jobId}/result")
+    public Result<Report> getReportJobResult(@PathVariable String jobId) {
+        return Result.success(reportJobManager.getResult(jobId));
+    }
+
+    /**
+     * 取消报告生成任务
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    @OperationLog(type = OperationType.DELETE, module = BusinessModule.REPORT, description = "取消报告生成任务")
+    public Result<Map<String, Object>> cancelReportJob(@PathVariable String jobId) {
+        if (!reportJobManager.cancel(jobId)) {
+            return Result.error("任务已结束，无法取消");
+        }
+        return Result.success(reportJobManager.getJob(jobId).toMap());
+    }
+
+    /**
+     * 报告生成任务统计
+     */
+    @GetMapping("/jobs/stats")
+    public Result<Map<String, Object>> getReportJobStats() {
+        return Result.success(reportJobManager.getStats());
+    }
+
+    /**
+     * 手动生成指定日期的项目快照，未指定日期时补写截至前一天尚未生成的快照
+     */
+    @PostMapping("/snapshots/run")
+    @OperationLog(type = OperationType.CREATE, module = BusinessModule.REPORT, description = "生成项目快照")
+    public Result<Map<String, Object>> runProjectSnapshot(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            if (date != null) {
+                projectSnapshotJob.snapshot(date);
+            } else {
+                projectSnapshotJob.snapshotThrough(LocalDate.now().minusDays(1));
+            }
+            return Result.success(projectSnapshotJob.getStats());
+        } catch (IllegalStateException e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 项目快照任务统计
+     */
+    @GetMapping("/snapshots/stats")
+    public Result<Map<String, Object>> getProjectSnapshotStats() {
+        return Result.success(projectSnapshotJob.getStats());
+    }
+
     /**
      * 更新报告
      */
@@ -112,22 +222,32 @@ public class ReportController {
      */
     @GetMapping("/stats")
     @OperationLog(type = OperationType.QUERY, module = BusinessModule.REPORT, description = "查询报告统计数据")
-    public Result<Object> getReportStats() {
+    public Result<Object> getReportStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long projectId) {
         try {
-            List<Report> weeklyReports = reportService.getReportsByType("WEEKLY");
-            List<Report> biweeklyReports = reportService.getReportsByType("BIWEEKLY");
-            List<Report> monthlyReports = reportService.getReportsByType("MONTHLY");
-            List<Report> stageReports = reportService.getReportsByType("STAGE");
-
-            return Result.success(new Object() {
-                public final int weekly = weeklyReports.size();
-                public final int biweekly = biweeklyReports.size();
-                public final int monthly = monthlyReports.size();
-                public final int stage = stageReports.size();
-                public final int total = weekly + biweekly + monthly + stage;
-            });
+            return Result.success(reportService.getReportStats(startDate, endDate, projectId));
         } catch (Exception e) {
             return Result.error("获取统计信息失败: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 报告统计缓存命中情况
+     */
+    @GetMapping("/stats/cache")
+    public Result<Map<String, Object>> getReportStatsCacheStats() {
+        return Result.success(reportStatsCache.getStats());
+    }
+
+    /**
+     * 报告版本标识，由更新时间和报告各字段计算，报告修改后随之变化
+     */
+    private static String etagOf(Report report) {
+        String raw = report.getId() + "|" + report.getUpdateTime() + "|" + report.getProjectId() + "|"
+                + report.getType() + "|" + report.getTitle() + "|" + report.getReportDate() + "|"
+                + report.getContent();
+        return "\"" + DigestUtils.md5DigestAsHex(raw.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -3,23 +3,32 @@ package com.projectmanagement.controller;
 import com.projectmanagement.common.Result;
 import com.projectmanagement.common.ResultCode;
 import com.projectmanagement.dto.TodoDTO;
+import com.projectmanagement.dto.TodoImportResult;
+import com.projectmanagement.dto.TodoPage;
 import com.projectmanagement.entity.Todo;
+import com.projectmanagement.entity.TodoDependency;
 import com.projectmanagement.entity.User;
 import com.projectmanagement.annotation.OperationLog;
 import com.projectmanagement.enums.BusinessModule;
 import com.projectmanagement.enums.OperationType;
+import com.projectmanagement.enums.TodoListView;
 import com.projectmanagement.exception.ResourceNotFoundException;
 import com.projectmanagement.exception.UnauthorizedException;
+import com.projectmanagement.exception.ValidationException;
 import com.projectmanagement.service.TodoService;
 import com.projectmanagement.service.EmailSendService;
 import com.projectmanagement.service.UserService;
+import com.projectmanagement.service.impl.TodoImportReader;
+import com.projectmanagement.service.impl.TodoNotificationBus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.util.StringUtils;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -33,6 +42,7 @@ public class TodoController {
 
     private final TodoService todoService;
     private final EmailSendService emailSendService;
+    private final TodoNotificationBus todoNotificationBus;
     private final UserService userService;
 
     @GetMapping
@@ -118,6 +128,100 @@ public class TodoController {
         return Result.success(todos);
     }
 
+    /**
+     * 按游标分页查询任务列表，带 limit 参数时生效；不带时仍返回完整列表以兼容旧客户端
+     * 管理员为全部任务，普通用户为相关任务
+     */
+    @GetMapping(params = "limit")
+    @OperationLog(type = OperationType.QUERY, module = BusinessModule.TODO, description = "分页查询任务列表")
+    public Result<TodoPage> getTodoPage(@RequestParam(required = false) String cursor,
+                                        @RequestParam Integer limit,
+                                        HttpSession session) {
+        return todoPage(null, cursor, limit, session);
+    }
+
+    @GetMapping(value = "/today", params = "limit")
+    @OperationLog(type = OperationType.QUERY, module = BusinessModule.TODO, description = "分页查询今日任务")
+    public Result<TodoPage> getTodayTodoPage(@RequestParam(required = false) String cursor,
+                                             @RequestParam Integer limit,
+                                             HttpSession session) {
+        return todoPage(TodoListView.TODAY, cursor, limit, session);
+    }
+
+    @GetMapping(value = "/week", params = "limit")
+    @OperationLog(type = OperationType.QUERY, module = BusinessModule.TODO, description = "分页查询本周任务")
+    public Result<TodoPage> getWeekTodoPage(@RequestParam(required = false) String cursor,
+                                            @RequestParam Integer limit,
+                                            HttpSession session) {
+        return todoPage(TodoListView.WEEK, cursor, limit, session);
+    }
+
+    @GetMapping(value = "/high", params = "limit")
+    @OperationLog(type = OperationType.QUERY, module = BusinessModule.TODO, description = "分页查询高优先级任务")
+    public Result<TodoPage> getHighPriorityTodoPage(@RequestParam(required = false) String cursor,
+                                                    @RequestParam Integer limit,
+                                                    HttpSession session) {
+        return todoPage(TodoListView.HIGH, cursor, limit, session);
+    }
+
+    @GetMapping(value = "/user/{userId}", params = "limit")
+    @OperationLog(type = OperationType.QUERY, module = BusinessModule.TODO, description = "分页查询用户任务")
+    public Result<TodoPage> getUserTodoPage(@PathVariable Long userId,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam Integer limit) {
+        return Result.success(todoService.getTodoPage(TodoListView.OPEN, userId, cursor, limit));
+    }
+
+    /**
+     * 统计任务列表总数，view 为 all（默认）、today、week、high，只执行一次不关联其他表的 COUNT
+     */
+    @GetMapping("/count")
+    @OperationLog(type = OperationType.QUERY, module = BusinessModule.TODO, description = "统计任务数量")
+    public Result<Long> countTodos(@RequestParam(required = false) String view, HttpSession session) {
+        User currentUser = (User) session.getAttribute("currentUser");
+        if (currentUser == null) {
+            return Result.unauthorized();
+        }
+        TodoListView listView = resolveView(view, currentUser);
+        return Result.success(todoService.countTodos(listView, listUserId(listView, currentUser)));
+    }
+
+    private Result<TodoPage> todoPage(TodoListView view, String cursor, Integer limit, HttpSession session) {
+        User currentUser = (User) session.getAttribute("currentUser");
+        if (currentUser == null) {
+            return Result.unauthorized();
+        }
+        TodoListView listView = view != null ? view : resolveView(null, currentUser);
+        return Result.success(todoService.getTodoPage(listView, listUserId(listView, currentUser), cursor, limit));
+    }
+
+    /**
+     * 管理员的 all 视图为全部任务，普通用户为相关任务；其余视图普通用户只看自己负责的
+     */
+    private TodoListView resolveView(String view, User currentUser) {
+        if (!StringUtils.hasText(view) || "all".equalsIgnoreCase(view)) {
+            return isAdmin(currentUser) ? TodoListView.ALL : TodoListView.RELATED;
+        }
+        switch (view.toLowerCase()) {
+            case "today":
+                return TodoListView.TODAY;
+            case "week":
+                return TodoListView.WEEK;
+            case "high":
+                return TodoListView.HIGH;
+            default:
+                throw new ValidationException("不支持的任务列表视图: " + view);
+        }
+    }
+
+    private Long listUserId(TodoListView view, User currentUser) {
+        return view == TodoListView.ALL || isAdmin(currentUser) ? null : currentUser.getId();
+    }
+
+    private boolean isAdmin(User user) {
+        return "barlin.zhang".equals(user.getUsername());
+    }
+
     @GetMapping("/{id}")
     @OperationLog(type = OperationType.QUERY, module = BusinessModule.TODO, description = "查询任务详情")
     public Result<Todo> getTodoDetail(@PathVariable Long id) {
@@ -144,21 +248,9 @@ public class TodoController {
         Todo todo = todoService.createTodo(todoDTO);
         log.info("✅ 任务创建成功，任务ID: {}", todo.getId());
 
-        // 触发任务分配邮件通知
+        // 触发任务分配邮件通知（异步处理，不阻塞请求）
         if (todo.getAssigneeId() != null) {
-            log.info("--- 开始处理任务分配邮件通知 ---");
-            try {
-                User assignee = userService.getUserById(todo.getAssigneeId());
-                if (assignee != null) {
-                    log.info("找到分配用户: {}({})", assignee.getUsername(), assignee.getEmail());
-                    emailSendService.handleTaskAssignmentNotification(todo, assignee, currentUser);
-                } else {
-                    log.warn("❌ 未找到分配用户，用户ID: {}", todo.getAssigneeId());
-                }
-            } catch (Exception e) {
-                // 邮件发送失败不影响任务创建
-                log.error("❌ 任务分配邮件通知发送失败: {}", e.getMessage(), e);
-            }
+            todoNotificationBus.publishAssignment(todo, todo.getAssigneeId(), currentUser);
         } else {
             log.info("任务未分配给任何用户，跳过邮件通知");
         }
@@ -182,22 +274,14 @@ public class TodoController {
 
         Todo todo = todoService.updateTodo(id, todoDTO);
 
-        try {
-            // 检查负责人是否发生变化（重新分配）
-            if (todo.getAssigneeId() != null && !todo.getAssigneeId().equals(originalAssigneeId)) {
-                User assignee = userService.getUserById(todo.getAssigneeId());
-                if (assignee != null) {
-                    emailSendService.handleTaskAssignmentNotification(todo, assignee, currentUser);
-                }
-            }
+        // 检查负责人是否发生变化（重新分配）
+        if (todo.getAssigneeId() != null && !todo.getAssigneeId().equals(originalAssigneeId)) {
+            todoNotificationBus.publishAssignment(todo, todo.getAssigneeId(), currentUser);
+        }
 
-            // 检查状态是否发生变化
-            if (todo.getStatus() != null && !todo.getStatus().equals(originalStatus)) {
-                emailSendService.handleTaskStatusChangeNotification(todo, originalStatus, todo.getStatus());
-            }
-        } catch (Exception e) {
-            // 邮件发送失败不影响任务更新
-            System.err.println("任务更新邮件通知发送失败: " + e.getMessage());
+        // 检查状态是否发生变化
+        if (todo.getStatus() != null && !todo.getStatus().equals(originalStatus)) {
+            todoNotificationBus.publishStatusChange(todo, originalStatus, todo.getStatus());
         }
 
         return Result.success("任务更新成功", todo);
@@ -232,6 +316,64 @@ public class TodoController {
         return Result.success("任务删除成功");
     }
 
+    /**
+     * 批量导入任务
+     * 请求体可为任务JSON数组、NDJSON（application/x-ndjson）或带表头的CSV（text/csv），按Content-Type识别；
+     * 全部数据校验通过后才写入，同一负责人新分配的多个任务合并为一封通知
+     */
+    @PostMapping("/import")
+    @OperationLog(type = OperationType.CREATE, module = BusinessModule.TODO, description = "批量导入任务")
+    public Result<TodoImportResult> importTodos(HttpServletRequest request, HttpSession session) throws IOException {
+        User currentUser = (User) session.getAttribute("currentUser");
+        if (currentUser == null) {
+            throw new UnauthorizedException("请先登录");
+        }
+
+        TodoImportResult result = todoService.importTodos(request.getInputStream(),
+                TodoImportReader.formatOf(request.getContentType()), currentUser.getId());
+        if (result.hasErrors()) {
+            return new Result<>(ResultCode.ERROR, "导入数据校验失败，共 " + result.getErrors().size() + " 条错误", result);
+        }
+
+        if (!result.getAssignedTodos().isEmpty()) {
+            todoNotificationBus.publishBulkAssignment(result.getAssignedTodos(), currentUser);
+        }
+        log.info("用户 {} 批量导入任务，新增 {} 条，更新 {} 条", currentUser.getUsername(), result.getCreated(),
+                result.getUpdated());
+        return Result.success("任务导入成功", result);
+    }
+
+    @GetMapping("/{id}/dependencies")
+    @OperationLog(type = OperationType.QUERY, module = BusinessModule.TODO, description = "查询任务依赖")
+    public Result<List<TodoDependency>> getDependencies(@PathVariable Long id) {
+        return Result.success(todoService.getDependencies(id));
+    }
+
+    @PostMapping("/{id}/dependencies/{predecessorId}")
+    @OperationLog(type = OperationType.CREATE, module = BusinessModule.TODO, description = "添加任务依赖")
+    public Result<TodoDependency> addDependency(@PathVariable Long id, @PathVariable Long predecessorId,
+            HttpSession session) {
+        User currentUser = (User) session.getAttribute("currentUser");
+        if (currentUser == null) {
+            throw new UnauthorizedException("请先登录");
+        }
+        return Result.success("依赖添加成功", todoService.addDependency(id, predecessorId));
+    }
+
+    @DeleteMapping("/{id}/dependencies/{predecessorId}")
+    @OperationLog(type = OperationType.DELETE, module = BusinessModule.TODO, description = "删除任务依赖")
+    public Result<String> removeDependency(@PathVariable Long id, @PathVariable Long predecessorId,
+            HttpSession session) {
+        User currentUser = (User) session.getAttribute("currentUser");
+        if (currentUser == null) {
+            throw new UnauthorizedException("请先登录");
+        }
+        if (!todoService.removeDependency(id, predecessorId)) {
+            throw new ResourceNotFoundException("任务依赖不存在");
+        }
+        return Result.success("依赖删除成功");
+    }
+
     @PutMapping("/{id}/status")
     @OperationLog(type = OperationType.UPDATE, module = BusinessModule.TODO, description = "更新任务状态")
     public Result<String> updateStatus(@PathVariable Long id,
@@ -243,14 +385,10 @@ public class TodoController {
         boolean success = todoService.updateTodoStatus(id, status);
 
         if (success) {
-            try {
-                // 状态更新后触发邮件通知
-                Todo updatedTodo = todoService.getTodoDetail(id);
-                if (updatedTodo != null) {
-                    emailSendService.handleTaskStatusChangeNotification(updatedTodo, originalStatus, status);
-                }
-            } catch (Exception e) {
-                System.err.println("状态变更邮件通知发送失败: " + e.getMessage());
+            // 状态更新后触发邮件通知
+            Todo updatedTodo = todoService.getTodoDetail(id);
+            if (updatedTodo != null) {
+                todoNotificationBus.publishStatusChange(updatedTodo, originalStatus, status);
             }
         }
 
@@ -0,0 +1,111 @@
+package com.projectmanagement.dto;
+
+import com.projectmanagement.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 报告列表分页查询参数
+ * 作为 ReportMapper 摘要分页查询的参数对象；按创建时间倒序，游标记录上一页最后一条的创建时间和ID，
+ * 下一页从该位置之后继续读取，查询耗时与翻到第几页无关
+ */
+public final class ReportListQuery {
+
+    private static final String SEPARATOR = "|";
+
+    private final Long projectId;
+    private final String type;
+    private final Long creatorId;
+
+    private boolean afterCursor;
+    private LocalDateTime afterCreateTime;
+    private Long afterId;
+    private int limit;
+
+    private ReportListQuery(Long projectId, String type, Long creatorId) {
+        this.projectId = projectId;
+        this.type = type;
+        this.creatorId = creatorId;
+    }
+
+    /**
+     * 各筛选条件为null时不按该条件过滤
+     */
+    public static ReportListQuery of(Long projectId, String type, Long creatorId) {
+        return new ReportListQuery(projectId, type, creatorId);
+    }
+
+    /**
+     * 设置游标和每页条数，cursor 为空时从第一页开始
+     */
+    public ReportListQuery page(String cursor, int limit) {
+        this.limit = limit;
+        this.afterCursor = false;
+        if (cursor == null || cursor.isEmpty()) {
+            return this;
+        }
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("无效的分页游标");
+        }
+        if (parts.length != 2) {
+            throw new ValidationException("无效的分页游标");
+        }
+        try {
+            this.afterCreateTime = LocalDateTime.parse(parts[0]);
+            this.afterId = Long.valueOf(parts[1]);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new ValidationException("无效的分页游标");
+        }
+        this.afterCursor = true;
+        return this;
+    }
+
+    /**
+     * 生成指向该报告之后的游标
+     */
+    public String cursorAfter(ReportSummary report) {
+        String raw = report.getCreateTime() + SEPARATOR + report.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getCreatorId() {
+        return creatorId;
+    }
+
+    public boolean isAfterCursor() {
+        return afterCursor;
+    }
+
+    public LocalDateTime getAfterCreateTime() {
+        return afterCreateTime;
+    }
+
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 多取一条用于判断是否还有下一页
+     */
+    public int getFetchSize() {
+        return limit + 1;
+    }
+}
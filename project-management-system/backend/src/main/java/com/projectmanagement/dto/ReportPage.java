@@ -0,0 +1,21 @@
+package com.projectmanagement.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 报告列表分页结果
+ * 按游标续读，nextCursor 原样传回即可取下一页，hasMore 为 false 时 nextCursor 为 null
+ */
+@Data
+public class ReportPage {
+
+    private List<ReportSummary> items;
+
+    private int limit;
+
+    private boolean hasMore;
+
+    private String nextCursor;
+}
@@ -0,0 +1,39 @@
+package com.projectmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 报告列表摘要
+ * 列表只展示标题、类型和日期，不包含报告正文；正文通过 GET /reports/{id} 获取
+ */
+@Data
+public class ReportSummary {
+
+    private Long id;
+
+    private Long projectId;
+
+    private String projectName;
+
+    private String type;
+
+    private String title;
+
+    private LocalDate reportDate;
+
+    private Long creatorId;
+
+    private String creatorName;
+
+    private String creatorNickname;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createTime;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updateTime;
+}
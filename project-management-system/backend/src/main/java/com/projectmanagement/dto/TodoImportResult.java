@@ -0,0 +1,49 @@
+package com.projectmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.projectmanagement.entity.Todo;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 待办任务批量导入结果
+ * 任意一条数据校验失败时整批不写入，errors 列出全部失败的行
+ */
+@Data
+public class TodoImportResult {
+
+    private int total;
+
+    private int created;
+
+    private int updated;
+
+    private List<RowError> errors = new ArrayList<>();
+
+    /**
+     * 新分配负责人的任务（新建或负责人变化），用于按负责人合并发送分配通知
+     */
+    @JsonIgnore
+    private List<Todo> assignedTodos = new ArrayList<>();
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    public void addError(int row, String message) {
+        errors.add(new RowError(row, message));
+    }
+
+    /**
+     * 校验失败的行，行号从1开始
+     */
+    @Data
+    public static class RowError {
+
+        private final int row;
+
+        private final String message;
+    }
+}
@@ -0,0 +1,148 @@
+package com.projectmanagement.dto;
+
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.enums.TodoListView;
+import com.projectmanagement.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Base64;
+
+/**
+ * 任务列表分页查询参数
+ * 作为 TodoMapper 分页和计数查询的参数对象；游标记录上一页最后一条的排序键，
+ * 下一页从该位置之后继续按索引读取，查询耗时与翻到第几页无关
+ */
+public final class TodoListQuery {
+
+    private static final String SEPARATOR = "|";
+
+    private final TodoListView view;
+    private final Long userId;
+    private final LocalDate today;
+    private final LocalDate weekStart;
+    private final LocalDate weekEnd;
+
+    private boolean afterCursor;
+    private LocalDate afterDueDate;
+    private LocalDateTime afterCreateTime;
+    private Long afterId;
+    private int limit;
+
+    private TodoListQuery(TodoListView view, Long userId, LocalDate today) {
+        this.view = view;
+        this.userId = userId;
+        this.today = today;
+        // 与 WEEK(date) 默认模式一致：一周从周日开始，且不跨年
+        LocalDate start = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.SUNDAY));
+        LocalDate end = start.plusDays(6);
+        this.weekStart = start.getYear() < today.getYear() ? today.withDayOfYear(1) : start;
+        this.weekEnd = end.getYear() > today.getYear() ? today.withDayOfYear(today.lengthOfYear()) : end;
+    }
+
+    /**
+     * @param userId 为null时不按负责人过滤（RELATED 视图必须指定）
+     */
+    public static TodoListQuery of(TodoListView view, Long userId, LocalDate today) {
+        return new TodoListQuery(view, userId, today);
+    }
+
+    /**
+     * 设置游标和每页条数，cursor 为空时从第一页开始
+     */
+    public TodoListQuery page(String cursor, int limit) {
+        this.limit = limit;
+        this.afterCursor = false;
+        if (cursor == null || cursor.isEmpty()) {
+            return this;
+        }
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("无效的分页游标");
+        }
+        if (parts.length != 3 || !view.getCode().equals(parts[0])) {
+            throw new ValidationException("无效的分页游标");
+        }
+        try {
+            this.afterId = Long.valueOf(parts[2]);
+            if (view.orderByCreateTime()) {
+                this.afterCreateTime = LocalDateTime.parse(parts[1]);
+            } else {
+                this.afterDueDate = parts[1].isEmpty() ? null : LocalDate.parse(parts[1]);
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new ValidationException("无效的分页游标");
+        }
+        this.afterCursor = true;
+        return this;
+    }
+
+    /**
+     * 生成指向该任务之后的游标，游标与视图绑定，不能跨视图使用
+     */
+    public String cursorAfter(Todo todo) {
+        Object key = view.orderByCreateTime() ? todo.getCreateTime() : todo.getDueDate();
+        String raw = view.getCode() + SEPARATOR + (key != null ? key.toString() : "") + SEPARATOR + todo.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public TodoListView getViewType() {
+        return view;
+    }
+
+    /**
+     * 视图编码，供XML中的条件判断使用
+     */
+    public String getView() {
+        return view.getCode();
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDate getToday() {
+        return today;
+    }
+
+    public LocalDate getWeekStart() {
+        return weekStart;
+    }
+
+    public LocalDate getWeekEnd() {
+        return weekEnd;
+    }
+
+    public boolean isAfterCursor() {
+        return afterCursor;
+    }
+
+    public LocalDate getAfterDueDate() {
+        return afterDueDate;
+    }
+
+    public LocalDateTime getAfterCreateTime() {
+        return afterCreateTime;
+    }
+
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 多取一条用于判断是否还有下一页
+     */
+    public int getFetchSize() {
+        return limit + 1;
+    }
+}
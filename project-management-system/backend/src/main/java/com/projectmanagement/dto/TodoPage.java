@@ -0,0 +1,22 @@
+package com.projectmanagement.dto;
+
+import com.projectmanagement.entity.Todo;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 任务列表分页结果
+ * 按游标续读，nextCursor 原样传回即可取下一页，hasMore 为 false 时 nextCursor 为 null
+ */
+@Data
+public class TodoPage {
+
+    private List<Todo> items;
+
+    private int limit;
+
+    private boolean hasMore;
+
+    private String nextCursor;
+}
@@ -0,0 +1,61 @@
+package com.projectmanagement.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 提醒去重台账实体
+ * 每条记录表示某规则在某天已为某用户的某个任务生成过提醒
+ */
+@Data
+@TableName("email_reminder_ledger")
+public class EmailReminderLedger {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 提醒日期
+     */
+    @TableField("remind_date")
+    private LocalDate remindDate;
+
+    /**
+     * 提醒类型(DEADLINE/OVERDUE)
+     */
+    @TableField("reminder_type")
+    private String reminderType;
+
+    /**
+     * 邮件规则ID，默认提醒为0
+     */
+    @TableField("rule_id")
+    private Long ruleId;
+
+    /**
+     * 任务ID
+     */
+    @TableField("todo_id")
+    private Long todoId;
+
+    /**
+     * 收件用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 写入批次令牌
+     */
+    @TableField("claim_token")
+    private String claimToken;
+
+    /**
+     * 创建时间
+     */
+    @TableField("create_time")
+    private LocalDateTime createTime;
+}
@@ -75,7 +75,8 @@ public class EmailSendQueue {
     private LocalDateTime scheduledTime;
 
     /**
-     * 状态(PENDING/PROCESSING/COMPLETED/FAILED/CANCELLED)
+     * 状态(PENDING/PROCESSING/COMPLETED/FAILED/CANCELLED/MERGED)
+     * MERGED 表示已合并到推迟发送的汇总邮件中
      */
     @TableField("status")
     private String status;
@@ -98,6 +99,18 @@ public class EmailSendQueue {
     @TableField("error_message")
     private String errorMessage;
 
+    /**
+     * 领取令牌（标识当前占有该记录的分发批次）
+     */
+    @TableField("claim_token")
+    private String claimToken;
+
+    /**
+     * 领取租约到期时间，过期未完成的记录可被重新领取
+     */
+    @TableField("lease_expire_time")
+    private LocalDateTime leaseExpireTime;
+
     /**
      * 实际发送时间
      */
@@ -0,0 +1,116 @@
+package com.projectmanagement.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 项目每日快照实体
+ * 每个项目每天一条，记录当天结束时的任务状态、优先级分布、当天完成和到期未完成的任务数以及里程碑状态，
+ * 周报、双周报、月报按报告周期汇总快照，不再重新扫描任务表
+ */
+@Data
+@TableName("project_daily_snapshots")
+public class ProjectSnapshot {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 项目ID
+     */
+    @TableField("project_id")
+    private Long projectId;
+
+    /**
+     * 快照日期
+     */
+    @TableField("snapshot_date")
+    private LocalDate snapshotDate;
+
+    /**
+     * 待开始（TODO）任务数
+     */
+    @TableField("todo_count")
+    private Integer todoCount;
+
+    /**
+     * 进行中（PROGRESS）任务数
+     */
+    @TableField("progress_count")
+    private Integer progressCount;
+
+    /**
+     * 已完成（DONE）任务数
+     */
+    @TableField("done_count")
+    private Integer doneCount;
+
+    /**
+     * 未完成（非DONE）任务数
+     */
+    @TableField("open_count")
+    private Integer openCount;
+
+    /**
+     * 未完成任务中高、中、低优先级的数量
+     */
+    @TableField("high_open_count")
+    private Integer highOpenCount;
+
+    @TableField("medium_open_count")
+    private Integer mediumOpenCount;
+
+    @TableField("low_open_count")
+    private Integer lowOpenCount;
+
+    /**
+     * 当天完成的任务数
+     */
+    @TableField("completed_count")
+    private Integer completedCount;
+
+    /**
+     * 当天到期但未完成的任务数
+     */
+    @TableField("slipped_count")
+    private Integer slippedCount;
+
+    /**
+     * 截至当天已到期未完成的任务数
+     */
+    @TableField("overdue_count")
+    private Integer overdueCount;
+
+    /**
+     * 项目状态
+     */
+    @TableField("project_status")
+    private String projectStatus;
+
+    /**
+     * 项目进度
+     */
+    @TableField("project_progress")
+    private Integer projectProgress;
+
+    /**
+     * 当前里程碑名称
+     */
+    @TableField("milestone_name")
+    private String milestoneName;
+
+    /**
+     * 当前里程碑进度
+     */
+    @TableField("milestone_progress")
+    private Integer milestoneProgress;
+
+    /**
+     * 创建时间
+     */
+    @TableField("create_time")
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,42 @@
+package com.projectmanagement.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待办任务依赖关系实体
+ * 后续任务必须在前置任务完成后才能开始，前置任务和后续任务属于同一项目
+ */
+@Data
+@TableName("todo_dependencies")
+public class TodoDependency {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 项目ID
+     */
+    @TableField("project_id")
+    private Long projectId;
+
+    /**
+     * 前置任务ID
+     */
+    @TableField("predecessor_id")
+    private Long predecessorId;
+
+    /**
+     * 后续任务ID
+     */
+    @TableField("successor_id")
+    private Long successorId;
+
+    /**
+     * 创建时间
+     */
+    @TableField("create_time")
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,37 @@
+package com.projectmanagement.enums;
+
+/**
+ * 任务列表视图枚举
+ * 决定分页查询的过滤条件和排序键：RELATED 按 (create_time DESC, id DESC) 排序，其余按 (due_date, id) 排序
+ */
+public enum TodoListView {
+    ALL("ALL", "全部任务"),
+    RELATED("RELATED", "用户相关任务"),
+    TODAY("TODAY", "今日任务"),
+    WEEK("WEEK", "本周任务"),
+    HIGH("HIGH", "高优先级任务"),
+    OPEN("OPEN", "未完成任务");
+
+    private final String code;
+    private final String description;
+
+    TodoListView(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 是否按创建时间倒序分页
+     */
+    public boolean orderByCreateTime() {
+        return this == RELATED;
+    }
+}
@@ -0,0 +1,60 @@
+package com.projectmanagement.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.projectmanagement.entity.EmailReminderLedger;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 提醒去重台账Mapper接口
+ */
+@Mapper
+public interface EmailReminderLedgerMapper extends BaseMapper<EmailReminderLedger> {
+
+    /**
+     * 批量登记提醒，已存在的记录（唯一键冲突）被忽略；
+     * 新写入的记录带有本批次令牌，可据此查出本批次实际登记成功的记录
+     */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO email_reminder_ledger " +
+            "(remind_date, reminder_type, rule_id, todo_id, user_id, claim_token, create_time) VALUES " +
+            "<foreach collection='entries' item='e' separator=','>" +
+            "(#{e.remindDate}, #{e.reminderType}, #{e.ruleId}, #{e.todoId}, #{e.userId}, #{claimToken}, NOW())" +
+            "</foreach>" +
+            "</script>")
+    int insertIgnoreBatch(@Param("entries") Collection<EmailReminderLedger> entries,
+            @Param("claimToken") String claimToken);
+
+    /**
+     * 查询指定批次令牌登记成功的记录
+     */
+    @Select("SELECT todo_id, user_id FROM email_reminder_ledger WHERE claim_token = #{claimToken}")
+    List<EmailReminderLedger> selectByClaimToken(@Param("claimToken") String claimToken);
+
+    /**
+     * 查询指定日期、类型、规则下已登记的任务
+     */
+    @Select("<script>" +
+            "SELECT todo_id, user_id FROM email_reminder_ledger " +
+            "WHERE remind_date = #{remindDate} AND reminder_type = #{reminderType} AND rule_id = #{ruleId} " +
+            "AND todo_id IN " +
+            "<foreach collection='todoIds' item='todoId' open='(' separator=',' close=')'>#{todoId}</foreach>" +
+            "</script>")
+    List<EmailReminderLedger> selectRecorded(@Param("remindDate") LocalDate remindDate,
+            @Param("reminderType") String reminderType,
+            @Param("ruleId") Long ruleId,
+            @Param("todoIds") Collection<Long> todoIds);
+
+    /**
+     * 清理指定日期之前的台账记录
+     */
+    @Delete("DELETE FROM email_reminder_ledger WHERE remind_date < #{beforeDate}")
+    int deleteBefore(@Param("beforeDate") LocalDate beforeDate);
+}
@@ -2,11 +2,89 @@ package com.projectmanagement.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.projectmanagement.entity.EmailSendQueue;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 邮件发送队列Mapper接口
  */
 @Mapper
 public interface EmailSendQueueMapper extends BaseMapper<EmailSendQueue> {
-} 
\ No newline at end of file
+
+    /**
+     * 原子领取一批待发送邮件
+     * 单条UPDATE内完成筛选和加锁，多个节点并发执行时同一条记录只会被一个领取令牌占有；
+     * 处理中但租约已过期的记录（节点宕机遗留）会被重新领取
+     *
+     * @return 实际领取的记录数
+     */
+    @Update("UPDATE email_send_queue " +
+            "SET status = 'PROCESSING', claim_token = #{claimToken}, " +
+            "lease_expire_time = DATE_ADD(NOW(), INTERVAL #{leaseSeconds} SECOND), update_time = NOW() " +
+            "WHERE (status = 'PENDING' AND scheduled_time <= NOW()) " +
+            "OR (status = 'PROCESSING' AND lease_expire_time < NOW()) " +
+            "ORDER BY priority DESC, create_time ASC " +
+            "LIMIT #{limit}")
+    int claimBatch(@Param("claimToken") String claimToken,
+            @Param("leaseSeconds") int leaseSeconds,
+            @Param("limit") int limit);
+
+    /**
+     * 查询指定领取令牌占有的邮件
+     */
+    @Select("SELECT * FROM email_send_queue WHERE claim_token = #{claimToken} AND status = 'PROCESSING'")
+    List<EmailSendQueue> selectByClaimToken(@Param("claimToken") String claimToken);
+
+    /**
+     * 释放领取令牌仍占有的邮件，放回待发送状态
+     */
+    @Update("UPDATE email_send_queue " +
+            "SET status = 'PENDING', claim_token = NULL, lease_expire_time = NULL, update_time = NOW() " +
+            "WHERE claim_token = #{claimToken} AND status = 'PROCESSING'")
+    int releaseClaim(@Param("claimToken") String claimToken);
+
+    /**
+     * 查询并锁定用户尚未被领取的推迟汇总邮件，需在事务中调用，
+     * 同一用户的并发合并在此排队，避免基于同一份内容追加互相覆盖
+     */
+    @Select("SELECT * FROM email_send_queue " +
+            "WHERE user_id = #{userId} AND email_type = 'DEFERRED_DIGEST' AND status = 'PENDING' " +
+            "AND claim_token IS NULL " +
+            "ORDER BY id DESC LIMIT 1 FOR UPDATE")
+    EmailSendQueue selectPendingDigest(@Param("userId") Long userId);
+
+    /**
+     * 追加汇总邮件内容，仅当内容仍为读取时的版本且尚未被领取时生效
+     *
+     * @return 更新的记录数，为0表示汇总邮件已被修改或领取
+     */
+    @Update("UPDATE email_send_queue " +
+            "SET template_variables = #{variables}, scheduled_time = #{scheduledTime}, update_time = NOW() " +
+            "WHERE id = #{id} AND status = 'PENDING' AND claim_token IS NULL " +
+            "AND CAST(template_variables AS CHAR) = #{expectedVariables}")
+    int appendDigest(@Param("id") Long id,
+            @Param("expectedVariables") String expectedVariables,
+            @Param("variables") String variables,
+            @Param("scheduledTime") LocalDateTime scheduledTime);
+
+    /**
+     * 批量写入待发送邮件（单条多行INSERT）
+     */
+    @Insert("<script>" +
+            "INSERT INTO email_send_queue (rule_id, user_id, todo_id, project_id, email_type, recipient_email, " +
+            "template_code, template_variables, priority, scheduled_time, status, retry_count, max_retries, " +
+            "create_time, update_time) VALUES " +
+            "<foreach collection='queues' item='q' separator=','>" +
+            "(#{q.ruleId}, #{q.userId}, #{q.todoId}, #{q.projectId}, #{q.emailType}, #{q.recipientEmail}, " +
+            "#{q.templateCode}, #{q.templateVariables}, #{q.priority}, #{q.scheduledTime}, #{q.status}, " +
+            "#{q.retryCount}, #{q.maxRetries}, NOW(), NOW())" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("queues") List<EmailSendQueue> queues);
+}
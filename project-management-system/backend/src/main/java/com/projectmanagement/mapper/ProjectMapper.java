@@ -5,8 +5,10 @@ import com.projectmanagement.entity.Project;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 项目Mapper接口
@@ -21,13 +23,21 @@ public interface ProjectMapper extends BaseMapper<Project> {
         List<Project> selectProjectsWithCreator();
 
         /**
-         * 查询用户作为创建人或责任人，或作为待办责任人的项目列表
+         * 查询项目与相关用户的关系：创建人、责任人、在项目中的成员和待办责任人
+         * projectId 为空时查询全部项目，返回 project_id、user_id 两列
          */
-        @Select("SELECT DISTINCT p.* FROM projects p " +
-                        "LEFT JOIN todos t ON p.id = t.project_id " +
-                        "WHERE p.creator_id = #{userId} OR p.assignee_id = #{userId} OR t.assignee_id = #{userId} " +
-                        "ORDER BY p.create_time ASC")
-        List<Project> selectProjectsByCreatorOrAssignee(@Param("userId") Long userId);
+        @Select("<script>" +
+                        "SELECT id AS project_id, creator_id AS user_id FROM projects " +
+                        "WHERE creator_id IS NOT NULL<if test='projectId != null'> AND id = #{projectId}</if> " +
+                        "UNION SELECT id, assignee_id FROM projects " +
+                        "WHERE assignee_id IS NOT NULL<if test='projectId != null'> AND id = #{projectId}</if> " +
+                        "UNION SELECT project_id, user_id FROM project_members " +
+                        "WHERE status = 1<if test='projectId != null'> AND project_id = #{projectId}</if> " +
+                        "UNION SELECT project_id, assignee_id FROM todos " +
+                        "WHERE project_id IS NOT NULL AND assignee_id IS NOT NULL" +
+                        "<if test='projectId != null'> AND project_id = #{projectId}</if>" +
+                        "</script>")
+        List<Map<String, Object>> selectProjectUserRelations(@Param("projectId") Long projectId);
 
         /**
          * 根据项目ID查询项目详情
@@ -49,4 +59,17 @@ public interface ProjectMapper extends BaseMapper<Project> {
          */
         @Select("SELECT * FROM projects ORDER BY create_time")
         List<Project> selectProjectsOrderByCreateTime();
-}
\ No newline at end of file
+
+        /**
+         * 批量更新项目工作计划，一条语句更新一批项目
+         */
+        @Update("<script>UPDATE projects SET " +
+                        "this_week_work = CASE id " +
+                        "<foreach collection='projects' item='p'>WHEN #{p.id} THEN #{p.thisWeekWork} </foreach>END, " +
+                        "next_week_plan = CASE id " +
+                        "<foreach collection='projects' item='p'>WHEN #{p.id} THEN #{p.nextWeekPlan} </foreach>END, " +
+                        "update_time = NOW() " +
+                        "WHERE id IN <foreach collection='projects' item='p' open='(' separator=',' close=')'>#{p.id}</foreach>" +
+                        "</script>")
+        int updateWorkPlans(@Param("projects") List<Project> projects);
+}
@@ -0,0 +1,70 @@
+package com.projectmanagement.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.projectmanagement.entity.ProjectSnapshot;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 项目每日快照Mapper接口
+ */
+@Mapper
+public interface ProjectSnapshotMapper extends BaseMapper<ProjectSnapshot> {
+
+    /**
+     * 按项目分组统计任务，一次扫描得到所有项目指定日期的快照计数
+     * 到期未完成（slipped、overdue）按完成时间判断当天结束时是否仍未完成，补写过去日期或零点后才运行时，
+     * 当天之后才完成的任务仍计入；状态和优先级计数只能取运行时的状态
+     */
+    @Select("SELECT project_id, " +
+            "SUM(status = 'TODO') AS todo_count, " +
+            "SUM(status = 'PROGRESS') AS progress_count, " +
+            "SUM(status = 'DONE') AS done_count, " +
+            "SUM(status != 'DONE') AS open_count, " +
+            "SUM(status != 'DONE' AND priority = 'HIGH') AS high_open_count, " +
+            "SUM(status != 'DONE' AND priority = 'MEDIUM') AS medium_open_count, " +
+            "SUM(status != 'DONE' AND priority = 'LOW') AS low_open_count, " +
+            "SUM(status = 'DONE' AND completed_time >= #{dayStart} AND completed_time < #{dayEnd}) AS completed_count, " +
+            "SUM(due_date = #{date} AND (status != 'DONE' OR completed_time >= #{dayEnd})) AS slipped_count, " +
+            "SUM(due_date <= #{date} AND (status != 'DONE' OR completed_time >= #{dayEnd})) AS overdue_count " +
+            "FROM todos WHERE project_id IS NOT NULL GROUP BY project_id")
+    List<ProjectSnapshot> selectTodoStats(@Param("date") LocalDate date,
+            @Param("dayStart") LocalDateTime dayStart,
+            @Param("dayEnd") LocalDateTime dayEnd);
+
+    /**
+     * 批量写入快照，同一项目同一天已有快照时覆盖
+     */
+    @Insert("<script>" +
+            "INSERT INTO project_daily_snapshots " +
+            "(project_id, snapshot_date, todo_count, progress_count, done_count, open_count, high_open_count, " +
+            "medium_open_count, low_open_count, completed_count, slipped_count, overdue_count, project_status, " +
+            "project_progress, milestone_name, milestone_progress, create_time) VALUES " +
+            "<foreach collection='snapshots' item='s' separator=','>" +
+            "(#{s.projectId}, #{s.snapshotDate}, #{s.todoCount}, #{s.progressCount}, #{s.doneCount}, #{s.openCount}, " +
+            "#{s.highOpenCount}, #{s.mediumOpenCount}, #{s.lowOpenCount}, #{s.completedCount}, #{s.slippedCount}, " +
+            "#{s.overdueCount}, #{s.projectStatus}, #{s.projectProgress}, #{s.milestoneName}, #{s.milestoneProgress}, NOW())" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE todo_count = VALUES(todo_count), progress_count = VALUES(progress_count), " +
+            "done_count = VALUES(done_count), open_count = VALUES(open_count), " +
+            "high_open_count = VALUES(high_open_count), medium_open_count = VALUES(medium_open_count), " +
+            "low_open_count = VALUES(low_open_count), completed_count = VALUES(completed_count), " +
+            "slipped_count = VALUES(slipped_count), overdue_count = VALUES(overdue_count), " +
+            "project_status = VALUES(project_status), project_progress = VALUES(project_progress), " +
+            "milestone_name = VALUES(milestone_name), milestone_progress = VALUES(milestone_progress)" +
+            "</script>")
+    int upsertBatch(@Param("snapshots") Collection<ProjectSnapshot> snapshots);
+
+    /**
+     * 最近一次快照的日期，没有快照时为null
+     */
+    @Select("SELECT MAX(snapshot_date) FROM project_daily_snapshots")
+    LocalDate selectLatestDate();
+}
@@ -1,12 +1,16 @@
 package com.projectmanagement.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.projectmanagement.dto.ReportListQuery;
+import com.projectmanagement.dto.ReportSummary;
 import com.projectmanagement.entity.Report;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 报告Mapper接口
@@ -58,4 +62,41 @@ public interface ReportMapper extends BaseMapper<Report> {
             "WHERE r.creator_id = #{creatorId} " +
             "ORDER BY r.create_time DESC")
     List<Report> selectReportsByCreatorId(@Param("creatorId") Long creatorId);
-} 
\ No newline at end of file
+
+    /**
+     * 按报告类型统计数量，只读取类型列，不读取报告内容
+     */
+    @Select("<script>" +
+            "SELECT type, COUNT(*) AS count FROM reports " +
+            "<where>" +
+            "<if test='startDate != null'>AND report_date &gt;= #{startDate} </if>" +
+            "<if test='endDate != null'>AND report_date &lt;= #{endDate} </if>" +
+            "<if test='projectId != null'>AND project_id = #{projectId} </if>" +
+            "</where>" +
+            "GROUP BY type" +
+            "</script>")
+    List<Map<String, Object>> countByType(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("projectId") Long projectId);
+
+    /**
+     * 按创建时间倒序游标分页查询报告摘要，不读取报告正文
+     */
+    @Select("<script>" +
+            "SELECT r.id, r.project_id, r.type, r.title, r.report_date, r.creator_id, r.create_time, r.update_time, " +
+            "p.name as project_name, u.username as creator_name, u.nickname as creator_nickname " +
+            "FROM reports r " +
+            "LEFT JOIN projects p ON r.project_id = p.id " +
+            "LEFT JOIN users u ON r.creator_id = u.id " +
+            "<where>" +
+            "<if test='projectId != null'>AND r.project_id = #{projectId} </if>" +
+            "<if test='type != null'>AND r.type = #{type} </if>" +
+            "<if test='creatorId != null'>AND r.creator_id = #{creatorId} </if>" +
+            "<if test='afterCursor'>AND (r.create_time &lt; #{afterCreateTime} " +
+            "OR (r.create_time = #{afterCreateTime} AND r.id &lt; #{afterId})) </if>" +
+            "</where>" +
+            "ORDER BY r.create_time DESC, r.id DESC " +
+            "LIMIT #{fetchSize}" +
+            "</script>")
+    List<ReportSummary> selectReportSummaries(ReportListQuery query);
+}
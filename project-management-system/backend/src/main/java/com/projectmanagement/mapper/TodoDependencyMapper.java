@@ -0,0 +1,12 @@
+package com.projectmanagement.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.projectmanagement.entity.TodoDependency;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 待办任务依赖关系Mapper接口
+ */
+@Mapper
+public interface TodoDependencyMapper extends BaseMapper<TodoDependency> {
+}
@@ -1,6 +1,7 @@
 package com.projectmanagement.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.projectmanagement.dto.TodoListQuery;
 import com.projectmanagement.entity.Todo;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
@@ -73,4 +74,19 @@ public interface TodoMapper extends BaseMapper<Todo> {
      * 查询已逾期的任务
      */
     List<Todo> selectOverdueTasks();
-}
\ No newline at end of file
+
+    /**
+     * 按游标分页查询任务列表，多取一条用于判断是否还有下一页
+     */
+    List<Todo> selectTodoPage(TodoListQuery query);
+
+    /**
+     * 统计任务列表视图的总数
+     */
+    long countTodoList(TodoListQuery query);
+
+    /**
+     * 批量插入待办任务（单条多行INSERT），插入后回填自增ID
+     */
+    int insertBatch(@Param("todos") List<Todo> todos);
+}
@@ -1,10 +1,11 @@
 package com.projectmanagement.scheduled;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.projectmanagement.entity.EmailSendRule;
-import com.projectmanagement.mapper.EmailSendRuleMapper;
 import com.projectmanagement.service.EmailSendService;
+import com.projectmanagement.service.impl.CompiledEmailRule;
+import com.projectmanagement.service.impl.EmailRuleIndex;
 import com.projectmanagement.service.impl.EmailRuleProcessor;
+import com.projectmanagement.service.impl.ReminderLedger;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -12,8 +13,8 @@ import org.springframework.stereotype.Component;
 
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * 邮件定时任务
@@ -26,11 +27,14 @@ public class EmailScheduledTask {
     private EmailSendService emailSendService;
 
     @Autowired
-    private EmailSendRuleMapper emailSendRuleMapper;
+    private EmailRuleIndex emailRuleIndex;
 
     @Autowired
     private EmailRuleProcessor ruleProcessor;
 
+    @Autowired
+    private ReminderLedger reminderLedger;
+
     /**
      * 每30秒处理一次邮件发送队列
      */
@@ -43,6 +47,39 @@ public class EmailScheduledTask {
         }
     }
 
+    /**
+     * 每分钟清理一次空闲超时的SMTP连接
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleSmtpConnections() {
+        try {
+            emailSendService.evictIdleSmtpConnections();
+        } catch (Exception e) {
+            log.error("清理空闲SMTP连接失败", e);
+        }
+    }
+
+    /**
+     * 每5分钟重新加载一次规则索引，同步其他节点对规则的修改
+     */
+    @Scheduled(fixedDelay = 300000)
+    public void refreshEmailRuleIndex() {
+        emailRuleIndex.refresh();
+    }
+
+    /**
+     * 每天凌晨3点清理30天前的提醒台账记录
+     */
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void purgeReminderLedger() {
+        try {
+            int deleted = reminderLedger.purge(30);
+            log.info("清理提醒台账记录 {} 条", deleted);
+        } catch (Exception e) {
+            log.error("清理提醒台账失败", e);
+        }
+    }
+
     /**
      * 每小时检查一次是否需要发送定时邮件
      * 支持从规则配置中读取 send_time
@@ -57,35 +94,27 @@ public class EmailScheduledTask {
 
             log.info("检查定时邮件任务，当前时间: {}", currentTimeStr);
 
-            // 查找启用的邮件规则
-            QueryWrapper<EmailSendRule> queryWrapper = new QueryWrapper<>();
-            queryWrapper.eq("enabled", true)
-                    .in("rule_type", "DEADLINE", "OVERDUE");
-
-            List<EmailSendRule> rules = emailSendRuleMapper.selectList(queryWrapper);
+            // 从规则索引中获取启用的邮件规则
+            List<CompiledEmailRule> rules = new ArrayList<>(emailRuleIndex.getRules("DEADLINE"));
+            rules.addAll(emailRuleIndex.getRules("OVERDUE"));
             log.info("找到 {} 条启用的邮件规则", rules.size());
 
-            for (EmailSendRule rule : rules) {
+            for (CompiledEmailRule compiled : rules) {
+                EmailSendRule rule = compiled.getRule();
                 try {
-                    // 解析触发条件
-                    String triggerCondition = rule.getTriggerCondition();
-                    if (triggerCondition != null) {
-                        Map<String, Object> conditions = ruleProcessor.parseTriggerCondition(triggerCondition);
-
+                    if (rule.getTriggerCondition() != null) {
                         // 检查是否到了发送时间
-                        if (ruleProcessor.isTimeToSend(conditions)) {
-                            // if (true) {
-                            log.info("触发定时邮件规则: {} (发送时间: {})", rule.getRuleName(),
-                                    ruleProcessor.getSendTime(conditions));
+                        if (ruleProcessor.isTimeToSend(compiled.getSendTime())) {
+                            log.info("触发定时邮件规则: {} (发送时间: {})", rule.getRuleName(), compiled.getSendTime());
 
                             // 根据规则类型执行相应的邮件发送
                             if ("DEADLINE".equals(rule.getRuleType())) {
-                                if (ruleProcessor.isOverdueRule(conditions)) {
+                                if (compiled.isOverdue()) {
                                     // 逾期任务提醒
                                     emailSendService.handleOverdueTaskNotification();
                                 } else {
                                     // 截止日期提醒 - 传递规则配置
-                                    emailSendService.handleDeadlineReminderNotification(rule, conditions);
+                                    emailSendService.handleDeadlineReminderNotification(rule, compiled.getConditions());
                                 }
                             } else if ("OVERDUE".equals(rule.getRuleType())) {
                                 // 逾期任务提醒
@@ -93,7 +122,7 @@ public class EmailScheduledTask {
                             }
                         } else {
                             log.debug("规则 {} 未到发送时间，配置时间: {}, 当前时间: {}",
-                                    rule.getRuleName(), ruleProcessor.getSendTime(conditions), currentTimeStr);
+                                    rule.getRuleName(), compiled.getSendTime(), currentTimeStr);
                         }
                     }
                 } catch (Exception e) {
@@ -116,27 +145,8 @@ public class EmailScheduledTask {
             log.info("执行默认定时邮件任务 (早上8点)");
 
             // 检查是否有规则配置了自定义时间
-            QueryWrapper<EmailSendRule> queryWrapper = new QueryWrapper<>();
-            queryWrapper.eq("enabled", true)
-                    .eq("rule_type", "DEADLINE");
-
-            List<EmailSendRule> rules = emailSendRuleMapper.selectList(queryWrapper);
-            boolean hasCustomTime = false;
-
-            for (EmailSendRule rule : rules) {
-                try {
-                    String triggerCondition = rule.getTriggerCondition();
-                    if (triggerCondition != null) {
-                        Map<String, Object> conditions = ruleProcessor.parseTriggerCondition(triggerCondition);
-                        if (ruleProcessor.getSendTime(conditions) != null) {
-                            hasCustomTime = true;
-                            break;
-                        }
-                    }
-                } catch (Exception e) {
-                    log.warn("解析规则配置失败: ruleId={}", rule.getId());
-                }
-            }
+            boolean hasCustomTime = emailRuleIndex.getRules("DEADLINE").stream()
+                    .anyMatch(rule -> rule.getRule().getTriggerCondition() != null && rule.getSendTime() != null);
 
             // 如果没有自定义时间配置，则执行默认的邮件发送
             if (!hasCustomTime) {
@@ -0,0 +1,35 @@
+package com.projectmanagement.scheduled;
+
+import com.projectmanagement.service.impl.ProjectSnapshotJob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * 项目每日快照定时任务
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.report.snapshot.enabled", havingValue = "true", matchIfMissing = true)
+public class ProjectSnapshotTask {
+
+    private final ProjectSnapshotJob projectSnapshotJob;
+
+    /**
+     * 每天凌晨补写截至前一天的项目快照
+     */
+    @Scheduled(cron = "${app.report.snapshot.cron:0 30 0 * * ?}")
+    public void snapshotYesterday() {
+        try {
+            int days = projectSnapshotJob.snapshotThrough(LocalDate.now().minusDays(1));
+            log.info("项目快照任务完成，写入 {} 天", days);
+        } catch (Exception e) {
+            log.error("项目快照任务执行失败", e);
+        }
+    }
+}
@@ -74,4 +74,14 @@ public interface EmailSendService {
      * 更新邮件队列状态
      */
     void updateEmailQueueStatus(Long queueId, String status, String errorMessage);
-}
\ No newline at end of file
+
+    /**
+     * 获取SMTP连接池统计信息
+     */
+    Map<String, Object> getSmtpPoolStats();
+
+    /**
+     * 关闭空闲超时的SMTP连接
+     */
+    void evictIdleSmtpConnections();
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.projectmanagement.dto.ProjectDTO;
 import com.projectmanagement.entity.Project;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -88,12 +89,15 @@ public interface ProjectService extends IService<Project> {
 
     
     /**
-     * 获取项目甘特图数据
+     * 获取项目在日期范围内的甘特图数据，只包含与范围相交的任务和里程碑
+     *
+     * @param startDate 开始日期，为空时不限
+     * @param endDate   结束日期（含），为空时不限
      */
-    Map<String, Object> getProjectGanttData(Long projectId);
-    
+    Map<String, Object> getProjectGanttData(Long projectId, LocalDate startDate, LocalDate endDate);
+
     /**
-     * 获取用户相关的所有项目甘特图数据
+     * 获取项目排期：按任务依赖计算的开始、完成日期和关键路径
      */
-    Map<String, Object> getUserProjectsGanttData(Long userId);
+    Map<String, Object> getProjectSchedule(Long projectId);
 }
\ No newline at end of file
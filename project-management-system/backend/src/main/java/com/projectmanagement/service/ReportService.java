@@ -2,9 +2,12 @@ package com.projectmanagement.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.projectmanagement.dto.ReportDTO;
+import com.projectmanagement.dto.ReportPage;
 import com.projectmanagement.entity.Report;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 报告服务接口
@@ -36,11 +39,27 @@ public interface ReportService extends IService<Report> {
      */
     List<Report> getReportsByCreatorId(Long creatorId);
 
+    /**
+     * 按游标分页获取报告摘要列表（不含正文），按创建时间倒序
+     *
+     * @param projectId 项目ID，为null时不过滤
+     * @param type      报告类型，为null时不过滤
+     * @param creatorId 创建人ID，为null时不过滤
+     * @param cursor    上一页返回的 nextCursor，为空时取第一页
+     * @param limit     每页条数，为空时使用默认值，超过上限时按上限返回
+     */
+    ReportPage getReportPage(Long projectId, String type, Long creatorId, String cursor, Integer limit);
+
     /**
      * 生成报告
      */
     Report generateReport(ReportDTO reportDTO);
 
+    /**
+     * 生成报告，各阶段开始时回调进度；回调抛出异常时终止生成，报告不会保存
+     */
+    Report generateReport(ReportDTO reportDTO, ProgressListener listener);
+
     /**
      * 更新报告
      */
@@ -50,4 +69,25 @@ public interface ReportService extends IService<Report> {
      * 删除报告
      */
     boolean deleteReport(Long id);
-} 
\ No newline at end of file
+
+    /**
+     * 按类型统计报告数量（weekly、biweekly、monthly、stage、total），可按报告日期范围和项目筛选
+     */
+    Map<String, Object> getReportStats(LocalDate startDate, LocalDate endDate, Long projectId);
+
+    /**
+     * 报告生成进度回调
+     */
+    @FunctionalInterface
+    interface ProgressListener {
+
+        ProgressListener NONE = (percent, stage) -> {
+        };
+
+        /**
+         * @param percent 进度百分比（0-100）
+         * @param stage   当前阶段说明
+         */
+        void onProgress(int percent, String stage);
+    }
+}
@@ -2,8 +2,15 @@ package com.projectmanagement.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.projectmanagement.dto.TodoDTO;
+import com.projectmanagement.dto.TodoImportResult;
+import com.projectmanagement.dto.TodoPage;
 import com.projectmanagement.entity.Todo;
+import com.projectmanagement.entity.TodoDependency;
+import com.projectmanagement.enums.TodoListView;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -58,6 +65,20 @@ public interface TodoService extends IService<Todo> {
      */
     List<Todo> getUserRelatedTodos(Long userId);
 
+    /**
+     * 按游标分页获取任务列表
+     *
+     * @param userId 为null时不按用户过滤；RELATED 视图下为相关用户
+     * @param cursor 上一页返回的 nextCursor，为空时取第一页
+     * @param limit  每页条数，为空时使用默认值，超过上限时按上限返回
+     */
+    TodoPage getTodoPage(TodoListView view, Long userId, String cursor, Integer limit);
+
+    /**
+     * 统计任务列表视图的总数
+     */
+    long countTodos(TodoListView view, Long userId);
+
     /**
      * 获取待办任务详情
      */
@@ -102,6 +123,14 @@ public interface TodoService extends IService<Todo> {
      * 获取项目已完成的待办任务
      */
     List<Todo> getCompletedTodosByProject(Long projectId);
+
+    /**
+     * 获取项目已完成且任务条与日期范围相交的待办任务
+     *
+     * @param startDate 开始日期，为空时不限
+     * @param endDate   结束日期（含），为空时不限
+     */
+    List<Todo> getCompletedTodosByProject(Long projectId, LocalDate startDate, LocalDate endDate);
     
     /**
      * 获取项目的所有待办任务
@@ -112,4 +141,34 @@ public interface TodoService extends IService<Todo> {
      * 批量获取多个项目的所有待办任务
      */
     Map<Long, List<Todo>> getTodosByProjects(List<Long> projectIds);
-}
\ No newline at end of file
+
+    /**
+     * 批量导入任务：先校验全部数据，任意一条不合法时整批不写入并返回全部错误；
+     * 带ID的数据修改已有任务，其余数据新增
+     *
+     * @param creatorId 数据未指定创建人时使用的创建人
+     */
+    TodoImportResult importTodos(List<TodoDTO> todoDTOs, Long creatorId);
+
+    /**
+     * 从请求体流式读取任务后批量导入
+     *
+     * @param format JSON数组、NDJSON或CSV，见 {@link com.projectmanagement.service.impl.TodoImportReader}
+     */
+    TodoImportResult importTodos(InputStream in, String format, Long creatorId) throws IOException;
+
+    /**
+     * 获取任务的前置任务依赖
+     */
+    List<TodoDependency> getDependencies(Long todoId);
+
+    /**
+     * 添加前置任务依赖，两个任务需属于同一项目且不能形成循环依赖
+     */
+    TodoDependency addDependency(Long todoId, Long predecessorId);
+
+    /**
+     * 删除前置任务依赖
+     */
+    boolean removeDependency(Long todoId, Long predecessorId);
+}
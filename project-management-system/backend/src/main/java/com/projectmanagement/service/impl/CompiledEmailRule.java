@@ -0,0 +1,132 @@
+package com.projectmanagement.service.impl;
+
+import com.projectmanagement.entity.EmailSendRule;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 预编译的邮件规则
+ * trigger_condition 在加载时解析一次并转换为强类型字段，匹配时不再读取JSON
+ */
+public final class CompiledEmailRule {
+
+    private final EmailSendRule rule;
+
+    /**
+     * 原始条件，供仍以Map形式接收条件的接口使用（只读）
+     */
+    private final Map<String, Object> conditions;
+
+    private final String event;
+    private final boolean immediate;
+    private final boolean notifyCreator;
+    private final boolean notifyAssignee;
+    private final boolean overdue;
+    private final boolean dailyReminder;
+    private final String sendTime;
+    private final Set<String> excludedStatus;
+    private final Set<String> taskPriorities;
+    private final Set<String> taskStatus;
+    private final List<Integer> daysBefore;
+
+    CompiledEmailRule(EmailSendRule rule, Map<String, Object> conditions, EmailRuleProcessor processor) {
+        this.rule = rule;
+        this.conditions = Collections.unmodifiableMap(conditions);
+        Object eventValue = conditions.get("event");
+        this.event = eventValue instanceof String ? (String) eventValue : null;
+        this.immediate = processor.isImmediateSend(conditions);
+        this.notifyCreator = processor.shouldNotifyCreator(conditions);
+        this.notifyAssignee = processor.shouldNotifyAssignee(conditions);
+        this.overdue = processor.isOverdueRule(conditions);
+        this.dailyReminder = processor.isDailyReminder(conditions);
+        Object sendTimeValue = conditions.get("send_time");
+        this.sendTime = sendTimeValue instanceof String ? (String) sendTimeValue : null;
+        this.excludedStatus = toStringSet(processor.getExcludedStatus(conditions));
+        this.taskPriorities = toStringSet(processor.getTaskPriorities(conditions));
+        this.taskStatus = toStringSet(processor.getTaskStatus(conditions));
+        this.daysBefore = toIntList(processor.getDaysBefore(conditions));
+    }
+
+    private static Set<String> toStringSet(List<?> values) {
+        if (values.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> result = new LinkedHashSet<>();
+        for (Object value : values) {
+            if (value != null) {
+                result.add(value.toString());
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    private static List<Integer> toIntList(List<?> values) {
+        return Collections.unmodifiableList(values.stream()
+                .filter(value -> value instanceof Number)
+                .map(value -> ((Number) value).intValue())
+                .collect(Collectors.toList()));
+    }
+
+    public EmailSendRule getRule() {
+        return rule;
+    }
+
+    public Map<String, Object> getConditions() {
+        return conditions;
+    }
+
+    public String getEvent() {
+        return event;
+    }
+
+    public boolean isImmediate() {
+        return immediate;
+    }
+
+    public boolean isNotifyCreator() {
+        return notifyCreator;
+    }
+
+    public boolean isNotifyAssignee() {
+        return notifyAssignee;
+    }
+
+    public boolean isOverdue() {
+        return overdue;
+    }
+
+    public boolean isDailyReminder() {
+        return dailyReminder;
+    }
+
+    public String getSendTime() {
+        return sendTime;
+    }
+
+    public List<Integer> getDaysBefore() {
+        return daysBefore;
+    }
+
+    /**
+     * 任务状态是否满足规则的状态条件，未配置时匹配所有状态
+     */
+    public boolean matchesStatus(String status) {
+        return taskStatus.isEmpty() || taskStatus.contains(status);
+    }
+
+    /**
+     * 任务优先级是否满足规则的优先级条件，未配置时匹配所有优先级
+     */
+    public boolean matchesPriority(String priority) {
+        return taskPriorities.isEmpty() || taskPriorities.contains(priority);
+    }
+
+    public boolean isStatusExcluded(String status) {
+        return excludedStatus.contains(status);
+    }
+}
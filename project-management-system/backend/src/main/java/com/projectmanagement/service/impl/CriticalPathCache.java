@@ -0,0 +1,178 @@
+package com.projectmanagement.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.entity.TodoDependency;
+import com.projectmanagement.mapper.TodoDependencyMapper;
+import com.projectmanagement.mapper.TodoMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 项目关键路径缓存
+ * 按项目缓存 {@link CriticalPathEngine}，首次查询时加载项目下全部待办任务和依赖构建；
+ * 待办任务修改提交后在已缓存的引擎上增量更新该任务，新增、删除任务或依赖变化时丢弃该项目的引擎，下次查询重建
+ */
+@Slf4j
+@Component
+public class CriticalPathCache {
+
+    private final TodoMapper todoMapper;
+    private final TodoDependencyMapper todoDependencyMapper;
+
+    private final Map<Long, CriticalPathEngine> engines;
+
+    /**
+     * 项目ID -> 最近一次写入（增量更新或丢弃）的序号，构建期间有写入的项目不放入缓存
+     */
+    private final Map<Long, Long> projectWriteSeq = new HashMap<>();
+
+    private final AtomicLong writeSeq = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong incrementalUpdates = new AtomicLong();
+    private volatile long lastBuildMillis;
+
+    public CriticalPathCache(TodoMapper todoMapper, TodoDependencyMapper todoDependencyMapper,
+            @Value("${app.critical-path.max-projects:500}") int maxProjects) {
+        this.todoMapper = todoMapper;
+        this.todoDependencyMapper = todoDependencyMapper;
+        int maxSize = Math.max(1, maxProjects);
+        this.engines = new LinkedHashMap<Long, CriticalPathEngine>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CriticalPathEngine> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * 获取项目的关键路径引擎，跨天后重建
+     */
+    public CriticalPathEngine get(Long projectId) {
+        LocalDate today = LocalDate.now();
+        synchronized (engines) {
+            CriticalPathEngine engine = engines.get(projectId);
+            if (engine != null && engine.getBuiltDate().equals(today)) {
+                hits.incrementAndGet();
+                return engine;
+            }
+        }
+        long seq = writeSeq.get();
+        CriticalPathEngine engine = build(projectId, today);
+        synchronized (engines) {
+            if (projectWriteSeq.getOrDefault(projectId, 0L) > seq) {
+                // 构建期间有任务修改提交，本次结果只用于当前请求
+                return engine;
+            }
+            engines.put(projectId, engine);
+        }
+        return engine;
+    }
+
+    /**
+     * 待办任务新增或修改后更新所在项目的引擎，事务中调用时在提交后执行
+     *
+     * @param previousProjectId 修改前所属项目，与当前项目不同时同时丢弃原项目的引擎
+     */
+    public void todoChanged(Long todoId, Long previousProjectId) {
+        afterCommit(() -> {
+            if (previousProjectId != null) {
+                evict(previousProjectId);
+            }
+            Todo todo = todoMapper.selectOne(scheduleColumns().eq("id", todoId));
+            if (todo == null || todo.getProjectId() == null) {
+                return;
+            }
+            synchronized (engines) {
+                markWritten(todo.getProjectId());
+                CriticalPathEngine engine = engines.get(todo.getProjectId());
+                if (engine == null) {
+                    return;
+                }
+                if (engine.updateTodo(todo, LocalDate.now())) {
+                    incrementalUpdates.incrementAndGet();
+                } else {
+                    engines.remove(todo.getProjectId());
+                }
+            }
+        });
+    }
+
+    /**
+     * 项目的任务集合或依赖关系变化后丢弃该项目的引擎，事务中调用时在提交后执行
+     */
+    public void projectChanged(Long projectId) {
+        if (projectId == null) {
+            return;
+        }
+        afterCommit(() -> evict(projectId));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (engines) {
+            stats.put("projects", engines.size());
+        }
+        stats.put("hits", hits.get());
+        stats.put("builds", builds.get());
+        stats.put("incrementalUpdates", incrementalUpdates.get());
+        stats.put("lastBuildMillis", lastBuildMillis);
+        return stats;
+    }
+
+    private CriticalPathEngine build(Long projectId, LocalDate today) {
+        long start = System.currentTimeMillis();
+        List<Todo> todos = todoMapper.selectList(scheduleColumns().eq("project_id", projectId));
+        List<TodoDependency> dependencies = todoDependencyMapper.selectList(
+                new QueryWrapper<TodoDependency>().eq("project_id", projectId));
+        CriticalPathEngine engine = CriticalPathEngine.build(todos, dependencies, today);
+        lastBuildMillis = System.currentTimeMillis() - start;
+        builds.incrementAndGet();
+        log.debug("🔄 项目 {} 关键路径构建完成，{} 个任务，{} 条依赖，耗时 {}ms", projectId, todos.size(),
+                dependencies.size(), lastBuildMillis);
+        return engine;
+    }
+
+    private void evict(Long projectId) {
+        synchronized (engines) {
+            markWritten(projectId);
+            engines.remove(projectId);
+        }
+    }
+
+    private void markWritten(Long projectId) {
+        projectWriteSeq.put(projectId, writeSeq.incrementAndGet());
+    }
+
+    /**
+     * 只查询计算排期需要的列
+     */
+    private static QueryWrapper<Todo> scheduleColumns() {
+        return new QueryWrapper<Todo>().select("id", "project_id", "create_time", "due_date");
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
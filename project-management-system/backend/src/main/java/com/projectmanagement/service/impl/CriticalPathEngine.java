@@ -0,0 +1,439 @@
+package com.projectmanagement.service.impl;
+
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.entity.TodoDependency;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 项目关键路径计算引擎
+ * 以待办任务为节点、任务依赖为边，任务条开始日期为最早可开始日期，开始到截止的天数为工期，
+ * 计算每个任务的最早开始/完成、最迟开始/完成、总时差以及决定项目完成日期的关键路径。
+ * 节点按拓扑序存放在原始数组中，前驱和后继以压缩邻接数组保存，一次正向和反向遍历即可完成计算；
+ * 单个任务截止日期变化时只沿受影响的后继重新正向计算、沿前驱反向计算，不重建整张图。
+ * 依赖成环时按任务ID顺序忽略成环的边并计数，保证仍能得到结果
+ */
+public final class CriticalPathEngine {
+
+    private static final String TASK_PREFIX = "task_";
+
+    private final LocalDate builtDate;
+
+    /**
+     * 所有日期以相对起始日期的天数保存
+     */
+    private final LocalDate origin;
+
+    private final int size;
+    private final long[] ids;
+    private final Map<Long, Integer> positions;
+
+    private final int[] predStart;
+    private final int[] preds;
+    private final int[] succStart;
+    private final int[] succs;
+    private final int dependencyCount;
+    private final int ignoredDependencies;
+
+    private final int[] release;
+    private final int[] duration;
+    private final int[] earliestStart;
+    private final int[] earliestFinish;
+    private final int[] latestStart;
+    private final int[] latestFinish;
+    private int finish;
+
+    private CriticalPathEngine(LocalDate builtDate, LocalDate origin, long[] ids, int[] release, int[] duration,
+            int[] predStart, int[] preds, int[] succStart, int[] succs, int ignoredDependencies) {
+        this.builtDate = builtDate;
+        this.origin = origin;
+        this.size = ids.length;
+        this.ids = ids;
+        this.release = release;
+        this.duration = duration;
+        this.predStart = predStart;
+        this.preds = preds;
+        this.succStart = succStart;
+        this.succs = succs;
+        this.dependencyCount = preds.length;
+        this.ignoredDependencies = ignoredDependencies;
+        this.positions = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            positions.put(ids[i], i);
+        }
+        this.earliestStart = new int[size];
+        this.earliestFinish = new int[size];
+        this.latestStart = new int[size];
+        this.latestFinish = new int[size];
+        forward(0);
+        backward(size - 1);
+    }
+
+    /**
+     * 构建引擎，只保留两端任务都在列表中的依赖
+     *
+     * @param todos        项目下的待办任务，需要ID、创建时间和截止日期
+     * @param dependencies 项目下的任务依赖
+     * @param today        没有创建时间的任务以当天为开始日期
+     */
+    public static CriticalPathEngine build(List<Todo> todos, List<TodoDependency> dependencies, LocalDate today) {
+        int n = todos.size();
+        Todo[] nodes = todos.toArray(new Todo[0]);
+        Arrays.sort(nodes, (a, b) -> Long.compare(a.getId(), b.getId()));
+        Map<Long, Integer> index = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            index.put(nodes[i].getId(), i);
+        }
+
+        // 依赖边，按任务ID顺序索引
+        int[] edgeFrom = new int[dependencies.size()];
+        int[] edgeTo = new int[dependencies.size()];
+        int edges = 0;
+        for (TodoDependency dependency : dependencies) {
+            Integer from = index.get(dependency.getPredecessorId());
+            Integer to = index.get(dependency.getSuccessorId());
+            if (from != null && to != null && !from.equals(to)) {
+                edgeFrom[edges] = from;
+                edgeTo[edges] = to;
+                edges++;
+            }
+        }
+        int[] outStart = new int[n + 1];
+        int[] inStart = new int[n + 1];
+        for (int e = 0; e < edges; e++) {
+            outStart[edgeFrom[e] + 1]++;
+            inStart[edgeTo[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            outStart[i + 1] += outStart[i];
+            inStart[i + 1] += inStart[i];
+        }
+        int[] outEdges = new int[edges];
+        int[] inEdges = new int[edges];
+        int[] outFill = Arrays.copyOf(outStart, n);
+        int[] inFill = Arrays.copyOf(inStart, n);
+        for (int e = 0; e < edges; e++) {
+            outEdges[outFill[edgeFrom[e]]++] = e;
+            inEdges[inFill[edgeTo[e]]++] = e;
+        }
+
+        // Kahn 拓扑排序，入度为0的任务按ID顺序出队；卡住时说明剩余任务成环，忽略ID最小的剩余任务上来自剩余任务的边
+        int[] inDegree = new int[n];
+        for (int e = 0; e < edges; e++) {
+            inDegree[edgeTo[e]]++;
+        }
+        boolean[] ignored = new boolean[edges];
+        boolean[] visited = new boolean[n];
+        int[] order = new int[n];
+        int ordered = 0;
+        int ignoredCount = 0;
+        int nextUnvisited = 0;
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+        for (int i = 0; i < n; i++) {
+            if (inDegree[i] == 0) {
+                ready.add(i);
+            }
+        }
+        while (ordered < n) {
+            if (ready.isEmpty()) {
+                while (visited[nextUnvisited]) {
+                    nextUnvisited++;
+                }
+                int node = nextUnvisited;
+                for (int k = inStart[node]; k < inStart[node + 1]; k++) {
+                    int e = inEdges[k];
+                    if (!visited[edgeFrom[e]] && !ignored[e]) {
+                        ignored[e] = true;
+                        ignoredCount++;
+                    }
+                }
+                inDegree[node] = 0;
+                ready.add(node);
+            }
+            int node = ready.poll();
+            visited[node] = true;
+            order[ordered++] = node;
+            for (int k = outStart[node]; k < outStart[node + 1]; k++) {
+                int e = outEdges[k];
+                if (!ignored[e] && --inDegree[edgeTo[e]] == 0) {
+                    ready.add(edgeTo[e]);
+                }
+            }
+        }
+
+        // 按拓扑序重新编号
+        int[] position = new int[n];
+        for (int p = 0; p < n; p++) {
+            position[order[p]] = p;
+        }
+        LocalDate origin = null;
+        LocalDate[] starts = new LocalDate[n];
+        LocalDate[] ends = new LocalDate[n];
+        for (int i = 0; i < n; i++) {
+            starts[i] = GanttElements.taskStartDate(nodes[i], today);
+            ends[i] = GanttElements.taskEndDate(nodes[i], starts[i]);
+            if (origin == null || starts[i].isBefore(origin)) {
+                origin = starts[i];
+            }
+        }
+        if (origin == null) {
+            origin = today;
+        }
+        long[] ids = new long[n];
+        int[] release = new int[n];
+        int[] duration = new int[n];
+        for (int i = 0; i < n; i++) {
+            int p = position[i];
+            ids[p] = nodes[i].getId();
+            release[p] = days(origin, starts[i]);
+            duration[p] = Math.max(0, days(starts[i], ends[i]));
+        }
+
+        int kept = edges - ignoredCount;
+        int[] predStart = new int[n + 1];
+        int[] succStart = new int[n + 1];
+        for (int e = 0; e < edges; e++) {
+            if (!ignored[e]) {
+                succStart[position[edgeFrom[e]] + 1]++;
+                predStart[position[edgeTo[e]] + 1]++;
+            }
+        }
+        for (int p = 0; p < n; p++) {
+            predStart[p + 1] += predStart[p];
+            succStart[p + 1] += succStart[p];
+        }
+        int[] preds = new int[kept];
+        int[] succs = new int[kept];
+        int[] predFill = Arrays.copyOf(predStart, n);
+        int[] succFill = Arrays.copyOf(succStart, n);
+        for (int e = 0; e < edges; e++) {
+            if (!ignored[e]) {
+                int from = position[edgeFrom[e]];
+                int to = position[edgeTo[e]];
+                succs[succFill[from]++] = to;
+                preds[predFill[to]++] = from;
+            }
+        }
+        return new CriticalPathEngine(today, origin, ids, release, duration, predStart, preds, succStart, succs,
+                ignoredCount);
+    }
+
+    /**
+     * 加入依赖 predecessor -> successor 后是否成环，即 successor 是否已能到达 predecessor
+     */
+    public static boolean createsCycle(List<TodoDependency> dependencies, Long predecessorId, Long successorId) {
+        if (predecessorId.equals(successorId)) {
+            return true;
+        }
+        Map<Long, List<Long>> successors = new HashMap<>();
+        for (TodoDependency dependency : dependencies) {
+            successors.computeIfAbsent(dependency.getPredecessorId(), id -> new ArrayList<>())
+                    .add(dependency.getSuccessorId());
+        }
+        LongHashSet seen = new LongHashSet();
+        List<Long> stack = new ArrayList<>();
+        stack.add(successorId);
+        seen.add(successorId);
+        while (!stack.isEmpty()) {
+            Long current = stack.remove(stack.size() - 1);
+            if (current.equals(predecessorId)) {
+                return true;
+            }
+            for (Long next : successors.getOrDefault(current, Collections.emptyList())) {
+                if (seen.add(next)) {
+                    stack.add(next);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 任务截止日期变化后增量更新
+     *
+     * @return false 表示任务不在图中或开始日期早于起始日期，需要重建
+     */
+    public synchronized boolean updateTodo(Todo todo, LocalDate today) {
+        Integer position = positions.get(todo.getId());
+        if (position == null) {
+            return false;
+        }
+        LocalDate start = GanttElements.taskStartDate(todo, today);
+        if (start.isBefore(origin)) {
+            return false;
+        }
+        int p = position;
+        int newRelease = days(origin, start);
+        int newDuration = Math.max(0, days(start, GanttElements.taskEndDate(todo, start)));
+        if (newRelease == release[p] && newDuration == duration[p]) {
+            return true;
+        }
+        release[p] = newRelease;
+        duration[p] = newDuration;
+
+        int previousFinish = finish;
+        forward(p);
+        if (finish != previousFinish) {
+            backward(size - 1);
+        } else {
+            // 项目完成日期不变时，拓扑序在该任务之后的任务的最迟时间不受影响
+            backward(p);
+        }
+        return true;
+    }
+
+    /**
+     * 为任务条补充关键路径字段，不在图中的任务条保持不变
+     */
+    public synchronized void annotate(List<Map<String, Object>> taskBars) {
+        for (Map<String, Object> taskBar : taskBars) {
+            Object id = taskBar.get("id");
+            if (!(id instanceof String) || !((String) id).startsWith(TASK_PREFIX)) {
+                continue;
+            }
+            Integer position;
+            try {
+                position = positions.get(Long.parseLong(((String) id).substring(TASK_PREFIX.length())));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (position == null) {
+                continue;
+            }
+            int p = position;
+            taskBar.put("earliestStart", date(earliestStart[p]));
+            taskBar.put("earliestFinish", date(earliestFinish[p]));
+            taskBar.put("latestStart", date(latestStart[p]));
+            taskBar.put("latestFinish", date(latestFinish[p]));
+            taskBar.put("slack", latestStart[p] - earliestStart[p]);
+            taskBar.put("critical", latestStart[p] == earliestStart[p]);
+            List<String> predecessors = new ArrayList<>(predStart[p + 1] - predStart[p]);
+            for (int k = predStart[p]; k < predStart[p + 1]; k++) {
+                predecessors.add(TASK_PREFIX + ids[preds[k]]);
+            }
+            taskBar.put("predecessors", predecessors);
+        }
+    }
+
+    /**
+     * 项目排期汇总：开始和完成日期、按最早开始排序的关键路径任务
+     */
+    public synchronized Map<String, Object> toMap() {
+        List<Integer> critical = new ArrayList<>();
+        for (int p = 0; p < size; p++) {
+            if (latestStart[p] == earliestStart[p]) {
+                critical.add(p);
+            }
+        }
+        critical.sort((a, b) -> earliestStart[a] != earliestStart[b]
+                ? Integer.compare(earliestStart[a], earliestStart[b]) : Integer.compare(a, b));
+        List<String> criticalPath = new ArrayList<>(critical.size());
+        for (int p : critical) {
+            criticalPath.add(TASK_PREFIX + ids[p]);
+        }
+
+        Map<String, Object> schedule = new LinkedHashMap<>();
+        schedule.put("startDate", size > 0 ? origin.toString() : null);
+        schedule.put("finishDate", size > 0 ? date(finish) : null);
+        schedule.put("criticalPath", criticalPath);
+        schedule.put("taskCount", size);
+        schedule.put("dependencyCount", dependencyCount);
+        schedule.put("ignoredDependencies", ignoredDependencies);
+        return schedule;
+    }
+
+    /**
+     * 构建时的日期，没有创建时间的任务以该日期为开始日期，跨天后应重建
+     */
+    public LocalDate getBuiltDate() {
+        return builtDate;
+    }
+
+    public boolean contains(Long todoId) {
+        return positions.containsKey(todoId);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 从拓扑位置 from 开始正向计算最早时间，只重新计算最早完成时间发生变化的任务的后继
+     */
+    private void forward(int from) {
+        boolean full = from == 0;
+        boolean[] dirty = full ? null : new boolean[size];
+        if (!full) {
+            dirty[from] = true;
+        }
+        for (int p = from; p < size; p++) {
+            if (!full && !dirty[p]) {
+                continue;
+            }
+            int es = release[p];
+            for (int k = predStart[p]; k < predStart[p + 1]; k++) {
+                es = Math.max(es, earliestFinish[preds[k]]);
+            }
+            int ef = es + duration[p];
+            boolean changed = earliestStart[p] != es || earliestFinish[p] != ef;
+            earliestStart[p] = es;
+            earliestFinish[p] = ef;
+            if (!full && changed) {
+                for (int k = succStart[p]; k < succStart[p + 1]; k++) {
+                    dirty[succs[k]] = true;
+                }
+            }
+        }
+        int max = 0;
+        for (int p = 0; p < size; p++) {
+            max = Math.max(max, earliestFinish[p]);
+        }
+        finish = max;
+    }
+
+    /**
+     * 从拓扑位置 from 开始反向计算最迟时间，from 为最后一个位置时整体计算，
+     * 否则只重新计算最迟开始时间发生变化的任务的前驱
+     */
+    private void backward(int from) {
+        boolean full = from == size - 1;
+        boolean[] dirty = full ? null : new boolean[size];
+        if (!full) {
+            dirty[from] = true;
+        }
+        for (int p = from; p >= 0; p--) {
+            if (!full && !dirty[p]) {
+                continue;
+            }
+            int lf = finish;
+            for (int k = succStart[p]; k < succStart[p + 1]; k++) {
+                lf = Math.min(lf, latestStart[succs[k]]);
+            }
+            int ls = lf - duration[p];
+            boolean changed = latestStart[p] != ls || latestFinish[p] != lf;
+            latestFinish[p] = lf;
+            latestStart[p] = ls;
+            if (!full && changed) {
+                for (int k = predStart[p]; k < predStart[p + 1]; k++) {
+                    dirty[preds[k]] = true;
+                }
+            }
+        }
+    }
+
+    private String date(int offset) {
+        return origin.plusDays(offset).toString();
+    }
+
+    private static int days(LocalDate from, LocalDate to) {
+        return (int) (to.toEpochDay() - from.toEpochDay());
+    }
+}
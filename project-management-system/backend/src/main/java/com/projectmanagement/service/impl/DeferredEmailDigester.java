@@ -0,0 +1,178 @@
+package com.projectmanagement.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import com.projectmanagement.entity.EmailSendQueue;
+import com.projectmanagement.mapper.EmailSendQueueMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 推迟邮件汇总器
+ * 因免打扰、仅接收紧急邮件或发送预算而推迟的非紧急邮件，合并到收件人尚未发送的汇总邮件中，
+ * 原邮件标记为已合并；汇总邮件到期后作为一封邮件发送，减少SMTP发送量和队列中的重复调度
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeferredEmailDigester {
+
+    private static final Type ITEMS_TYPE = new TypeToken<List<Map<String, Object>>>() {
+    }.getType();
+
+    /**
+     * 追加汇总邮件内容的最多尝试次数，仍失败时另建一封汇总邮件
+     */
+    private static final int MAX_APPEND_ATTEMPTS = 3;
+
+    private final EmailSendQueueMapper emailSendQueueMapper;
+
+    private final Gson gson = new Gson();
+
+    /**
+     * 推迟单封邮件，仅当记录仍被当前领取令牌占有时生效
+     */
+    public void reschedule(EmailSendQueue email, LocalDateTime until) {
+        UpdateWrapper<EmailSendQueue> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.set("status", "PENDING")
+                .set("scheduled_time", until)
+                .set("claim_token", null)
+                .set("lease_expire_time", null)
+                .set("update_time", LocalDateTime.now())
+                .eq("id", email.getId())
+                .eq("claim_token", email.getClaimToken());
+        emailSendQueueMapper.update(null, updateWrapper);
+    }
+
+    /**
+     * 将同一用户推迟的邮件合并到汇总邮件中
+     *
+     * @param until 最早发送时间，汇总邮件取已有计划时间与其中较晚者
+     * @return 汇总邮件的队列ID
+     */
+    @Transactional
+    public Long fold(Long userId, List<EmailSendQueue> emails, LocalDateTime until) {
+        List<Map<String, Object>> newItems = emails.stream().map(this::toItem).collect(Collectors.toList());
+
+        EmailSendQueue digest = null;
+        for (int attempt = 0; attempt < MAX_APPEND_ATTEMPTS; attempt++) {
+            EmailSendQueue pending = emailSendQueueMapper.selectPendingDigest(userId);
+            if (pending == null) {
+                break;
+            }
+            if (appendTo(pending, newItems, until)) {
+                digest = pending;
+                break;
+            }
+            // 汇总邮件在读取后被其他合并修改或被worker领取，重新读取
+        }
+        if (digest == null) {
+            digest = newDigest(userId, emails.get(0).getRecipientEmail(), newItems, until);
+            emailSendQueueMapper.insert(digest);
+        }
+
+        UpdateWrapper<EmailSendQueue> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.set("status", "MERGED")
+                .set("error_message", "已合并到汇总邮件 #" + digest.getId())
+                .set("claim_token", null)
+                .set("lease_expire_time", null)
+                .set("update_time", LocalDateTime.now())
+                .in("id", emails.stream().map(EmailSendQueue::getId).collect(Collectors.toList()))
+                .eq("claim_token", emails.get(0).getClaimToken());
+        int merged = emailSendQueueMapper.update(null, updateWrapper);
+        if (merged != emails.size()) {
+            // 租约已过期被重新领取，回滚避免同一邮件既单独发送又出现在汇总中
+            throw new IllegalStateException("推迟邮件已被重新领取: userId=" + userId);
+        }
+
+        log.info("用户 {} 的 {} 封推迟邮件已合并到汇总邮件 #{}", userId, emails.size(), digest.getId());
+        return digest.getId();
+    }
+
+    /**
+     * 把同一收件人的多封待发送邮件合并为一封立即发送的汇总邮件（未写入队列）
+     *
+     * @param subject 汇总邮件主题
+     */
+    public EmailSendQueue combine(Long userId, List<EmailSendQueue> emails, String subject) {
+        List<Map<String, Object>> items = emails.stream().map(this::toItem).collect(Collectors.toList());
+        EmailSendQueue digest = newDigest(userId, emails.get(0).getRecipientEmail(), items, LocalDateTime.now());
+        JsonObject variables = gson.fromJson(digest.getTemplateVariables(), JsonObject.class);
+        variables.addProperty("subject", subject);
+        digest.setTemplateVariables(gson.toJson(variables));
+        return digest;
+    }
+
+    /**
+     * 解析汇总邮件的主题，推迟邮件的汇总没有指定主题时返回null
+     */
+    public String parseSubject(String templateVariables) {
+        JsonObject variables = templateVariables != null ? gson.fromJson(templateVariables, JsonObject.class) : null;
+        return variables != null && variables.has("subject") ? variables.get("subject").getAsString() : null;
+    }
+
+    /**
+     * 解析汇总邮件中的原邮件列表
+     */
+    public List<Map<String, Object>> parseItems(String templateVariables) {
+        JsonObject variables = templateVariables != null ? gson.fromJson(templateVariables, JsonObject.class) : null;
+        if (variables == null || !variables.has("items")) {
+            return new ArrayList<>();
+        }
+        return gson.fromJson(variables.get("items"), ITEMS_TYPE);
+    }
+
+    private boolean appendTo(EmailSendQueue digest, List<Map<String, Object>> newItems, LocalDateTime until) {
+        List<Map<String, Object>> items = parseItems(digest.getTemplateVariables());
+        items.addAll(newItems);
+        LocalDateTime scheduledTime = digest.getScheduledTime() != null && digest.getScheduledTime().isAfter(until)
+                ? digest.getScheduledTime() : until;
+        return emailSendQueueMapper.appendDigest(digest.getId(), digest.getTemplateVariables(), toVariables(items),
+                scheduledTime) > 0;
+    }
+
+    private EmailSendQueue newDigest(Long userId, String recipientEmail, List<Map<String, Object>> items,
+            LocalDateTime until) {
+        EmailSendQueue digest = new EmailSendQueue();
+        digest.setUserId(userId);
+        digest.setEmailType(EmailDeliveryGate.DIGEST_EMAIL_TYPE);
+        digest.setRecipientEmail(recipientEmail);
+        digest.setTemplateCode(EmailDeliveryGate.DIGEST_EMAIL_TYPE);
+        digest.setTemplateVariables(toVariables(items));
+        digest.setPriority(5);
+        digest.setScheduledTime(until);
+        digest.setStatus("PENDING");
+        digest.setRetryCount(0);
+        digest.setMaxRetries(3);
+        return digest;
+    }
+
+    private Map<String, Object> toItem(EmailSendQueue email) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("queueId", email.getId());
+        item.put("emailType", email.getEmailType());
+        item.put("templateCode", email.getTemplateCode());
+        item.put("templateVariables", email.getTemplateVariables());
+        return item;
+    }
+
+    private String toVariables(List<Map<String, Object>> items) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("itemCount", items.size());
+        variables.put("items", items);
+        return gson.toJson(variables);
+    }
+}
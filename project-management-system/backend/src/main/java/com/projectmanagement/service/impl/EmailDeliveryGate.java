@@ -0,0 +1,225 @@
+package com.projectmanagement.service.impl;
+
+import com.projectmanagement.entity.EmailSendQueue;
+import com.projectmanagement.entity.UserEmailPreference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 邮件发送闸门
+ * 发送前按用户偏好设置决定立即发送还是推迟：
+ * 免打扰时段内的非紧急邮件推迟到免打扰结束；仅接收紧急邮件的用户，非紧急邮件推迟到下一个免打扰结束时间汇总发送；
+ * 每个用户一个令牌桶，容量为每日最大邮件数、24小时内匀速补满，令牌用完时非紧急邮件推迟到下一个令牌可用；
+ * 推迟的非紧急邮件由 {@link DeferredEmailDigester} 合并为每人一封汇总邮件
+ */
+@Slf4j
+@Component
+public class EmailDeliveryGate {
+
+    /**
+     * 推迟邮件合并后的汇总邮件类型
+     */
+    public static final String DIGEST_EMAIL_TYPE = "DEFERRED_DIGEST";
+
+    /**
+     * 用户未设置免打扰时段时，仅接收紧急邮件的用户的汇总发送时间
+     */
+    private static final LocalTime DEFAULT_DIGEST_TIME = LocalTime.of(8, 0);
+
+    /**
+     * 视为紧急的邮件类型，不受免打扰和发送预算限制
+     */
+    private static final Set<String> URGENT_EMAIL_TYPES =
+            new HashSet<>(Arrays.asList("DEADLINE_REMINDER", "OVERDUE_REMINDER"));
+
+    private final UserEmailPreferenceCache preferenceCache;
+    private final int urgentPriority;
+
+    private final Map<Long, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public EmailDeliveryGate(UserEmailPreferenceCache preferenceCache,
+            @Value("${app.email.budget.urgent-priority:8}") int urgentPriority) {
+        this.preferenceCache = preferenceCache;
+        this.urgentPriority = urgentPriority;
+    }
+
+    /**
+     * 预先批量加载一批邮件收件人的偏好设置
+     */
+    public void preload(Collection<EmailSendQueue> emails) {
+        preferenceCache.getAll(emails.stream()
+                .map(EmailSendQueue::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * 决定邮件立即发送还是推迟，立即发送时占用收件人的一个令牌
+     */
+    public Decision evaluate(EmailSendQueue email, LocalDateTime now) {
+        if (email.getUserId() == null) {
+            return Decision.SEND;
+        }
+        UserEmailPreference preference = preferenceCache.get(email.getUserId());
+        if (preference == null) {
+            return Decision.SEND;
+        }
+
+        boolean digest = DIGEST_EMAIL_TYPE.equals(email.getEmailType());
+        boolean urgent = !digest && isUrgent(email);
+        LocalTime quietStart = parseTime(preference.getQuietStart());
+        LocalTime quietEnd = parseTime(preference.getQuietEnd());
+
+        if (!urgent) {
+            if (isQuiet(now.toLocalTime(), quietStart, quietEnd)) {
+                return Decision.defer(nextOccurrence(now, quietEnd), !digest);
+            }
+            if (!digest && Boolean.TRUE.equals(preference.getUrgentOnly())) {
+                return Decision.defer(nextOccurrence(now, quietEnd != null ? quietEnd : DEFAULT_DIGEST_TIME), true);
+            }
+        }
+
+        Integer maxEmailsPerDay = preference.getMaxEmailsPerDay();
+        if (maxEmailsPerDay == null || maxEmailsPerDay <= 0) {
+            return Decision.SEND;
+        }
+        TokenBucket bucket = buckets.compute(email.getUserId(), (userId, existing) ->
+                existing != null && existing.capacity == maxEmailsPerDay ? existing : new TokenBucket(maxEmailsPerDay));
+        long waitNanos = bucket.tryAcquire();
+        if (waitNanos == 0 || urgent) {
+            // 紧急邮件即使预算用完也立即发送
+            return Decision.SEND;
+        }
+        LocalDateTime until = now.plusSeconds(TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+        log.info("用户 {} 今日邮件预算已用完，邮件推迟到 {}: queueId={}", email.getUserId(), until, email.getId());
+        return Decision.defer(until, !digest);
+    }
+
+    /**
+     * 紧急邮件：优先级不低于紧急阈值，或为截止日期/逾期提醒
+     */
+    public boolean isUrgent(EmailSendQueue email) {
+        return (email.getPriority() != null && email.getPriority() >= urgentPriority)
+                || URGENT_EMAIL_TYPES.contains(email.getEmailType());
+    }
+
+    /**
+     * 判断时间是否处于免打扰时段，时段可以跨越午夜
+     */
+    static boolean isQuiet(LocalTime time, LocalTime quietStart, LocalTime quietEnd) {
+        if (quietStart == null || quietEnd == null || quietStart.equals(quietEnd)) {
+            return false;
+        }
+        if (quietStart.isBefore(quietEnd)) {
+            return !time.isBefore(quietStart) && time.isBefore(quietEnd);
+        }
+        return !time.isBefore(quietStart) || time.isBefore(quietEnd);
+    }
+
+    private static LocalDateTime nextOccurrence(LocalDateTime now, LocalTime time) {
+        LocalDate date = now.toLocalTime().isBefore(time) ? now.toLocalDate() : now.toLocalDate().plusDays(1);
+        return date.atTime(time);
+    }
+
+    private static LocalTime parseTime(String value) {
+        if (!StringUtils.hasText(value)) {
+            return null;
+        }
+        try {
+            return LocalTime.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            log.warn("免打扰时间格式错误: {}", value);
+            return null;
+        }
+    }
+
+    /**
+     * 发送决定
+     */
+    public static final class Decision {
+
+        static final Decision SEND = new Decision(null, false);
+
+        private final LocalDateTime deferUntil;
+        private final boolean foldable;
+
+        private Decision(LocalDateTime deferUntil, boolean foldable) {
+            this.deferUntil = deferUntil;
+            this.foldable = foldable;
+        }
+
+        static Decision defer(LocalDateTime until, boolean foldable) {
+            return new Decision(until, foldable);
+        }
+
+        public boolean isDeferred() {
+            return deferUntil != null;
+        }
+
+        /**
+         * 推迟到的发送时间
+         */
+        public LocalDateTime getDeferUntil() {
+            return deferUntil;
+        }
+
+        /**
+         * 是否合并到汇总邮件，汇总邮件本身只改期不再合并
+         */
+        public boolean isFoldable() {
+            return foldable;
+        }
+    }
+
+    /**
+     * 单个用户的令牌桶，容量为每日最大邮件数，24小时匀速补满
+     */
+    private static final class TokenBucket {
+
+        private static final long REFILL_PERIOD_NANOS = TimeUnit.DAYS.toNanos(1);
+
+        private final int capacity;
+        private final double nanosPerToken;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(int capacity) {
+            this.capacity = capacity;
+            this.nanosPerToken = (double) REFILL_PERIOD_NANOS / capacity;
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        /**
+         * 尝试取一个令牌
+         *
+         * @return 0表示取到令牌，否则为距离下一个令牌可用的纳秒数
+         */
+        synchronized long tryAcquire() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / nanosPerToken);
+            lastRefillNanos = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) * nanosPerToken);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.projectmanagement.service.impl;
+
+import com.projectmanagement.entity.EmailSendQueue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 邮件队列批量写入范围
+ * 范围内当前线程加入发送队列的邮件先暂存在内存中，范围结束时由调用方一次性写入数据库
+ */
+final class EmailQueueBatch {
+
+    private static final ThreadLocal<List<EmailSendQueue>> CURRENT = new ThreadLocal<>();
+
+    private EmailQueueBatch() {
+    }
+
+    /**
+     * 开启当前线程的批量写入范围
+     */
+    static void begin() {
+        CURRENT.set(new ArrayList<>());
+    }
+
+    /**
+     * 在批量写入范围内暂存邮件
+     *
+     * @return 不在批量写入范围内时返回false，调用方应直接写入
+     */
+    static boolean offer(EmailSendQueue queue) {
+        List<EmailSendQueue> pending = CURRENT.get();
+        if (pending == null) {
+            return false;
+        }
+        pending.add(queue);
+        return true;
+    }
+
+    /**
+     * 结束批量写入范围并返回暂存的邮件
+     */
+    static List<EmailSendQueue> end() {
+        List<EmailSendQueue> pending = CURRENT.get();
+        CURRENT.remove();
+        return pending != null ? pending : Collections.emptyList();
+    }
+}
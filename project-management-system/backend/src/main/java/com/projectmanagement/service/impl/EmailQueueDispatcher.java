@@ -0,0 +1,307 @@
+package com.projectmanagement.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.projectmanagement.config.PooledJavaMailSender;
+import com.projectmanagement.entity.EmailSendQueue;
+import com.projectmanagement.mapper.EmailSendQueueMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+
+/**
+ * 邮件队列分发器
+ * 使用固定数量的worker并行发送队列中的邮件，每个worker通过数据库原子领取一批记录并持有租约，
+ * 所有worker共享同一个限速器，单封邮件的失败不会影响同批次的其他邮件；
+ * 发送失败的邮件按重试策略推迟到退避时间之后再领取，永久错误直接标记为失败；
+ * 发送前经过发送闸门，免打扰时段内或超出用户每日预算的非紧急邮件推迟并合并为汇总邮件
+ */
+@Slf4j
+@Component
+public class EmailQueueDispatcher {
+
+    /**
+     * 写入 error_message 的最大长度
+     */
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final EmailSendQueueMapper emailSendQueueMapper;
+    private final JavaMailSender mailSender;
+    private final Executor executor;
+    private final EmailRateLimiter rateLimiter;
+    private final EmailRetryPolicy retryPolicy;
+    private final EmailDeliveryGate deliveryGate;
+    private final DeferredEmailDigester digester;
+    private final int workers;
+    private final int batchSize;
+    private final long maxRunMillis;
+    private final int leaseSeconds;
+
+    public EmailQueueDispatcher(EmailSendQueueMapper emailSendQueueMapper,
+            JavaMailSender mailSender,
+            EmailDeliveryGate deliveryGate,
+            DeferredEmailDigester digester,
+            @Qualifier("emailDispatchExecutor") Executor executor,
+            @Value("${app.email.dispatch.workers:4}") int workers,
+            @Value("${app.email.dispatch.batch-size:20}") int batchSize,
+            @Value("${app.email.dispatch.rate-per-second:5}") double ratePerSecond,
+            @Value("${app.email.dispatch.max-run-millis:25000}") long maxRunMillis,
+            @Value("${app.email.dispatch.lease-seconds:120}") int leaseSeconds,
+            @Value("${app.email.dispatch.retry-base-delay-seconds:60}") long retryBaseDelaySeconds,
+            @Value("${app.email.dispatch.retry-max-delay-seconds:3600}") long retryMaxDelaySeconds) {
+        this.emailSendQueueMapper = emailSendQueueMapper;
+        this.mailSender = mailSender;
+        this.deliveryGate = deliveryGate;
+        this.digester = digester;
+        this.executor = executor;
+        this.workers = Math.max(1, workers);
+        this.batchSize = Math.max(1, batchSize);
+        this.rateLimiter = new EmailRateLimiter(ratePerSecond);
+        this.retryPolicy = new EmailRetryPolicy(retryBaseDelaySeconds, retryMaxDelaySeconds);
+        this.maxRunMillis = maxRunMillis;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    /**
+     * 分发一轮邮件队列，阻塞直到所有worker完成或达到单轮最长运行时间
+     *
+     * @param delivery 单封邮件的发送逻辑，返回是否发送成功
+     * @return 本轮处理的邮件数量
+     */
+    public int dispatch(Predicate<EmailSendQueue> delivery) {
+        long startTime = System.currentTimeMillis();
+        long deadline = startTime + maxRunMillis;
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> runWorker(delivery, deadline), executor));
+        }
+
+        int handled = 0;
+        for (CompletableFuture<Integer> future : futures) {
+            try {
+                handled += future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("等待邮件分发worker结束时被中断");
+                break;
+            } catch (ExecutionException e) {
+                log.error("❌ 邮件分发worker异常退出: {}", e.getCause().getMessage(), e.getCause());
+            }
+        }
+
+        if (handled > 0) {
+            log.info("邮件队列分发完成: 处理 {} 封，耗时 {} ms", handled, System.currentTimeMillis() - startTime);
+        }
+        return handled;
+    }
+
+    /**
+     * 单个worker循环领取并发送，直到队列为空或超时
+     */
+    private int runWorker(Predicate<EmailSendQueue> delivery, long deadline) {
+        int handled = 0;
+        while (System.currentTimeMillis() < deadline) {
+            ClaimedBatch batch = claimBatch(batchSize);
+            if (batch.emails.isEmpty()) {
+                break;
+            }
+
+            // 一次查询加载本批次收件人的偏好设置，按免打扰和发送预算筛出需要推迟的邮件
+            deliveryGate.preload(batch.emails);
+            LocalDateTime now = LocalDateTime.now();
+            Map<EmailSendQueue, EmailDeliveryGate.Decision> deferred = new LinkedHashMap<>();
+            boolean stopped = false;
+
+            // 同一批次的邮件通过同一个SMTP连接发送
+            PooledJavaMailSender.BatchSession session = openBatchSession();
+            try {
+                for (EmailSendQueue email : batch.emails) {
+                    if (System.currentTimeMillis() >= deadline) {
+                        stopped = true;
+                        break;
+                    }
+                    EmailDeliveryGate.Decision decision = deliveryGate.evaluate(email, now);
+                    if (decision.isDeferred()) {
+                        deferred.put(email, decision);
+                        handled++;
+                        continue;
+                    }
+                    try {
+                        rateLimiter.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        stopped = true;
+                        break;
+                    }
+                    deliverOne(email, delivery);
+                    handled++;
+                }
+            } finally {
+                if (session != null) {
+                    session.close();
+                }
+            }
+
+            applyDeferrals(deferred);
+            if (stopped) {
+                releaseClaimed(batch);
+                return handled;
+            }
+        }
+        return handled;
+    }
+
+    /**
+     * 推迟的非紧急邮件按用户合并到汇总邮件，其余推迟的邮件直接改期
+     */
+    private void applyDeferrals(Map<EmailSendQueue, EmailDeliveryGate.Decision> deferred) {
+        if (deferred.isEmpty()) {
+            return;
+        }
+        Map<Long, List<EmailSendQueue>> foldableByUser = new LinkedHashMap<>();
+        Map<Long, LocalDateTime> foldUntil = new HashMap<>();
+        for (Map.Entry<EmailSendQueue, EmailDeliveryGate.Decision> entry : deferred.entrySet()) {
+            EmailSendQueue email = entry.getKey();
+            LocalDateTime until = entry.getValue().getDeferUntil();
+            if (!entry.getValue().isFoldable()) {
+                digester.reschedule(email, until);
+                continue;
+            }
+            foldableByUser.computeIfAbsent(email.getUserId(), k -> new ArrayList<>()).add(email);
+            foldUntil.merge(email.getUserId(), until, (a, b) -> a.isAfter(b) ? a : b);
+        }
+        for (Map.Entry<Long, List<EmailSendQueue>> entry : foldableByUser.entrySet()) {
+            try {
+                digester.fold(entry.getKey(), entry.getValue(), foldUntil.get(entry.getKey()));
+            } catch (Exception e) {
+                // 未合并的邮件保持领取状态，租约过期后重新处理
+                log.error("❌ 合并推迟邮件失败: userId={}, error={}", entry.getKey(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private PooledJavaMailSender.BatchSession openBatchSession() {
+        if (mailSender instanceof PooledJavaMailSender) {
+            return ((PooledJavaMailSender) mailSender).openBatchSession();
+        }
+        return null;
+    }
+
+    /**
+     * 原子领取一批待发送的邮件
+     * 领取由数据库单条UPDATE完成，多个节点同时运行也不会重复发送
+     */
+    private ClaimedBatch claimBatch(int limit) {
+        String claimToken = UUID.randomUUID().toString().replace("-", "");
+        int claimed = emailSendQueueMapper.claimBatch(claimToken, leaseSeconds, limit);
+        if (claimed == 0) {
+            return new ClaimedBatch(claimToken, Collections.emptyList());
+        }
+        return new ClaimedBatch(claimToken, emailSendQueueMapper.selectByClaimToken(claimToken));
+    }
+
+    /**
+     * 发送单封邮件并回写结果，异常只影响当前邮件
+     * 发送逻辑返回false或抛出临时错误时按退避时间重试，抛出永久错误时不再重试
+     */
+    private void deliverOne(EmailSendQueue email, Predicate<EmailSendQueue> delivery) {
+        Exception failure = null;
+        boolean success = false;
+        try {
+            success = delivery.test(email);
+        } catch (Exception e) {
+            failure = e;
+        }
+
+        if (success) {
+            markResult(email, "COMPLETED", null, null, null, LocalDateTime.now());
+            log.info("✅ 邮件发送成功: queueId={}", email.getId());
+            return;
+        }
+
+        int retryCount = (email.getRetryCount() != null ? email.getRetryCount() : 0) + 1;
+        int maxRetries = email.getMaxRetries() != null ? email.getMaxRetries() : 3;
+        String reason = failure != null ? abbreviate(String.valueOf(failure.getMessage())) : "发送失败";
+        if (failure != null && retryPolicy.isPermanent(failure)) {
+            markResult(email, "FAILED", "永久错误: " + reason, retryCount, null, null);
+            log.error("❌ 邮件发送失败，永久错误不再重试: queueId={}, error={}", email.getId(), reason, failure);
+        } else if (retryCount >= maxRetries) {
+            markResult(email, "FAILED", "超过最大重试次数: " + reason, retryCount, null, null);
+            log.warn("❌ 邮件发送失败，超过最大重试次数: queueId={}, error={}", email.getId(), reason);
+        } else {
+            LocalDateTime nextAttemptTime = retryPolicy.nextAttemptTime(retryCount);
+            markResult(email, "PENDING", reason + "，等待重试", retryCount, nextAttemptTime, null);
+            log.warn("⚠️ 邮件发送失败，将于 {} 重试: queueId={}, 重试次数: {}/{}, error={}",
+                    nextAttemptTime, email.getId(), retryCount, maxRetries, reason);
+        }
+    }
+
+    private String abbreviate(String message) {
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    /**
+     * 将超时或中断时尚未发送的记录放回待发送状态
+     */
+    private void releaseClaimed(ClaimedBatch batch) {
+        int released = emailSendQueueMapper.releaseClaim(batch.claimToken);
+        if (released > 0) {
+            log.info("本轮分发时间已用完，{} 封邮件留待下一轮发送", released);
+        }
+    }
+
+    /**
+     * 回写发送结果，仅当记录仍被本批次占有时生效，避免租约过期后覆盖其他节点的结果
+     */
+    private void markResult(EmailSendQueue email, String status, String errorMessage, Integer retryCount,
+            LocalDateTime scheduledTime, LocalDateTime sentTime) {
+        UpdateWrapper<EmailSendQueue> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.set("status", status)
+                .set("claim_token", null)
+                .set("lease_expire_time", null)
+                .set("update_time", LocalDateTime.now());
+        if (errorMessage != null) {
+            updateWrapper.set("error_message", errorMessage);
+        }
+        if (retryCount != null) {
+            updateWrapper.set("retry_count", retryCount);
+        }
+        if (scheduledTime != null) {
+            updateWrapper.set("scheduled_time", scheduledTime);
+        }
+        if (sentTime != null) {
+            updateWrapper.set("sent_time", sentTime);
+        }
+        updateWrapper.eq("id", email.getId())
+                .eq("claim_token", email.getClaimToken());
+        emailSendQueueMapper.update(null, updateWrapper);
+    }
+
+    /**
+     * 一次领取的结果
+     */
+    private static class ClaimedBatch {
+        private final String claimToken;
+        private final List<EmailSendQueue> emails;
+
+        ClaimedBatch(String claimToken, List<EmailSendQueue> emails) {
+            this.claimToken = claimToken;
+            this.emails = emails;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.projectmanagement.service.impl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 邮件发送限速器
+ * 按固定间隔发放许可，保证所有worker合计的发送速率不超过SMTP中继允许的每秒邮件数
+ */
+public class EmailRateLimiter {
+
+    /**
+     * 相邻两次许可之间的间隔（纳秒），0表示不限速
+     */
+    private final long intervalNanos;
+
+    /**
+     * 下一个许可可用的时间点
+     */
+    private long nextPermitNanos;
+
+    public EmailRateLimiter(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0L;
+        this.nextPermitNanos = System.nanoTime();
+    }
+
+    /**
+     * 获取一个发送许可，必要时阻塞等待
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * 预占下一个许可，返回需要等待的纳秒数
+     */
+    synchronized long reserve() {
+        if (intervalNanos == 0) {
+            return 0L;
+        }
+        long now = System.nanoTime();
+        long permitAt = Math.max(nextPermitNanos, now);
+        nextPermitNanos = permitAt + intervalNanos;
+        return permitAt - now;
+    }
+}
@@ -0,0 +1,106 @@
+package com.projectmanagement.service.impl;
+
+import com.sun.mail.smtp.SMTPAddressFailedException;
+import com.sun.mail.smtp.SMTPSendFailedException;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.AddressException;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 邮件重试策略
+ * 发送失败的邮件按指数退避计算下一次发送时间，并加入随机抖动，避免大量邮件在同一时刻集中重试；
+ * SMTP错误区分为临时错误（连接失败、4xx响应等，可重试）和永久错误（地址无效、5xx响应、邮件构建失败等，不再重试）
+ */
+public class EmailRetryPolicy {
+
+    /**
+     * 检查异常链的最大深度
+     */
+    private static final int MAX_CAUSE_DEPTH = 10;
+
+    /**
+     * 第一次重试的基础延迟（秒）
+     */
+    private final long baseDelaySeconds;
+
+    /**
+     * 单次重试的最大延迟（秒）
+     */
+    private final long maxDelaySeconds;
+
+    public EmailRetryPolicy(long baseDelaySeconds, long maxDelaySeconds) {
+        this.baseDelaySeconds = Math.max(1, baseDelaySeconds);
+        this.maxDelaySeconds = Math.max(this.baseDelaySeconds, maxDelaySeconds);
+    }
+
+    /**
+     * 计算第 retryCount 次重试的延迟（秒）
+     * 延迟为 base * 2^(retryCount-1)，不超过最大延迟，实际取值在其一半到全部之间随机
+     */
+    public long nextDelaySeconds(int retryCount) {
+        int exponent = Math.min(Math.max(retryCount, 1) - 1, 30);
+        long delay = Math.min(maxDelaySeconds, baseDelaySeconds << exponent);
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    /**
+     * 计算第 retryCount 次重试的发送时间
+     */
+    public LocalDateTime nextAttemptTime(int retryCount) {
+        return LocalDateTime.now().plusSeconds(nextDelaySeconds(retryCount));
+    }
+
+    /**
+     * 判断发送异常是否为永久错误，永久错误重试也不会成功
+     * 未能识别的非邮件异常（如模板渲染中的程序错误）同样视为永久错误
+     */
+    public boolean isPermanent(Throwable error) {
+        boolean mailError = false;
+        int depth = 0;
+        for (Throwable cause = error; cause != null && depth < MAX_CAUSE_DEPTH; cause = cause.getCause(), depth++) {
+            if (cause instanceof SMTPAddressFailedException) {
+                return isPermanentReplyCode(((SMTPAddressFailedException) cause).getReturnCode());
+            }
+            if (cause instanceof SMTPSendFailedException) {
+                return isPermanentReplyCode(((SMTPSendFailedException) cause).getReturnCode());
+            }
+            if (cause instanceof AddressException
+                    || cause instanceof MailParseException
+                    || cause instanceof MailPreparationException) {
+                return true;
+            }
+            if (cause instanceof MailAuthenticationException || cause instanceof IOException) {
+                // 认证失败、网络异常与邮件本身无关，等待恢复后重试
+                return false;
+            }
+            if (cause instanceof MailSendException) {
+                MailSendException sendException = (MailSendException) cause;
+                for (Exception failure : sendException.getFailedMessages().values()) {
+                    if (isPermanent(failure)) {
+                        return true;
+                    }
+                }
+            }
+            if (cause instanceof MessagingException || cause instanceof MailException) {
+                mailError = true;
+            }
+        }
+        return !mailError;
+    }
+
+    /**
+     * SMTP 5xx 为永久错误，4xx 为临时错误
+     */
+    private boolean isPermanentReplyCode(int replyCode) {
+        return replyCode >= 500 && replyCode < 600;
+    }
+}
@@ -0,0 +1,121 @@
+package com.projectmanagement.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.projectmanagement.entity.EmailSendRule;
+import com.projectmanagement.mapper.EmailSendRuleMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 邮件规则内存索引
+ * 启用的规则按 rule_type 和 event 建立索引，触发条件在加载时预编译；
+ * 规则变更后调用 {@link #refresh()} 使索引失效，下次访问时重新加载
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailRuleIndex {
+
+    private static final String ANY_EVENT = "";
+
+    private final EmailSendRuleMapper emailSendRuleMapper;
+    private final EmailRuleProcessor ruleProcessor;
+
+    /**
+     * 当前索引快照，null表示需要重新加载
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * 失效次数，加载期间发生失效时不发布加载结果
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 获取指定类型的全部启用规则，按优先级从高到低排列
+     */
+    public List<CompiledEmailRule> getRules(String ruleType) {
+        return getRules(ruleType, ANY_EVENT);
+    }
+
+    /**
+     * 获取指定类型和事件的启用规则，按优先级从高到低排列
+     */
+    public List<CompiledEmailRule> getRules(String ruleType, String event) {
+        Map<String, List<CompiledEmailRule>> byEvent = currentSnapshot().rules.get(ruleType);
+        if (byEvent == null) {
+            return Collections.emptyList();
+        }
+        List<CompiledEmailRule> rules = byEvent.get(event != null ? event : ANY_EVENT);
+        return rules != null ? rules : Collections.emptyList();
+    }
+
+    /**
+     * 规则发生变化后使索引失效
+     */
+    public void refresh() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null) {
+                return current;
+            }
+            long loadGeneration = generation.get();
+            current = load();
+            if (generation.get() == loadGeneration) {
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private Snapshot load() {
+        QueryWrapper<EmailSendRule> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("enabled", true)
+                .orderByDesc("priority");
+        List<EmailSendRule> rules = emailSendRuleMapper.selectList(queryWrapper);
+
+        Map<String, Map<String, List<CompiledEmailRule>>> index = new HashMap<>();
+        for (EmailSendRule rule : rules) {
+            if (rule.getRuleType() == null) {
+                continue;
+            }
+            CompiledEmailRule compiled = ruleProcessor.compile(rule);
+            Map<String, List<CompiledEmailRule>> byEvent = index.computeIfAbsent(rule.getRuleType(),
+                    k -> new HashMap<>());
+            byEvent.computeIfAbsent(ANY_EVENT, k -> new ArrayList<>()).add(compiled);
+            if (compiled.getEvent() != null && !compiled.getEvent().isEmpty()) {
+                byEvent.computeIfAbsent(compiled.getEvent(), k -> new ArrayList<>()).add(compiled);
+            }
+        }
+
+        // 发布后只读
+        index.values().forEach(byEvent -> byEvent.replaceAll((event, list) -> Collections.unmodifiableList(list)));
+        log.info("邮件规则索引已加载: {} 条启用规则", rules.size());
+        return new Snapshot(index);
+    }
+
+    private static final class Snapshot {
+        private final Map<String, Map<String, List<CompiledEmailRule>>> rules;
+
+        Snapshot(Map<String, Map<String, List<CompiledEmailRule>>> rules) {
+            this.rules = rules;
+        }
+    }
+}
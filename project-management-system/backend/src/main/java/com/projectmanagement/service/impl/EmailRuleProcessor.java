@@ -2,6 +2,7 @@ package com.projectmanagement.service.impl;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import com.projectmanagement.entity.EmailSendRule;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -38,6 +39,13 @@ public class EmailRuleProcessor {
         }
     }
 
+    /**
+     * 将规则的触发条件预编译为强类型对象
+     */
+    public CompiledEmailRule compile(EmailSendRule rule) {
+        return new CompiledEmailRule(rule, parseTriggerCondition(rule.getTriggerCondition()), this);
+    }
+
     /**
      * 检查是否匹配分配事件
      */
@@ -161,7 +169,13 @@ public class EmailRuleProcessor {
      * 检查当前时间是否匹配发送时间
      */
     public boolean isTimeToSend(Map<String, Object> conditions) {
-        String sendTime = getSendTime(conditions);
+        return isTimeToSend(getSendTime(conditions));
+    }
+
+    /**
+     * 检查当前时间是否匹配指定的发送时间(HH:mm)
+     */
+    public boolean isTimeToSend(String sendTime) {
         if (sendTime == null) {
             // 如果没有配置发送时间，默认返回true（立即发送）
             return true;
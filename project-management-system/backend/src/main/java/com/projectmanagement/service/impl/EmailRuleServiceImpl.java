@@ -33,6 +33,8 @@ public class EmailRuleServiceImpl implements EmailRuleService {
     private final UserEmailPreferenceMapper userEmailPreferenceMapper;
     private final EmailTemplateMapper emailTemplateMapper;
     private final EmailRuleProcessor emailRuleProcessor;
+    private final EmailRuleIndex emailRuleIndex;
+    private final UserEmailPreferenceCache preferenceCache;
     private final EmailSendService emailSendService;
 
     @Override
@@ -61,7 +63,9 @@ public class EmailRuleServiceImpl implements EmailRuleService {
         EmailSendRule emailSendRule = new EmailSendRule();
         BeanUtils.copyProperties(emailRuleDTO, emailSendRule);
         emailSendRule.setCreatorId(creatorId);
-        return emailSendRuleMapper.insert(emailSendRule) > 0;
+        boolean created = emailSendRuleMapper.insert(emailSendRule) > 0;
+        emailRuleIndex.refresh();
+        return created;
     }
 
     @Override
@@ -69,12 +73,16 @@ public class EmailRuleServiceImpl implements EmailRuleService {
         EmailSendRule emailSendRule = new EmailSendRule();
         BeanUtils.copyProperties(emailRuleDTO, emailSendRule);
         emailSendRule.setId(id);
-        return emailSendRuleMapper.updateById(emailSendRule) > 0;
+        boolean updated = emailSendRuleMapper.updateById(emailSendRule) > 0;
+        emailRuleIndex.refresh();
+        return updated;
     }
 
     @Override
     public boolean deleteEmailRule(Long id) {
-        return emailSendRuleMapper.deleteById(id) > 0;
+        boolean deleted = emailSendRuleMapper.deleteById(id) > 0;
+        emailRuleIndex.refresh();
+        return deleted;
     }
 
     @Override
@@ -82,7 +90,9 @@ public class EmailRuleServiceImpl implements EmailRuleService {
         EmailSendRule emailSendRule = new EmailSendRule();
         emailSendRule.setId(id);
         emailSendRule.setEnabled(enabled);
-        return emailSendRuleMapper.updateById(emailSendRule) > 0;
+        boolean updated = emailSendRuleMapper.updateById(emailSendRule) > 0;
+        emailRuleIndex.refresh();
+        return updated;
     }
 
     @Override
@@ -109,12 +119,15 @@ public class EmailRuleServiceImpl implements EmailRuleService {
         BeanUtils.copyProperties(preferenceDTO, preference);
         preference.setUserId(userId);
 
+        boolean saved;
         if (existingPreference != null) {
             preference.setId(existingPreference.getId());
-            return userEmailPreferenceMapper.updateById(preference) > 0;
+            saved = userEmailPreferenceMapper.updateById(preference) > 0;
         } else {
-            return userEmailPreferenceMapper.insert(preference) > 0;
+            saved = userEmailPreferenceMapper.insert(preference) > 0;
         }
+        preferenceCache.invalidate(userId);
+        return saved;
     }
 
     @Override
@@ -156,6 +169,7 @@ public class EmailRuleServiceImpl implements EmailRuleService {
         preference.setMaxEmailsPerDay(10);
 
         userEmailPreferenceMapper.insert(preference);
+        preferenceCache.invalidate(userId);
         return preference;
     }
 
@@ -3,20 +3,23 @@ package com.projectmanagement.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import com.projectmanagement.config.PooledJavaMailSender;
 import com.projectmanagement.entity.*;
 import com.projectmanagement.mapper.*;
 import com.projectmanagement.service.EmailSendService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailPreparationException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
-import org.thymeleaf.TemplateEngine;
+import org.springframework.web.util.HtmlUtils;
 import org.thymeleaf.context.Context;
 
+import javax.mail.MessagingException;
 import javax.mail.internet.MimeMessage;
 import java.lang.reflect.Type;
 import java.time.LocalDateTime;
@@ -38,7 +41,6 @@ import java.util.stream.Collectors;
 public class EmailSendServiceImpl implements EmailSendService {
 
     private final JavaMailSender mailSender;
-    private final TemplateEngine templateEngine;
     private final EmailSendQueueMapper emailSendQueueMapper;
     private final EmailSendRuleMapper emailSendRuleMapper;
     private final EmailTemplateMapper emailTemplateMapper;
@@ -47,6 +49,12 @@ public class EmailSendServiceImpl implements EmailSendService {
     private final ProjectMapper projectMapper;
     private final TodoMapper todoMapper;
     private final EmailRuleProcessor ruleProcessor;
+    private final EmailRuleIndex emailRuleIndex;
+    private final EmailQueueDispatcher emailQueueDispatcher;
+    private final EmailTemplateRenderer templateRenderer;
+    private final ReminderDigestBuilder reminderDigestBuilder;
+    private final UserEmailPreferenceCache preferenceCache;
+    private final DeferredEmailDigester deferredEmailDigester;
 
     private final Gson gson = new Gson();
 
@@ -88,49 +96,37 @@ public class EmailSendServiceImpl implements EmailSendService {
             return;
         }
 
-        // 查找任务分配通知规则
-        log.info("查找任务分配邮件规则...");
-        QueryWrapper<EmailSendRule> ruleQuery = new QueryWrapper<>();
-        ruleQuery.eq("rule_type", "STATUS_CHANGE")
-                .eq("enabled", true)
-                .orderByDesc("priority");
-
-        List<EmailSendRule> allRules = emailSendRuleMapper.selectList(ruleQuery);
-        log.info("找到 {} 条邮件规则", allRules.size());
-
-        // 使用规则处理器筛选匹配的规则
-        List<EmailSendRule> rules = new ArrayList<>();
-        for (EmailSendRule rule : allRules) {
-            Map<String, Object> conditions = ruleProcessor.parseTriggerCondition(rule.getTriggerCondition());
-            if (ruleProcessor.matchesAssignmentEvent(conditions) &&
-                    ruleProcessor.isImmediateSend(conditions) &&
-                    ruleProcessor.matchesStatus(todo.getStatus(), conditions)) {
-                rules.add(rule);
+        // 从规则索引中查找任务分配通知规则
+        EmailSendRule rule = null;
+        for (CompiledEmailRule candidate : emailRuleIndex.getRules("STATUS_CHANGE", "ASSIGNED")) {
+            if (candidate.isImmediate() && candidate.matchesStatus(todo.getStatus())) {
+                rule = candidate.getRule();
                 log.info("✅ 规则匹配: {}", rule.getRuleName());
+                break;
             }
         }
 
-        if (rules.isEmpty()) {
-            log.warn("❌ 未找到任务分配通知规则，尝试创建默认规则");
-            createDefaultTaskAssignmentRule();
-            rules = emailSendRuleMapper.selectList(ruleQuery);
-            log.info("重新查询后找到 {} 条邮件规则", rules.size());
+        if (rule == null) {
+            List<CompiledEmailRule> statusChangeRules = emailRuleIndex.getRules("STATUS_CHANGE");
+            if (statusChangeRules.isEmpty()) {
+                log.warn("❌ 未找到任务分配通知规则，尝试创建默认规则");
+                createDefaultTaskAssignmentRule();
+                emailRuleIndex.refresh();
+                statusChangeRules = emailRuleIndex.getRules("STATUS_CHANGE");
+            }
 
-            if (rules.isEmpty()) {
+            if (statusChangeRules.isEmpty()) {
                 log.error("❌ 仍然没有找到邮件规则，无法发送通知");
                 return;
             }
+            rule = statusChangeRules.get(0).getRule();
         }
 
-        EmailSendRule rule = rules.get(0);
         log.info("使用邮件规则: ID={}, 名称={}, 模板代码={}",
                 rule.getId(), rule.getRuleName(), rule.getEmailTemplateCode());
 
         // 检查邮件模板是否存在
-        log.info("检查邮件模板: {}", rule.getEmailTemplateCode());
-        QueryWrapper<EmailTemplate> templateQuery = new QueryWrapper<>();
-        templateQuery.eq("template_code", rule.getEmailTemplateCode()).eq("enabled", true);
-        EmailTemplate template = emailTemplateMapper.selectOne(templateQuery);
+        EmailTemplateRenderer.CompiledTemplate template = templateRenderer.getTemplate(rule.getEmailTemplateCode());
 
         if (template == null) {
             log.warn("❌ 邮件模板 {} 不存在，创建默认模板", rule.getEmailTemplateCode());
@@ -227,44 +223,36 @@ public class EmailSendServiceImpl implements EmailSendService {
         // 根据规则配置确定通知对象
         List<User> notifyUsers = new ArrayList<>();
 
-        // 查找状态变更规则
-        QueryWrapper<EmailSendRule> statusRuleQuery = new QueryWrapper<>();
-        statusRuleQuery.eq("rule_type", "STATUS_CHANGE")
-                .eq("enabled", true)
-                .orderByDesc("priority");
-
-        List<EmailSendRule> statusRules = emailSendRuleMapper.selectList(statusRuleQuery);
+        // 从规则索引中查找状态变更规则，使用第一个匹配的规则
         boolean foundMatchingRule = false;
 
-        for (EmailSendRule rule : statusRules) {
-            Map<String, Object> conditions = ruleProcessor.parseTriggerCondition(rule.getTriggerCondition());
-
-            if (ruleProcessor.matchesStatusChangeEvent(conditions) &&
-                    !ruleProcessor.isStatusExcluded(newStatus, conditions)) {
-                foundMatchingRule = true;
+        for (CompiledEmailRule rule : emailRuleIndex.getRules("STATUS_CHANGE", "STATUS_CHANGED")) {
+            if (rule.isStatusExcluded(newStatus)) {
+                continue;
+            }
+            foundMatchingRule = true;
 
-                // 根据规则配置决定通知对象
-                if (ruleProcessor.shouldNotifyAssignee(conditions) && todo.getAssigneeId() != null) {
-                    User assignee = userMapper.selectById(todo.getAssigneeId());
-                    if (assignee != null && StringUtils.hasText(assignee.getEmail())) {
-                        notifyUsers.add(assignee);
-                        log.info("根据规则添加负责人: {}", assignee.getUsername());
-                    }
+            // 根据规则配置决定通知对象
+            if (rule.isNotifyAssignee() && todo.getAssigneeId() != null) {
+                User assignee = userMapper.selectById(todo.getAssigneeId());
+                if (assignee != null && StringUtils.hasText(assignee.getEmail())) {
+                    notifyUsers.add(assignee);
+                    log.info("根据规则添加负责人: {}", assignee.getUsername());
                 }
+            }
 
-                if (ruleProcessor.shouldNotifyCreator(conditions) && todo.getCreatorId() != null) {
-                    User creator = userMapper.selectById(todo.getCreatorId());
-                    if (creator != null && StringUtils.hasText(creator.getEmail())) {
-                        boolean alreadyAdded = notifyUsers.stream()
-                                .anyMatch(user -> user.getId().equals(creator.getId()));
-                        if (!alreadyAdded) {
-                            notifyUsers.add(creator);
-                            log.info("根据规则添加创建者: {}", creator.getUsername());
-                        }
+            if (rule.isNotifyCreator() && todo.getCreatorId() != null) {
+                User creator = userMapper.selectById(todo.getCreatorId());
+                if (creator != null && StringUtils.hasText(creator.getEmail())) {
+                    boolean alreadyAdded = notifyUsers.stream()
+                            .anyMatch(user -> user.getId().equals(creator.getId()));
+                    if (!alreadyAdded) {
+                        notifyUsers.add(creator);
+                        log.info("根据规则添加创建者: {}", creator.getUsername());
                     }
                 }
-                break; // 使用第一个匹配的规则
             }
+            break;
         }
 
         // 如果没有找到匹配的规则，使用默认逻辑（兼容性）
@@ -325,27 +313,8 @@ public class EmailSendServiceImpl implements EmailSendService {
                 return;
             }
 
-            // 按用户分组处理
-            Map<Long, List<Todo>> userTasksMap = new HashMap<>();
-            for (Todo task : deadlineTasks) {
-                if (task.getAssigneeId() != null) {
-                    userTasksMap.computeIfAbsent(task.getAssigneeId(), k -> new ArrayList<>()).add(task);
-                }
-            }
-
-            log.info("需要通知 {} 个用户", userTasksMap.size());
-
-            // 为每个用户发送截止日期提醒
-            for (Map.Entry<Long, List<Todo>> entry : userTasksMap.entrySet()) {
-                Long userId = entry.getKey();
-                List<Todo> userTasks = entry.getValue();
-
-                try {
-                    sendDeadlineReminderToUser(userId, userTasks);
-                } catch (Exception e) {
-                    log.error("❌ 发送截止日期提醒失败: userId={}, error={}", userId, e.getMessage(), e);
-                }
-            }
+            // 按用户汇总为摘要邮件后批量加入队列
+            reminderDigestBuilder.enqueueDeadlineDigests(deadlineTasks, 0L, "DEADLINE_REMINDER");
 
         } catch (Exception e) {
             log.error("❌ 处理截止日期提醒失败", e);
@@ -400,28 +369,9 @@ public class EmailSendServiceImpl implements EmailSendService {
                 return;
             }
 
-            // 按用户分组处理
-            Map<Long, List<Todo>> userTasksMap = new HashMap<>();
-            for (Todo task : allMatchingTasks) {
-                if (task.getAssigneeId() != null) {
-                    userTasksMap.computeIfAbsent(task.getAssigneeId(), k -> new ArrayList<>()).add(task);
-                }
-            }
-
-            log.info("需要通知 {} 个用户", userTasksMap.size());
-
-            // 为每个用户发送截止日期提醒
-            for (Map.Entry<Long, List<Todo>> entry : userTasksMap.entrySet()) {
-                Long userId = entry.getKey();
-                List<Todo> userTasks = entry.getValue();
-
-                try {
-                    // 使用规则中的邮件模板
-                    sendDeadlineReminderToUser(userId, userTasks, rule.getEmailTemplateCode());
-                } catch (Exception e) {
-                    log.error("❌ 发送截止日期提醒失败: userId={}, error={}", userId, e.getMessage(), e);
-                }
-            }
+            // 按用户汇总为摘要邮件后批量加入队列，使用规则中的邮件模板
+            reminderDigestBuilder.enqueueDeadlineDigests(allMatchingTasks, rule.getId(),
+                    rule.getEmailTemplateCode());
 
         } catch (Exception e) {
             log.error("❌ 处理截止日期提醒失败", e);
@@ -444,27 +394,8 @@ public class EmailSendServiceImpl implements EmailSendService {
                 return;
             }
 
-            // 按用户分组处理
-            Map<Long, List<Todo>> userTasksMap = new HashMap<>();
-            for (Todo task : overdueTasks) {
-                if (task.getAssigneeId() != null) {
-                    userTasksMap.computeIfAbsent(task.getAssigneeId(), k -> new ArrayList<>()).add(task);
-                }
-            }
-
-            log.info("需要通知 {} 个用户", userTasksMap.size());
-
-            // 为每个用户发送逾期任务提醒
-            for (Map.Entry<Long, List<Todo>> entry : userTasksMap.entrySet()) {
-                Long userId = entry.getKey();
-                List<Todo> userTasks = entry.getValue();
-
-                try {
-                    sendOverdueReminderToUser(userId, userTasks);
-                } catch (Exception e) {
-                    log.error("❌ 发送逾期任务提醒失败: userId={}, error={}", userId, e.getMessage(), e);
-                }
-            }
+            // 按用户汇总为摘要邮件后批量加入队列
+            reminderDigestBuilder.enqueueOverdueDigests(overdueTasks);
 
         } catch (Exception e) {
             log.error("❌ 处理逾期任务提醒失败", e);
@@ -496,6 +427,12 @@ public class EmailSendServiceImpl implements EmailSendService {
         queue.setRetryCount(0);
         queue.setMaxRetries(3);
 
+        // 事件总线批量处理时由总线统一写入
+        if (EmailQueueBatch.offer(queue)) {
+            log.info("邮件已加入批量写入");
+            return;
+        }
+
         try {
             emailSendQueueMapper.insert(queue);
             log.info("✅ 邮件已添加到发送队列，队列ID: {}", queue.getId());
@@ -507,60 +444,86 @@ public class EmailSendServiceImpl implements EmailSendService {
 
     @Override
     public void processEmailQueue() {
-        List<EmailSendQueue> pendingEmails = getPendingEmailQueue();
-        log.info("=== 开始处理邮件队列 ===");
-        log.info("待发送邮件数量: {}", pendingEmails.size());
+        log.debug("=== 开始处理邮件队列 ===");
+        // 由分发器并行领取、限速发送，每封邮件的结果由分发器回写
+        emailQueueDispatcher.dispatch(this::deliverQueuedEmail);
+    }
 
-        if (pendingEmails.isEmpty()) {
-            log.debug("邮件队列为空，无需处理");
-            return;
+    /**
+     * 发送单条队列中的邮件
+     * 发送异常不在此处吞掉，由分发器区分临时错误和永久错误决定是否重试
+     */
+    private boolean deliverQueuedEmail(EmailSendQueue emailQueue) {
+        log.info("--- 处理邮件队列ID: {} ---", emailQueue.getId());
+        log.info("收件人: {}, 模板: {}", emailQueue.getRecipientEmail(), emailQueue.getTemplateCode());
+
+        if (EmailDeliveryGate.DIGEST_EMAIL_TYPE.equals(emailQueue.getEmailType())) {
+            return deliverDigestEmail(emailQueue);
         }
 
-        for (EmailSendQueue emailQueue : pendingEmails) {
-            log.info("--- 处理邮件队列ID: {} ---", emailQueue.getId());
-            log.info("收件人: {}, 模板: {}, 状态: {}",
-                    emailQueue.getRecipientEmail(),
-                    emailQueue.getTemplateCode(),
-                    emailQueue.getStatus());
-
-            try {
-                // 更新状态为处理中
-                updateEmailQueueStatus(emailQueue.getId(), "PROCESSING", null);
-
-                // 发送邮件
-                Map<String, Object> variables = convertJsonToMap(emailQueue.getTemplateVariables());
-                log.info("模板变量: {}", variables);
-
-                boolean success = sendEmailByTemplate(emailQueue.getTemplateCode(),
-                        emailQueue.getRecipientEmail(), variables);
-
-                if (success) {
-                    // 发送成功
-                    emailQueue.setSentTime(LocalDateTime.now());
-                    updateEmailQueueStatus(emailQueue.getId(), "COMPLETED", null);
-                    log.info("✅ 邮件发送成功: queueId={}", emailQueue.getId());
-                } else {
-                    // 发送失败，增加重试次数
-                    int retryCount = emailQueue.getRetryCount() + 1;
-                    emailQueue.setRetryCount(retryCount);
-
-                    if (retryCount >= emailQueue.getMaxRetries()) {
-                        updateEmailQueueStatus(emailQueue.getId(), "FAILED", "超过最大重试次数");
-                        log.warn("❌ 邮件发送失败，超过最大重试次数: queueId={}", emailQueue.getId());
-                    } else {
-                        updateEmailQueueStatus(emailQueue.getId(), "PENDING", "发送失败，等待重试");
-                        log.warn("⚠️ 邮件发送失败，将重试: queueId={}, 重试次数: {}/{}",
-                                emailQueue.getId(), retryCount, emailQueue.getMaxRetries());
-                    }
-                }
+        EmailTemplateRenderer.CompiledTemplate template = templateRenderer.getTemplate(emailQueue.getTemplateCode());
+        if (template == null) {
+            log.error("❌ 邮件模板不存在或未启用: {}", emailQueue.getTemplateCode());
+            return false;
+        }
 
-            } catch (Exception e) {
-                log.error("❌ 处理邮件队列失败: queueId={}, error={}", emailQueue.getId(), e.getMessage(), e);
-                updateEmailQueueStatus(emailQueue.getId(), "FAILED", e.getMessage());
+        Map<String, Object> variables = convertJsonToMap(emailQueue.getTemplateVariables());
+        log.debug("模板变量: {}", variables);
+
+        String subject = template.renderSubject(variables);
+        String content = template.renderContent(variables);
+        try {
+            if (template.isHtml()) {
+                doSendHtmlEmail(emailQueue.getRecipientEmail(), subject, content);
+            } else {
+                doSendTextEmail(emailQueue.getRecipientEmail(), subject, content);
             }
+        } catch (MessagingException e) {
+            throw new MailPreparationException("邮件构建失败: " + e.getMessage(), e);
         }
+        return true;
+    }
 
-        log.info("=== 邮件队列处理完成 ===");
+    /**
+     * 发送推迟邮件的汇总：逐封渲染原邮件，按原主题分段合并为一封HTML邮件
+     */
+    private boolean deliverDigestEmail(EmailSendQueue digest) {
+        List<Map<String, Object>> items = deferredEmailDigester.parseItems(digest.getTemplateVariables());
+        StringBuilder html = new StringBuilder(8192);
+        int rendered = 0;
+        for (Map<String, Object> item : items) {
+            String templateCode = (String) item.get("templateCode");
+            EmailTemplateRenderer.CompiledTemplate template = templateRenderer.getTemplate(templateCode);
+            if (template == null) {
+                log.warn("❌ 汇总邮件中的模板不存在或未启用，跳过: {}", templateCode);
+                continue;
+            }
+            Map<String, Object> variables = convertJsonToMap((String) item.get("templateVariables"));
+            String content = template.renderContent(variables);
+            html.append("<div style='margin-bottom: 24px; padding-bottom: 16px; border-bottom: 1px solid #e2e8f0;'>")
+                    .append("<h3 style='margin: 0 0 12px 0; color: #2d3748;'>")
+                    .append(HtmlUtils.htmlEscape(template.renderSubject(variables)))
+                    .append("</h3>")
+                    .append(template.isHtml() ? content
+                            : "<pre style='white-space: pre-wrap;'>" + HtmlUtils.htmlEscape(content) + "</pre>")
+                    .append("</div>");
+            rendered++;
+        }
+        if (rendered == 0) {
+            log.warn("汇总邮件没有可发送的内容: queueId={}", digest.getId());
+            return true;
+        }
+
+        String subject = deferredEmailDigester.parseSubject(digest.getTemplateVariables());
+        if (subject == null) {
+            subject = "【通知汇总】您有 " + rendered + " 条延迟发送的通知";
+        }
+        try {
+            doSendHtmlEmail(digest.getRecipientEmail(), subject, html.toString());
+        } catch (MessagingException e) {
+            throw new MailPreparationException("邮件构建失败: " + e.getMessage(), e);
+        }
+        return true;
     }
 
     @Override
@@ -569,10 +532,8 @@ public class EmailSendServiceImpl implements EmailSendService {
         log.info("模板代码: {}, 收件人: {}", templateCode, recipientEmail);
 
         try {
-            // 获取邮件模板
-            QueryWrapper<EmailTemplate> templateQuery = new QueryWrapper<>();
-            templateQuery.eq("template_code", templateCode).eq("enabled", true);
-            EmailTemplate template = emailTemplateMapper.selectOne(templateQuery);
+            // 获取已编译的邮件模板
+            EmailTemplateRenderer.CompiledTemplate template = templateRenderer.getTemplate(templateCode);
 
             if (template == null) {
                 log.error("❌ 邮件模板不存在或未启用: {}", templateCode);
@@ -582,9 +543,8 @@ public class EmailSendServiceImpl implements EmailSendService {
             log.info("✅ 找到邮件模板: {} (类型: {})", template.getTemplateName(), template.getTemplateType());
 
             // 渲染主题和内容
-            log.info("开始渲染邮件模板...");
-            String subject = renderTemplate(template.getSubjectTemplate(), variables);
-            String content = renderTemplate(template.getContentTemplate(), variables);
+            String subject = template.renderSubject(variables);
+            String content = template.renderContent(variables);
 
             log.info("邮件主题: {}", subject);
             log.info("邮件内容长度: {} 字符", content.length());
@@ -592,7 +552,7 @@ public class EmailSendServiceImpl implements EmailSendService {
 
             // 根据模板类型发送邮件
             boolean result;
-            if ("HTML".equals(template.getTemplateType())) {
+            if (template.isHtml()) {
                 log.info("发送HTML邮件...");
                 result = sendHtmlEmail(recipientEmail, subject, content);
             } else {
@@ -618,15 +578,7 @@ public class EmailSendServiceImpl implements EmailSendService {
     @Override
     public boolean sendHtmlEmail(String to, String subject, String content) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(content, true);
-
-            mailSender.send(message);
+            doSendHtmlEmail(to, subject, content);
             log.info("HTML邮件发送成功: to={}, subject={}", to, subject);
             return true;
 
@@ -639,13 +591,7 @@ public class EmailSendServiceImpl implements EmailSendService {
     @Override
     public boolean sendTextEmail(String to, String subject, String content) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(content);
-
-            mailSender.send(message);
+            doSendTextEmail(to, subject, content);
             log.info("文本邮件发送成功: to={}, subject={}", to, subject);
             return true;
 
@@ -655,6 +601,28 @@ public class EmailSendServiceImpl implements EmailSendService {
         }
     }
 
+    private void doSendHtmlEmail(String to, String subject, String content) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setFrom(fromEmail);
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText(content, true);
+
+        mailSender.send(message);
+    }
+
+    private void doSendTextEmail(String to, String subject, String content) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmail);
+        message.setTo(to);
+        message.setSubject(subject);
+        message.setText(content);
+
+        mailSender.send(message);
+    }
+
     @Override
     public List<EmailSendQueue> getPendingEmailQueue() {
         QueryWrapper<EmailSendQueue> queryWrapper = new QueryWrapper<>();
@@ -676,12 +644,28 @@ public class EmailSendServiceImpl implements EmailSendService {
         emailSendQueueMapper.updateById(queue);
     }
 
+    @Override
+    public Map<String, Object> getSmtpPoolStats() {
+        if (mailSender instanceof PooledJavaMailSender) {
+            return ((PooledJavaMailSender) mailSender).getPoolStats();
+        }
+        return new HashMap<>();
+    }
+
+    @Override
+    public void evictIdleSmtpConnections() {
+        if (mailSender instanceof PooledJavaMailSender) {
+            int evicted = ((PooledJavaMailSender) mailSender).evictIdleConnections();
+            if (evicted > 0) {
+                log.info("关闭空闲SMTP连接 {} 个", evicted);
+            }
+        }
+    }
+
     // 辅助方法
 
     private UserEmailPreference getUserEmailPreference(Long userId) {
-        QueryWrapper<UserEmailPreference> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("user_id", userId);
-        return userEmailPreferenceMapper.selectOne(queryWrapper);
+        return preferenceCache.get(userId);
     }
 
     private String getPriorityText(String priority) {
@@ -728,25 +712,6 @@ public class EmailSendServiceImpl implements EmailSendService {
         return !todo.getCompletedTime().toLocalDate().isAfter(todo.getDueDate());
     }
 
-    private String renderTemplate(String template, Map<String, Object> variables) {
-        if (template == null || template.trim().isEmpty()) {
-            return "";
-        }
-
-        // 使用简单的变量替换，支持 ${variable} 格式
-        String result = template;
-        if (variables != null) {
-            for (Map.Entry<String, Object> entry : variables.entrySet()) {
-                String key = entry.getKey();
-                String value = entry.getValue() != null ? entry.getValue().toString() : "";
-
-                // 替换 ${variable} 格式
-                result = result.replace("${" + key + "}", value);
-            }
-        }
-        return result;
-    }
-
     private String convertMapToJson(Map<String, Object> map) {
         try {
             return gson.toJson(map);
@@ -792,6 +757,7 @@ public class EmailSendServiceImpl implements EmailSendService {
             preference.setUrgentOnly(false);
 
             userEmailPreferenceMapper.insert(preference);
+            preferenceCache.invalidate(userId);
             log.info("✅ 默认邮件偏好设置创建成功");
         } catch (Exception e) {
             log.error("❌ 创建默认邮件偏好设置失败", e);
@@ -823,236 +789,6 @@ public class EmailSendServiceImpl implements EmailSendService {
         }
     }
 
-    /**
-     * 发送截止日期提醒给指定用户
-     */
-    private void sendDeadlineReminderToUser(Long userId, List<Todo> tasks) {
-        sendDeadlineReminderToUser(userId, tasks, "DEADLINE_REMINDER");
-    }
-
-    /**
-     * 发送截止日期提醒给指定用户（指定模板）
-     */
-    private void sendDeadlineReminderToUser(Long userId, List<Todo> tasks, String templateCode) {
-        log.info("=== 为用户 {} 发送截止日期提醒，任务数: {} ===", userId, tasks.size());
-
-        try {
-            // 获取用户信息
-            User user = userMapper.selectById(userId);
-            if (user == null || !StringUtils.hasText(user.getEmail())) {
-                log.warn("❌ 用户不存在或邮箱为空: userId={}", userId);
-                return;
-            }
-
-            // 检查用户邮件偏好
-            UserEmailPreference preference = getUserEmailPreference(userId);
-            if (preference == null || !preference.getEnableEmail() || !preference.getDeadlineReminder()) {
-                log.info("用户 {} 未启用截止日期提醒，跳过", user.getUsername());
-                return;
-            }
-
-            // 过滤出启用了邮件通知的任务
-            List<Todo> enabledTasks = tasks.stream()
-                    .filter(task -> task.getEmailEnabled() != null && task.getEmailEnabled())
-                    .collect(Collectors.toList());
-
-            log.info("过滤后的任务数: {} (原始: {})", enabledTasks.size(), tasks.size());
-
-            // 如果没有启用邮件通知的任务，跳过发送
-            if (enabledTasks.isEmpty()) {
-                log.info("用户 {} 没有启用邮件通知的截止日期任务，跳过发送", user.getUsername());
-                return;
-            }
-
-            // 构建任务列表HTML
-            StringBuilder taskListHtml = new StringBuilder();
-            for (int i = 0; i < enabledTasks.size(); i++) {
-                Todo task = enabledTasks.get(i);
-
-                // 计算剩余天数
-                long daysRemaining = java.time.temporal.ChronoUnit.DAYS.between(
-                        java.time.LocalDate.now(), task.getDueDate());
-                String urgencyLevel = daysRemaining <= 1 ? "urgent" : "warning";
-                String remainingText = daysRemaining == 0 ? "今天到期"
-                        : daysRemaining == 1 ? "明天到期" : daysRemaining + " 天后到期";
-
-                // 获取项目名称
-                String projectName = "无项目";
-                if (task.getProjectId() != null) {
-                    Project project = projectMapper.selectById(task.getProjectId());
-                    projectName = project != null ? project.getName() : "未知项目";
-                }
-
-                // 构建任务项HTML - 优化版本
-                taskListHtml.append(
-                        "<div style='margin-bottom: 16px; border-radius: 8px; overflow: hidden; box-shadow: 0 4px 6px rgba(0,0,0,0.1);'>")
-                        // 逾期标签
-                        .append("<div style='padding: 8px 16px; background-color: ")
-                        .append(daysRemaining < -7 ? "#742a2a" : daysRemaining < -3 ? "#c53030" : "#e53e3e")
-                        .append("; color: white; font-size: 14px; font-weight: 600;'>")
-                        .append("剩余 ").append(daysRemaining).append(" 天")
-                        .append("</div>")
-                        // 任务内容
-                        .append("<div style='padding: 16px; background-color: #fff5f5; border: 1px solid #feb2b2;'>")
-                        .append("<h3 style='margin: 0 0 12px 0; color: #742a2a; font-size: 18px;'>")
-                        .append("🚨 ").append(task.getTitle())
-                        .append("</h3>")
-                        .append("<div style='display: grid; grid-template-columns: repeat(2, 1fr); gap: 8px; font-size: 14px;'>")
-                        .append("<div><strong style='color: #975a5a;'>项目：</strong> ").append(projectName)
-                        .append("</div>")
-                        .append("<div><strong style='color: #975a5a;'>优先级：</strong> ")
-                        .append(getPriorityText(task.getPriority())).append("</div>")
-                        .append("<div><strong style='color: #975a5a;'>截止时间：</strong> ").append(task.getDueDate())
-                        .append("</div>")
-                        .append("<div><strong style='color: #975a5a;'>状态：</strong> ")
-                        .append(getStatusText(task.getStatus())).append("</div>")
-                        .append("</div>")
-                        // 行动建议
-                        .append("<div style='margin-top: 12px; padding: 8px 12px; background-color: #fed7d7; border-radius: 4px; font-size: 13px;'>")
-                        .append("<strong>建议：</strong> ")
-                        .append(daysRemaining > 7 ? "此任务严重逾期，请立即与相关人员沟通并制定补救计划"
-                                : daysRemaining > 3 ? "请优先处理此任务，避免进一步延误"
-                                        : "请尽快完成此任务")
-                        .append("</div>")
-                        .append("</div>")
-                        .append("</div>");
-            }
-
-            // 准备模板变量
-            Map<String, Object> variables = new HashMap<>();
-            variables.put("userName", user.getNickname() != null ? user.getNickname() : user.getUsername());
-            variables.put("taskCount", enabledTasks.size());
-            variables.put("taskListHtml", taskListHtml.toString());
-            variables.put("currentDate", java.time.LocalDate.now().toString());
-
-            // 添加到邮件队列
-            addToEmailQueue(
-                    "DEADLINE",
-                    userId,
-                    null, // 多个任务，不指定具体任务ID
-                    null,
-                    "DEADLINE_REMINDER",
-                    user.getEmail(),
-                    templateCode, // 使用指定的模板
-                    variables);
-
-            log.info("✅ 截止日期提醒已添加到邮件队列: user={}, template={}", user.getUsername(), templateCode);
-
-        } catch (Exception e) {
-            log.error("❌ 发送截止日期提醒失败: userId={}, error={}", userId, e.getMessage(), e);
-        }
-    }
-
-    /**
-     * 发送逾期任务提醒给指定用户
-     */
-    private void sendOverdueReminderToUser(Long userId, List<Todo> tasks) {
-        log.info("=== 为用户 {} 发送逾期任务提醒，任务数: {} ===", userId, tasks.size());
-
-        try {
-            // 获取用户信息
-            User user = userMapper.selectById(userId);
-            if (user == null || !StringUtils.hasText(user.getEmail())) {
-                log.warn("❌ 用户不存在或邮箱为空: userId={}", userId);
-                return;
-            }
-
-            // 检查用户邮件偏好
-            UserEmailPreference preference = getUserEmailPreference(userId);
-            if (preference == null || !preference.getEnableEmail() || !preference.getDeadlineReminder()) {
-                log.info("用户 {} 未启用逾期提醒，跳过", user.getUsername());
-                return;
-            }
-
-            // 过滤出启用了邮件通知的任务
-            List<Todo> enabledTasks = tasks.stream()
-                    .filter(task -> task.getEmailEnabled() != null && task.getEmailEnabled())
-                    .collect(Collectors.toList());
-
-            log.info("过滤后的任务数: {} (原始: {})", enabledTasks.size(), tasks.size());
-
-            // 如果没有启用邮件通知的任务，跳过发送
-            if (enabledTasks.isEmpty()) {
-                log.info("用户 {} 没有启用邮件通知的逾期任务，跳过发送", user.getUsername());
-                return;
-            }
-
-            // 构建任务列表HTML
-            StringBuilder taskListHtml = new StringBuilder();
-            for (int i = 0; i < enabledTasks.size(); i++) {
-                Todo task = enabledTasks.get(i);
-
-                // 计算逾期天数
-                long overdueDays = java.time.temporal.ChronoUnit.DAYS.between(
-                        task.getDueDate(), java.time.LocalDate.now());
-
-                // 获取项目名称
-                String projectName = "无项目";
-                if (task.getProjectId() != null) {
-                    Project project = projectMapper.selectById(task.getProjectId());
-                    projectName = project != null ? project.getName() : "未知项目";
-                }
-
-                // 构建任务项HTML - 优化版本
-                taskListHtml.append(
-                        "<div style='margin-bottom: 16px; border-radius: 8px; overflow: hidden; box-shadow: 0 4px 6px rgba(0,0,0,0.1);'>")
-                        // 逾期标签
-                        .append("<div style='padding: 8px 16px; background-color: ")
-                        .append(overdueDays > 7 ? "#742a2a" : overdueDays > 3 ? "#c53030" : "#e53e3e")
-                        .append("; color: white; font-size: 14px; font-weight: 600;'>")
-                        .append("已逾期 ").append(overdueDays).append(" 天")
-                        .append("</div>")
-                        // 任务内容
-                        .append("<div style='padding: 16px; background-color: #fff5f5; border: 1px solid #feb2b2;'>")
-                        .append("<h3 style='margin: 0 0 12px 0; color: #742a2a; font-size: 18px;'>")
-                        .append("🚨 ").append(task.getTitle())
-                        .append("</h3>")
-                        .append("<div style='display: grid; grid-template-columns: repeat(2, 1fr); gap: 8px; font-size: 14px;'>")
-                        .append("<div><strong style='color: #975a5a;'>项目：</strong> ").append(projectName)
-                        .append("</div>")
-                        .append("<div><strong style='color: #975a5a;'>优先级：</strong> ")
-                        .append(getPriorityText(task.getPriority())).append("</div>")
-                        .append("<div><strong style='color: #975a5a;'>原截止日期：</strong> ").append(task.getDueDate())
-                        .append("</div>")
-                        .append("<div><strong style='color: #975a5a;'>当前状态：</strong> ")
-                        .append(getStatusText(task.getStatus())).append("</div>")
-                        .append("</div>")
-                        // 行动建议
-                        .append("<div style='margin-top: 12px; padding: 8px 12px; background-color: #fed7d7; border-radius: 4px; font-size: 13px;'>")
-                        .append("<strong>建议：</strong> ")
-                        .append(overdueDays > 7 ? "此任务严重逾期，请立即与相关人员沟通并制定补救计划"
-                                : overdueDays > 3 ? "请优先处理此任务，避免进一步延误"
-                                        : "请尽快完成此任务")
-                        .append("</div>")
-                        .append("</div>")
-                        .append("</div>");
-            }
-
-            // 准备模板变量
-            Map<String, Object> variables = new HashMap<>();
-            variables.put("userName", user.getNickname() != null ? user.getNickname() : user.getUsername());
-            variables.put("taskCount", enabledTasks.size());
-            variables.put("taskListHtml", taskListHtml.toString());
-            variables.put("currentDate", java.time.LocalDate.now().toString());
-
-            // 添加到邮件队列
-            addToEmailQueue(
-                    "OVERDUE",
-                    userId,
-                    null, // 多个任务，不指定具体任务ID
-                    null,
-                    "OVERDUE_REMINDER",
-                    user.getEmail(),
-                    "OVERDUE_REMINDER",
-                    variables);
-
-            log.info("✅ 逾期任务提醒已添加到邮件队列: user={}", user.getUsername());
-
-        } catch (Exception e) {
-            log.error("❌ 发送逾期任务提醒失败: userId={}, error={}", userId, e.getMessage(), e);
-        }
-    }
-
     /**
      * 创建默认邮件模板
      */
@@ -0,0 +1,263 @@
+package com.projectmanagement.service.impl;
+
+import com.projectmanagement.entity.EmailTemplate;
+import com.projectmanagement.mapper.EmailTemplateMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 邮件模板渲染器
+ * 模板在首次使用时编译为"文本片段 + 变量"序列并按模板代码缓存（以更新时间作为版本），
+ * 渲染时一次遍历写入线程内复用的缓冲区，不再对每个变量做整串替换；
+ * 支持 ${name}、[[${name}]]、{name} 三种占位符，未提供的变量保留原样输出
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailTemplateRenderer {
+
+    /**
+     * 渲染缓冲区超过该容量后不再保留，避免个别大邮件长期占用内存
+     */
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    private final EmailTemplateMapper emailTemplateMapper;
+
+    private final Map<String, CompiledTemplate> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 获取启用的已编译模板，缓存未命中时从数据库加载
+     *
+     * @return 模板不存在或未启用时返回null
+     */
+    public CompiledTemplate getTemplate(String templateCode) {
+        if (templateCode == null) {
+            return null;
+        }
+        CompiledTemplate compiled = cache.get(templateCode);
+        if (compiled != null) {
+            return compiled;
+        }
+
+        EmailTemplate template = emailTemplateMapper.selectByTemplateCode(templateCode);
+        if (template == null) {
+            return null;
+        }
+        return compile(template);
+    }
+
+    /**
+     * 编译模板，同一模板代码且版本未变化时直接复用缓存
+     */
+    public CompiledTemplate compile(EmailTemplate template) {
+        CompiledTemplate cached = cache.get(template.getTemplateCode());
+        if (cached != null && Objects.equals(cached.version, template.getUpdateTime())) {
+            return cached;
+        }
+        CompiledTemplate compiled = new CompiledTemplate(template);
+        cache.put(template.getTemplateCode(), compiled);
+        log.debug("编译邮件模板: {} (版本: {})", template.getTemplateCode(), template.getUpdateTime());
+        return compiled;
+    }
+
+    /**
+     * 使指定模板的缓存失效
+     * 在事务中调用时，提交后会再清除一次，防止并发请求在提交前把旧版本重新放回缓存
+     */
+    public void invalidate(String templateCode) {
+        if (templateCode == null) {
+            return;
+        }
+        cache.remove(templateCode);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.remove(templateCode);
+                }
+            });
+        }
+    }
+
+    /**
+     * 清空全部模板缓存
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    /**
+     * 已编译的邮件模板，不可变，可被多个线程同时使用
+     */
+    public static final class CompiledTemplate {
+
+        private final String templateCode;
+        private final String templateName;
+        private final String templateType;
+        private final LocalDateTime version;
+        private final Segments subject;
+        private final Segments content;
+
+        private CompiledTemplate(EmailTemplate template) {
+            this.templateCode = template.getTemplateCode();
+            this.templateName = template.getTemplateName();
+            this.templateType = template.getTemplateType();
+            this.version = template.getUpdateTime();
+            this.subject = Segments.compile(template.getSubjectTemplate());
+            this.content = Segments.compile(template.getContentTemplate());
+        }
+
+        public String getTemplateCode() {
+            return templateCode;
+        }
+
+        public String getTemplateName() {
+            return templateName;
+        }
+
+        public String getTemplateType() {
+            return templateType;
+        }
+
+        public LocalDateTime getVersion() {
+            return version;
+        }
+
+        public boolean isHtml() {
+            return "HTML".equalsIgnoreCase(templateType);
+        }
+
+        public String renderSubject(Map<String, Object> variables) {
+            return subject.render(variables);
+        }
+
+        public String renderContent(Map<String, Object> variables) {
+            return content.render(variables);
+        }
+    }
+
+    /**
+     * 模板片段序列：literals[0] 变量[0] literals[1] 变量[1] ... literals[n]
+     */
+    private static final class Segments {
+
+        private static final Segments EMPTY = new Segments(new String[] { "" }, new String[0], new String[0], 0);
+
+        private final String[] literals;
+        private final String[] names;
+        private final String[] tokens;
+        private final int literalLength;
+
+        private Segments(String[] literals, String[] names, String[] tokens, int literalLength) {
+            this.literals = literals;
+            this.names = names;
+            this.tokens = tokens;
+            this.literalLength = literalLength;
+        }
+
+        static Segments compile(String template) {
+            if (template == null || template.trim().isEmpty()) {
+                return EMPTY;
+            }
+
+            List<String> literals = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            List<String> tokens = new ArrayList<>();
+            int literalLength = 0;
+            int literalStart = 0;
+            int i = 0;
+            int length = template.length();
+            while (i < length) {
+                char c = template.charAt(i);
+                int nameStart;
+                int nameEnd;
+                int tokenEnd;
+                if (c == '[' && template.startsWith("[[${", i)) {
+                    nameStart = i + 4;
+                    nameEnd = template.indexOf("}]]", nameStart);
+                    tokenEnd = nameEnd + 3;
+                } else if (c == '$' && template.startsWith("${", i)) {
+                    nameStart = i + 2;
+                    nameEnd = template.indexOf('}', nameStart);
+                    tokenEnd = nameEnd + 1;
+                } else if (c == '{') {
+                    nameStart = i + 1;
+                    nameEnd = template.indexOf('}', nameStart);
+                    tokenEnd = nameEnd + 1;
+                } else {
+                    i++;
+                    continue;
+                }
+
+                if (nameEnd < 0 || !isVariableName(template, nameStart, nameEnd)) {
+                    i++;
+                    continue;
+                }
+
+                String literal = template.substring(literalStart, i);
+                literals.add(literal);
+                literalLength += literal.length();
+                names.add(template.substring(nameStart, nameEnd));
+                tokens.add(template.substring(i, tokenEnd));
+                i = tokenEnd;
+                literalStart = tokenEnd;
+            }
+            String tail = template.substring(literalStart);
+            literals.add(tail);
+            literalLength += tail.length();
+
+            return new Segments(literals.toArray(new String[0]), names.toArray(new String[0]),
+                    tokens.toArray(new String[0]), literalLength);
+        }
+
+        private static boolean isVariableName(String template, int start, int end) {
+            if (start >= end) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                char c = template.charAt(i);
+                if (!Character.isLetterOrDigit(c) && c != '_' && c != '.') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String render(Map<String, Object> variables) {
+            if (names.length == 0) {
+                return literals[0];
+            }
+
+            StringBuilder buffer = BUFFER.get();
+            buffer.setLength(0);
+            buffer.ensureCapacity(literalLength + names.length * 16);
+            buffer.append(literals[0]);
+            for (int i = 0; i < names.length; i++) {
+                Object value = variables != null ? variables.get(names[i]) : null;
+                if (value != null) {
+                    buffer.append(value);
+                } else if (variables == null || !variables.containsKey(names[i])) {
+                    buffer.append(tokens[i]);
+                }
+                buffer.append(literals[i + 1]);
+            }
+            String result = buffer.toString();
+            if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+                BUFFER.remove();
+            }
+            return result;
+        }
+    }
+}
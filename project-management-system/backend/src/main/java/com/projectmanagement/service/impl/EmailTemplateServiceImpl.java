@@ -11,8 +11,6 @@ import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
 
 import javax.annotation.PostConstruct;
 import javax.mail.internet.MimeMessage;
@@ -31,7 +29,7 @@ public class EmailTemplateServiceImpl extends ServiceImpl<EmailTemplateMapper, E
 
     private final EmailTemplateMapper emailTemplateMapper;
     private final JavaMailSender mailSender;
-    private final TemplateEngine templateEngine;
+    private final EmailTemplateRenderer templateRenderer;
 
     @Value("${spring.mail.username:}")
     private String mailFromAddress;
@@ -71,6 +69,7 @@ public class EmailTemplateServiceImpl extends ServiceImpl<EmailTemplateMapper, E
         template.setCreatorId(templateDTO.getCreatorId());
 
         emailTemplateMapper.insert(template);
+        templateRenderer.invalidate(template.getTemplateCode());
         return template;
     }
 
@@ -92,50 +91,32 @@ public class EmailTemplateServiceImpl extends ServiceImpl<EmailTemplateMapper, E
         template.setUpdateTime(LocalDateTime.now());
 
         emailTemplateMapper.updateById(template);
+        templateRenderer.invalidate(template.getTemplateCode());
         return template;
     }
 
     @Override
     @Transactional
     public boolean deleteTemplate(Long templateId) {
-        return emailTemplateMapper.deleteById(templateId) > 0;
+        EmailTemplate template = emailTemplateMapper.selectById(templateId);
+        boolean deleted = emailTemplateMapper.deleteById(templateId) > 0;
+        if (template != null) {
+            templateRenderer.invalidate(template.getTemplateCode());
+        }
+        return deleted;
     }
 
     @Override
     public Map<String, String> renderTemplate(String templateCode, Map<String, Object> variables) {
-        EmailTemplate template = getTemplateByCode(templateCode);
+        EmailTemplateRenderer.CompiledTemplate template = templateRenderer.getTemplate(templateCode);
         if (template == null) {
             throw new RuntimeException("邮件模板不存在: " + templateCode + "，请在数据库中配置相应的邮件模板");
         }
 
-        if (!template.getEnabled()) {
-            throw new RuntimeException("邮件模板已禁用: " + templateCode);
-        }
-
         Map<String, String> result = new HashMap<>();
-
-        try {
-            // 创建Thymeleaf上下文
-            Context context = new Context();
-            if (variables != null) {
-                context.setVariables(variables);
-            }
-
-            // 渲染主题
-            String subject = renderString(template.getSubjectTemplate(), context);
-            result.put("subject", subject);
-
-            // 渲染内容
-            String content = renderString(template.getContentTemplate(), context);
-            result.put("content", content);
-
-            result.put("templateType", template.getTemplateType());
-
-        } catch (Exception e) {
-            System.err.println("模板渲染失败: " + e.getMessage());
-            throw new RuntimeException("模板渲染失败: " + e.getMessage());
-        }
-
+        result.put("subject", template.renderSubject(variables));
+        result.put("content", template.renderContent(variables));
+        result.put("templateType", template.getTemplateType());
         return result;
     }
 
@@ -173,55 +154,4 @@ public class EmailTemplateServiceImpl extends ServiceImpl<EmailTemplateMapper, E
             return false;
         }
     }
-
-    /**
-     * 渲染字符串模板
-     */
-    private String renderString(String template, Context context) {
-        if (template == null || template.trim().isEmpty()) {
-            return "";
-        }
-
-        try {
-            return templateEngine.process(template, context);
-        } catch (Exception e) {
-            // 如果Thymeleaf解析失败，尝试简单的变量替换
-            System.out.println("⚠️  Thymeleaf解析失败，使用简单变量替换: " + e.getMessage());
-            return simpleVariableReplace(template, getAllVariables(context));
-        }
-    }
-
-    /**
-     * 获取Context中的所有变量
-     */
-    private Map<String, Object> getAllVariables(Context context) {
-        Map<String, Object> variables = new HashMap<>();
-        if (context != null) {
-            for (String variableName : context.getVariableNames()) {
-                variables.put(variableName, context.getVariable(variableName));
-            }
-        }
-        return variables;
-    }
-
-    /**
-     * 简单的变量替换（备用方案）
-     */
-    private String simpleVariableReplace(String template, Map<String, Object> variables) {
-        String result = template;
-        if (variables != null) {
-            for (Map.Entry<String, Object> entry : variables.entrySet()) {
-                String key = entry.getKey();
-                String value = entry.getValue() != null ? entry.getValue().toString() : "";
-
-                // 替换 ${variable} 格式
-                result = result.replace("${" + key + "}", value);
-                // 替换 [[${variable}]] 格式
-                result = result.replace("[[${" + key + "}]]", value);
-                // 替换 {variable} 格式
-                result = result.replace("{" + key + "}", value);
-            }
-        }
-        return result;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,233 @@
+package com.projectmanagement.service.impl;
+
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.entity.User;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 甘特图元素构建
+ * 任务条和里程碑的构建逻辑，供单项目甘特图和用户全局甘特图模型共用
+ */
+final class GanttElements {
+
+    private GanttElements() {
+    }
+
+    /**
+     * 转换里程碑数据用于甘特图，只保留有截止日期的里程碑并按日期排序
+     */
+    static List<Map<String, Object>> extractMilestones(List<Milestone> milestones) {
+        List<Map<String, Object>> ganttMilestones = new ArrayList<>(milestones.size());
+
+        for (Milestone milestone : milestones) {
+            if (milestone.hasDueDateText()) {
+                Map<String, Object> ganttMilestone = new HashMap<>();
+                ganttMilestone.put("id", milestone.getGanttId());
+                ganttMilestone.put("name", milestone.getName());
+                ganttMilestone.put("description", milestone.getDescription());
+                ganttMilestone.put("dueDate", milestone.getDueDateText());
+                ganttMilestone.put("status", milestone.getStatus());
+                ganttMilestone.put("color", getMilestoneColor(milestone.getStatus()));
+                ganttMilestones.add(ganttMilestone);
+            }
+        }
+
+        // 按日期排序
+        ganttMilestones.sort((a, b) -> {
+            String dateA = (String) a.get("dueDate");
+            String dateB = (String) b.get("dueDate");
+            return dateA.compareTo(dateB);
+        });
+
+        return ganttMilestones;
+    }
+
+    /**
+     * 构建任务条，按开始时间排序
+     *
+     * @param userCache 处理人ID到用户的映射
+     */
+    static List<Map<String, Object>> buildTaskBars(Collection<Todo> todos, Map<Long, User> userCache, LocalDate today) {
+        List<Map<String, Object>> taskBars = new ArrayList<>(todos.size());
+        for (Todo todo : todos) {
+            taskBars.add(buildTaskBar(todo, todo.getAssigneeId() != null ? userCache.get(todo.getAssigneeId()) : null,
+                    today));
+        }
+
+        // 按开始时间排序
+        taskBars.sort((a, b) -> {
+            String dateA = (String) a.get("startDate");
+            String dateB = (String) b.get("startDate");
+            return dateA.compareTo(dateB);
+        });
+
+        return taskBars;
+    }
+
+    /**
+     * 构建单个任务条
+     */
+    static Map<String, Object> buildTaskBar(Todo todo, User assignee, LocalDate today) {
+        Map<String, Object> taskBar = new HashMap<>();
+        taskBar.put("id", "task_" + todo.getId());
+        taskBar.put("title", todo.getTitle());
+        taskBar.put("description", todo.getDescription());
+        taskBar.put("priority", todo.getPriority());
+        taskBar.put("status", todo.getStatus());
+
+        // 添加处理人信息
+        if (todo.getAssigneeId() != null) {
+            taskBar.put("assigneeId", todo.getAssigneeId());
+            if (assignee != null) {
+                Map<String, Object> assigneeInfo = new HashMap<>();
+                assigneeInfo.put("id", assignee.getId());
+                assigneeInfo.put("username", assignee.getUsername());
+                assigneeInfo.put("nickname", assignee.getNickname());
+                taskBar.put("assignee", assigneeInfo);
+            }
+        }
+
+        // 时间信息
+        LocalDate startDate = taskStartDate(todo, today);
+        LocalDate endDate = taskEndDate(todo, startDate);
+        LocalDate completeDate = todo.getCompletedTime() != null ? todo.getCompletedTime().toLocalDate() : null;
+
+        taskBar.put("startDate", startDate.toString());
+        taskBar.put("endDate", endDate.toString());
+        if (completeDate != null) {
+            taskBar.put("completeDate", completeDate.toString());
+        }
+
+        // 状态和颜色
+        TaskBarStatus barStatus = calculateTaskBarStatus(todo, startDate, endDate, completeDate, today);
+        taskBar.put("color", barStatus.color);
+        taskBar.put("statusText", barStatus.statusText);
+        taskBar.put("progress", barStatus.progress);
+
+        if (barStatus.delayDays > 0) {
+            taskBar.put("delayDays", barStatus.delayDays);
+        }
+
+        return taskBar;
+    }
+
+    /**
+     * 任务条开始日期：任务创建日期
+     */
+    static LocalDate taskStartDate(Todo todo, LocalDate today) {
+        return todo.getCreateTime() != null ? todo.getCreateTime().toLocalDate() : today;
+    }
+
+    /**
+     * 任务条结束日期：截止日期，未设置时默认7天
+     */
+    static LocalDate taskEndDate(Todo todo, LocalDate startDate) {
+        return todo.getDueDate() != null ? todo.getDueDate() : startDate.plusDays(7);
+    }
+
+    /**
+     * 计算任务条状态
+     */
+    private static TaskBarStatus calculateTaskBarStatus(Todo todo, LocalDate startDate, LocalDate endDate,
+            LocalDate completeDate, LocalDate today) {
+        // 🔧 修复状态判断 - Todo的状态是"DONE"而不是"COMPLETED"
+        if ("DONE".equals(todo.getStatus())) {
+            // 已完成任务的精确状态分类
+            if (completeDate != null && endDate != null) {
+                long delayDays = ChronoUnit.DAYS.between(endDate, completeDate);
+                if (delayDays < 0) {
+                    // 提前完成
+                    return new TaskBarStatus("#00b42a", "提前完成", 100, 0); // 深绿色
+                } else if (delayDays == 0) {
+                    // 按时完成
+                    return new TaskBarStatus("#52c41a", "按时完成", 100, 0); // 绿色
+                } else {
+                    // 延期完成（不分轻微和严重，延期就是延期）
+                    return new TaskBarStatus("#f5222d", "延期完成", 100, (int) delayDays); // 红色
+                }
+            } else {
+                // 没有截止日期或完成时间，默认为按时完成
+                return new TaskBarStatus("#52c41a", "已完成", 100, 0);
+            }
+        } else {
+            // 进行中任务的精确状态分类
+            long totalDays = ChronoUnit.DAYS.between(startDate, endDate);
+            long passedDays = ChronoUnit.DAYS.between(startDate, today);
+
+            int progress;
+            if (totalDays == 0) {
+                // 当天任务的进度计算
+                if (today.equals(startDate)) {
+                    if ("PROGRESS".equals(todo.getStatus())) {
+                        progress = 50; // 进行中显示50%
+                    } else if ("TODO".equals(todo.getStatus())) {
+                        progress = 10; // 待办显示10%（已开始但未完成）
+                    } else {
+                        progress = 0; // 其他状态显示0%
+                    }
+                } else if (today.isAfter(startDate)) {
+                    // 已过期的当天任务
+                    progress = 90; // 显示90%表示应该完成但未完成
+                } else {
+                    // 未来的当天任务
+                    progress = 0;
+                }
+            } else {
+                // 多天任务的正常计算
+                progress = Math.min(100, Math.max(0, (int) (passedDays * 100 / totalDays)));
+            }
+
+            // 进行中任务的状态分类
+            if (today.isAfter(endDate)) {
+                // 已经逾期的进行中任务
+                long overdueDays = ChronoUnit.DAYS.between(endDate, today);
+                return new TaskBarStatus("#a8071a", "逾期进行", progress, (int) overdueDays); // 深红色
+            } else if (ChronoUnit.DAYS.between(today, endDate) <= 1) {
+                // 即将到期的进行中任务
+                return new TaskBarStatus("#722ed1", "即将到期", progress, 0); // 紫色
+            } else {
+                // 正常进行中的任务
+                return new TaskBarStatus("#1890ff", "正常进行", progress, 0); // 蓝色
+            }
+        }
+    }
+
+    /**
+     * 获取里程碑颜色
+     */
+    static String getMilestoneColor(String status) {
+        if (status == null) {
+            return "#8c8c8c";
+        }
+        switch (status) {
+            case "COMPLETED": return "#52c41a";
+            case "PROGRESS": return "#1890ff";
+            case "PENDING": return "#8c8c8c";
+            default: return "#8c8c8c";
+        }
+    }
+
+    /**
+     * 任务条状态
+     */
+    private static final class TaskBarStatus {
+        final String color;
+        final String statusText;
+        final int progress;
+        final int delayDays;
+
+        TaskBarStatus(String color, String statusText, int progress, int delayDays) {
+            this.color = color;
+            this.statusText = statusText;
+            this.progress = progress;
+            this.delayDays = delayDays;
+        }
+    }
+}
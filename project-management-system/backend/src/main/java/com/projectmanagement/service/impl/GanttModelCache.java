@@ -0,0 +1,753 @@
+package com.projectmanagement.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.projectmanagement.entity.Project;
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.entity.User;
+import com.projectmanagement.mapper.ProjectMapper;
+import com.projectmanagement.mapper.TodoMapper;
+import com.projectmanagement.mapper.UserMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 用户全局甘特图的内存物化模型
+ * 每个项目物化为一条项目轨道（项目、里程碑、全部待办任务及处理人），由所有用户共享；
+ * 每个用户的模型记录其相关项目，请求时由已物化的轨道生成快照流式输出，轨道未变化时重复刷新不访问数据库。
+ * 待办任务和项目写入提交后只重新读取被修改的那一行并修补对应轨道，同时修正受影响用户的项目集合；
+ * 用户模型和项目轨道各自按最近最少使用淘汰，轨道超过最长存活时间后从数据库重新加载，
+ * 兜底覆盖未经过修补入口的写入（如用户昵称修改）
+ */
+@Slf4j
+@Component
+public class GanttModelCache {
+
+    /**
+     * 批量修补时每次按主键查询的任务数
+     */
+    private static final int BATCH_QUERY_SIZE = 1000;
+
+    private final ProjectMapper projectMapper;
+    private final TodoMapper todoMapper;
+    private final UserMapper userMapper;
+    private final MilestoneCache milestoneCache;
+    private final ProjectMembershipIndex membershipIndex;
+    private final long maxTrackAgeMillis;
+
+    private final Map<Long, ProjectTrack> tracks;
+    private final Map<Long, UserModel> users;
+
+    /**
+     * 待办任务ID到所在已缓存轨道的项目ID
+     */
+    private final Map<Long, Long> todoProjects = new HashMap<>();
+
+    /**
+     * 每个项目最近一次修补的序号，用于识别加载期间发生的写入
+     */
+    private final Map<Long, Long> projectWriteSeq = new HashMap<>();
+
+    private final AtomicLong versionSeq = new AtomicLong();
+    private final AtomicLong writeSeq = new AtomicLong();
+
+    private final AtomicLong snapshots = new AtomicLong();
+    private final AtomicLong membershipLoads = new AtomicLong();
+    private final AtomicLong trackLoads = new AtomicLong();
+    private final AtomicLong patches = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private volatile long lastStalenessMillis;
+    private volatile long maxStalenessMillis;
+
+    public GanttModelCache(ProjectMapper projectMapper,
+            TodoMapper todoMapper,
+            UserMapper userMapper,
+            MilestoneCache milestoneCache,
+            ProjectMembershipIndex membershipIndex,
+            @Value("${app.gantt.max-users:500}") int maxUsers,
+            @Value("${app.gantt.max-tracks:2000}") int maxTracks,
+            @Value("${app.gantt.max-track-age-seconds:600}") long maxTrackAgeSeconds) {
+        this.projectMapper = projectMapper;
+        this.todoMapper = todoMapper;
+        this.userMapper = userMapper;
+        this.milestoneCache = milestoneCache;
+        this.membershipIndex = membershipIndex;
+        this.maxTrackAgeMillis = TimeUnit.SECONDS.toMillis(maxTrackAgeSeconds);
+        this.users = lruMap(Math.max(1, maxUsers), null);
+        this.tracks = lruMap(Math.max(1, maxTracks), evicted -> evicted.todos.keySet().forEach(todoProjects::remove));
+    }
+
+    /**
+     * 获取用户全局甘特图在窗口内的快照，用于流式输出
+     * 快照只引用已物化的轨道数据，不组装也不缓存整份响应
+     */
+    public GanttSnapshot snapshotUserGantt(Long userId, GanttWindow window) {
+        UserModel model = userModel(userId);
+        LocalDate today = LocalDate.now();
+        List<ProjectTrack> userTracks = resolveTracks(model);
+
+        synchronized (this) {
+            recordStaleness(userTracks);
+            snapshots.incrementAndGet();
+            return snapshot(userTracks, today, window);
+        }
+    }
+
+    /**
+     * 待办任务新增或修改后修补所在项目轨道
+     */
+    public void todoChanged(Long todoId) {
+        afterCommit(() -> {
+            Todo todo = todoMapper.selectById(todoId);
+            if (todo == null) {
+                applyTodoRemoved(todoId);
+                return;
+            }
+            User assignee = todo.getAssigneeId() != null ? findUser(todo.getAssigneeId()) : null;
+            applyTodoChanged(todo, assignee);
+        });
+    }
+
+    /**
+     * 批量新增或修改待办任务后修补所在项目轨道，提交后按主键分批查询
+     */
+    public void todosChanged(Collection<Long> todoIds) {
+        if (todoIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(todoIds);
+        afterCommit(() -> {
+            Map<Long, User> assignees = new HashMap<>();
+            for (int from = 0; from < ids.size(); from += BATCH_QUERY_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + BATCH_QUERY_SIZE));
+                for (Todo todo : todoMapper.selectBatchIds(chunk)) {
+                    User assignee = todo.getAssigneeId() != null
+                            ? assignees.computeIfAbsent(todo.getAssigneeId(), this::findUser) : null;
+                    applyTodoChanged(todo, assignee);
+                }
+            }
+        });
+    }
+
+    /**
+     * 待办任务删除后从所在项目轨道移除
+     */
+    public void todoDeleted(Long todoId) {
+        afterCommit(() -> applyTodoRemoved(todoId));
+    }
+
+    /**
+     * 项目新增或修改后更新项目轨道的项目信息和里程碑
+     */
+    public void projectChanged(Long projectId) {
+        afterCommit(() -> {
+            Project project = projectMapper.selectById(projectId);
+            if (project == null) {
+                applyProjectRemoved(projectId);
+            } else {
+                applyProjectChanged(project);
+            }
+        });
+    }
+
+    /**
+     * 项目删除后移除项目轨道
+     */
+    public void projectDeleted(Long projectId) {
+        afterCommit(() -> applyProjectRemoved(projectId));
+    }
+
+    /**
+     * 清空全部模型
+     */
+    public synchronized void clear() {
+        users.clear();
+        tracks.clear();
+        todoProjects.clear();
+    }
+
+    /**
+     * 缓存统计
+     * stalenessMillis 为最近一次返回的数据中最早一次从数据库完整加载距今的时间
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("users", users.size());
+            stats.put("tracks", tracks.size());
+        }
+        stats.put("snapshots", snapshots.get());
+        stats.put("membershipLoads", membershipLoads.get());
+        stats.put("trackLoads", trackLoads.get());
+        stats.put("patches", patches.get());
+        stats.put("evictions", evictions.get());
+        stats.put("stalenessMillis", lastStalenessMillis);
+        stats.put("maxStalenessMillis", maxStalenessMillis);
+        stats.put("maxTrackAgeMillis", maxTrackAgeMillis);
+        return stats;
+    }
+
+    // ==================== 加载 ====================
+
+    private UserModel userModel(Long userId) {
+        UserModel model;
+        synchronized (this) {
+            model = users.get(userId);
+        }
+        if (model == null) {
+            model = loadUserModel(userId);
+        }
+        return model;
+    }
+
+    private UserModel loadUserModel(Long userId) {
+        membershipLoads.incrementAndGet();
+        long seq = writeSeq.get();
+        List<Long> projectIds = membershipIndex.getProjectIds(userId);
+        List<Project> projects = projectIds.isEmpty() ? new ArrayList<>() : projectMapper.selectBatchIds(projectIds);
+        loadTracks(projects, seq);
+
+        UserModel model = new UserModel(userId);
+        projects.forEach(project -> model.projectIds.add(project.getId()));
+        synchronized (this) {
+            users.put(userId, model);
+        }
+        return model;
+    }
+
+    /**
+     * 取出用户相关项目的轨道，缺失或过期的轨道批量重新加载
+     */
+    private List<ProjectTrack> resolveTracks(UserModel model) {
+        long now = System.currentTimeMillis();
+        List<Long> reload = new ArrayList<>();
+        synchronized (this) {
+            for (Long projectId : model.projectIds) {
+                ProjectTrack track = tracks.get(projectId);
+                if (track == null || now - track.loadedAt > maxTrackAgeMillis) {
+                    reload.add(projectId);
+                }
+            }
+        }
+        Map<Long, ProjectTrack> loaded = new HashMap<>();
+        if (!reload.isEmpty()) {
+            long seq = writeSeq.get();
+            loaded = loadTracks(projectMapper.selectBatchIds(reload), seq);
+        }
+
+        List<ProjectTrack> result = new ArrayList<>(model.projectIds.size());
+        synchronized (this) {
+            for (Long projectId : new ArrayList<>(model.projectIds)) {
+                ProjectTrack track = tracks.get(projectId);
+                if (track == null) {
+                    track = loaded.get(projectId);
+                }
+                if (track == null) {
+                    // 项目已被删除
+                    model.projectIds.remove(projectId);
+                    continue;
+                }
+                result.add(track);
+            }
+        }
+        // 排序与 GanttWindow 游标一致：创建时间升序（为空的排最后），再按ID升序
+        result.sort(Comparator.comparing((ProjectTrack track) -> track.project.getCreateTime(),
+                Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(track -> track.project.getId()));
+        return result;
+    }
+
+    /**
+     * 从数据库加载项目轨道：待办任务和处理人各一次批量查询
+     *
+     * @param seq 开始加载前的写入序号，加载期间被修补过的项目不放入缓存
+     */
+    private Map<Long, ProjectTrack> loadTracks(List<Project> projects, long seq) {
+        if (projects.isEmpty()) {
+            return new HashMap<>();
+        }
+        trackLoads.addAndGet(projects.size());
+        List<Long> projectIds = projects.stream().map(Project::getId).collect(Collectors.toList());
+
+        QueryWrapper<Todo> queryWrapper = new QueryWrapper<>();
+        queryWrapper.in("project_id", projectIds).orderByDesc("create_time");
+        Map<Long, List<Todo>> todosByProject = todoMapper.selectList(queryWrapper).stream()
+                .collect(Collectors.groupingBy(Todo::getProjectId));
+
+        Set<Long> assigneeIds = todosByProject.values().stream()
+                .flatMap(List::stream)
+                .map(Todo::getAssigneeId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, User> assignees = assigneeIds.isEmpty() ? new HashMap<>()
+                : userMapper.selectBatchIds(assigneeIds).stream()
+                        .collect(Collectors.toMap(User::getId, user -> user, (a, b) -> a));
+
+        long now = System.currentTimeMillis();
+        Map<Long, ProjectTrack> loaded = new HashMap<>();
+        synchronized (this) {
+            for (Project project : projects) {
+                ProjectTrack track = new ProjectTrack(project, milestoneCache.get(project), now);
+                for (Todo todo : todosByProject.getOrDefault(project.getId(), new ArrayList<>())) {
+                    track.putTodo(todo, todo.getAssigneeId() != null ? assignees.get(todo.getAssigneeId()) : null);
+                }
+                track.version = versionSeq.incrementAndGet();
+                loaded.put(project.getId(), track);
+                if (projectWriteSeq.getOrDefault(project.getId(), 0L) > seq) {
+                    // 加载期间有写入，本次结果只用于当前请求
+                    continue;
+                }
+                ProjectTrack previous = tracks.put(project.getId(), track);
+                if (previous != null) {
+                    previous.todos.keySet().forEach(todoProjects::remove);
+                }
+                track.todos.keySet().forEach(todoId -> todoProjects.put(todoId, project.getId()));
+            }
+        }
+        return loaded;
+    }
+
+    private User findUser(Long userId) {
+        synchronized (this) {
+            for (ProjectTrack track : tracks.values()) {
+                User user = track.assignees.get(userId);
+                if (user != null) {
+                    return user;
+                }
+            }
+        }
+        return userMapper.selectById(userId);
+    }
+
+    // ==================== 修补 ====================
+
+    private synchronized void applyTodoChanged(Todo todo, User assignee) {
+        patches.incrementAndGet();
+        Long previousProjectId = todoProjects.get(todo.getId());
+        if (previousProjectId != null && !previousProjectId.equals(todo.getProjectId())) {
+            ProjectTrack previous = tracks.get(previousProjectId);
+            if (previous != null) {
+                previous.removeTodo(todo.getId());
+                previous.version = versionSeq.incrementAndGet();
+            }
+            todoProjects.remove(todo.getId());
+            markWritten(previousProjectId);
+            reconcileMembership(previousProjectId);
+        }
+        if (todo.getProjectId() == null) {
+            return;
+        }
+
+        ProjectTrack track = tracks.get(todo.getProjectId());
+        if (track != null) {
+            track.putTodo(todo, assignee);
+            track.version = versionSeq.incrementAndGet();
+            todoProjects.put(todo.getId(), todo.getProjectId());
+        }
+        markWritten(todo.getProjectId());
+        reconcileMembership(todo.getProjectId());
+    }
+
+    private synchronized void applyTodoRemoved(Long todoId) {
+        Long projectId = todoProjects.remove(todoId);
+        if (projectId == null) {
+            return;
+        }
+        patches.incrementAndGet();
+        ProjectTrack track = tracks.get(projectId);
+        if (track != null) {
+            track.removeTodo(todoId);
+            track.version = versionSeq.incrementAndGet();
+        }
+        markWritten(projectId);
+        reconcileMembership(projectId);
+    }
+
+    private synchronized void applyProjectChanged(Project project) {
+        patches.incrementAndGet();
+        ProjectTrack track = tracks.get(project.getId());
+        if (track != null) {
+            track.setProject(project, milestoneCache.get(project));
+            track.version = versionSeq.incrementAndGet();
+        }
+        markWritten(project.getId());
+        reconcileMembership(project.getId());
+    }
+
+    private synchronized void applyProjectRemoved(Long projectId) {
+        patches.incrementAndGet();
+        ProjectTrack track = tracks.remove(projectId);
+        if (track != null) {
+            track.todos.keySet().forEach(todoProjects::remove);
+        }
+        markWritten(projectId);
+        for (UserModel model : users.values()) {
+            model.projectIds.remove(projectId);
+        }
+    }
+
+    /**
+     * 修补后修正已缓存用户模型的项目集合
+     * 与加载用户模型时一样按项目关系索引判断用户是否与项目相关（含仅为项目成员的用户），
+     * 索引在同一事务提交后先于本缓存修正
+     */
+    private void reconcileMembership(Long projectId) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Set<Long> related = new HashSet<>(membershipIndex.getUserIds(projectId));
+        for (UserModel model : users.values()) {
+            boolean isRelated = related.contains(model.userId);
+            if (isRelated) {
+                model.projectIds.add(projectId);
+            } else {
+                model.projectIds.remove(projectId);
+            }
+        }
+    }
+
+    private void markWritten(Long projectId) {
+        projectWriteSeq.put(projectId, writeSeq.incrementAndGet());
+    }
+
+    private void afterCommit(Runnable action) {
+        Runnable guarded = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                // 修补失败时清空模型，下次请求重新加载
+                log.error("❌ 修补甘特图模型失败，清空缓存: {}", e.getMessage(), e);
+                clear();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    guarded.run();
+                }
+            });
+        } else {
+            guarded.run();
+        }
+    }
+
+    // ==================== 组装 ====================
+
+    /**
+     * 由项目轨道生成甘特图快照，完整输出时结构与逐次查询构建的结果一致
+     * 指定窗口时只输出与日期范围相交的轨道、任务条和里程碑，并按偏移量或游标和条数分页；
+     * 轨道重建时替换数据而不修改原有对象，快照在锁外序列化是安全的
+     */
+    private GanttSnapshot snapshot(List<ProjectTrack> userTracks, LocalDate today, GanttWindow window) {
+        if (userTracks.isEmpty()) {
+            return GanttSnapshot.empty();
+        }
+
+        List<ProjectTrack> visible = new ArrayList<>(userTracks.size());
+        for (ProjectTrack track : userTracks) {
+            track.refresh(today);
+            if (!window.hasDateRange() || track.intersects(window)) {
+                visible.add(track);
+            }
+        }
+        int from = Math.min(window.getOffset(), visible.size());
+        while (from < visible.size() && !window.isAfterCursor(visible.get(from).project)) {
+            from++;
+        }
+        int to = window.getLimit() != null ? Math.min(visible.size(), from + window.getLimit()) : visible.size();
+
+        LocalDate earliestDate = today;
+        LocalDate latestDate = today.plusMonths(1);
+        List<Map<String, Object>> allMilestones = new ArrayList<>();
+        List<Map<String, Object>> projectTracks = new ArrayList<>(to - from);
+        for (ProjectTrack track : visible.subList(from, to)) {
+            if (track.earliestDate.isBefore(earliestDate)) {
+                earliestDate = track.earliestDate;
+            }
+            if (track.latestDate != null && track.latestDate.isAfter(latestDate)) {
+                latestDate = track.latestDate;
+            }
+            if (window.hasDateRange()) {
+                projectTracks.add(track.windowed(window, allMilestones));
+            } else {
+                allMilestones.addAll(track.milestones);
+                projectTracks.add(track.trackData);
+            }
+        }
+
+        // 确保时间范围至少有3个月
+        if (ChronoUnit.DAYS.between(earliestDate, latestDate) < 90) {
+            latestDate = earliestDate.plusMonths(3);
+        }
+        // 指定窗口时时间范围即窗口
+        if (window.getStartDate() != null) {
+            earliestDate = window.getStartDate();
+        }
+        if (window.getEndDate() != null) {
+            latestDate = window.getEndDate();
+        } else if (latestDate.isBefore(earliestDate)) {
+            latestDate = earliestDate.plusMonths(3);
+        }
+        Map<String, Object> timeRange = new HashMap<>();
+        timeRange.put("startDate", earliestDate.toString());
+        timeRange.put("endDate", latestDate.toString());
+        timeRange.put("totalDays", ChronoUnit.DAYS.between(earliestDate, latestDate));
+        timeRange.put("currentDate", today.toString());
+
+        Map<String, Object> page = null;
+        if (window != GanttWindow.ALL) {
+            page = new LinkedHashMap<>();
+            page.put("offset", from);
+            page.put("limit", window.getLimit());
+            page.put("total", visible.size());
+            page.put("hasMore", to < visible.size());
+            // 下一页的游标，没有更多轨道时为空
+            page.put("nextCursor", to < visible.size() ? window.cursorAfter(visible.get(to - 1).project) : null);
+        }
+
+        allMilestones.sort(Comparator.comparing(milestone -> (String) milestone.get("dueDate")));
+        return new GanttSnapshot(timeRange, allMilestones, projectTracks, buildGlobalProjectInfo(visible), page);
+    }
+
+    private Map<String, Object> buildGlobalProjectInfo(List<ProjectTrack> userTracks) {
+        Map<String, Object> info = new HashMap<>();
+        info.put("name", "全局项目甘特图");
+        info.put("description", "当前用户相关的所有项目概览");
+        info.put("totalProjects", userTracks.size());
+
+        // 计算整体进度
+        double avgProgress = userTracks.stream()
+                .mapToInt(track -> track.project.getProgress() != null ? track.project.getProgress() : 0)
+                .average()
+                .orElse(0.0);
+        info.put("progress", (int) avgProgress);
+
+        // 统计状态
+        Map<String, Long> statusCount = userTracks.stream()
+                .collect(Collectors.groupingBy(track -> String.valueOf(track.project.getStatus()),
+                        Collectors.counting()));
+        info.put("statusCount", statusCount);
+
+        return info;
+    }
+
+    private void recordStaleness(List<ProjectTrack> userTracks) {
+        long oldestLoad = System.currentTimeMillis();
+        for (ProjectTrack track : userTracks) {
+            oldestLoad = Math.min(oldestLoad, track.loadedAt);
+        }
+        long stalenessMillis = System.currentTimeMillis() - oldestLoad;
+        lastStalenessMillis = stalenessMillis;
+        if (stalenessMillis > maxStalenessMillis) {
+            maxStalenessMillis = stalenessMillis;
+        }
+    }
+
+    private <V> Map<Long, V> lruMap(int maxSize, Consumer<V> onEvict) {
+        return new LinkedHashMap<Long, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+                evictions.incrementAndGet();
+                if (onEvict != null) {
+                    onEvict.accept(eldest.getValue());
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * 用户模型：相关项目集合
+     */
+    private static final class UserModel {
+
+        private final Long userId;
+        private final Set<Long> projectIds = new LinkedHashSet<>();
+
+        UserModel(Long userId) {
+            this.userId = userId;
+        }
+    }
+
+    /**
+     * 项目轨道：项目、里程碑、待办任务及处理人，任务条等派生数据按日期和版本惰性重建
+     */
+    private static final class ProjectTrack {
+
+        private Project project;
+        private List<Milestone> parsedMilestones;
+        private List<Map<String, Object>> milestones;
+        private LocalDate[] milestoneDates;
+        private final Map<Long, Todo> todos = new LinkedHashMap<>();
+        private final Map<Long, User> assignees = new HashMap<>();
+        private final long loadedAt;
+        private long version;
+
+        private long builtVersion = -1;
+        private LocalDate builtDate;
+        private Map<String, Object> trackData;
+        private List<Map<String, Object>> taskBars;
+        private LocalDate[] taskStarts;
+        private LocalDate[] taskEnds;
+        private LocalDate earliestDate;
+        private LocalDate latestDate;
+
+        ProjectTrack(Project project, List<Milestone> parsedMilestones, long loadedAt) {
+            this.loadedAt = loadedAt;
+            setProject(project, parsedMilestones);
+        }
+
+        void setProject(Project project, List<Milestone> parsedMilestones) {
+            this.project = project;
+            this.parsedMilestones = parsedMilestones;
+            this.milestones = GanttElements.extractMilestones(parsedMilestones);
+            for (Map<String, Object> milestone : milestones) {
+                // 添加项目信息到里程碑
+                milestone.put("projectId", project.getId());
+                milestone.put("projectName", project.getName());
+            }
+            this.milestoneDates = new LocalDate[milestones.size()];
+            for (int i = 0; i < milestones.size(); i++) {
+                milestoneDates[i] = parseDate((String) milestones.get(i).get("dueDate"));
+            }
+        }
+
+        void putTodo(Todo todo, User assignee) {
+            todos.put(todo.getId(), todo);
+            if (assignee != null) {
+                assignees.put(assignee.getId(), assignee);
+            }
+        }
+
+        void removeTodo(Long todoId) {
+            todos.remove(todoId);
+        }
+
+        /**
+         * 是否有任务条或里程碑与窗口相交，需先调用 refresh
+         */
+        boolean intersects(GanttWindow window) {
+            for (int i = 0; i < taskStarts.length; i++) {
+                if (window.intersects(taskStarts[i], taskEnds[i])) {
+                    return true;
+                }
+            }
+            for (LocalDate dueDate : milestoneDates) {
+                if (dueDate != null && window.intersects(dueDate, dueDate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 只保留与窗口相交的任务条和里程碑的轨道数据，需先调用 refresh
+         *
+         * @param visibleMilestones 收集相交的里程碑
+         */
+        Map<String, Object> windowed(GanttWindow window, List<Map<String, Object>> visibleMilestones) {
+            List<Map<String, Object>> tasks = new ArrayList<>();
+            for (int i = 0; i < taskBars.size(); i++) {
+                if (window.intersects(taskStarts[i], taskEnds[i])) {
+                    tasks.add(taskBars.get(i));
+                }
+            }
+            List<Map<String, Object>> trackMilestones = new ArrayList<>();
+            for (int i = 0; i < milestones.size(); i++) {
+                if (milestoneDates[i] != null && window.intersects(milestoneDates[i], milestoneDates[i])) {
+                    trackMilestones.add(milestones.get(i));
+                }
+            }
+            visibleMilestones.addAll(trackMilestones);
+
+            Map<String, Object> track = new HashMap<>(trackData);
+            track.put("tasks", tasks);
+            track.put("milestones", trackMilestones);
+            track.put("milestoneRelation", trackMilestones.stream()
+                    .map(m -> (String) m.get("id"))
+                    .collect(Collectors.toList()));
+            return track;
+        }
+
+        private static LocalDate parseDate(String value) {
+            try {
+                return LocalDate.parse(value.trim());
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+
+        /**
+         * 版本或日期变化后重建轨道数据和时间范围
+         */
+        void refresh(LocalDate today) {
+            if (builtVersion == version && today.equals(builtDate)) {
+                return;
+            }
+            Map<String, Object> track = new HashMap<>();
+            track.put("id", "project_" + project.getId());
+            track.put("name", "📋 " + project.getName());
+            track.put("projectId", project.getId());
+            track.put("status", project.getStatus());
+            track.put("progress", project.getProgress());
+            taskBars = GanttElements.buildTaskBars(todos.values(), assignees, today);
+            taskStarts = new LocalDate[taskBars.size()];
+            taskEnds = new LocalDate[taskBars.size()];
+            for (int i = 0; i < taskBars.size(); i++) {
+                taskStarts[i] = LocalDate.parse((String) taskBars.get(i).get("startDate"));
+                taskEnds[i] = LocalDate.parse((String) taskBars.get(i).get("endDate"));
+            }
+            track.put("tasks", taskBars);
+            track.put("milestones", milestones);
+            // 关联的里程碑（保留向后兼容性）
+            track.put("milestoneRelation", milestones.stream()
+                    .map(m -> (String) m.get("id"))
+                    .collect(Collectors.toList()));
+            trackData = track;
+
+            earliestDate = project.getCreateTime() != null ? project.getCreateTime().toLocalDate() : today;
+            latestDate = null;
+            for (Milestone milestone : parsedMilestones) {
+                LocalDate dueDate = milestone.getDueDate();
+                if (dueDate != null) {
+                    earliestDate = dueDate.isBefore(earliestDate) ? dueDate : earliestDate;
+                    latestDate = latestDate == null || dueDate.isAfter(latestDate) ? dueDate : latestDate;
+                }
+            }
+            for (Todo todo : todos.values()) {
+                if (todo.getCreateTime() != null && todo.getCreateTime().toLocalDate().isBefore(earliestDate)) {
+                    earliestDate = todo.getCreateTime().toLocalDate();
+                }
+                if (todo.getDueDate() != null && (latestDate == null || todo.getDueDate().isAfter(latestDate))) {
+                    latestDate = todo.getDueDate();
+                }
+            }
+            builtVersion = version;
+            builtDate = today;
+        }
+    }
+}
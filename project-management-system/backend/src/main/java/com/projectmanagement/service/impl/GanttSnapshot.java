@@ -0,0 +1,91 @@
+package com.projectmanagement.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户全局甘特图快照
+ * 只持有时间范围、项目信息、分页信息以及对已物化的里程碑和项目轨道数据的引用，不复制轨道内容；
+ * 可以组装为Map，也可以用流式生成器逐条轨道直接写出，序列化期间不再构建整棵对象树
+ */
+public final class GanttSnapshot {
+
+    private final Map<String, Object> timeRange;
+    private final List<Map<String, Object>> milestones;
+    private final List<Map<String, Object>> taskTracks;
+    private final Map<String, Object> projectInfo;
+    private final Map<String, Object> page;
+
+    GanttSnapshot(Map<String, Object> timeRange, List<Map<String, Object>> milestones,
+            List<Map<String, Object>> taskTracks, Map<String, Object> projectInfo, Map<String, Object> page) {
+        this.timeRange = timeRange;
+        this.milestones = milestones;
+        this.taskTracks = taskTracks;
+        this.projectInfo = projectInfo;
+        this.page = page;
+    }
+
+    /**
+     * 用户没有相关项目
+     */
+    static GanttSnapshot empty() {
+        return new GanttSnapshot(null, null, null, null, null);
+    }
+
+    public boolean isEmpty() {
+        return taskTracks == null;
+    }
+
+    public int getTrackCount() {
+        return isEmpty() ? 0 : taskTracks.size();
+    }
+
+    /**
+     * 组装为甘特图数据Map，结构与接口原有返回值一致
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> ganttData = new HashMap<>();
+        if (isEmpty()) {
+            return ganttData;
+        }
+        ganttData.put("timeRange", timeRange);
+        ganttData.put("milestones", milestones);
+        ganttData.put("taskTracks", taskTracks);
+        ganttData.put("projectInfo", projectInfo);
+        if (page != null) {
+            ganttData.put("page", page);
+        }
+        return ganttData;
+    }
+
+    /**
+     * 以JSON对象写出甘特图数据，逐个里程碑和轨道写入生成器，生成器缓冲区满后直接输出
+     *
+     * @param generator 需设置ObjectCodec，用于写出单个轨道
+     */
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        if (!isEmpty()) {
+            generator.writeObjectField("timeRange", timeRange);
+            generator.writeArrayFieldStart("milestones");
+            for (Map<String, Object> milestone : milestones) {
+                generator.writeObject(milestone);
+            }
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("taskTracks");
+            for (Map<String, Object> track : taskTracks) {
+                generator.writeObject(track);
+            }
+            generator.writeEndArray();
+            generator.writeObjectField("projectInfo", projectInfo);
+            if (page != null) {
+                generator.writeObjectField("page", page);
+            }
+        }
+        generator.writeEndObject();
+    }
+}
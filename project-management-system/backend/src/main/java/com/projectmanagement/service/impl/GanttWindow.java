@@ -0,0 +1,178 @@
+package com.projectmanagement.service.impl;
+
+import com.projectmanagement.entity.Project;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 甘特图可视窗口
+ * 日期范围限定只输出与窗口相交的任务条和里程碑，偏移量或游标和条数限定输出的项目轨道，
+ * 前端按可视区域滚动加载，响应大小与可视区域相关而与历史数据总量无关。
+ * 游标记录上一页最后一条轨道的排序键（项目创建时间和ID），下一页从该位置之后继续，
+ * 两页之间新增或删除项目不会导致轨道重复或遗漏
+ */
+public final class GanttWindow {
+
+    /**
+     * 单次最多返回的项目轨道数
+     */
+    public static final int MAX_LIMIT = 200;
+
+    /**
+     * 不限日期和轨道数，输出完整甘特图
+     */
+    public static final GanttWindow ALL = new GanttWindow(null, null, 0, null);
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final int offset;
+    private final Integer limit;
+
+    private boolean afterCursor;
+    private LocalDateTime afterCreateTime;
+    private Long afterId;
+
+    private GanttWindow(LocalDate startDate, LocalDate endDate, int offset, Integer limit) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    /**
+     * 创建窗口，参数均可为空
+     *
+     * @param startDate 窗口开始日期，为空时不限
+     * @param endDate   窗口结束日期（含），为空时不限
+     * @param offset    跳过的轨道数
+     * @param limit     返回的轨道数，超过 {@link #MAX_LIMIT} 时按上限返回
+     */
+    public static GanttWindow of(LocalDate startDate, LocalDate endDate, Integer offset, Integer limit) {
+        if (startDate != null && endDate != null && endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("结束日期不能早于开始日期");
+        }
+        if (offset != null && offset < 0) {
+            throw new IllegalArgumentException("偏移量不能小于0");
+        }
+        if (limit != null && limit <= 0) {
+            throw new IllegalArgumentException("返回条数必须大于0");
+        }
+        if (startDate == null && endDate == null && (offset == null || offset == 0) && limit == null) {
+            return ALL;
+        }
+        return new GanttWindow(startDate, endDate, offset != null ? offset : 0,
+                limit != null ? Math.min(limit, MAX_LIMIT) : null);
+    }
+
+    /**
+     * 创建从游标之后开始的窗口，cursor 为空时等同于 {@link #of}
+     *
+     * @param cursor 上一页返回的游标，与日期范围绑定，不能跨窗口使用
+     */
+    public static GanttWindow of(LocalDate startDate, LocalDate endDate, Integer offset, Integer limit, String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return of(startDate, endDate, offset, limit);
+        }
+        if (offset != null && offset > 0) {
+            throw new IllegalArgumentException("偏移量和游标不能同时指定");
+        }
+        // 先按普通窗口校验日期范围和条数
+        GanttWindow base = of(startDate, endDate, null, limit);
+        GanttWindow window = new GanttWindow(startDate, endDate, 0, base.limit);
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的游标");
+        }
+        if (parts.length != 4 || !dateKey(startDate).equals(parts[0]) || !dateKey(endDate).equals(parts[1])) {
+            throw new IllegalArgumentException("无效的游标");
+        }
+        try {
+            window.afterCreateTime = parts[2].isEmpty() ? null : LocalDateTime.parse(parts[2]);
+            window.afterId = Long.valueOf(parts[3]);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("无效的游标");
+        }
+        window.afterCursor = true;
+        return window;
+    }
+
+    /**
+     * 生成指向该项目轨道之后的游标
+     */
+    public String cursorAfter(Project project) {
+        String raw = dateKey(startDate) + SEPARATOR + dateKey(endDate) + SEPARATOR
+                + (project.getCreateTime() != null ? project.getCreateTime().toString() : "") + SEPARATOR + project.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 项目是否排在游标之后，排序与轨道一致：按创建时间升序（为空的排最后），再按ID升序
+     */
+    public boolean isAfterCursor(Project project) {
+        if (!afterCursor) {
+            return true;
+        }
+        LocalDateTime createTime = project.getCreateTime();
+        if (createTime == null || afterCreateTime == null) {
+            if (createTime != null) {
+                return false;
+            }
+            if (afterCreateTime != null) {
+                return true;
+            }
+        } else if (!createTime.equals(afterCreateTime)) {
+            return createTime.isAfter(afterCreateTime);
+        }
+        return project.getId() > afterId;
+    }
+
+    private static String dateKey(LocalDate date) {
+        return date != null ? date.toString() : "";
+    }
+
+    /**
+     * 是否限定了日期范围
+     */
+    public boolean hasDateRange() {
+        return startDate != null || endDate != null;
+    }
+
+    /**
+     * 是否分页返回轨道
+     */
+    public boolean isPaged() {
+        return offset > 0 || limit != null || afterCursor;
+    }
+
+    /**
+     * 日期区间 [from, to] 是否与窗口相交，端点为空的一侧视为不限
+     */
+    public boolean intersects(LocalDate from, LocalDate to) {
+        return (endDate == null || from == null || !from.isAfter(endDate))
+                && (startDate == null || to == null || !to.isBefore(startDate));
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+}
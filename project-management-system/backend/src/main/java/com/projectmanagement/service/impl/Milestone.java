@@ -0,0 +1,112 @@
+package com.projectmanagement.service.impl;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * 项目里程碑
+ * 由 Project.milestones JSON 解析得到的不可变对象，截止日期在解析时一次性转换
+ */
+public final class Milestone {
+
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_PROGRESS = "PROGRESS";
+    public static final String STATUS_PENDING = "PENDING";
+
+    private final String name;
+    private final String description;
+    private final String status;
+    private final String dueDateText;
+    private final LocalDate dueDate;
+    private final int sourceHash;
+
+    private Milestone(String name, String description, String status, String dueDateText, int sourceHash) {
+        this.name = name;
+        this.description = description;
+        this.status = status;
+        this.dueDateText = dueDateText;
+        this.dueDate = parseDate(dueDateText);
+        this.sourceHash = sourceHash;
+    }
+
+    /**
+     * 由JSON中的单个里程碑对象构建
+     */
+    static Milestone of(Map<String, Object> source) {
+        return new Milestone(text(source.get("name")), text(source.get("description")), text(source.get("status")),
+                text(source.get("dueDate")), source.hashCode());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * 原始截止日期字符串
+     */
+    public String getDueDateText() {
+        return dueDateText;
+    }
+
+    /**
+     * 截止日期，未设置或格式错误时为null
+     */
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    /**
+     * 是否填写了截止日期（不论格式是否正确）
+     */
+    public boolean hasDueDateText() {
+        return dueDateText != null && !dueDateText.trim().isEmpty();
+    }
+
+    public boolean isCompleted() {
+        return STATUS_COMPLETED.equals(status);
+    }
+
+    public boolean isInProgress() {
+        return STATUS_PROGRESS.equals(status);
+    }
+
+    public boolean isPending() {
+        return STATUS_PENDING.equals(status);
+    }
+
+    /**
+     * 甘特图中的里程碑ID，与原始JSON内容对应
+     */
+    public String getGanttId() {
+        return "milestone_" + sourceHash;
+    }
+
+    private static String text(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Milestone{name=" + name + ", status=" + status + ", dueDate=" + dueDateText + "}";
+    }
+}
@@ -0,0 +1,121 @@
+package com.projectmanagement.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectmanagement.entity.Project;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 项目里程碑解析缓存
+ * 按 (项目ID, 更新时间) 缓存解析好的里程碑列表，项目未修改时不再重复解析JSON和日期；
+ * update_time 精度为秒，命中时再比较原始JSON，同一秒内的修改也能识别
+ */
+@Slf4j
+@Component
+public class MilestoneCache {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final TypeReference<List<Map<String, Object>>> MILESTONES_TYPE =
+            new TypeReference<List<Map<String, Object>>>() {
+            };
+
+    private final Map<Long, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong parses = new AtomicLong();
+
+    public MilestoneCache(@Value("${app.milestone-cache.max-projects:2000}") int maxProjects) {
+        int maxSize = Math.max(1, maxProjects);
+        this.entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * 获取项目的里程碑列表（保持JSON中的顺序），JSON为空或格式错误时返回空列表
+     */
+    public List<Milestone> get(Project project) {
+        String json = project.getMilestones();
+        if (json == null || json.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        Long projectId = project.getId();
+        if (projectId == null) {
+            return parse(json);
+        }
+
+        synchronized (entries) {
+            Entry entry = entries.get(projectId);
+            if (entry != null && Objects.equals(entry.updateTime, project.getUpdateTime()) && entry.json.equals(json)) {
+                hits.incrementAndGet();
+                return entry.milestones;
+            }
+        }
+
+        List<Milestone> milestones = parse(json);
+        synchronized (entries) {
+            entries.put(projectId, new Entry(project.getUpdateTime(), json, milestones));
+        }
+        return milestones;
+    }
+
+    /**
+     * 按JSON中的顺序解析里程碑
+     */
+    public List<Milestone> parse(String json) {
+        parses.incrementAndGet();
+        try {
+            List<Map<String, Object>> sources = OBJECT_MAPPER.readValue(json, MILESTONES_TYPE);
+            if (sources == null) {
+                return Collections.emptyList();
+            }
+            List<Milestone> milestones = new ArrayList<>(sources.size());
+            for (Map<String, Object> source : sources) {
+                if (source != null) {
+                    milestones.add(Milestone.of(source));
+                }
+            }
+            return Collections.unmodifiableList(milestones);
+        } catch (Exception e) {
+            log.warn("解析里程碑数据失败: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("projects", entries.size());
+        }
+        stats.put("hits", hits.get());
+        stats.put("parses", parses.get());
+        return stats;
+    }
+
+    private static final class Entry {
+        private final LocalDateTime updateTime;
+        private final String json;
+        private final List<Milestone> milestones;
+
+        Entry(LocalDateTime updateTime, String json, List<Milestone> milestones) {
+            this.updateTime = updateTime;
+            this.json = json;
+            this.milestones = milestones;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.projectmanagement.service.impl;
+
+import com.projectmanagement.entity.Project;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * 项目当前里程碑及其时间进度
+ * 当前里程碑为第一个未完成的里程碑（都已完成时为最后一个），进度按上一里程碑到当前里程碑截止日期之间已过去的时间计算；
+ * 没有里程碑时为项目名称和项目进度
+ */
+public final class MilestoneProgress {
+
+    private final String name;
+    private final double progress;
+
+    private MilestoneProgress(String name, double progress) {
+        this.name = name;
+        this.progress = progress;
+    }
+
+    public static MilestoneProgress of(Project project, List<Milestone> milestones, LocalDate today) {
+        double projectProgress = project.getProgress() != null ? project.getProgress() : 0;
+        if (milestones.isEmpty()) {
+            return new MilestoneProgress(project.getName(), projectProgress);
+        }
+
+        int currentIndex = milestones.size() - 1;
+        for (int i = 0; i < milestones.size(); i++) {
+            if (!milestones.get(i).isCompleted()) {
+                currentIndex = i;
+                break;
+            }
+        }
+        Milestone current = milestones.get(currentIndex);
+        Milestone previous = currentIndex > 0 ? milestones.get(currentIndex - 1) : null;
+
+        double progress = 0.0;
+        if (current.hasDueDateText()) {
+            LocalDate currentDueDate = current.getDueDate();
+            if (currentDueDate == null) {
+                // 日期格式错误，使用项目进度
+                progress = projectProgress;
+            } else {
+                LocalDate previousDueDate = previous != null ? previous.getDueDate() : null;
+                // 如果没有前一个里程碑，使用项目开始时间
+                if (previousDueDate == null) {
+                    previousDueDate = project.getStartDate() != null ? project.getStartDate()
+                            : currentDueDate.minusDays(30);
+                }
+                long totalDays = ChronoUnit.DAYS.between(previousDueDate, currentDueDate);
+                long elapsedDays = ChronoUnit.DAYS.between(previousDueDate, today);
+                if (totalDays > 0) {
+                    progress = Math.max(0, Math.min(100, (double) elapsedDays / totalDays * 100));
+                }
+            }
+        }
+        return new MilestoneProgress(current.getName(), progress);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 进度百分比（0-100）
+     */
+    public double getProgress() {
+        return progress;
+    }
+}
@@ -0,0 +1,244 @@
+package com.projectmanagement.service.impl;
+
+import com.projectmanagement.entity.Project;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 项目列表查询结果缓存
+ * 按 (视图, 用户) 缓存已补全创建人和负责人信息的项目列表，列表页和仪表盘的重复刷新不再访问数据库。
+ * 项目写入后失效全局视图、包含该项目的用户视图以及相关用户的视图；待办任务的负责人变化后失效相关用户的视图。
+ * 缓存项超过有效期后重新加载，兜底覆盖未经过失效入口的写入
+ */
+@Component
+public class ProjectListCache {
+
+    /**
+     * 全部项目列表
+     */
+    public static final String VIEW_ALL = "all";
+
+    /**
+     * 用户相关的项目列表
+     */
+    public static final String VIEW_USER = "user";
+
+    /**
+     * 全部项目概览
+     */
+    public static final String VIEW_OVERVIEW = "overview";
+
+    /**
+     * 用户相关的项目概览
+     */
+    public static final String VIEW_USER_OVERVIEW = "userOverview";
+
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 失效序号，加载期间发生失效时加载结果不放入缓存
+     */
+    private final AtomicLong invalidationSeq = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ProjectListCache(@Value("${app.project-list-cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${app.project-list-cache.max-entries:2000}") int maxEntries) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(0, ttlSeconds));
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * 获取视图的项目列表，未缓存或已过期时调用加载函数
+     *
+     * @param userId 用户视图的用户ID，全局视图传null
+     * @return 项目列表副本，调用方可以修改列表本身
+     */
+    public List<Project> get(String view, Long userId, Supplier<List<Project>> loader) {
+        Key key = new Key(view, userId);
+        Entry entry = cache.get(key);
+        if (entry != null && !entry.isExpired(ttlNanos)) {
+            hits.incrementAndGet();
+            return new ArrayList<>(entry.projects);
+        }
+
+        misses.incrementAndGet();
+        long seq = invalidationSeq.get();
+        List<Project> projects = loader.get();
+        if (invalidationSeq.get() == seq) {
+            if (cache.size() >= maxEntries) {
+                evictExpired();
+            }
+            if (cache.size() < maxEntries) {
+                cache.put(key, new Entry(projects));
+            }
+        }
+        return new ArrayList<>(projects);
+    }
+
+    /**
+     * 项目新增、修改或删除后失效相关视图
+     *
+     * @param relatedUserIds 项目修改前后的创建人和负责人等，这些用户的视图即使原来不包含该项目也需要失效
+     */
+    public void projectChanged(Long projectId, Collection<Long> relatedUserIds) {
+        Set<Long> userIds = relatedUserIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        invalidateNowAndAfterCommit(() -> evict(key -> key.userId == null
+                || userIds.contains(key.userId)
+                || containsProject(key, projectId)));
+    }
+
+    /**
+     * 批量修改项目字段（如工作计划）后失效全局视图和包含这些项目的用户视图，项目关系不变
+     */
+    public void projectsChanged(Collection<Long> projectIds) {
+        Set<Long> changed = new HashSet<>(projectIds);
+        if (changed.isEmpty()) {
+            return;
+        }
+        invalidateNowAndAfterCommit(() -> evict(key -> key.userId == null || containsAnyProject(key, changed)));
+    }
+
+    /**
+     * 用户与项目的关系变化后（待办任务负责人、项目成员）失效这些用户的视图
+     */
+    public void membershipChanged(Collection<Long> userIds) {
+        Set<Long> affected = userIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (affected.isEmpty()) {
+            return;
+        }
+        invalidateNowAndAfterCommit(() -> evict(key -> key.userId != null && affected.contains(key.userId)));
+    }
+
+    /**
+     * 清空全部缓存
+     */
+    public void clear() {
+        invalidationSeq.incrementAndGet();
+        cache.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", cache.size());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0.0);
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private boolean containsProject(Key key, Long projectId) {
+        Entry entry = cache.get(key);
+        return entry != null && entry.projectIds.contains(projectId);
+    }
+
+    private boolean containsAnyProject(Key key, Set<Long> projectIds) {
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            return false;
+        }
+        for (Long projectId : entry.projectIds) {
+            if (projectIds.contains(projectId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void evict(Predicate<Key> predicate) {
+        invalidationSeq.incrementAndGet();
+        for (Key key : new ArrayList<>(cache.keySet())) {
+            if (predicate.test(key) && cache.remove(key) != null) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    private void evictExpired() {
+        cache.entrySet().removeIf(e -> e.getValue().isExpired(ttlNanos));
+    }
+
+    /**
+     * 立即失效，事务中调用时在提交后再失效一次，避免并发读取把旧数据重新放回缓存
+     */
+    private void invalidateNowAndAfterCommit(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    private static final class Key {
+        private final String view;
+        private final Long userId;
+
+        Key(String view, Long userId) {
+            this.view = view;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return view.equals(other.view) && Objects.equals(userId, other.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * view.hashCode() + Objects.hashCode(userId);
+        }
+    }
+
+    private static final class Entry {
+        private final List<Project> projects;
+        private final Set<Long> projectIds;
+        private final long loadedAt = System.nanoTime();
+
+        Entry(List<Project> projects) {
+            this.projects = Collections.unmodifiableList(new ArrayList<>(projects));
+            this.projectIds = new HashSet<>();
+            projects.forEach(project -> projectIds.add(project.getId()));
+        }
+
+        boolean isExpired(long ttlNanos) {
+            return System.nanoTime() - loadedAt > ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.projectmanagement.service.impl;
+
+import com.projectmanagement.mapper.ProjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 用户与项目的关系索引
+ * 在内存中维护 用户ID -> 相关项目ID集合（创建人、责任人、项目成员、待办责任人），集合使用原始 long 存储；
+ * 首次使用时一次查询全部关系建立索引，之后项目、成员和待办任务写入提交后只重新查询该项目的关系并修正差异，
+ * "我的项目"和全局甘特图按索引取出项目ID后按主键查询，不再每次连接扫描待办任务表。
+ * 索引超过最长存活时间后由下一次查询整体重建，兜底覆盖未经过修正入口的写入
+ */
+@Slf4j
+@Component
+public class ProjectMembershipIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final ProjectMapper projectMapper;
+    private final long maxAgeMillis;
+
+    /**
+     * 重建和修正串行执行，后执行的查询总能看到之前提交的写入
+     */
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private final Map<Long, LongHashSet> userProjects = new HashMap<>();
+
+    /**
+     * 项目ID -> 相关用户ID（升序），用于修正时计算差异
+     */
+    private final Map<Long, long[]> projectUsers = new HashMap<>();
+
+    /**
+     * 索引建立时间，0 表示尚未建立或已失效
+     */
+    private volatile long builtAt;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+
+    public ProjectMembershipIndex(ProjectMapper projectMapper,
+            @Value("${app.membership-index.max-age-seconds:1800}") long maxAgeSeconds) {
+        this.projectMapper = projectMapper;
+        this.maxAgeMillis = TimeUnit.SECONDS.toMillis(Math.max(1, maxAgeSeconds));
+    }
+
+    /**
+     * 获取用户相关的项目ID
+     */
+    public List<Long> getProjectIds(Long userId) {
+        ensureBuilt();
+        lookups.incrementAndGet();
+        long[] projectIds;
+        synchronized (this) {
+            LongHashSet set = userProjects.get(userId);
+            projectIds = set != null ? set.toArray() : EMPTY;
+        }
+        List<Long> result = new ArrayList<>(projectIds.length);
+        for (long projectId : projectIds) {
+            result.add(projectId);
+        }
+        return result;
+    }
+
+    /**
+     * 获取与项目相关的用户ID（升序）
+     */
+    public List<Long> getUserIds(Long projectId) {
+        ensureBuilt();
+        long[] userIds;
+        synchronized (this) {
+            userIds = projectUsers.getOrDefault(projectId, EMPTY);
+        }
+        List<Long> result = new ArrayList<>(userIds.length);
+        for (long userId : userIds) {
+            result.add(userId);
+        }
+        return result;
+    }
+
+    /**
+     * 项目、项目成员或项目下待办任务的负责人变化后修正该项目的关系，事务中调用时在提交后执行；
+     * 提交后的修正排在其他提交回调之前，依赖本索引的缓存（如甘特图模型）修补时读到的已是新关系
+     */
+    public void projectChanged(Long projectId) {
+        if (projectId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh(projectId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCommit() {
+                refresh(projectId);
+            }
+        });
+    }
+
+    /**
+     * 使索引失效，下次查询时重建
+     */
+    public void clear() {
+        builtAt = 0;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            long relations = 0;
+            for (long[] users : projectUsers.values()) {
+                relations += users.length;
+            }
+            stats.put("users", userProjects.size());
+            stats.put("projects", projectUsers.size());
+            stats.put("relations", relations);
+        }
+        stats.put("lookups", lookups.get());
+        stats.put("builds", builds.get());
+        stats.put("refreshes", refreshes.get());
+        stats.put("ageMillis", builtAt > 0 ? System.currentTimeMillis() - builtAt : null);
+        return stats;
+    }
+
+    private void ensureBuilt() {
+        long built = builtAt;
+        if (built > 0 && System.currentTimeMillis() - built <= maxAgeMillis) {
+            return;
+        }
+        if (built > 0) {
+            // 已过期：由一个请求重建，其他请求继续使用旧索引
+            if (refreshLock.tryLock()) {
+                try {
+                    if (builtAt == built) {
+                        build();
+                    }
+                } finally {
+                    refreshLock.unlock();
+                }
+            }
+            return;
+        }
+        refreshLock.lock();
+        try {
+            if (builtAt == 0) {
+                build();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void build() {
+        long start = System.currentTimeMillis();
+        Map<Long, LongHashSet> byProject = new HashMap<>();
+        for (Map<String, Object> row : projectMapper.selectProjectUserRelations(null)) {
+            byProject.computeIfAbsent(toLong(row.get("project_id")), id -> new LongHashSet())
+                    .add(toLong(row.get("user_id")));
+        }
+
+        Map<Long, LongHashSet> newUserProjects = new HashMap<>();
+        Map<Long, long[]> newProjectUsers = new HashMap<>(byProject.size() * 2);
+        byProject.forEach((projectId, users) -> {
+            long[] userIds = sorted(users);
+            newProjectUsers.put(projectId, userIds);
+            for (long userId : userIds) {
+                newUserProjects.computeIfAbsent(userId, id -> new LongHashSet()).add(projectId);
+            }
+        });
+
+        synchronized (this) {
+            userProjects.clear();
+            userProjects.putAll(newUserProjects);
+            projectUsers.clear();
+            projectUsers.putAll(newProjectUsers);
+        }
+        builtAt = System.currentTimeMillis();
+        builds.incrementAndGet();
+        log.info("✅ 项目关系索引建立完成，{} 个项目，{} 个用户，耗时 {}ms", newProjectUsers.size(), newUserProjects.size(),
+                builtAt - start);
+    }
+
+    private void refresh(Long projectId) {
+        refreshLock.lock();
+        try {
+            if (builtAt == 0) {
+                // 尚未建立，首次查询时会读到最新数据
+                return;
+            }
+            LongHashSet users = new LongHashSet();
+            for (Map<String, Object> row : projectMapper.selectProjectUserRelations(projectId)) {
+                users.add(toLong(row.get("user_id")));
+            }
+            long[] current = sorted(users);
+            synchronized (this) {
+                long[] previous = projectUsers.getOrDefault(projectId, EMPTY);
+                for (long userId : previous) {
+                    if (Arrays.binarySearch(current, userId) < 0) {
+                        LongHashSet set = userProjects.get(userId);
+                        if (set != null && set.remove(projectId) && set.isEmpty()) {
+                            userProjects.remove(userId);
+                        }
+                    }
+                }
+                for (long userId : current) {
+                    userProjects.computeIfAbsent(userId, id -> new LongHashSet()).add(projectId);
+                }
+                if (current.length > 0) {
+                    projectUsers.put(projectId, current);
+                } else {
+                    projectUsers.remove(projectId);
+                }
+            }
+            refreshes.incrementAndGet();
+        } catch (Exception e) {
+            // 修正失败时使索引失效，下次查询重建
+            log.error("❌ 修正项目 {} 的关系索引失败，索引将重建: {}", projectId, e.getMessage(), e);
+            builtAt = 0;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private static long[] sorted(LongHashSet set) {
+        long[] values = set.toArray();
+        Arrays.sort(values);
+        return values;
+    }
+
+    private static long toLong(Object value) {
+        return ((Number) value).longValue();
+    }
+}
@@ -0,0 +1,111 @@
+package com.projectmanagement.service.impl;
+
+import com.projectmanagement.entity.ProjectSnapshot;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 报告周期内的项目快照汇总
+ * 每个项目汇总周期内每天的完成数和到期未完成数，并保留周期最后一天的快照作为期末状态；
+ * 周期最后一天没有快照的项目不汇总，由调用方改用任务数据统计
+ */
+public final class ProjectSnapshotSummary {
+
+    public static final ProjectSnapshotSummary EMPTY = new ProjectSnapshotSummary(Collections.emptyMap());
+
+    private final Map<Long, PeriodStats> stats;
+
+    private ProjectSnapshotSummary(Map<Long, PeriodStats> stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * @param snapshots 周期内的快照，可包含多个项目
+     * @param endDate   周期结束日期
+     */
+    public static ProjectSnapshotSummary of(List<ProjectSnapshot> snapshots, LocalDate endDate) {
+        Map<Long, PeriodStats> stats = new HashMap<>();
+        for (ProjectSnapshot snapshot : snapshots) {
+            stats.computeIfAbsent(snapshot.getProjectId(), id -> new PeriodStats()).add(snapshot, endDate);
+        }
+        stats.values().removeIf(period -> period.end == null);
+        return stats.isEmpty() ? EMPTY : new ProjectSnapshotSummary(stats);
+    }
+
+    public boolean isEmpty() {
+        return stats.isEmpty();
+    }
+
+    /**
+     * 项目在周期内的汇总，没有期末快照时为null
+     */
+    public PeriodStats get(Long projectId) {
+        return stats.get(projectId);
+    }
+
+    /**
+     * 单个项目在报告周期内的汇总
+     */
+    public static final class PeriodStats {
+
+        private int completed;
+        private int slipped;
+        private ProjectSnapshot end;
+
+        private void add(ProjectSnapshot snapshot, LocalDate endDate) {
+            completed += value(snapshot.getCompletedCount());
+            slipped += value(snapshot.getSlippedCount());
+            if (endDate.equals(snapshot.getSnapshotDate())) {
+                end = snapshot;
+            }
+        }
+
+        /**
+         * 周期内完成的任务数
+         */
+        public int getCompleted() {
+            return completed;
+        }
+
+        /**
+         * 周期内到期未完成的任务数
+         */
+        public int getSlipped() {
+            return slipped;
+        }
+
+        /**
+         * 期末进行中的任务数
+         */
+        public int getInProgress() {
+            return value(end.getProgressCount());
+        }
+
+        /**
+         * 期末未完成的任务数
+         */
+        public int getOpen() {
+            return value(end.getOpenCount());
+        }
+
+        public String getProjectStatus() {
+            return end.getProjectStatus();
+        }
+
+        public String getMilestoneName() {
+            return end.getMilestoneName();
+        }
+
+        public int getMilestoneProgress() {
+            return value(end.getMilestoneProgress());
+        }
+
+        private static int value(Integer count) {
+            return count != null ? count : 0;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.projectmanagement.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.projectmanagement.entity.Project;
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.mapper.ProjectMapper;
+import com.projectmanagement.mapper.TodoMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 项目工作计划批量更新任务
+ * 按项目ID分块处理：每块一次查询项目、一次查询全部待办任务，在线程池中并行生成内容，
+ * 再用一条批量更新语句写回并提交，每块提交后记录断点。任务失败后以相同参数再次运行时从断点继续，
+ * 运行过程中可随时查询进度
+ */
+@Slf4j
+@Component
+public class ProjectWorkPlanJob {
+
+    public static final String STATUS_IDLE = "IDLE";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private final ProjectMapper projectMapper;
+    private final TodoMapper todoMapper;
+    private final ProjectListCache projectListCache;
+    private final WorkPlanGenerator generator;
+    private final Executor executor;
+    private final int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Progress progress = Progress.idle();
+
+    public ProjectWorkPlanJob(ProjectMapper projectMapper,
+            TodoMapper todoMapper,
+            ProjectListCache projectListCache,
+            MilestoneCache milestoneCache,
+            @Qualifier("workPlanExecutor") Executor executor,
+            @Value("${app.work-plan.chunk-size:200}") int chunkSize) {
+        this.projectMapper = projectMapper;
+        this.todoMapper = todoMapper;
+        this.projectListCache = projectListCache;
+        this.generator = new WorkPlanGenerator(milestoneCache);
+        this.executor = executor;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * 运行工作计划更新
+     *
+     * @param days   周期天数
+     * @param resume 上次相同周期、同一天的运行未完成时，是否从断点继续
+     * @return 本次运行的进度
+     */
+    public Map<String, Object> run(int days, boolean resume) {
+        if (days <= 0) {
+            throw new IllegalArgumentException("周期天数必须大于0");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("已有工作计划更新任务在运行");
+        }
+        try {
+            LocalDate today = LocalDate.now();
+            Progress previous = progress;
+            long cursor = 0;
+            int processed = 0;
+            int failed = 0;
+            if (resume && STATUS_FAILED.equals(previous.status) && previous.days == days
+                    && today.equals(previous.planDate)) {
+                cursor = previous.cursor;
+                processed = previous.processed;
+                failed = previous.failed;
+                log.info("🔄 工作计划更新从断点继续，项目ID > {}，已处理 {} 个", cursor, processed);
+            }
+
+            Progress current = new Progress(STATUS_RUNNING, days, today, projectMapper.selectCount(null),
+                    cursor, processed, failed, LocalDateTime.now(), null, null);
+            progress = current;
+            return execute(current, today, days).toMap();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 当前或最近一次运行的进度
+     */
+    public Map<String, Object> getProgress() {
+        return progress.toMap();
+    }
+
+    private Progress execute(Progress current, LocalDate today, int days) {
+        long startMillis = System.currentTimeMillis();
+        try {
+            while (true) {
+                QueryWrapper<Project> projectQuery = new QueryWrapper<>();
+                projectQuery.gt("id", current.cursor).orderByAsc("id").last("LIMIT " + chunkSize);
+                List<Project> projects = projectMapper.selectList(projectQuery);
+                if (projects.isEmpty()) {
+                    break;
+                }
+
+                AtomicInteger chunkFailed = new AtomicInteger();
+                List<Project> updates = generateChunk(projects, today, days, chunkFailed);
+                if (!updates.isEmpty()) {
+                    projectMapper.updateWorkPlans(updates);
+                    // 概览视图展示工作计划，本块提交后失效
+                    projectListCache.projectsChanged(updates.stream().map(Project::getId)
+                            .collect(Collectors.toList()));
+                }
+
+                // 本块已提交，记录断点
+                current = current.advance(projects.get(projects.size() - 1).getId(), projects.size(),
+                        chunkFailed.get());
+                progress = current;
+                if (projects.size() < chunkSize) {
+                    break;
+                }
+            }
+            current = current.finish(STATUS_COMPLETED, null);
+            log.info("✅ 工作计划更新完成，共 {} 个项目，失败 {} 个，耗时 {}ms", current.processed, current.failed,
+                    System.currentTimeMillis() - startMillis);
+        } catch (Exception e) {
+            current = current.finish(STATUS_FAILED, e.getMessage());
+            log.error("❌ 工作计划更新失败，已处理 {} 个项目，断点项目ID: {}", current.processed, current.cursor, e);
+        }
+        progress = current;
+        return current;
+    }
+
+    /**
+     * 生成一块项目的工作计划：待办任务一次查询后按项目分组，各项目的内容在线程池中并行生成
+     */
+    private List<Project> generateChunk(List<Project> projects, LocalDate today, int days, AtomicInteger failed) {
+        List<Long> projectIds = projects.stream().map(Project::getId).collect(Collectors.toList());
+        QueryWrapper<Todo> todoQuery = new QueryWrapper<>();
+        todoQuery.select("id", "project_id", "title", "status", "due_date", "completed_time")
+                .in("project_id", projectIds)
+                .orderByAsc("id");
+        Map<Long, List<Todo>> todosByProject = todoMapper.selectList(todoQuery).stream()
+                .collect(Collectors.groupingBy(Todo::getProjectId));
+
+        List<CompletableFuture<Project>> futures = new ArrayList<>(projects.size());
+        for (Project project : projects) {
+            List<Todo> todos = todosByProject.getOrDefault(project.getId(), new ArrayList<>());
+            futures.add(CompletableFuture.supplyAsync(() -> generator.generate(project, todos, today, days), executor)
+                    .exceptionally(e -> {
+                        // 单个项目生成失败不影响同一块的其他项目
+                        failed.incrementAndGet();
+                        log.warn("⚠️ 生成项目 {} 的工作计划失败: {}", project.getId(), e.getMessage());
+                        return null;
+                    }));
+        }
+
+        List<Project> updates = new ArrayList<>(projects.size());
+        for (CompletableFuture<Project> future : futures) {
+            Project update = future.join();
+            if (update != null) {
+                updates.add(update);
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * 运行进度快照
+     */
+    private static final class Progress {
+        private final String status;
+        private final int days;
+        private final LocalDate planDate;
+        private final long total;
+        private final long cursor;
+        private final int processed;
+        private final int failed;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+        private final String error;
+
+        Progress(String status, int days, LocalDate planDate, long total, long cursor, int processed, int failed,
+                LocalDateTime startTime, LocalDateTime endTime, String error) {
+            this.status = status;
+            this.days = days;
+            this.planDate = planDate;
+            this.total = total;
+            this.cursor = cursor;
+            this.processed = processed;
+            this.failed = failed;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.error = error;
+        }
+
+        static Progress idle() {
+            return new Progress(STATUS_IDLE, 0, null, 0, 0, 0, 0, null, null, null);
+        }
+
+        Progress advance(long newCursor, int chunkProcessed, int chunkFailed) {
+            return new Progress(status, days, planDate, total, newCursor, processed + chunkProcessed,
+                    failed + chunkFailed, startTime, null, null);
+        }
+
+        Progress finish(String finalStatus, String finalError) {
+            return new Progress(finalStatus, days, planDate, total, cursor, processed, failed, startTime,
+                    LocalDateTime.now(), finalError);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("status", status);
+            map.put("days", days);
+            map.put("total", total);
+            map.put("processed", processed);
+            map.put("failed", failed);
+            map.put("percent", total > 0 ? Math.min(100, processed * 100 / total) : 0);
+            map.put("lastProjectId", cursor);
+            map.put("startTime", startTime);
+            map.put("endTime", endTime);
+            map.put("error", error);
+            return map;
+        }
+    }
+}
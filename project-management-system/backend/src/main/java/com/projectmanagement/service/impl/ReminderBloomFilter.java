@@ -0,0 +1,69 @@
+package com.projectmanagement.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+/**
+ * 提醒去重用的布隆过滤器
+ * 判断为不存在的键一定没有登记过；判断为可能存在的键需要再到台账表确认
+ */
+final class ReminderBloomFilter {
+
+    private final BitSet bits;
+    private final int numBits;
+    private final int numHashes;
+
+    /**
+     * @param expectedInsertions 预计写入的键数量
+     * @param falsePositiveRate  期望的误判率
+     */
+    ReminderBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int n = Math.max(1, expectedInsertions);
+        double ln2 = Math.log(2);
+        this.numBits = (int) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * ln2));
+        this.bits = new BitSet(numBits);
+    }
+
+    synchronized void put(String key) {
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            bits.set(index(h1 + i * h2));
+        }
+    }
+
+    synchronized boolean mightContain(String key) {
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            if (!bits.get(index(h1 + i * h2))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int index(int combinedHash) {
+        return (combinedHash & Integer.MAX_VALUE) % numBits;
+    }
+
+    /**
+     * FNV-1a 64位哈希，再经过 murmur3 的混合步骤使高低位分布均匀
+     */
+    private static long hash64(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,376 @@
+package com.projectmanagement.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.google.gson.Gson;
+import com.projectmanagement.entity.EmailReminderLedger;
+import com.projectmanagement.entity.EmailSendQueue;
+import com.projectmanagement.entity.Project;
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.entity.User;
+import com.projectmanagement.entity.UserEmailPreference;
+import com.projectmanagement.mapper.EmailSendQueueMapper;
+import com.projectmanagement.mapper.ProjectMapper;
+import com.projectmanagement.mapper.UserEmailPreferenceMapper;
+import com.projectmanagement.mapper.UserMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 截止日期/逾期提醒摘要构建器
+ * 一次运行中所需的用户、偏好设置和项目各用一次批量查询加载，任务在内存中按收件人分组，
+ * 生成的每人一封摘要邮件分批写入发送队列，查询次数与任务数、用户数无关；
+ * 入队前先在提醒台账中登记，当天已提醒过的任务不会因重复运行再次发送
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReminderDigestBuilder {
+
+    /**
+     * 单条 IN 查询的最大ID数
+     */
+    private static final int MAX_IN_SIZE = 1000;
+
+    /**
+     * 单次批量写入邮件队列的最大条数
+     */
+    private static final int INSERT_BATCH_SIZE = 200;
+
+    private final UserMapper userMapper;
+    private final ProjectMapper projectMapper;
+    private final UserEmailPreferenceMapper userEmailPreferenceMapper;
+    private final EmailSendQueueMapper emailSendQueueMapper;
+    private final ReminderLedger reminderLedger;
+
+    private final Gson gson = new Gson();
+
+    /**
+     * 为即将到期的任务生成截止日期提醒摘要
+     *
+     * @param ruleId 触发提醒的规则ID，默认提醒传 0
+     * @return 写入队列的邮件数
+     */
+    @Transactional
+    public int enqueueDeadlineDigests(Collection<Todo> tasks, Long ruleId, String templateCode) {
+        return enqueueDigests(tasks, DigestKind.DEADLINE, ruleId, templateCode);
+    }
+
+    /**
+     * 为已逾期的任务生成逾期提醒摘要
+     *
+     * @return 写入队列的邮件数
+     */
+    @Transactional
+    public int enqueueOverdueDigests(Collection<Todo> tasks) {
+        return enqueueDigests(tasks, DigestKind.OVERDUE, 0L, "OVERDUE_REMINDER");
+    }
+
+    private int enqueueDigests(Collection<Todo> tasks, DigestKind kind, Long ruleId, String templateCode) {
+        // 按负责人分组，只保留启用了邮件通知的任务
+        Map<Long, List<Todo>> tasksByUser = new LinkedHashMap<>();
+        for (Todo task : tasks) {
+            if (task.getAssigneeId() != null && Boolean.TRUE.equals(task.getEmailEnabled())) {
+                tasksByUser.computeIfAbsent(task.getAssigneeId(), k -> new ArrayList<>()).add(task);
+            }
+        }
+        if (tasksByUser.isEmpty()) {
+            log.info("没有启用邮件通知的{}任务，无需发送提醒", kind.label);
+            return 0;
+        }
+
+        Map<Long, User> users = loadUsers(tasksByUser.keySet());
+        Map<Long, UserEmailPreference> preferences = loadPreferences(tasksByUser.keySet());
+        Map<Long, Project> projects = loadProjects(tasksByUser.values());
+
+        // 过滤掉无法接收提醒的用户，剩余的候选提醒在台账中登记
+        List<EmailReminderLedger> candidates = new ArrayList<>();
+        for (Iterator<Map.Entry<Long, List<Todo>>> it = tasksByUser.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, List<Todo>> entry = it.next();
+            Long userId = entry.getKey();
+            User user = users.get(userId);
+            if (user == null || !StringUtils.hasText(user.getEmail())) {
+                log.warn("❌ 用户不存在或邮箱为空: userId={}", userId);
+                it.remove();
+                continue;
+            }
+            UserEmailPreference preference = preferences.get(userId);
+            if (preference == null || !Boolean.TRUE.equals(preference.getEnableEmail())
+                    || !Boolean.TRUE.equals(preference.getDeadlineReminder())) {
+                log.info("用户 {} 未启用{}提醒，跳过", user.getUsername(), kind.label);
+                it.remove();
+                continue;
+            }
+            entry.getValue().forEach(task -> candidates.add(ReminderLedger.entry(task.getId(), userId)));
+        }
+
+        LocalDate today = LocalDate.now();
+        Set<String> claimed = reminderLedger.claim(kind.emailType, ruleId, today, candidates);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        String currentDate = today.toString();
+        StringBuilder taskListHtml = new StringBuilder(4096);
+        List<EmailSendQueue> pending = new ArrayList<>(INSERT_BATCH_SIZE);
+        int enqueued = 0;
+
+        for (Map.Entry<Long, List<Todo>> entry : tasksByUser.entrySet()) {
+            Long userId = entry.getKey();
+            User user = users.get(userId);
+            List<Todo> userTasks = entry.getValue();
+            userTasks.removeIf(task -> !claimed.contains(ReminderLedger.key(task.getId(), userId)));
+            if (userTasks.isEmpty()) {
+                continue;
+            }
+            userTasks.sort(Comparator.comparing(Todo::getDueDate, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(Todo::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+            taskListHtml.setLength(0);
+            for (Todo task : userTasks) {
+                Project project = task.getProjectId() != null ? projects.get(task.getProjectId()) : null;
+                String projectName = task.getProjectId() == null ? "无项目"
+                        : project != null ? project.getName() : "未知项目";
+                long days = ChronoUnit.DAYS.between(today, task.getDueDate());
+                if (kind == DigestKind.DEADLINE) {
+                    appendDeadlineItem(taskListHtml, task, projectName, days);
+                } else {
+                    appendOverdueItem(taskListHtml, task, projectName, -days);
+                }
+            }
+
+            Map<String, Object> variables = new HashMap<>();
+            variables.put("userName", user.getNickname() != null ? user.getNickname() : user.getUsername());
+            variables.put("taskCount", userTasks.size());
+            variables.put("taskListHtml", taskListHtml.toString());
+            variables.put("currentDate", currentDate);
+
+            pending.add(newQueue(userId, kind.emailType, user.getEmail(), templateCode, variables));
+            if (pending.size() >= INSERT_BATCH_SIZE) {
+                enqueued += flush(pending);
+            }
+        }
+        enqueued += flush(pending);
+
+        log.info("✅ {}提醒已加入邮件队列: {} 封（涉及用户 {} 个）", kind.label, enqueued, tasksByUser.size());
+        return enqueued;
+    }
+
+    private Map<Long, User> loadUsers(Set<Long> userIds) {
+        Map<Long, User> users = new HashMap<>();
+        for (List<Long> chunk : chunks(userIds)) {
+            users.putAll(userMapper.selectBatchIds(chunk).stream()
+                    .collect(Collectors.toMap(User::getId, Function.identity(), (a, b) -> a)));
+        }
+        return users;
+    }
+
+    private Map<Long, UserEmailPreference> loadPreferences(Set<Long> userIds) {
+        Map<Long, UserEmailPreference> preferences = new HashMap<>();
+        for (List<Long> chunk : chunks(userIds)) {
+            QueryWrapper<UserEmailPreference> queryWrapper = new QueryWrapper<>();
+            queryWrapper.in("user_id", chunk);
+            preferences.putAll(userEmailPreferenceMapper.selectList(queryWrapper).stream()
+                    .collect(Collectors.toMap(UserEmailPreference::getUserId, Function.identity(), (a, b) -> a)));
+        }
+        return preferences;
+    }
+
+    private Map<Long, Project> loadProjects(Collection<List<Todo>> taskGroups) {
+        Set<Long> projectIds = new LinkedHashSet<>();
+        taskGroups.forEach(group -> group.forEach(task -> {
+            if (task.getProjectId() != null) {
+                projectIds.add(task.getProjectId());
+            }
+        }));
+        Map<Long, Project> projects = new HashMap<>();
+        for (List<Long> chunk : chunks(projectIds)) {
+            projects.putAll(projectMapper.selectBatchIds(chunk).stream()
+                    .collect(Collectors.toMap(Project::getId, Function.identity(), (a, b) -> a)));
+        }
+        return projects;
+    }
+
+    private List<List<Long>> chunks(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += MAX_IN_SIZE) {
+            chunks.add(all.subList(i, Math.min(i + MAX_IN_SIZE, all.size())));
+        }
+        return chunks;
+    }
+
+    private int flush(List<EmailSendQueue> pending) {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        int inserted = pending.size();
+        try {
+            emailSendQueueMapper.insertBatch(pending);
+        } catch (Exception e) {
+            log.error("❌ 批量写入提醒邮件失败，改为逐条写入: {}", e.getMessage(), e);
+            inserted = 0;
+            for (EmailSendQueue queue : pending) {
+                try {
+                    emailSendQueueMapper.insert(queue);
+                    inserted++;
+                } catch (Exception ex) {
+                    log.error("❌ 写入提醒邮件失败: userId={}", queue.getUserId(), ex);
+                }
+            }
+        }
+        pending.clear();
+        return inserted;
+    }
+
+    private EmailSendQueue newQueue(Long userId, String emailType, String recipientEmail, String templateCode,
+            Map<String, Object> variables) {
+        EmailSendQueue queue = new EmailSendQueue();
+        queue.setUserId(userId);
+        queue.setEmailType(emailType);
+        queue.setRecipientEmail(recipientEmail);
+        queue.setTemplateCode(templateCode);
+        queue.setTemplateVariables(gson.toJson(variables));
+        queue.setPriority(5);
+        queue.setScheduledTime(LocalDateTime.now());
+        queue.setStatus("PENDING");
+        queue.setRetryCount(0);
+        queue.setMaxRetries(3);
+        return queue;
+    }
+
+    private void appendDeadlineItem(StringBuilder html, Todo task, String projectName, long daysRemaining) {
+        html.append(
+                "<div style='margin-bottom: 16px; border-radius: 8px; overflow: hidden; box-shadow: 0 4px 6px rgba(0,0,0,0.1);'>")
+                // 剩余天数标签
+                .append("<div style='padding: 8px 16px; background-color: ")
+                .append(daysRemaining < -7 ? "#742a2a" : daysRemaining < -3 ? "#c53030" : "#e53e3e")
+                .append("; color: white; font-size: 14px; font-weight: 600;'>")
+                .append("剩余 ").append(daysRemaining).append(" 天")
+                .append("</div>");
+        appendTaskBody(html, task, projectName, "截止时间", "状态");
+        // 行动建议
+        html.append(
+                "<div style='margin-top: 12px; padding: 8px 12px; background-color: #fed7d7; border-radius: 4px; font-size: 13px;'>")
+                .append("<strong>建议：</strong> ")
+                .append(daysRemaining > 7 ? "此任务严重逾期，请立即与相关人员沟通并制定补救计划"
+                        : daysRemaining > 3 ? "请优先处理此任务，避免进一步延误"
+                                : "请尽快完成此任务")
+                .append("</div>")
+                .append("</div>")
+                .append("</div>");
+    }
+
+    private void appendOverdueItem(StringBuilder html, Todo task, String projectName, long overdueDays) {
+        html.append(
+                "<div style='margin-bottom: 16px; border-radius: 8px; overflow: hidden; box-shadow: 0 4px 6px rgba(0,0,0,0.1);'>")
+                // 逾期标签
+                .append("<div style='padding: 8px 16px; background-color: ")
+                .append(overdueDays > 7 ? "#742a2a" : overdueDays > 3 ? "#c53030" : "#e53e3e")
+                .append("; color: white; font-size: 14px; font-weight: 600;'>")
+                .append("已逾期 ").append(overdueDays).append(" 天")
+                .append("</div>");
+        appendTaskBody(html, task, projectName, "原截止日期", "当前状态");
+        // 行动建议
+        html.append(
+                "<div style='margin-top: 12px; padding: 8px 12px; background-color: #fed7d7; border-radius: 4px; font-size: 13px;'>")
+                .append("<strong>建议：</strong> ")
+                .append(overdueDays > 7 ? "此任务严重逾期，请立即与相关人员沟通并制定补救计划"
+                        : overdueDays > 3 ? "请优先处理此任务，避免进一步延误"
+                                : "请尽快完成此任务")
+                .append("</div>")
+                .append("</div>")
+                .append("</div>");
+    }
+
+    /**
+     * 任务内容部分，调用方负责追加行动建议并关闭外层标签
+     */
+    private void appendTaskBody(StringBuilder html, Todo task, String projectName, String dueDateLabel,
+            String statusLabel) {
+        html.append("<div style='padding: 16px; background-color: #fff5f5; border: 1px solid #feb2b2;'>")
+                .append("<h3 style='margin: 0 0 12px 0; color: #742a2a; font-size: 18px;'>")
+                .append("🚨 ").append(task.getTitle())
+                .append("</h3>")
+                .append("<div style='display: grid; grid-template-columns: repeat(2, 1fr); gap: 8px; font-size: 14px;'>")
+                .append("<div><strong style='color: #975a5a;'>项目：</strong> ").append(projectName)
+                .append("</div>")
+                .append("<div><strong style='color: #975a5a;'>优先级：</strong> ")
+                .append(getPriorityText(task.getPriority())).append("</div>")
+                .append("<div><strong style='color: #975a5a;'>").append(dueDateLabel).append("：</strong> ")
+                .append(task.getDueDate())
+                .append("</div>")
+                .append("<div><strong style='color: #975a5a;'>").append(statusLabel).append("：</strong> ")
+                .append(getStatusText(task.getStatus())).append("</div>")
+                .append("</div>");
+    }
+
+    private String getPriorityText(String priority) {
+        if (priority == null) {
+            return "未设置";
+        }
+        switch (priority) {
+            case "HIGH":
+                return "高";
+            case "MEDIUM":
+                return "中";
+            case "LOW":
+                return "低";
+            default:
+                return priority;
+        }
+    }
+
+    private String getStatusText(String status) {
+        if (status == null) {
+            return "未知";
+        }
+        switch (status) {
+            case "TODO":
+                return "待办";
+            case "PROGRESS":
+                return "进行中";
+            case "DONE":
+                return "已完成";
+            case "CANCELLED":
+                return "已取消";
+            default:
+                return status;
+        }
+    }
+
+    private enum DigestKind {
+        DEADLINE("DEADLINE_REMINDER", "截止日期"),
+        OVERDUE("OVERDUE_REMINDER", "逾期");
+
+        private final String emailType;
+        private final String label;
+
+        DigestKind(String emailType, String label) {
+            this.emailType = emailType;
+            this.label = label;
+        }
+    }
+}
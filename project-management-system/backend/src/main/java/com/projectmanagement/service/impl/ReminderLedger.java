@@ -0,0 +1,147 @@
+package com.projectmanagement.service.impl;
+
+import com.projectmanagement.entity.EmailReminderLedger;
+import com.projectmanagement.mapper.EmailReminderLedgerMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 提醒去重台账
+ * 以 (日期, 提醒类型, 规则, 任务, 用户) 为唯一键登记已生成的提醒，重复运行、多节点同时运行时
+ * 同一提醒只会被登记成功一次；本地布隆过滤器记录当天已处理过的键，重复运行时只需一次确认查询
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReminderLedger {
+
+    /**
+     * 单节点每天预计处理的提醒数，用于确定布隆过滤器大小
+     */
+    private static final int EXPECTED_DAILY_REMINDERS = 100_000;
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    /**
+     * 单条 INSERT 写入的最大行数及单条 IN 查询的最大ID数
+     */
+    private static final int BATCH_SIZE = 500;
+
+    private final EmailReminderLedgerMapper ledgerMapper;
+
+    private LocalDate filterDate;
+    private ReminderBloomFilter filter;
+
+    /**
+     * 创建候选提醒
+     */
+    public static EmailReminderLedger entry(Long todoId, Long userId) {
+        EmailReminderLedger entry = new EmailReminderLedger();
+        entry.setTodoId(todoId);
+        entry.setUserId(userId);
+        return entry;
+    }
+
+    /**
+     * 候选提醒在结果集合中的键
+     */
+    public static String key(Long todoId, Long userId) {
+        return todoId + ":" + userId;
+    }
+
+    /**
+     * 登记一批候选提醒
+     * 应与写入邮件队列处于同一事务，事务回滚时登记一并撤销
+     *
+     * @return 本次登记成功（当天此前未提醒过）的候选键集合，见 {@link #key(Long, Long)}
+     */
+    public Set<String> claim(String reminderType, Long ruleId, LocalDate remindDate,
+            Collection<EmailReminderLedger> candidates) {
+        if (candidates.isEmpty()) {
+            return Collections.emptySet();
+        }
+        long rule = ruleId != null ? ruleId : 0L;
+        String prefix = reminderType + ":" + rule + ":";
+        ReminderBloomFilter dayFilter = filterFor(remindDate);
+
+        // 布隆过滤器判断为可能已登记的，到台账表确认
+        List<EmailReminderLedger> fresh = new ArrayList<>();
+        List<EmailReminderLedger> maybeRecorded = new ArrayList<>();
+        for (EmailReminderLedger candidate : candidates) {
+            String key = key(candidate.getTodoId(), candidate.getUserId());
+            (dayFilter.mightContain(prefix + key) ? maybeRecorded : fresh).add(candidate);
+        }
+        if (!maybeRecorded.isEmpty()) {
+            Set<Long> todoIdSet = new LinkedHashSet<>();
+            maybeRecorded.forEach(candidate -> todoIdSet.add(candidate.getTodoId()));
+            List<Long> todoIds = new ArrayList<>(todoIdSet);
+            Set<String> recorded = new HashSet<>();
+            for (int i = 0; i < todoIds.size(); i += BATCH_SIZE) {
+                ledgerMapper.selectRecorded(remindDate, reminderType, rule,
+                        todoIds.subList(i, Math.min(i + BATCH_SIZE, todoIds.size())))
+                        .forEach(entry -> recorded.add(key(entry.getTodoId(), entry.getUserId())));
+            }
+            for (EmailReminderLedger candidate : maybeRecorded) {
+                if (!recorded.contains(key(candidate.getTodoId(), candidate.getUserId()))) {
+                    fresh.add(candidate);
+                }
+            }
+        }
+        if (fresh.isEmpty()) {
+            log.info("{}提醒均已登记，跳过 {} 条", reminderType, candidates.size());
+            return Collections.emptySet();
+        }
+
+        // 唯一键冲突的记录被忽略，按本批次令牌查出实际登记成功的记录
+        String claimToken = UUID.randomUUID().toString().replace("-", "");
+        for (EmailReminderLedger candidate : fresh) {
+            candidate.setRemindDate(remindDate);
+            candidate.setReminderType(reminderType);
+            candidate.setRuleId(rule);
+        }
+        for (int i = 0; i < fresh.size(); i += BATCH_SIZE) {
+            ledgerMapper.insertIgnoreBatch(fresh.subList(i, Math.min(i + BATCH_SIZE, fresh.size())),
+                    claimToken);
+        }
+        Set<String> claimed = new HashSet<>();
+        ledgerMapper.selectByClaimToken(claimToken)
+                .forEach(entry -> claimed.add(key(entry.getTodoId(), entry.getUserId())));
+
+        for (EmailReminderLedger candidate : fresh) {
+            dayFilter.put(prefix + key(candidate.getTodoId(), candidate.getUserId()));
+        }
+        log.info("{}提醒登记完成: 候选 {} 条，新登记 {} 条", reminderType, candidates.size(), claimed.size());
+        return claimed;
+    }
+
+    /**
+     * 清理保留天数之前的台账记录
+     *
+     * @return 删除的记录数
+     */
+    public int purge(int retainDays) {
+        return ledgerMapper.deleteBefore(LocalDate.now().minusDays(retainDays));
+    }
+
+    /**
+     * 获取指定日期的布隆过滤器，日期变化时重建
+     */
+    private synchronized ReminderBloomFilter filterFor(LocalDate remindDate) {
+        if (filter == null || !remindDate.equals(filterDate)) {
+            filter = new ReminderBloomFilter(EXPECTED_DAILY_REMINDERS, FALSE_POSITIVE_RATE);
+            filterDate = remindDate;
+        }
+        return filter;
+    }
+}
@@ -0,0 +1,199 @@
+package com.projectmanagement.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.projectmanagement.entity.Project;
+import com.projectmanagement.entity.ProjectSnapshot;
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.entity.User;
+import com.projectmanagement.mapper.ProjectMapper;
+import com.projectmanagement.mapper.ProjectSnapshotMapper;
+import com.projectmanagement.mapper.TodoMapper;
+import com.projectmanagement.mapper.UserMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 报告数据加载器
+ * 按报告周期加载生成报告所需的任务：未完成的任务，以及在周期内完成的任务；
+ * 任务引用的项目和负责人各用一次批量查询加载并回填到任务上，查询次数与任务数无关，
+ * 加载量只取决于报告周期和未完成任务数，而不是整张任务表
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReportDataLoader {
+
+    /**
+     * 单条 IN 查询的最大ID数
+     */
+    private static final int MAX_IN_SIZE = 1000;
+
+    private final TodoMapper todoMapper;
+    private final ProjectMapper projectMapper;
+    private final UserMapper userMapper;
+    private final ProjectSnapshotMapper snapshotMapper;
+
+    /**
+     * 报告周期的开始日期：周报7天、双周报14天、月报从当月1日开始，其他类型30天
+     */
+    public static LocalDate windowStart(String type, LocalDate reportDate) {
+        switch (type) {
+            case "WEEKLY":
+                return reportDate.minusDays(6);
+            case "BIWEEKLY":
+                return reportDate.minusDays(13);
+            case "MONTHLY":
+                return reportDate.withDayOfMonth(1);
+            default:
+                return reportDate.minusDays(29);
+        }
+    }
+
+    /**
+     * 加载报告数据
+     *
+     * @param type       报告类型，决定报告周期
+     * @param reportDate 报告日期，即报告周期的结束日期
+     * @param projectIds 指定的项目，为空时加载全部项目的任务
+     */
+    public ReportData load(String type, LocalDate reportDate, Collection<Long> projectIds) {
+        LocalDate startDate = windowStart(type, reportDate);
+        Set<Long> requested = projectIds != null ? new LinkedHashSet<>(projectIds) : Collections.emptySet();
+
+        QueryWrapper<Todo> queryWrapper = new QueryWrapper<>();
+        if (!requested.isEmpty()) {
+            queryWrapper.in("project_id", requested);
+        }
+        queryWrapper.and(w -> w.ne("status", "DONE")
+                .or(done -> done.eq("status", "DONE")
+                        .ge("completed_time", startDate.atStartOfDay())
+                        .lt("completed_time", reportDate.plusDays(1).atStartOfDay())));
+        List<Todo> todos = todoMapper.selectList(queryWrapper);
+
+        Set<Long> referencedProjectIds = new LinkedHashSet<>(requested);
+        Set<Long> assigneeIds = new LinkedHashSet<>();
+        for (Todo todo : todos) {
+            if (todo.getProjectId() != null) {
+                referencedProjectIds.add(todo.getProjectId());
+            }
+            if (todo.getAssigneeId() != null) {
+                assigneeIds.add(todo.getAssigneeId());
+            }
+        }
+        Map<Long, Project> projects = loadProjects(referencedProjectIds);
+        Map<Long, User> users = loadUsers(assigneeIds);
+        for (Todo todo : todos) {
+            if (todo.getProjectId() != null) {
+                todo.setProject(projects.get(todo.getProjectId()));
+            }
+            if (todo.getAssigneeId() != null) {
+                todo.setAssignee(users.get(todo.getAssigneeId()));
+            }
+        }
+
+        log.debug("报告数据加载完成: {} ~ {}，任务 {} 个，项目 {} 个，负责人 {} 个",
+                startDate, reportDate, todos.size(), projects.size(), users.size());
+        return new ReportData(startDate, reportDate, todos, projects);
+    }
+
+    /**
+     * 加载报告周期内的项目快照汇总；周期尚未结束（结束日期为今天或之后）时快照不完整，返回空汇总
+     */
+    public ProjectSnapshotSummary loadSnapshots(Collection<Long> projectIds, LocalDate startDate, LocalDate endDate) {
+        if (projectIds.isEmpty() || !endDate.isBefore(LocalDate.now())) {
+            return ProjectSnapshotSummary.EMPTY;
+        }
+        List<ProjectSnapshot> snapshots = new ArrayList<>();
+        for (List<Long> chunk : chunks(new LinkedHashSet<>(projectIds))) {
+            QueryWrapper<ProjectSnapshot> queryWrapper = new QueryWrapper<>();
+            queryWrapper.in("project_id", chunk).between("snapshot_date", startDate, endDate);
+            snapshots.addAll(snapshotMapper.selectList(queryWrapper));
+        }
+        return ProjectSnapshotSummary.of(snapshots, endDate);
+    }
+
+    private Map<Long, Project> loadProjects(Set<Long> projectIds) {
+        Map<Long, Project> projects = new HashMap<>();
+        for (List<Long> chunk : chunks(projectIds)) {
+            projects.putAll(projectMapper.selectBatchIds(chunk).stream()
+                    .collect(Collectors.toMap(Project::getId, Function.identity(), (a, b) -> a)));
+        }
+        return projects;
+    }
+
+    /**
+     * 报告中只展示负责人昵称，不加载密码等其他字段
+     */
+    private Map<Long, User> loadUsers(Set<Long> userIds) {
+        Map<Long, User> users = new HashMap<>();
+        for (List<Long> chunk : chunks(userIds)) {
+            QueryWrapper<User> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("id", "username", "nickname", "email").in("id", chunk);
+            users.putAll(userMapper.selectList(queryWrapper).stream()
+                    .collect(Collectors.toMap(User::getId, Function.identity(), (a, b) -> a)));
+        }
+        return users;
+    }
+
+    private List<List<Long>> chunks(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += MAX_IN_SIZE) {
+            chunks.add(all.subList(i, Math.min(i + MAX_IN_SIZE, all.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * 一次报告生成所需的数据，任务已回填项目和负责人
+     */
+    public static final class ReportData {
+
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final List<Todo> todos;
+        private final Map<Long, Project> projects;
+
+        ReportData(LocalDate startDate, LocalDate endDate, List<Todo> todos, Map<Long, Project> projects) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.todos = todos;
+            this.projects = projects;
+        }
+
+        public LocalDate getStartDate() {
+            return startDate;
+        }
+
+        public LocalDate getEndDate() {
+            return endDate;
+        }
+
+        public List<Todo> getTodos() {
+            return todos;
+        }
+
+        /**
+         * 指定的项目和任务引用的项目，按ID索引
+         */
+        public Project getProject(Long projectId) {
+            return projects.get(projectId);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.projectmanagement.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * 报告生成任务
+ * 状态由提交线程和执行线程共同读写，字段均为 volatile，对外通过 {@link #toMap()} 输出快照
+ */
+public final class ReportJob {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String SUCCEEDED = "SUCCEEDED";
+    public static final String FAILED = "FAILED";
+    public static final String CANCELLED = "CANCELLED";
+
+    private final String id;
+    private final String key;
+    private final LocalDateTime submitTime = LocalDateTime.now();
+
+    private volatile String status = QUEUED;
+    private volatile int progress;
+    private volatile String stage = "排队中";
+    private volatile Long reportId;
+    private volatile String error;
+    private volatile LocalDateTime startTime;
+    private volatile LocalDateTime finishTime;
+    private volatile boolean cancelRequested;
+    private volatile Future<?> future;
+
+    ReportJob(String id, String key) {
+        this.id = id;
+        this.key = key;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * 去重键：报告类型、日期、项目ID和模糊模式
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Long getReportId() {
+        return reportId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public LocalDateTime getFinishTime() {
+        return finishTime;
+    }
+
+    public boolean isFinished() {
+        String current = status;
+        return SUCCEEDED.equals(current) || FAILED.equals(current) || CANCELLED.equals(current);
+    }
+
+    boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    synchronized boolean start() {
+        if (cancelRequested) {
+            return false;
+        }
+        status = RUNNING;
+        stage = "开始生成";
+        startTime = LocalDateTime.now();
+        return true;
+    }
+
+    synchronized void progress(int percent, String stage) {
+        if (RUNNING.equals(status)) {
+            this.progress = Math.max(this.progress, percent);
+            this.stage = stage;
+        }
+    }
+
+    synchronized void succeed(Long reportId) {
+        this.reportId = reportId;
+        this.progress = 100;
+        this.stage = "已完成";
+        finish(SUCCEEDED);
+    }
+
+    synchronized void fail(String error) {
+        this.error = error;
+        this.stage = "生成失败";
+        finish(FAILED);
+    }
+
+    /**
+     * 请求取消：排队中的任务直接取消，运行中的任务在下一个进度点终止；已结束的任务不受影响
+     *
+     * @return 请求是否生效
+     */
+    synchronized boolean cancel() {
+        if (isFinished()) {
+            return false;
+        }
+        cancelRequested = true;
+        if (QUEUED.equals(status)) {
+            Future<?> pending = future;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            markCancelled();
+        }
+        return true;
+    }
+
+    synchronized void markCancelled() {
+        stage = "已取消";
+        finish(CANCELLED);
+    }
+
+    private void finish(String finalStatus) {
+        status = finalStatus;
+        finishTime = LocalDateTime.now();
+    }
+
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("jobId", id);
+        map.put("status", status);
+        map.put("progress", progress);
+        map.put("stage", stage);
+        map.put("reportId", reportId);
+        map.put("error", error);
+        map.put("submitTime", submitTime);
+        map.put("startTime", startTime);
+        map.put("finishTime", finishTime);
+        return map;
+    }
+}
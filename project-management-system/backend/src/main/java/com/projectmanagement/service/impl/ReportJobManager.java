@@ -0,0 +1,237 @@
+package com.projectmanagement.service.impl;
+
+import com.projectmanagement.dto.ReportDTO;
+import com.projectmanagement.entity.Report;
+import com.projectmanagement.exception.BusinessException;
+import com.projectmanagement.exception.ResourceNotFoundException;
+import com.projectmanagement.exception.ValidationException;
+import com.projectmanagement.service.ReportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 报告生成任务管理器
+ * 报告在有界线程池中后台生成，提交后返回任务ID，客户端轮询进度并在完成后获取生成的报告；
+ * 相同类型、日期、项目和模糊模式的请求在前一个任务结束前合并为同一个任务；
+ * 已结束的任务在保留时长后清理，生成结果持久化为 {@link Report}
+ */
+@Slf4j
+@Component
+public class ReportJobManager {
+
+    private final ReportService reportService;
+    private final Executor executor;
+    private final long retentionMinutes;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, ReportJob> activeByKey = new ConcurrentHashMap<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    public ReportJobManager(ReportService reportService,
+                            @Qualifier("reportJobExecutor") Executor executor,
+                            @Value("${app.report.job.retention-minutes:60}") long retentionMinutes) {
+        this.reportService = reportService;
+        this.executor = executor;
+        this.retentionMinutes = retentionMinutes;
+    }
+
+    /**
+     * 提交报告生成任务；已有相同的任务在排队或运行时直接返回该任务
+     */
+    public ReportJob submit(ReportDTO reportDTO) {
+        if (!StringUtils.hasText(reportDTO.getType()) || reportDTO.getReportDate() == null) {
+            throw new ValidationException("报告类型和报告日期不能为空");
+        }
+        purgeExpired();
+
+        String key = keyOf(reportDTO);
+        ReportJob[] created = new ReportJob[1];
+        ReportJob job = activeByKey.compute(key, (k, existing) -> {
+            if (existing != null && !existing.isFinished()) {
+                return existing;
+            }
+            created[0] = new ReportJob(UUID.randomUUID().toString().replace("-", ""), k);
+            return created[0];
+        });
+        if (created[0] == null) {
+            deduplicated.incrementAndGet();
+            log.info("🔄 相同的报告生成任务正在进行，复用任务: {}", job.getId());
+            return job;
+        }
+
+        jobs.put(job.getId(), job);
+        FutureTask<Void> task = new FutureTask<>(() -> run(job, reportDTO), null);
+        job.setFuture(task);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            activeByKey.remove(key, job);
+            rejected.incrementAndGet();
+            log.warn("⚠️ 报告生成队列已满，拒绝任务: {}", key);
+            throw new BusinessException(503, "报告生成任务过多，请稍后重试");
+        }
+        submitted.incrementAndGet();
+        log.info("🚀 报告生成任务已提交: {} ({})", job.getId(), key);
+        return job;
+    }
+
+    public ReportJob getJob(String jobId) {
+        ReportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("报告生成任务不存在或已过期: " + jobId);
+        }
+        return job;
+    }
+
+    /**
+     * 获取任务生成的报告，任务未成功结束时抛出业务异常
+     */
+    public Report getResult(String jobId) {
+        ReportJob job = getJob(jobId);
+        if (ReportJob.FAILED.equals(job.getStatus())) {
+            throw new BusinessException(500, "报告生成失败: " + job.getError());
+        }
+        if (!ReportJob.SUCCEEDED.equals(job.getStatus())) {
+            throw new BusinessException(409, "报告尚未生成完成，当前状态: " + job.getStatus());
+        }
+        Report report = reportService.getReportById(job.getReportId());
+        if (report == null) {
+            throw new ResourceNotFoundException("报告", job.getReportId());
+        }
+        return report;
+    }
+
+    /**
+     * 取消任务：排队中的任务不再执行，运行中的任务在下一个阶段开始前终止且不保存报告
+     *
+     * @return 取消请求是否生效，已结束的任务返回false
+     */
+    public boolean cancel(String jobId) {
+        ReportJob job = getJob(jobId);
+        if (!job.cancel()) {
+            return false;
+        }
+        // 排队中的任务已直接取消，运行中的任务由执行线程在下一个进度点结束
+        if (job.isFinished()) {
+            activeByKey.remove(job.getKey(), job);
+            cancelled.incrementAndGet();
+        }
+        log.info("🔄 报告生成任务已请求取消: {}", jobId);
+        return true;
+    }
+
+    private void run(ReportJob job, ReportDTO reportDTO) {
+        if (!job.start()) {
+            return;
+        }
+        try {
+            Report report = reportService.generateReport(reportDTO, (percent, stage) -> {
+                if (job.isCancelRequested() || Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException();
+                }
+                job.progress(percent, stage);
+            });
+            job.succeed(report.getId());
+            succeeded.incrementAndGet();
+            log.info("✅ 报告生成完成: 任务 {}，报告 {}", job.getId(), report.getId());
+        } catch (CancellationException e) {
+            job.markCancelled();
+            cancelled.incrementAndGet();
+            log.info("报告生成任务已取消: {}", job.getId());
+        } catch (Exception e) {
+            job.fail(e.getMessage());
+            failed.incrementAndGet();
+            log.error("❌ 报告生成失败: 任务 {}", job.getId(), e);
+        } finally {
+            activeByKey.remove(job.getKey(), job);
+        }
+    }
+
+    /**
+     * 清理超过保留时长的已结束任务
+     */
+    private void purgeExpired() {
+        LocalDateTime expireBefore = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishTime() != null
+                && job.getFinishTime().isBefore(expireBefore));
+    }
+
+    /**
+     * 去重键；创建人和标题会写入报告，不同时不合并；请求中直接提供了报告内容时不与其他请求合并
+     */
+    static String keyOf(ReportDTO reportDTO) {
+        if (StringUtils.hasText(reportDTO.getContent())) {
+            return "content:" + UUID.randomUUID();
+        }
+        boolean fuzzyMode = reportDTO.getFuzzyMode() == null || reportDTO.getFuzzyMode();
+        // 项目集合不区分顺序，主项目（列表第一个）不同时生成的报告不同，需单独计入
+        return reportDTO.getType() + "|" + reportDTO.getReportDate() + "|" + primaryProjectId(reportDTO) + "|"
+                + sortedProjectIds(reportDTO) + "|" + fuzzyMode + "|" + reportDTO.getCreatorId() + "|" + reportDTO.getTitle();
+    }
+
+    /**
+     * 报告的主项目，与生成报告时的取值一致
+     */
+    private static Long primaryProjectId(ReportDTO reportDTO) {
+        if (reportDTO.getProjectIds() != null && !reportDTO.getProjectIds().isEmpty()) {
+            return reportDTO.getProjectIds().get(0);
+        }
+        return reportDTO.getProjectId();
+    }
+
+    /**
+     * 去重、排序后的项目ID
+     */
+    private static TreeSet<Long> sortedProjectIds(ReportDTO reportDTO) {
+        TreeSet<Long> projectIds = new TreeSet<>();
+        if (reportDTO.getProjectIds() != null && !reportDTO.getProjectIds().isEmpty()) {
+            reportDTO.getProjectIds().forEach(id -> {
+                if (id != null) {
+                    projectIds.add(id);
+                }
+            });
+        } else if (reportDTO.getProjectId() != null) {
+            projectIds.add(reportDTO.getProjectId());
+        }
+        return projectIds;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        List<ReportJob> snapshot = new ArrayList<>(jobs.values());
+        stats.put("jobs", snapshot.size());
+        stats.put("queued", snapshot.stream().filter(job -> ReportJob.QUEUED.equals(job.getStatus())).count());
+        stats.put("running", snapshot.stream().filter(job -> ReportJob.RUNNING.equals(job.getStatus())).count());
+        stats.put("submitted", submitted.get());
+        stats.put("deduplicated", deduplicated.get());
+        stats.put("rejected", rejected.get());
+        stats.put("succeeded", succeeded.get());
+        stats.put("failed", failed.get());
+        stats.put("cancelled", cancelled.get());
+        return stats;
+    }
+}
@@ -1,24 +1,25 @@
 package com.projectmanagement.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.projectmanagement.dto.ReportDTO;
+import com.projectmanagement.dto.ReportListQuery;
+import com.projectmanagement.dto.ReportPage;
+import com.projectmanagement.dto.ReportSummary;
 import com.projectmanagement.entity.Report;
 import com.projectmanagement.entity.Todo;
-import com.projectmanagement.mapper.ProjectMapper;
 import com.projectmanagement.mapper.ReportMapper;
-import com.projectmanagement.mapper.TodoMapper;
-import com.projectmanagement.mapper.UserMapper;
 import com.projectmanagement.service.ReportService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -31,9 +32,21 @@ import java.util.stream.Collectors;
 public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> implements ReportService {
 
     private final ReportMapper reportMapper;
-    private final TodoMapper todoMapper;
-    private final ProjectMapper projectMapper;
-    private final UserMapper userMapper;
+    private final MilestoneCache milestoneCache;
+    private final ReportDataLoader reportDataLoader;
+    private final ReportStatsCache reportStatsCache;
+
+    /**
+     * 报告列表分页默认每页条数
+     */
+    @Value("${app.report.page.default-size:20}")
+    private int pageDefaultSize;
+
+    /**
+     * 报告列表分页每页最多条数
+     */
+    @Value("${app.report.page.max-size:100}")
+    private int pageMaxSize;
 
     @Override
     public List<Report> getReports() {
@@ -60,8 +73,31 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
         return reportMapper.selectReportsByCreatorId(creatorId);
     }
 
+    @Override
+    public ReportPage getReportPage(Long projectId, String type, Long creatorId, String cursor, Integer limit) {
+        int size = limit == null || limit <= 0 ? pageDefaultSize : Math.min(limit, pageMaxSize);
+        ReportListQuery query = ReportListQuery.of(projectId, StringUtils.hasText(type) ? type : null, creatorId)
+                .page(cursor, size);
+        List<ReportSummary> reports = reportMapper.selectReportSummaries(query);
+
+        ReportPage page = new ReportPage();
+        page.setLimit(size);
+        page.setHasMore(reports.size() > size);
+        if (page.isHasMore()) {
+            reports = new ArrayList<>(reports.subList(0, size));
+            page.setNextCursor(query.cursorAfter(reports.get(size - 1)));
+        }
+        page.setItems(reports);
+        return page;
+    }
+
     @Override
     public Report generateReport(ReportDTO reportDTO) {
+        return generateReport(reportDTO, ProgressListener.NONE);
+    }
+
+    @Override
+    public Report generateReport(ReportDTO reportDTO, ProgressListener listener) {
         Report report = new Report();
 
         // 如果有多个项目ID，使用第一个作为主项目（用于兼容）
@@ -80,13 +116,16 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
         if (StringUtils.hasText(reportDTO.getContent())) {
             report.setContent(reportDTO.getContent());
         } else {
-            report.setContent(generateDefaultContent(reportDTO));
+            report.setContent(generateDefaultContent(reportDTO, listener));
         }
 
+        listener.onProgress(90, "保存报告");
+
         report.setCreateTime(LocalDateTime.now());
         report.setUpdateTime(LocalDateTime.now());
 
         reportMapper.insert(report);
+        reportStatsCache.reportsChanged();
         return report;
     }
 
@@ -115,18 +154,28 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
 
         report.setUpdateTime(LocalDateTime.now());
         reportMapper.updateById(report);
+        reportStatsCache.reportsChanged();
         return report;
     }
 
     @Override
     public boolean deleteReport(Long id) {
-        return reportMapper.deleteById(id) > 0;
+        boolean deleted = reportMapper.deleteById(id) > 0;
+        if (deleted) {
+            reportStatsCache.reportsChanged();
+        }
+        return deleted;
+    }
+
+    @Override
+    public Map<String, Object> getReportStats(LocalDate startDate, LocalDate endDate, Long projectId) {
+        return reportStatsCache.get(startDate, endDate, projectId);
     }
 
     /**
      * 生成默认报告内容
      */
-    private String generateDefaultContent(ReportDTO reportDTO) {
+    private String generateDefaultContent(ReportDTO reportDTO, ProgressListener listener) {
         String type = reportDTO.getType();
         LocalDate reportDate = reportDTO.getReportDate();
         List<Long> projectIds = reportDTO.getProjectIds();
@@ -137,41 +186,13 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
             projectIds = Arrays.asList(reportDTO.getProjectId());
         }
 
-        // 根据报告类型计算时间范围
-        LocalDate startDate;
-        LocalDate endDate = reportDate;
-
-        switch (type) {
-            case "WEEKLY":
-                startDate = reportDate.minusDays(6);
-                break;
-            case "BIWEEKLY":
-                startDate = reportDate.minusDays(13);
-                break;
-            case "MONTHLY":
-                startDate = reportDate.withDayOfMonth(1);
-                break;
-            default:
-                startDate = reportDate.minusDays(29);
-                break;
-        }
-
-        // 查询项目相关的待办任务
-        QueryWrapper<Todo> queryWrapper = new QueryWrapper<>();
-        if (projectIds != null && !projectIds.isEmpty()) {
-            queryWrapper.in("project_id", projectIds);
-        }
-        List<Todo> todos = todoMapper.selectList(queryWrapper);
-
-        // 加载关联数据（项目和负责人信息）
-        for (Todo todo : todos) {
-            if (todo.getProjectId() != null) {
-                todo.setProject(projectMapper.selectById(todo.getProjectId()));
-            }
-            if (todo.getAssigneeId() != null) {
-                todo.setAssignee(userMapper.selectById(todo.getAssigneeId()));
-            }
-        }
+        // 按报告周期加载任务，项目和负责人批量回填
+        listener.onProgress(10, "加载任务数据");
+        ReportDataLoader.ReportData data = reportDataLoader.load(type, reportDate, projectIds);
+        listener.onProgress(40, "生成报告内容");
+        LocalDate startDate = data.getStartDate();
+        LocalDate endDate = data.getEndDate();
+        List<Todo> todos = data.getTodos();
 
         // 查询所有相关项目并按创建时间升序排序
         Map<Long, com.projectmanagement.entity.Project> projectMap = new java.util.LinkedHashMap<>();
@@ -196,7 +217,7 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
         if (projectIds != null && !projectIds.isEmpty()) {
             for (Long projectId : projectIds) {
                 if (!projectMap.containsKey(projectId)) {
-                    com.projectmanagement.entity.Project project = projectMapper.selectById(projectId);
+                    com.projectmanagement.entity.Project project = data.getProject(projectId);
                     if (project != null) {
                         projectMap.put(projectId, project);
                     }
@@ -302,6 +323,11 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
         content.append("### 本期工作\n");
         boolean hasCurrentWork = false;
 
+        // 周报、双周报、月报的周期已结束时，统计数据取自每日快照，历史报告可以重现；没有快照的项目按任务数据统计
+        ProjectSnapshotSummary snapshots = fuzzyMode && isPeriodicReport(type)
+                ? reportDataLoader.loadSnapshots(projectMap.keySet(), startDate, endDate)
+                : ProjectSnapshotSummary.EMPTY;
+
         // 在模糊模式下，生成整体总结
         if (fuzzyMode) {
             // 统计项目数量和状态
@@ -310,24 +336,62 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
             int completedProjects = 0;
 
             for (com.projectmanagement.entity.Project project : projectMap.values()) {
-                if ("PROGRESS".equals(project.getStatus())) {
+                ProjectSnapshotSummary.PeriodStats stats = snapshots.get(project.getId());
+                String projectStatus = stats != null ? stats.getProjectStatus() : project.getStatus();
+                if ("PROGRESS".equals(projectStatus)) {
                     inProgressProjects++;
-                } else if ("COMPLETED".equals(project.getStatus())) {
+                } else if ("COMPLETED".equals(projectStatus)) {
                     completedProjects++;
                 }
             }
 
             // 统计待办任务数量
-            int totalCurrentTodos = currentTodos.size();
-            int completedTodosCount = (int) currentTodos.stream()
-                    .filter(todo -> "DONE".equals(todo.getStatus()))
-                    .count();
-            int inProgressTodosCount = (int) currentTodos.stream()
-                    .filter(todo -> "PROGRESS".equals(todo.getStatus()))
-                    .count();
-
-            // 统计下期待办任务数量
-            int nextTodosCount = nextTodos.size();
+            int totalCurrentTodos;
+            int completedTodosCount;
+            int inProgressTodosCount;
+            int nextTodosCount;
+            int slippedCount = 0;
+            if (snapshots.isEmpty()) {
+                totalCurrentTodos = currentTodos.size();
+                completedTodosCount = (int) currentTodos.stream()
+                        .filter(todo -> "DONE".equals(todo.getStatus()))
+                        .count();
+                inProgressTodosCount = (int) currentTodos.stream()
+                        .filter(todo -> "PROGRESS".equals(todo.getStatus()))
+                        .count();
+
+                // 统计下期待办任务数量
+                nextTodosCount = nextTodos.size();
+            } else {
+                completedTodosCount = 0;
+                inProgressTodosCount = 0;
+                nextTodosCount = 0;
+                Map<Long, List<Todo>> currentByProject = currentTodos.stream()
+                        .filter(todo -> todo.getProjectId() != null)
+                        .collect(Collectors.groupingBy(Todo::getProjectId));
+                Map<Long, Long> nextByProject = nextTodos.stream()
+                        .filter(todo -> todo.getProjectId() != null)
+                        .collect(Collectors.groupingBy(Todo::getProjectId, Collectors.counting()));
+                for (Long projectId : projectMap.keySet()) {
+                    ProjectSnapshotSummary.PeriodStats stats = snapshots.get(projectId);
+                    if (stats != null) {
+                        completedTodosCount += stats.getCompleted();
+                        inProgressTodosCount += stats.getInProgress();
+                        nextTodosCount += stats.getOpen();
+                        slippedCount += stats.getSlipped();
+                    } else {
+                        List<Todo> projectTodos = currentByProject.getOrDefault(projectId, Collections.emptyList());
+                        completedTodosCount += (int) projectTodos.stream()
+                                .filter(todo -> "DONE".equals(todo.getStatus()))
+                                .count();
+                        inProgressTodosCount += (int) projectTodos.stream()
+                                .filter(todo -> "PROGRESS".equals(todo.getStatus()))
+                                .count();
+                        nextTodosCount += nextByProject.getOrDefault(projectId, 0L).intValue();
+                    }
+                }
+                totalCurrentTodos = completedTodosCount + inProgressTodosCount;
+            }
 
             String period = type.equals("WEEKLY") ? "本周"
                     : type.equals("BIWEEKLY") ? "本双周"
@@ -344,7 +408,12 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
                     .append("项待办，其中已完成").append(completedTodosCount)
                     .append("项，进行中").append(inProgressTodosCount).append("项；")
                     .append(nextPeriod).append("预计").append(nextTodosCount)
-                    .append("项待办，暂无风险。\n\n");
+                    .append("项待办，");
+            if (slippedCount > 0) {
+                content.append(period).append(slippedCount).append("项待办到期未完成。\n\n");
+            } else {
+                content.append("暂无风险。\n\n");
+            }
         }
 
         for (com.projectmanagement.entity.Project project : projectMap.values()) {
@@ -358,7 +427,8 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
 
             // 在模糊模式下添加节点状态信息
             if (fuzzyMode) {
-                String nodeStatus = generateNodeStatus(project, projectTodos, nextTodos);
+                String nodeStatus = generateNodeStatus(project, projectTodos, nextTodos,
+                        snapshots.get(project.getId()));
                 content.append(nodeStatus).append("\n\n");
             }
 
@@ -539,9 +609,11 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
 
     /**
      * 生成节点状态信息（模糊模式下使用）
+     *
+     * @param stats 项目在报告周期内的快照汇总，不为null时里程碑和任务数取自快照
      */
     private String generateNodeStatus(com.projectmanagement.entity.Project project, List<Todo> currentTodos,
-            List<Todo> nextTodos) {
+            List<Todo> nextTodos, ProjectSnapshotSummary.PeriodStats stats) {
         if (project == null) {
             return "【节点状态】项目信息不完整";
         }
@@ -549,94 +621,20 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
         StringBuilder status = new StringBuilder();
         status.append("【节点状态】");
 
-        // 1. 解析里程碑信息
-        String currentMilestone = "未知里程碑";
-        double milestoneProgress = 0.0;
-
-        if (project.getMilestones() != null && !project.getMilestones().trim().isEmpty()) {
-            try {
-                // 解析里程碑JSON
-                com.google.gson.Gson gson = new com.google.gson.Gson();
-                com.google.gson.reflect.TypeToken<List<java.util.Map<String, Object>>> typeToken = new com.google.gson.reflect.TypeToken<List<java.util.Map<String, Object>>>() {
-                };
-                List<java.util.Map<String, Object>> milestones = gson.fromJson(project.getMilestones(),
-                        typeToken.getType());
-
-                if (milestones != null && !milestones.isEmpty()) {
-                    // 查找当前里程碑（第一个未完成的或最后一个）
-                    java.util.Map<String, Object> currentMilestoneObj = null;
-                    java.util.Map<String, Object> prevMilestoneObj = null;
-
-                    for (int i = 0; i < milestones.size(); i++) {
-                        java.util.Map<String, Object> milestone = milestones.get(i);
-                        String status_str = (String) milestone.get("status");
-
-                        if (!"COMPLETED".equals(status_str)) {
-                            currentMilestoneObj = milestone;
-                            if (i > 0) {
-                                prevMilestoneObj = milestones.get(i - 1);
-                            }
-                            break;
-                        }
-                    }
-
-                    // 如果所有里程碑都完成了，使用最后一个
-                    if (currentMilestoneObj == null && !milestones.isEmpty()) {
-                        currentMilestoneObj = milestones.get(milestones.size() - 1);
-                        if (milestones.size() > 1) {
-                            prevMilestoneObj = milestones.get(milestones.size() - 2);
-                        }
-                    }
-
-                    if (currentMilestoneObj != null) {
-                        currentMilestone = (String) currentMilestoneObj.get("name");
-
-                        // 计算里程碑进度（基于时间）
-                        String dueDateStr = (String) currentMilestoneObj.get("dueDate");
-                        if (dueDateStr != null && !dueDateStr.trim().isEmpty()) {
-                            try {
-                                LocalDate currentDueDate = LocalDate.parse(dueDateStr);
-                                LocalDate prevDueDate = null;
-
-                                if (prevMilestoneObj != null) {
-                                    String prevDueDateStr = (String) prevMilestoneObj.get("dueDate");
-                                    if (prevDueDateStr != null && !prevDueDateStr.trim().isEmpty()) {
-                                        prevDueDate = LocalDate.parse(prevDueDateStr);
-                                    }
-                                }
-
-                                // 如果没有前一个里程碑，使用项目开始时间
-                                if (prevDueDate == null) {
-                                    prevDueDate = project.getStartDate() != null ? project.getStartDate()
-                                            : currentDueDate.minusDays(30);
-                                }
-
-                                LocalDate today = LocalDate.now();
-                                long totalDays = ChronoUnit.DAYS.between(prevDueDate, currentDueDate);
-                                long elapsedDays = ChronoUnit.DAYS.between(prevDueDate, today);
-
-                                if (totalDays > 0) {
-                                    milestoneProgress = Math.max(0,
-                                            Math.min(100, (double) elapsedDays / totalDays * 100));
-                                }
-                            } catch (Exception e) {
-                                // 日期解析失败，使用默认进度
-                                milestoneProgress = project.getProgress() != null ? project.getProgress() : 0;
-                            }
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                // 里程碑JSON解析失败，使用项目名称作为里程碑
-                currentMilestone = project.getName();
-                milestoneProgress = project.getProgress() != null ? project.getProgress() : 0;
-            }
-        } else {
-            // 没有里程碑信息，使用项目名称
-            currentMilestone = project.getName();
-            milestoneProgress = project.getProgress() != null ? project.getProgress() : 0;
+        if (stats != null) {
+            status.append("当前里程碑：").append(stats.getMilestoneName())
+                    .append("，当前里程碑进度：").append(stats.getMilestoneProgress()).append("%")
+                    .append("，共识别").append(stats.getCompleted() + stats.getOpen()).append("个待办")
+                    .append("，进行中").append(stats.getInProgress()).append("个")
+                    .append("，已完成").append(stats.getCompleted()).append("个");
+            return status.toString();
         }
 
+        // 1. 解析里程碑信息（按项目版本缓存），没有里程碑时使用项目名称和项目进度
+        MilestoneProgress milestone = MilestoneProgress.of(project, milestoneCache.get(project), LocalDate.now());
+        String currentMilestone = milestone.getName();
+        double milestoneProgress = milestone.getProgress();
+
         status.append("当前里程碑：").append(currentMilestone)
                 .append("，当前里程碑进度：").append(String.format("%.0f", milestoneProgress)).append("%");
 
@@ -677,6 +675,13 @@ public class ReportServiceImpl extends ServiceImpl<ReportMapper, Report> impleme
         return status.toString();
     }
 
+    /**
+     * 周报、双周报、月报按每日快照汇总统计数据
+     */
+    private boolean isPeriodicReport(String type) {
+        return "WEEKLY".equals(type) || "BIWEEKLY".equals(type) || "MONTHLY".equals(type);
+    }
+
     /**
      * 为没有待办任务的项目生成整体状态信息
      */
@@ -0,0 +1,175 @@
+package com.projectmanagement.service.impl;
+
+import com.projectmanagement.mapper.ReportMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 报告统计缓存
+ * 按 (开始日期, 结束日期, 项目) 缓存按类型分组的报告数量，统计由一条 GROUP BY 计数查询得到，不读取报告内容；
+ * 报告新增、修改或删除后全部失效，缓存项超过有效期后重新统计
+ */
+@Component
+public class ReportStatsCache {
+
+    private static final String[] TYPES = {"WEEKLY", "BIWEEKLY", "MONTHLY", "STAGE"};
+
+    private final ReportMapper reportMapper;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 失效序号，统计期间发生失效时结果不放入缓存
+     */
+    private final AtomicLong invalidationSeq = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ReportStatsCache(ReportMapper reportMapper,
+            @Value("${app.report.stats-cache.ttl-seconds:30}") long ttlSeconds,
+            @Value("${app.report.stats-cache.max-entries:500}") int maxEntries) {
+        this.reportMapper = reportMapper;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(0, ttlSeconds));
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * 获取报告统计：weekly、biweekly、monthly、stage 各类型数量和 total 总数
+     *
+     * @param startDate 报告日期下限，为null时不限
+     * @param endDate   报告日期上限，为null时不限
+     * @param projectId 项目ID，为null时统计全部项目
+     */
+    public Map<String, Object> get(LocalDate startDate, LocalDate endDate, Long projectId) {
+        Key key = new Key(startDate, endDate, projectId);
+        Entry entry = cache.get(key);
+        if (entry != null && System.nanoTime() - entry.loadedAt < ttlNanos) {
+            hits.incrementAndGet();
+            return entry.stats;
+        }
+
+        misses.incrementAndGet();
+        long seq = invalidationSeq.get();
+        Map<String, Object> stats = load(startDate, endDate, projectId);
+        if (invalidationSeq.get() == seq) {
+            if (cache.size() >= maxEntries) {
+                cache.entrySet().removeIf(e -> System.nanoTime() - e.getValue().loadedAt >= ttlNanos);
+            }
+            if (cache.size() < maxEntries) {
+                cache.put(key, new Entry(stats));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * 报告新增、修改或删除后失效全部统计，事务中调用时在提交后再失效一次
+     */
+    public void reportsChanged() {
+        invalidate();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", cache.size());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0.0);
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private void invalidate() {
+        invalidationSeq.incrementAndGet();
+        if (!cache.isEmpty()) {
+            cache.clear();
+            invalidations.incrementAndGet();
+        }
+    }
+
+    private Map<String, Object> load(LocalDate startDate, LocalDate endDate, Long projectId) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (String type : TYPES) {
+            counts.put(type, 0L);
+        }
+        List<Map<String, Object>> rows = reportMapper.countByType(startDate, endDate, projectId);
+        long total = 0;
+        for (Map<String, Object> row : rows) {
+            long count = ((Number) row.get("count")).longValue();
+            counts.merge(String.valueOf(row.get("type")), count, Long::sum);
+            total += count;
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("weekly", counts.get("WEEKLY"));
+        stats.put("biweekly", counts.get("BIWEEKLY"));
+        stats.put("monthly", counts.get("MONTHLY"));
+        stats.put("stage", counts.get("STAGE"));
+        stats.put("total", total);
+        return Collections.unmodifiableMap(stats);
+    }
+
+    private static final class Key {
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final Long projectId;
+
+        Key(LocalDate startDate, LocalDate endDate, Long projectId) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.projectId = projectId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return Objects.equals(startDate, other.startDate) && Objects.equals(endDate, other.endDate)
+                    && Objects.equals(projectId, other.projectId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(startDate, endDate, projectId);
+        }
+    }
+
+    private static final class Entry {
+        private final Map<String, Object> stats;
+        private final long loadedAt = System.nanoTime();
+
+        Entry(Map<String, Object> stats) {
+            this.stats = stats;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.projectmanagement.service.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectmanagement.dto.TodoDTO;
+import com.projectmanagement.exception.ValidationException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 待办任务批量导入数据读取
+ * 从请求体中流式读取JSON数组、NDJSON（每行一个JSON对象）或带表头的CSV，逐条转换为 {@link TodoDTO}，
+ * 不先把整个请求体读入字符串；格式错误或超过行数上限时抛出 {@link ValidationException} 并指明行号
+ */
+public final class TodoImportReader {
+
+    public static final String FORMAT_JSON = "json";
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private final ObjectMapper objectMapper;
+    private final int maxRows;
+
+    public TodoImportReader(ObjectMapper objectMapper, int maxRows) {
+        this.objectMapper = objectMapper;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * 根据Content-Type判断格式，无法识别时按JSON数组读取
+     */
+    public static String formatOf(String contentType) {
+        String type = contentType != null ? contentType.toLowerCase(Locale.ROOT) : "";
+        if (type.contains("ndjson") || type.contains("x-json-stream") || type.contains("jsonlines")) {
+            return FORMAT_NDJSON;
+        }
+        if (type.contains("csv")) {
+            return FORMAT_CSV;
+        }
+        return FORMAT_JSON;
+    }
+
+    public List<TodoDTO> read(InputStream in, String format) throws IOException {
+        switch (format) {
+            case FORMAT_NDJSON:
+                return readNdjson(in);
+            case FORMAT_CSV:
+                return readCsv(in);
+            default:
+                return readJsonArray(in);
+        }
+    }
+
+    /**
+     * 读取JSON数组，逐个对象绑定
+     */
+    public List<TodoDTO> readJsonArray(InputStream in) throws IOException {
+        List<TodoDTO> todos = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ValidationException("请求体应为任务数组");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                checkLimit(todos.size() + 1);
+                try {
+                    todos.add(objectMapper.readValue(parser, TodoDTO.class));
+                } catch (JsonProcessingException e) {
+                    throw new ValidationException("第 " + (todos.size() + 1) + " 条数据格式错误: " + e.getOriginalMessage());
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new ValidationException("第 " + (todos.size() + 1) + " 条数据不是JSON对象");
+            }
+        }
+        return todos;
+    }
+
+    /**
+     * 读取NDJSON，跳过空行
+     */
+    public List<TodoDTO> readNdjson(InputStream in) throws IOException {
+        List<TodoDTO> todos = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            checkLimit(todos.size() + 1);
+            try {
+                todos.add(objectMapper.readValue(line, TodoDTO.class));
+            } catch (JsonProcessingException e) {
+                throw new ValidationException("第 " + lineNumber + " 行数据格式错误: " + e.getOriginalMessage());
+            }
+        }
+        return todos;
+    }
+
+    /**
+     * 读取CSV，首行为表头，列名与任务字段对应（如 title、projectId 或 project_id），未知列忽略；
+     * 字段可用双引号包裹，引号内可包含逗号、换行，两个双引号表示一个双引号
+     */
+    public List<TodoDTO> readCsv(InputStream in) throws IOException {
+        List<TodoDTO> todos = new ArrayList<>();
+        Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        CsvRecordReader records = new CsvRecordReader(reader);
+        List<String> header = records.next();
+        if (header == null) {
+            return todos;
+        }
+        String[] columns = new String[header.size()];
+        for (int i = 0; i < columns.length; i++) {
+            String name = header.get(i).trim();
+            if (i == 0 && name.startsWith("\uFEFF")) {
+                name = name.substring(1);
+            }
+            columns[i] = name.replace("_", "").toLowerCase(Locale.ROOT);
+        }
+
+        List<String> record;
+        while ((record = records.next()) != null) {
+            if (record.size() == 1 && record.get(0).trim().isEmpty()) {
+                continue;
+            }
+            int row = todos.size() + 1;
+            checkLimit(row);
+            TodoDTO todo = new TodoDTO();
+            for (int i = 0; i < columns.length && i < record.size(); i++) {
+                try {
+                    setField(todo, columns[i], record.get(i).trim());
+                } catch (NumberFormatException | DateTimeParseException e) {
+                    throw new ValidationException("第 " + row + " 条数据的 " + header.get(i).trim() + " 列格式错误: "
+                            + record.get(i));
+                }
+            }
+            todos.add(todo);
+        }
+        return todos;
+    }
+
+    private void checkLimit(int rows) {
+        if (rows > maxRows) {
+            throw new ValidationException("单次最多导入 " + maxRows + " 条任务");
+        }
+    }
+
+    private static void setField(TodoDTO todo, String column, String value) {
+        if (value.isEmpty()) {
+            return;
+        }
+        switch (column) {
+            case "id":
+                todo.setId(Long.valueOf(value));
+                break;
+            case "title":
+                todo.setTitle(value);
+                break;
+            case "description":
+                todo.setDescription(value);
+                break;
+            case "projectid":
+                todo.setProjectId(Long.valueOf(value));
+                break;
+            case "assigneeid":
+                todo.setAssigneeId(Long.valueOf(value));
+                break;
+            case "priority":
+                todo.setPriority(value.toUpperCase(Locale.ROOT));
+                break;
+            case "status":
+                todo.setStatus(value.toUpperCase(Locale.ROOT));
+                break;
+            case "duedate":
+                todo.setDueDate(LocalDate.parse(value));
+                break;
+            case "emailenabled":
+                todo.setEmailEnabled("true".equalsIgnoreCase(value) || "1".equals(value));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 逐条读取CSV记录
+     */
+    private static final class CsvRecordReader {
+
+        private final Reader reader;
+        private boolean eof;
+
+        CsvRecordReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * @return 下一条记录的字段，已读完时返回null
+         */
+        List<String> next() throws IOException {
+            if (eof) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                char ch = (char) c;
+                if (quoted) {
+                    if (ch == '"') {
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (next != -1) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        field.append(ch);
+                    }
+                } else if (ch == '"') {
+                    quoted = true;
+                } else if (ch == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (ch == '\n') {
+                    fields.add(field.toString());
+                    return fields;
+                } else if (ch != '\r') {
+                    field.append(ch);
+                }
+            }
+            eof = true;
+            if (!any) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
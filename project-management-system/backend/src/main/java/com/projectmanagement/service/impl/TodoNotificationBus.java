@@ -0,0 +1,405 @@
+package com.projectmanagement.service.impl;
+
+import com.projectmanagement.entity.EmailSendQueue;
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.entity.User;
+import com.projectmanagement.mapper.EmailSendQueueMapper;
+import com.projectmanagement.mapper.UserMapper;
+import com.projectmanagement.service.EmailSendService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 任务通知事件总线
+ * 任务的分配和状态变更事件在事务提交后进入内存队列，由专用线程批量取出、合并同一任务的重复事件，
+ * 再调用邮件服务生成通知并一次性写入邮件发送队列，HTTP请求不再等待通知处理；
+ * 队列已满或总线已停止时在调用线程中直接处理，关闭时先处理完队列中剩余的事件
+ */
+@Slf4j
+@Component
+public class TodoNotificationBus {
+
+    private final EmailSendService emailSendService;
+    private final EmailSendQueueMapper emailSendQueueMapper;
+    private final UserMapper userMapper;
+    private final DeferredEmailDigester deferredEmailDigester;
+    private final Executor executor;
+    private final BlockingQueue<TodoNotificationEvent> events;
+    private final int batchSize;
+    private final long lingerMillis;
+
+    private final Object lifecycleLock = new Object();
+    private final CountDownLatch workerStopped = new CountDownLatch(1);
+    private volatile boolean running;
+
+    public TodoNotificationBus(EmailSendService emailSendService,
+            EmailSendQueueMapper emailSendQueueMapper,
+            UserMapper userMapper,
+            DeferredEmailDigester deferredEmailDigester,
+            @Qualifier("todoNotificationExecutor") Executor executor,
+            @Value("${app.email.notification.queue-capacity:10000}") int queueCapacity,
+            @Value("${app.email.notification.batch-size:100}") int batchSize,
+            @Value("${app.email.notification.linger-millis:200}") long lingerMillis) {
+        this.emailSendService = emailSendService;
+        this.emailSendQueueMapper = emailSendQueueMapper;
+        this.userMapper = userMapper;
+        this.deferredEmailDigester = deferredEmailDigester;
+        this.executor = executor;
+        this.events = new LinkedBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerMillis = lingerMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        executor.execute(this::runWorker);
+        log.info("任务通知事件总线已启动");
+    }
+
+    /**
+     * 发布任务分配事件
+     */
+    public void publishAssignment(Todo todo, Long assigneeId, User operator) {
+        publish(TodoNotificationEvent.assignment(todo, assigneeId, operator));
+    }
+
+    /**
+     * 发布批量分配事件：按负责人分组，同一负责人的多个任务合并为一封汇总通知
+     */
+    public void publishBulkAssignment(Collection<Todo> todos, User operator) {
+        Map<Long, List<Todo>> byAssignee = new LinkedHashMap<>();
+        for (Todo todo : todos) {
+            if (todo.getAssigneeId() != null) {
+                byAssignee.computeIfAbsent(todo.getAssigneeId(), id -> new ArrayList<>()).add(todo);
+            }
+        }
+        byAssignee.forEach((assigneeId, assigned) -> publish(assigned.size() == 1
+                ? TodoNotificationEvent.assignment(assigned.get(0), assigneeId, operator)
+                : TodoNotificationEvent.bulkAssignment(assigned, assigneeId, operator)));
+    }
+
+    /**
+     * 发布任务状态变更事件
+     */
+    public void publishStatusChange(Todo todo, String oldStatus, String newStatus) {
+        publish(TodoNotificationEvent.statusChange(todo, oldStatus, newStatus));
+    }
+
+    private void publish(TodoNotificationEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 事务回滚时不发送通知
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(event);
+                }
+            });
+        } else {
+            enqueue(event);
+        }
+    }
+
+    private void enqueue(TodoNotificationEvent event) {
+        synchronized (lifecycleLock) {
+            if (running && events.offer(event)) {
+                return;
+            }
+        }
+        log.warn("任务通知队列已满或已停止，在当前线程处理: todoId={}", event.getTodo().getId());
+        processBatch(Collections.singletonList(event));
+    }
+
+    /**
+     * 处理当前队列中的全部事件
+     *
+     * @return 处理的事件数（合并前）
+     */
+    public int flush() {
+        int handled = 0;
+        List<TodoNotificationEvent> batch = new ArrayList<>(batchSize);
+        while (events.drainTo(batch, batchSize) > 0) {
+            handled += batch.size();
+            processBatch(batch);
+            batch.clear();
+        }
+        return handled;
+    }
+
+    private void runWorker() {
+        try {
+            while (running || !events.isEmpty()) {
+                TodoNotificationEvent first = events.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                // 短暂等待，让同一时间段内的事件合并到一批
+                List<TodoNotificationEvent> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + lingerMillis;
+                while (batch.size() < batchSize) {
+                    long waitMillis = deadline - System.currentTimeMillis();
+                    TodoNotificationEvent next = waitMillis > 0
+                            ? events.poll(waitMillis, TimeUnit.MILLISECONDS)
+                            : events.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                processBatch(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("任务通知处理线程被中断，剩余事件将在关闭时处理");
+        } finally {
+            workerStopped.countDown();
+        }
+    }
+
+    /**
+     * 合并事件后生成通知，并将产生的邮件一次性写入发送队列
+     */
+    void processBatch(List<TodoNotificationEvent> batch) {
+        Collection<TodoNotificationEvent> merged = coalesce(batch);
+        if (merged.isEmpty()) {
+            return;
+        }
+
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (TodoNotificationEvent event : merged) {
+            if (event.getAssigneeId() != null) {
+                userIds.add(event.getAssigneeId());
+            }
+        }
+        Map<Long, User> users = userIds.isEmpty() ? Collections.emptyMap()
+                : userMapper.selectBatchIds(userIds).stream()
+                        .collect(Collectors.toMap(User::getId, Function.identity(), (a, b) -> a));
+
+        EmailQueueBatch.begin();
+        List<EmailSendQueue> pending;
+        try {
+            for (TodoNotificationEvent event : merged) {
+                if (!event.isBulk()) {
+                    handle(event, users);
+                }
+            }
+        } finally {
+            pending = new ArrayList<>(EmailQueueBatch.end());
+        }
+        for (TodoNotificationEvent event : merged) {
+            if (event.isBulk()) {
+                pending.addAll(handleBulk(event, users));
+            }
+        }
+        persist(pending);
+
+        if (log.isDebugEnabled()) {
+            log.debug("任务通知批次处理完成: 事件 {} 个，合并后 {} 个，入队邮件 {} 封",
+                    batch.size(), merged.size(), pending.size());
+        }
+    }
+
+    private void handle(TodoNotificationEvent event, Map<Long, User> users) {
+        Todo todo = event.getTodo();
+        try {
+            if (event.isAssignment()) {
+                User assignee = users.get(event.getAssigneeId());
+                if (assignee == null) {
+                    log.warn("❌ 未找到分配用户，用户ID: {}", event.getAssigneeId());
+                    return;
+                }
+                emailSendService.handleTaskAssignmentNotification(todo, assignee, event.getOperator());
+            } else {
+                emailSendService.handleTaskStatusChangeNotification(todo, event.getOldStatus(), event.getNewStatus());
+            }
+        } catch (Exception e) {
+            // 单个事件失败不影响同批次的其他事件
+            log.error("❌ 任务通知处理失败: todoId={}, error={}", todo.getId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 逐个任务生成分配通知，同一负责人的多封通知合并为一封汇总邮件
+     */
+    private List<EmailSendQueue> handleBulk(TodoNotificationEvent event, Map<Long, User> users) {
+        User assignee = users.get(event.getAssigneeId());
+        if (assignee == null) {
+            log.warn("❌ 未找到分配用户，用户ID: {}", event.getAssigneeId());
+            return Collections.emptyList();
+        }
+        EmailQueueBatch.begin();
+        List<EmailSendQueue> emails;
+        try {
+            for (Todo todo : event.getTodos()) {
+                try {
+                    emailSendService.handleTaskAssignmentNotification(todo, assignee, event.getOperator());
+                } catch (Exception e) {
+                    log.error("❌ 任务通知处理失败: todoId={}, error={}", todo.getId(), e.getMessage(), e);
+                }
+            }
+        } finally {
+            emails = EmailQueueBatch.end();
+        }
+        if (emails.size() <= 1) {
+            return emails;
+        }
+        return Collections.singletonList(deferredEmailDigester.combine(assignee.getId(), emails,
+                "【任务分配】您有 " + emails.size() + " 个新分配的任务"));
+    }
+
+    private void persist(List<EmailSendQueue> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            emailSendQueueMapper.insertBatch(pending);
+        } catch (Exception e) {
+            log.error("❌ 批量写入邮件队列失败，改为逐条写入: {}", e.getMessage(), e);
+            for (EmailSendQueue queue : pending) {
+                try {
+                    emailSendQueueMapper.insert(queue);
+                } catch (Exception ex) {
+                    log.error("❌ 写入邮件队列失败: userId={}, todoId={}", queue.getUserId(), queue.getTodoId(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * 合并同一批次中同一任务的事件：
+     * 分配事件只保留最后一次分配；状态变更合并为 最早的原状态 → 最新的新状态，状态最终未变化时丢弃
+     */
+    static Collection<TodoNotificationEvent> coalesce(List<TodoNotificationEvent> batch) {
+        Map<String, TodoNotificationEvent> merged = new LinkedHashMap<>();
+        for (TodoNotificationEvent event : batch) {
+            String key = event.isBulk() ? "B:" + event.getAssigneeId() + ":" + event.getTodo().getId()
+                    : (event.isAssignment() ? "A:" : "S:") + event.getTodo().getId();
+            TodoNotificationEvent previous = merged.get(key);
+            if (previous == null || event.isAssignment()) {
+                merged.put(key, event);
+            } else {
+                merged.put(key, TodoNotificationEvent.statusChange(event.getTodo(), previous.getOldStatus(),
+                        event.getNewStatus()));
+            }
+        }
+        merged.values().removeIf(event -> !event.isAssignment()
+                && Objects.equals(event.getOldStatus(), event.getNewStatus()));
+        return merged.values();
+    }
+
+    /**
+     * 停止接收新事件，等待处理线程处理完剩余事件
+     */
+    @PreDestroy
+    public void stop() {
+        synchronized (lifecycleLock) {
+            running = false;
+        }
+        try {
+            if (!workerStopped.await(30, TimeUnit.SECONDS)) {
+                log.warn("任务通知处理线程未在30秒内结束");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int remaining = flush();
+        log.info("任务通知事件总线已停止{}", remaining > 0 ? "，关闭时处理剩余事件 " + remaining + " 个" : "");
+    }
+
+    /**
+     * 任务通知事件
+     */
+    static final class TodoNotificationEvent {
+
+        private final Todo todo;
+        private final List<Todo> todos;
+        private final boolean assignment;
+        private final Long assigneeId;
+        private final User operator;
+        private final String oldStatus;
+        private final String newStatus;
+
+        private TodoNotificationEvent(Todo todo, List<Todo> todos, boolean assignment, Long assigneeId,
+                User operator, String oldStatus, String newStatus) {
+            this.todo = todo;
+            this.todos = todos;
+            this.assignment = assignment;
+            this.assigneeId = assigneeId;
+            this.operator = operator;
+            this.oldStatus = oldStatus;
+            this.newStatus = newStatus;
+        }
+
+        static TodoNotificationEvent assignment(Todo todo, Long assigneeId, User operator) {
+            return new TodoNotificationEvent(todo, null, true, assigneeId, operator, null, null);
+        }
+
+        /**
+         * 同一负责人的多个任务的分配事件
+         */
+        static TodoNotificationEvent bulkAssignment(List<Todo> todos, Long assigneeId, User operator) {
+            return new TodoNotificationEvent(todos.get(0), todos, true, assigneeId, operator, null, null);
+        }
+
+        static TodoNotificationEvent statusChange(Todo todo, String oldStatus, String newStatus) {
+            return new TodoNotificationEvent(todo, null, false, null, null, oldStatus, newStatus);
+        }
+
+        Todo getTodo() {
+            return todo;
+        }
+
+        List<Todo> getTodos() {
+            return todos;
+        }
+
+        boolean isBulk() {
+            return todos != null;
+        }
+
+        boolean isAssignment() {
+            return assignment;
+        }
+
+        Long getAssigneeId() {
+            return assigneeId;
+        }
+
+        User getOperator() {
+            return operator;
+        }
+
+        String getOldStatus() {
+            return oldStatus;
+        }
+
+        String getNewStatus() {
+            return newStatus;
+        }
+    }
+}
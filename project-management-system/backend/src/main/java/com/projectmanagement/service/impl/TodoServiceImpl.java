@@ -1,32 +1,55 @@
 package com.projectmanagement.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.projectmanagement.dto.TodoDTO;
+import com.projectmanagement.dto.TodoImportResult;
+import com.projectmanagement.dto.TodoListQuery;
+import com.projectmanagement.dto.TodoPage;
 import com.projectmanagement.entity.Todo;
+import com.projectmanagement.entity.TodoDependency;
+import com.projectmanagement.enums.TodoListView;
+import com.projectmanagement.exception.BusinessException;
+import com.projectmanagement.exception.ResourceNotFoundException;
+import com.projectmanagement.exception.ValidationException;
+import com.projectmanagement.mapper.ProjectMapper;
+import com.projectmanagement.mapper.TodoDependencyMapper;
 import com.projectmanagement.mapper.TodoMapper;
+import com.projectmanagement.mapper.UserMapper;
 import com.projectmanagement.service.EmailTemplateService;
 import com.projectmanagement.service.TodoService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * 待办任务服务实现类
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class TodoServiceImpl extends ServiceImpl<TodoMapper, Todo> implements TodoService {
@@ -34,10 +57,52 @@ public class TodoServiceImpl extends ServiceImpl<TodoMapper, Todo> implements To
     private final TodoMapper todoMapper;
     private final JavaMailSender mailSender;
     private final EmailTemplateService emailTemplateService;
+    private final GanttModelCache ganttModelCache;
+    private final ProjectListCache projectListCache;
+    private final ProjectMembershipIndex projectMembershipIndex;
+    private final TodoDependencyMapper todoDependencyMapper;
+    private final CriticalPathCache criticalPathCache;
+
+    private final ProjectMapper projectMapper;
+    private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
 
     @Value("${spring.mail.username:}")
     private String mailFromAddress;
 
+    /**
+     * 批量导入单次最多条数
+     */
+    @Value("${app.todo.import.max-rows:10000}")
+    private int importMaxRows;
+
+    /**
+     * 批量导入每条INSERT语句的行数和JDBC批量更新的批大小
+     */
+    @Value("${app.todo.import.batch-size:500}")
+    private int importBatchSize;
+
+    /**
+     * 任务列表分页默认每页条数
+     */
+    @Value("${app.todo.page.default-size:50}")
+    private int pageDefaultSize;
+
+    /**
+     * 任务列表分页每页最多条数
+     */
+    @Value("${app.todo.page.max-size:200}")
+    private int pageMaxSize;
+
+    /**
+     * 按主键查询存在性时每次查询的ID数
+     */
+    private static final int ID_QUERY_SIZE = 1000;
+
+    private static final Set<String> PRIORITIES = new HashSet<>(Arrays.asList("LOW", "MEDIUM", "HIGH"));
+
+    private static final Set<String> STATUSES = new HashSet<>(Arrays.asList("TODO", "PROGRESS", "DONE", "COMPLETED"));
+
     @Override
     public List<Todo> getTodoList() {
         return todoMapper.selectTodosWithDetails();
@@ -85,6 +150,34 @@ public class TodoServiceImpl extends ServiceImpl<TodoMapper, Todo> implements To
         return todoMapper.selectUserRelatedTodos(userId);
     }
 
+    @Override
+    public TodoPage getTodoPage(TodoListView view, Long userId, String cursor, Integer limit) {
+        if (view == TodoListView.RELATED && userId == null) {
+            throw new ValidationException("相关任务列表必须指定用户");
+        }
+        int size = limit == null || limit <= 0 ? pageDefaultSize : Math.min(limit, pageMaxSize);
+        TodoListQuery query = TodoListQuery.of(view, userId, LocalDate.now()).page(cursor, size);
+        List<Todo> todos = todoMapper.selectTodoPage(query);
+
+        TodoPage page = new TodoPage();
+        page.setLimit(size);
+        page.setHasMore(todos.size() > size);
+        if (page.isHasMore()) {
+            todos = new ArrayList<>(todos.subList(0, size));
+            page.setNextCursor(query.cursorAfter(todos.get(size - 1)));
+        }
+        page.setItems(todos);
+        return page;
+    }
+
+    @Override
+    public long countTodos(TodoListView view, Long userId) {
+        if (view == TodoListView.RELATED && userId == null) {
+            throw new ValidationException("相关任务列表必须指定用户");
+        }
+        return todoMapper.countTodoList(TodoListQuery.of(view, userId, LocalDate.now()));
+    }
+
     @Override
     public Todo getTodoDetail(Long todoId) {
         return todoMapper.selectById(todoId);
@@ -93,56 +186,157 @@ public class TodoServiceImpl extends ServiceImpl<TodoMapper, Todo> implements To
     @Override
     @Transactional
     public Todo createTodo(TodoDTO todoDTO) {
-        // 验证项目是否存在
-        if (todoDTO.getProjectId() != null) {
-            // 这里可以添加项目验证逻辑
-            // 暂时跳过验证，先记录日志
-            System.out.println("创建待办任务，项目ID: " + todoDTO.getProjectId());
+        log.debug("创建待办任务: projectId={}, assigneeId={}, title={}", todoDTO.getProjectId(),
+                todoDTO.getAssigneeId(), todoDTO.getTitle());
+
+        Todo todo = toTodo(todoDTO, "MEDIUM", "TODO");
+
+        try {
+            todoMapper.insert(todo);
+        } catch (Exception e) {
+            log.error("❌ 创建待办任务失败: {}", e.getMessage(), e);
+            throw new RuntimeException("创建任务失败: " + e.getMessage());
         }
+        afterTodosWritten(Collections.singletonList(todo), Collections.singleton(todo.getProjectId()),
+                Collections.singleton(todo.getAssigneeId()));
+        log.debug("✅ 待办任务创建成功，任务ID: {}", todo.getId());
+        // 插入时已回填ID和创建、更新时间，不再重新查询
+        return todo;
+    }
+
+    @Override
+    @Transactional
+    public TodoImportResult importTodos(InputStream in, String format, Long creatorId) throws IOException {
+        List<TodoDTO> todoDTOs = new TodoImportReader(objectMapper, importMaxRows).read(in, format);
+        return importTodos(todoDTOs, creatorId);
+    }
 
-        // 验证负责人是否存在
-        if (todoDTO.getAssigneeId() != null) {
-            // 这里可以添加用户验证逻辑
-            // 暂时跳过验证，先记录日志
-            System.out.println("创建待办任务，负责人ID: " + todoDTO.getAssigneeId());
+    @Override
+    @Transactional
+    public TodoImportResult importTodos(List<TodoDTO> todoDTOs, Long creatorId) {
+        TodoImportResult result = new TodoImportResult();
+        result.setTotal(todoDTOs.size());
+        if (todoDTOs.isEmpty()) {
+            return result;
+        }
+        if (todoDTOs.size() > importMaxRows) {
+            throw new ValidationException("单次最多导入 " + importMaxRows + " 条任务");
         }
 
-        System.out.println("创建待办任务DTO: " + todoDTO);
+        // 引用的项目、负责人和待更新的任务各查询一次
+        Set<Long> projectIds = new HashSet<>();
+        Set<Long> assigneeIds = new HashSet<>();
+        Set<Long> todoIds = new HashSet<>();
+        for (TodoDTO dto : todoDTOs) {
+            if (dto.getProjectId() != null) {
+                projectIds.add(dto.getProjectId());
+            }
+            if (dto.getAssigneeId() != null) {
+                assigneeIds.add(dto.getAssigneeId());
+            }
+            if (dto.getId() != null) {
+                todoIds.add(dto.getId());
+            }
+        }
+        Set<Long> existingProjects = existingIds(projectMapper, projectIds);
+        Set<Long> existingUsers = existingIds(userMapper, assigneeIds);
+        Map<Long, Todo> existingTodos = new HashMap<>();
+        forEachChunk(new ArrayList<>(todoIds), ID_QUERY_SIZE, chunk -> todoMapper.selectBatchIds(chunk)
+                .forEach(todo -> existingTodos.put(todo.getId(), todo)));
+
+        // 一次遍历校验全部数据，收集所有错误
+        Map<Long, Integer> seenIds = new HashMap<>();
+        for (int i = 0; i < todoDTOs.size(); i++) {
+            String error = validateImportRow(todoDTOs.get(i), i + 1, existingProjects, existingUsers, existingTodos,
+                    seenIds);
+            if (error != null) {
+                result.addError(i + 1, error);
+            }
+        }
+        if (result.hasErrors()) {
+            log.warn("⚠️ 批量导入任务校验失败，共 {} 条，错误 {} 条", todoDTOs.size(), result.getErrors().size());
+            return result;
+        }
 
-        Todo todo = new Todo();
-        todo.setTitle(todoDTO.getTitle());
-        todo.setDescription(todoDTO.getDescription());
-        todo.setProjectId(todoDTO.getProjectId());
-        todo.setAssigneeId(todoDTO.getAssigneeId());
-        todo.setPriority(todoDTO.getPriority() != null ? todoDTO.getPriority() : "MEDIUM");
-        todo.setStatus(todoDTO.getStatus() != null ? todoDTO.getStatus() : "TODO");
-        todo.setDueDate(todoDTO.getDueDate());
-        todo.setEmailEnabled(todoDTO.getEmailEnabled() != null ? todoDTO.getEmailEnabled() : true);
-        todo.setCreatorId(todoDTO.getCreatorId());
+        LocalDateTime now = LocalDateTime.now();
+        List<Todo> created = new ArrayList<>();
+        List<Todo> updated = new ArrayList<>();
+        Set<Long> affectedProjects = new LinkedHashSet<>();
+        Set<Long> affectedUsers = new LinkedHashSet<>();
+        for (TodoDTO dto : todoDTOs) {
+            if (dto.getId() == null) {
+                Todo todo = toTodo(dto, "MEDIUM", "TODO");
+                if (todo.getCreatorId() == null) {
+                    todo.setCreatorId(creatorId);
+                }
+                todo.setCreateTime(now);
+                todo.setUpdateTime(now);
+                created.add(todo);
+                if (todo.getAssigneeId() != null) {
+                    result.getAssignedTodos().add(todo);
+                }
+                continue;
+            }
+            Todo todo = existingTodos.get(dto.getId());
+            affectedProjects.add(todo.getProjectId());
+            affectedUsers.add(todo.getAssigneeId());
+            boolean reassigned = !Objects.equals(todo.getAssigneeId(), dto.getAssigneeId());
+            boolean completed = "DONE".equals(dto.getStatus()) && !"DONE".equals(todo.getStatus());
+            todo.setTitle(dto.getTitle());
+            todo.setDescription(dto.getDescription());
+            todo.setProjectId(dto.getProjectId());
+            todo.setAssigneeId(dto.getAssigneeId());
+            if (dto.getPriority() != null) {
+                todo.setPriority(dto.getPriority());
+            }
+            if (dto.getStatus() != null) {
+                todo.setStatus(dto.getStatus());
+            }
+            todo.setDueDate(dto.getDueDate());
+            if (dto.getEmailEnabled() != null) {
+                todo.setEmailEnabled(dto.getEmailEnabled());
+            }
+            if (completed) {
+                todo.setCompletedTime(now);
+            }
+            updated.add(todo);
+            if (reassigned && todo.getAssigneeId() != null) {
+                result.getAssignedTodos().add(todo);
+            }
+        }
 
-        System.out.println("创建待办任务实体: " + todo);
+        // 新增按多行INSERT分批写入，修改使用JDBC批量更新
+        forEachChunk(created, importBatchSize, todoMapper::insertBatch);
+        if (!updated.isEmpty()) {
+            updateBatchById(updated, importBatchSize);
+        }
 
-        try {
-            todoMapper.insert(todo);
-            System.out.println("插入成功，任务ID: " + todo.getId());
-            return todoMapper.selectById(todo.getId());
-        } catch (Exception e) {
-            System.err.println("插入失败: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("创建任务失败: " + e.getMessage());
+        List<Todo> written = new ArrayList<>(created.size() + updated.size());
+        written.addAll(created);
+        written.addAll(updated);
+        for (Todo todo : written) {
+            affectedProjects.add(todo.getProjectId());
+            affectedUsers.add(todo.getAssigneeId());
         }
+        afterTodosWritten(written, affectedProjects, affectedUsers);
+
+        result.setCreated(created.size());
+        result.setUpdated(updated.size());
+        log.info("✅ 批量导入任务完成，新增 {} 条，更新 {} 条", created.size(), updated.size());
+        return result;
     }
 
     @Override
     @Transactional
     public Todo updateTodo(Long todoId, TodoDTO todoDTO) {
-        System.out.println("更新任务ID: " + todoId);
-        System.out.println("收到的TodoDTO: " + todoDTO);
+        log.debug("更新待办任务: todoId={}, dto={}", todoId, todoDTO);
 
         Todo todo = todoMapper.selectById(todoId);
         if (todo == null) {
             throw new RuntimeException("待办任务不存在");
         }
+        Long previousAssigneeId = todo.getAssigneeId();
+        Long previousProjectId = todo.getProjectId();
 
         // 验证必填字段
         if (todoDTO.getTitle() == null || todoDTO.getTitle().trim().isEmpty()) {
@@ -161,8 +355,6 @@ public class TodoServiceImpl extends ServiceImpl<TodoMapper, Todo> implements To
             throw new RuntimeException("请选择任务状态");
         }
 
-        System.out.println("更新前的任务: " + todo);
-
         todo.setTitle(todoDTO.getTitle());
         todo.setDescription(todoDTO.getDescription());
         todo.setProjectId(todoDTO.getProjectId());
@@ -176,15 +368,25 @@ public class TodoServiceImpl extends ServiceImpl<TodoMapper, Todo> implements To
             todo.setCompletedTime(LocalDateTime.now());
         }
 
-        System.out.println("更新后的任务: " + todo);
-
         try {
             todoMapper.updateById(todo);
-            System.out.println("更新成功");
+            boolean membershipChanged = !Objects.equals(previousAssigneeId, todo.getAssigneeId())
+                    || !Objects.equals(previousProjectId, todo.getProjectId());
+            if (membershipChanged) {
+                projectMembershipIndex.projectChanged(previousProjectId);
+                if (!Objects.equals(previousProjectId, todo.getProjectId())) {
+                    projectMembershipIndex.projectChanged(todo.getProjectId());
+                }
+            }
+            ganttModelCache.todoChanged(todoId);
+            criticalPathCache.todoChanged(todoId,
+                    Objects.equals(previousProjectId, todo.getProjectId()) ? null : previousProjectId);
+            if (membershipChanged) {
+                projectListCache.membershipChanged(Arrays.asList(previousAssigneeId, todo.getAssigneeId()));
+            }
             return todoMapper.selectById(todoId);
         } catch (Exception e) {
-            System.err.println("更新失败: " + e.getMessage());
-            e.printStackTrace();
+            log.error("❌ 更新待办任务失败: todoId={}, error={}", todoId, e.getMessage(), e);
             throw new RuntimeException("更新任务失败: " + e.getMessage());
         }
     }
@@ -192,6 +394,15 @@ public class TodoServiceImpl extends ServiceImpl<TodoMapper, Todo> implements To
     @Override
     @Transactional
     public boolean deleteTodo(Long todoId) {
+        Todo todo = todoMapper.selectById(todoId);
+        if (todo != null) {
+            projectMembershipIndex.projectChanged(todo.getProjectId());
+            projectListCache.membershipChanged(Collections.singletonList(todo.getAssigneeId()));
+            criticalPathCache.projectChanged(todo.getProjectId());
+        }
+        ganttModelCache.todoDeleted(todoId);
+        todoDependencyMapper.delete(new QueryWrapper<TodoDependency>()
+                .eq("predecessor_id", todoId).or().eq("successor_id", todoId));
         return todoMapper.deleteById(todoId) > 0;
     }
 
@@ -204,6 +415,7 @@ public class TodoServiceImpl extends ServiceImpl<TodoMapper, Todo> implements To
             if ("DONE".equals(status)) {
                 todo.setCompletedTime(LocalDateTime.now());
             }
+            ganttModelCache.todoChanged(todoId);
             return todoMapper.updateById(todo) > 0;
         }
         return false;
@@ -221,7 +433,7 @@ public class TodoServiceImpl extends ServiceImpl<TodoMapper, Todo> implements To
 
             // 如果没有启用邮件通知的任务，直接返回成功
             if (todos.isEmpty()) {
-                System.out.println("📧 用户 " + email + " 没有启用邮件通知的任务，跳过发送");
+                log.info("📧 用户 {} 没有启用邮件通知的任务，跳过发送", email);
                 return true;
             }
 
@@ -286,11 +498,11 @@ public class TodoServiceImpl extends ServiceImpl<TodoMapper, Todo> implements To
             try {
                 boolean templateSuccess = emailTemplateService.sendTemplateEmail("TODO_REMINDER", email, variables);
                 if (templateSuccess) {
-                    System.out.println("📧 使用邮件模板发送成功: TODO_REMINDER -> " + email);
+                    log.info("📧 使用邮件模板发送成功: TODO_REMINDER -> {}", email);
                     return true;
                 }
             } catch (Exception templateError) {
-                System.out.println("⚠️  邮件模板发送失败，回退到简单邮件: " + templateError.getMessage());
+                log.warn("⚠️ 邮件模板发送失败，回退到简单邮件: {}", templateError.getMessage());
             }
 
             // 回退方案：使用简单邮件发送
@@ -316,12 +528,11 @@ public class TodoServiceImpl extends ServiceImpl<TodoMapper, Todo> implements To
             message.setText(content.toString());
 
             mailSender.send(message);
-            System.out.println("📧 简单邮件发送成功: " + email);
+            log.info("📧 简单邮件发送成功: {}", email);
             return true;
 
         } catch (Exception e) {
-            System.err.println("邮件发送失败: " + e.getMessage());
-            e.printStackTrace();
+            log.error("❌ 邮件发送失败: {}", e.getMessage(), e);
             return false;
         }
     }
@@ -351,6 +562,24 @@ public class TodoServiceImpl extends ServiceImpl<TodoMapper, Todo> implements To
         return todoMapper.selectList(queryWrapper);
     }
 
+    @Override
+    public List<Todo> getCompletedTodosByProject(Long projectId, LocalDate startDate, LocalDate endDate) {
+        QueryWrapper<Todo> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("project_id", projectId)
+                .eq("status", "COMPLETED");
+        // 任务条从创建日期到截止日期（未设置时为创建后7天），按 (project_id, create_time)、(project_id, due_date) 索引过滤
+        if (endDate != null) {
+            queryWrapper.lt("create_time", endDate.plusDays(1).atStartOfDay());
+        }
+        if (startDate != null) {
+            queryWrapper.and(wrapper -> wrapper.ge("due_date", startDate)
+                    .or(inner -> inner.isNull("due_date").ge("create_time", startDate.minusDays(7).atStartOfDay())));
+        }
+        queryWrapper.orderByDesc("update_time");
+
+        return todoMapper.selectList(queryWrapper);
+    }
+
     @Override
     public List<Todo> getTodosByProject(Long projectId) {
         QueryWrapper<Todo> queryWrapper = new QueryWrapper<>();
@@ -395,4 +624,153 @@ public class TodoServiceImpl extends ServiceImpl<TodoMapper, Todo> implements To
                 return priority;
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<TodoDependency> getDependencies(Long todoId) {
+        return todoDependencyMapper.selectList(new QueryWrapper<TodoDependency>()
+                .eq("successor_id", todoId)
+                .orderByAsc("predecessor_id"));
+    }
+
+    @Override
+    @Transactional
+    public TodoDependency addDependency(Long todoId, Long predecessorId) {
+        if (todoId.equals(predecessorId)) {
+            throw new BusinessException(400, "任务不能依赖自身");
+        }
+        Todo todo = todoMapper.selectById(todoId);
+        if (todo == null) {
+            throw new ResourceNotFoundException("任务", todoId);
+        }
+        Todo predecessor = todoMapper.selectById(predecessorId);
+        if (predecessor == null) {
+            throw new ResourceNotFoundException("前置任务", predecessorId);
+        }
+        if (todo.getProjectId() == null || !todo.getProjectId().equals(predecessor.getProjectId())) {
+            throw new BusinessException(400, "只能依赖同一项目下的任务");
+        }
+
+        List<TodoDependency> dependencies = todoDependencyMapper.selectList(
+                new QueryWrapper<TodoDependency>().eq("project_id", todo.getProjectId()));
+        for (TodoDependency dependency : dependencies) {
+            if (dependency.getPredecessorId().equals(predecessorId) && dependency.getSuccessorId().equals(todoId)) {
+                return dependency;
+            }
+        }
+        if (CriticalPathEngine.createsCycle(dependencies, predecessorId, todoId)) {
+            throw new BusinessException(400, "添加该依赖会形成循环依赖");
+        }
+
+        TodoDependency dependency = new TodoDependency();
+        dependency.setProjectId(todo.getProjectId());
+        dependency.setPredecessorId(predecessorId);
+        dependency.setSuccessorId(todoId);
+        dependency.setCreateTime(LocalDateTime.now());
+        todoDependencyMapper.insert(dependency);
+        criticalPathCache.projectChanged(todo.getProjectId());
+        return dependency;
+    }
+
+    @Override
+    @Transactional
+    public boolean removeDependency(Long todoId, Long predecessorId) {
+        TodoDependency dependency = todoDependencyMapper.selectOne(new QueryWrapper<TodoDependency>()
+                .eq("predecessor_id", predecessorId)
+                .eq("successor_id", todoId));
+        if (dependency == null) {
+            return false;
+        }
+        todoDependencyMapper.deleteById(dependency.getId());
+        criticalPathCache.projectChanged(dependency.getProjectId());
+        return true;
+    }
+
+    /**
+     * 由DTO构建新任务，优先级和状态为空时使用默认值
+     */
+    private Todo toTodo(TodoDTO todoDTO, String defaultPriority, String defaultStatus) {
+        Todo todo = new Todo();
+        todo.setTitle(todoDTO.getTitle());
+        todo.setDescription(todoDTO.getDescription());
+        todo.setProjectId(todoDTO.getProjectId());
+        todo.setAssigneeId(todoDTO.getAssigneeId());
+        todo.setPriority(todoDTO.getPriority() != null ? todoDTO.getPriority() : defaultPriority);
+        todo.setStatus(todoDTO.getStatus() != null ? todoDTO.getStatus() : defaultStatus);
+        todo.setDueDate(todoDTO.getDueDate());
+        todo.setEmailEnabled(todoDTO.getEmailEnabled() != null ? todoDTO.getEmailEnabled() : true);
+        todo.setCreatorId(todoDTO.getCreatorId());
+        return todo;
+    }
+
+    /**
+     * 任务写入后修正关系索引、甘特图和关键路径缓存、项目列表缓存，均在事务提交后执行
+     */
+    private void afterTodosWritten(List<Todo> todos, Collection<Long> projectIds, Collection<Long> userIds) {
+        for (Long projectId : projectIds) {
+            projectMembershipIndex.projectChanged(projectId);
+            criticalPathCache.projectChanged(projectId);
+        }
+        ganttModelCache.todosChanged(todos.stream().map(Todo::getId).collect(Collectors.toList()));
+        projectListCache.membershipChanged(userIds);
+    }
+
+    /**
+     * 校验一条导入数据，返回该行全部错误，没有错误时返回null
+     *
+     * @param seenIds 已出现的任务ID到行号，用于发现重复修改同一任务
+     */
+    private String validateImportRow(TodoDTO dto, int row, Set<Long> existingProjects, Set<Long> existingUsers,
+            Map<Long, Todo> existingTodos, Map<Long, Integer> seenIds) {
+        List<String> errors = new ArrayList<>();
+        if (dto.getTitle() == null || dto.getTitle().trim().isEmpty()) {
+            errors.add("任务标题不能为空");
+        } else if (dto.getTitle().length() > 200) {
+            errors.add("任务标题不能超过200个字符");
+        }
+        if (dto.getProjectId() == null) {
+            errors.add("请选择所属项目");
+        } else if (!existingProjects.contains(dto.getProjectId())) {
+            errors.add("项目不存在: " + dto.getProjectId());
+        }
+        if (dto.getAssigneeId() == null) {
+            errors.add("请选择负责人");
+        } else if (!existingUsers.contains(dto.getAssigneeId())) {
+            errors.add("负责人不存在: " + dto.getAssigneeId());
+        }
+        if (dto.getPriority() != null && !PRIORITIES.contains(dto.getPriority())) {
+            errors.add("优先级无效: " + dto.getPriority());
+        }
+        if (dto.getStatus() != null && !STATUSES.contains(dto.getStatus())) {
+            errors.add("任务状态无效: " + dto.getStatus());
+        }
+        if (dto.getId() != null) {
+            Integer previousRow = seenIds.putIfAbsent(dto.getId(), row);
+            if (!existingTodos.containsKey(dto.getId())) {
+                errors.add("任务不存在: " + dto.getId());
+            } else if (previousRow != null) {
+                errors.add("与第 " + previousRow + " 条修改同一任务");
+            }
+        }
+        return errors.isEmpty() ? null : String.join("；", errors);
+    }
+
+    /**
+     * 查询实际存在的主键
+     */
+    private <T> Set<Long> existingIds(BaseMapper<T> mapper, Collection<Long> ids) {
+        Set<Long> existing = new HashSet<>();
+        forEachChunk(new ArrayList<>(ids), ID_QUERY_SIZE, chunk -> {
+            for (Object id : mapper.selectObjs(new QueryWrapper<T>().select("id").in("id", chunk))) {
+                existing.add(((Number) id).longValue());
+            }
+        });
+        return existing;
+    }
+
+    private static <E> void forEachChunk(List<E> items, int chunkSize, Consumer<List<E>> action) {
+        int size = Math.max(1, chunkSize);
+        for (int from = 0; from < items.size(); from += size) {
+            action.accept(items.subList(from, Math.min(items.size(), from + size)));
+        }
+    }
+}
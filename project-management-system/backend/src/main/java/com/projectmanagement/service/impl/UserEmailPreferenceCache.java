@@ -0,0 +1,137 @@
+package com.projectmanagement.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.projectmanagement.entity.UserEmailPreference;
+import com.projectmanagement.mapper.UserEmailPreferenceMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户邮件偏好设置缓存
+ * 发送链路按用户读取偏好设置不再每次查询数据库；缓存项在有效期后重新加载，
+ * 偏好设置修改后由修改方调用 {@link #invalidate(Long)} 立即失效
+ */
+@Slf4j
+@Component
+public class UserEmailPreferenceCache {
+
+    /**
+     * 单条 IN 查询的最大用户数
+     */
+    private static final int MAX_IN_SIZE = 1000;
+
+    private final UserEmailPreferenceMapper userEmailPreferenceMapper;
+    private final long ttlNanos;
+
+    private final Map<Long, CachedPreference> cache = new ConcurrentHashMap<>();
+
+    public UserEmailPreferenceCache(UserEmailPreferenceMapper userEmailPreferenceMapper,
+            @Value("${app.email.budget.preference-ttl-seconds:300}") long ttlSeconds) {
+        this.userEmailPreferenceMapper = userEmailPreferenceMapper;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(0, ttlSeconds));
+    }
+
+    /**
+     * 获取用户的偏好设置，用户没有偏好设置时返回null
+     */
+    public UserEmailPreference get(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        CachedPreference cached = cache.get(userId);
+        if (cached != null && !cached.isExpired(ttlNanos)) {
+            return cached.preference;
+        }
+        QueryWrapper<UserEmailPreference> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("user_id", userId);
+        UserEmailPreference preference = userEmailPreferenceMapper.selectOne(queryWrapper);
+        cache.put(userId, new CachedPreference(preference));
+        return preference;
+    }
+
+    /**
+     * 批量获取用户的偏好设置，未缓存或已过期的用户用一次批量查询加载
+     *
+     * @return 用户ID到偏好设置的映射，没有偏好设置的用户不在结果中
+     */
+    public Map<Long, UserEmailPreference> getAll(Collection<Long> userIds) {
+        Map<Long, UserEmailPreference> result = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long userId : userIds) {
+            if (userId == null) {
+                continue;
+            }
+            CachedPreference cached = cache.get(userId);
+            if (cached != null && !cached.isExpired(ttlNanos)) {
+                if (cached.preference != null) {
+                    result.put(userId, cached.preference);
+                }
+            } else {
+                missing.add(userId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        List<Long> ids = new ArrayList<>(missing);
+        for (int i = 0; i < ids.size(); i += MAX_IN_SIZE) {
+            QueryWrapper<UserEmailPreference> queryWrapper = new QueryWrapper<>();
+            queryWrapper.in("user_id", ids.subList(i, Math.min(i + MAX_IN_SIZE, ids.size())));
+            for (UserEmailPreference preference : userEmailPreferenceMapper.selectList(queryWrapper)) {
+                if (missing.remove(preference.getUserId())) {
+                    cache.put(preference.getUserId(), new CachedPreference(preference));
+                    result.put(preference.getUserId(), preference);
+                }
+            }
+        }
+        // 没有偏好设置的用户同样缓存，避免重复查询
+        missing.forEach(userId -> cache.put(userId, new CachedPreference(null)));
+        return result;
+    }
+
+    /**
+     * 使用户的缓存项失效，事务中调用时在提交后再失效一次，避免并发读取把旧数据重新放回缓存
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        cache.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.remove(userId);
+                }
+            });
+        }
+    }
+
+    private static final class CachedPreference {
+
+        private final UserEmailPreference preference;
+        private final long loadedAt = System.nanoTime();
+
+        CachedPreference(UserEmailPreference preference) {
+            this.preference = preference;
+        }
+
+        boolean isExpired(long ttlNanos) {
+            return System.nanoTime() - loadedAt > ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package com.projectmanagement.service.impl;
+
+import com.projectmanagement.entity.Project;
+import com.projectmanagement.entity.Todo;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 项目工作计划内容生成
+ * 根据项目的待办任务和里程碑生成本周期工作内容和下周期计划，不访问数据库，可在多个线程中并行调用
+ */
+final class WorkPlanGenerator {
+
+    private final MilestoneCache milestoneCache;
+
+    WorkPlanGenerator(MilestoneCache milestoneCache) {
+        this.milestoneCache = milestoneCache;
+    }
+
+    /**
+     * 生成项目的工作计划
+     *
+     * @param todos 项目的待办任务
+     * @return 只包含ID、本周期工作内容和下周期计划的项目对象，用于批量更新
+     */
+    Project generate(Project project, List<Todo> todos, LocalDate today, int days) {
+        // 计算指定天数的日期范围
+        LocalDate startOfThisPeriod = today.minusDays(days - 1);
+        LocalDate endOfThisPeriod = today;
+        LocalDate startOfNextPeriod = today.plusDays(1);
+        LocalDate endOfNextPeriod = today.plusDays(days);
+
+        // 生成当前周期工作内容
+        String thisWeekWork = generatePeriodWork(todos, startOfThisPeriod, endOfThisPeriod, days);
+        String milestoneThisWeekWork = generateMilestoneBasedPeriodWork(project, startOfThisPeriod, endOfThisPeriod, days);
+
+        // 合并任务和项目整体状态
+        thisWeekWork = combineWorkContent(thisWeekWork, milestoneThisWeekWork);
+
+        // 生成下个周期计划内容
+        String nextWeekPlan = generatePeriodPlan(todos, startOfNextPeriod, endOfNextPeriod, days);
+        String milestoneNextWeekPlan = generateMilestoneBasedPeriodPlan(project, startOfNextPeriod, endOfNextPeriod, days);
+
+        // 合并任务和项目整体计划
+        nextWeekPlan = combineWorkContent(nextWeekPlan, milestoneNextWeekPlan);
+
+        Project update = new Project();
+        update.setId(project.getId());
+        update.setThisWeekWork(thisWeekWork);
+        update.setNextWeekPlan(nextWeekPlan);
+        return update;
+    }
+
+    /**
+     * 生成指定周期工作内容
+     */
+    private String generatePeriodWork(List<Todo> todos, LocalDate startDate, LocalDate endDate, Integer days) {
+        StringBuilder content = new StringBuilder();
+        String periodDesc = days == 7 ? "本周" : "近" + days + "天";
+
+        // 指定周期内已完成的任务
+        List<Todo> completedTodos = todos.stream()
+                .filter(todo -> "DONE".equals(todo.getStatus()) &&
+                        todo.getCompletedTime() != null &&
+                        !todo.getCompletedTime().toLocalDate().isBefore(startDate) &&
+                        !todo.getCompletedTime().toLocalDate().isAfter(endDate))
+                .collect(Collectors.toList());
+
+        // 进行中的任务
+        List<Todo> inProgressTodos = todos.stream()
+                .filter(todo -> "PROGRESS".equals(todo.getStatus()))
+                .collect(Collectors.toList());
+
+        if (!completedTodos.isEmpty()) {
+            content.append("已完成任务：\n");
+            for (Todo todo : completedTodos) {
+                content.append("- ").append(todo.getTitle());
+                if (todo.getCompletedTime() != null) {
+                    content.append("（完成时间：").append(todo.getCompletedTime().toLocalDate()).append("）");
+                }
+                content.append("\n");
+            }
+        }
+
+        if (!inProgressTodos.isEmpty()) {
+            if (content.length() > 0)
+                content.append("\n");
+            content.append("进行中任务：\n");
+            for (Todo todo : inProgressTodos) {
+                content.append("- ").append(todo.getTitle());
+                content.append("\n");
+            }
+        }
+
+        return content.length() > 0 ? content.toString().trim() : null;
+    }
+
+    /**
+     * 生成指定周期计划内容
+     */
+    private String generatePeriodPlan(List<Todo> todos, LocalDate startDate, LocalDate endDate, Integer days) {
+        StringBuilder content = new StringBuilder();
+        String periodDesc = days == 7 ? "下周" : "未来" + days + "天";
+
+        // 计划任务（未完成的任务）
+        List<Todo> plannedTodos = todos.stream()
+                .filter(todo -> !"DONE".equals(todo.getStatus()))
+                .collect(Collectors.toList());
+
+        // 指定周期内截止的任务
+        List<Todo> periodDueTodos = plannedTodos.stream()
+                .filter(todo -> todo.getDueDate() != null &&
+                        !todo.getDueDate().isBefore(startDate) &&
+                        !todo.getDueDate().isAfter(endDate))
+                .collect(Collectors.toList());
+
+        if (!periodDueTodos.isEmpty()) {
+            content.append(periodDesc).append("截止任务：\n");
+            for (Todo todo : periodDueTodos) {
+                content.append("- ").append(todo.getTitle());
+                content.append("（截止：").append(todo.getDueDate()).append("）");
+                content.append("\n");
+            }
+        }
+
+        // 其他待办任务
+        List<Todo> otherTodos = plannedTodos.stream()
+                .filter(todo -> todo.getDueDate() == null ||
+                        todo.getDueDate().isBefore(startDate) ||
+                        todo.getDueDate().isAfter(endDate))
+                .limit(5) // 限制显示数量
+                .collect(Collectors.toList());
+
+        if (!otherTodos.isEmpty()) {
+            if (content.length() > 0)
+                content.append("\n");
+            content.append(periodDesc).append("计划：\n");
+            for (Todo todo : otherTodos) {
+                content.append("- ").append(todo.getTitle());
+                if (todo.getDueDate() != null) {
+                    content.append("（截止：").append(todo.getDueDate()).append("）");
+                }
+                content.append("\n");
+            }
+        }
+
+        return content.length() > 0 ? content.toString().trim() : null;
+    }
+
+    /**
+     * 基于里程碑生成指定周期工作内容
+     */
+    private String generateMilestoneBasedPeriodWork(Project project, LocalDate startDate, LocalDate endDate, Integer days) {
+        try {
+            if (project.getMilestones() == null || project.getMilestones().trim().isEmpty()) {
+                return "项目正常推进中，按计划执行各项工作";
+            }
+
+            List<Milestone> milestones = milestoneCache.get(project);
+
+            StringBuilder content = new StringBuilder();
+            LocalDate today = LocalDate.now();
+            String periodDesc = days == 7 ? "本周" : "近" + days + "天";
+
+            // 查找指定周期相关的里程碑
+            for (Milestone milestone : milestones) {
+                String name = milestone.getName();
+
+                if (name == null || name.trim().isEmpty())
+                    continue;
+
+                LocalDate dueDate = milestone.getDueDate();
+                if (dueDate != null) {
+                    // 指定周期内到期的里程碑
+                    if (!dueDate.isBefore(startDate) && !dueDate.isAfter(endDate)) {
+                        if (milestone.isCompleted()) {
+                            content.append("已完成里程碑：").append(name).append("\n");
+                        } else {
+                            content.append("推进里程碑：").append(name).append("（").append(periodDesc).append("截止）\n");
+                        }
+                    }
+                    // 进行中的里程碑
+                    else if (milestone.isInProgress()) {
+                        long daysLeft = ChronoUnit.DAYS.between(today, dueDate);
+                        content.append("正常进行：").append(name);
+                        if (daysLeft > 0) {
+                            content.append("（剩余").append(daysLeft).append("天）");
+                        } else if (daysLeft < 0) {
+                            content.append("（已逾期").append(Math.abs(daysLeft)).append("天）");
+                        }
+                        content.append("\n");
+                    }
+                }
+            }
+
+            if (content.length() == 0) {
+                // 根据当前里程碑的预估进度生成工作内容
+                String workContent = generateWorkContentByMilestoneProgress(milestones, today);
+                content.append(workContent);
+            }
+
+            return content.toString().trim();
+        } catch (Exception e) {
+            return "完成上线，交付试用";
+        }
+    }
+
+    /**
+     * 基于里程碑生成指定周期计划内容
+     */
+    private String generateMilestoneBasedPeriodPlan(Project project, LocalDate startDate, LocalDate endDate, Integer days) {
+        try {
+            if (project.getMilestones() == null || project.getMilestones().trim().isEmpty()) {
+                return "继续推进项目各项工作，确保按时完成既定目标";
+            }
+
+            List<Milestone> milestones = milestoneCache.get(project);
+
+            StringBuilder content = new StringBuilder();
+            LocalDate today = LocalDate.now();
+            String periodDesc = days == 7 ? "下周" : "未来" + days + "天";
+
+            // 查找指定周期相关的里程碑
+            for (Milestone milestone : milestones) {
+                String name = milestone.getName();
+
+                if (name == null || name.trim().isEmpty())
+                    continue;
+
+                LocalDate dueDate = milestone.getDueDate();
+                if (dueDate != null) {
+                    // 指定周期内到期的里程碑
+                    if (!dueDate.isBefore(startDate) && !dueDate.isAfter(endDate)) {
+                        if (!milestone.isCompleted()) {
+                            content.append("完成里程碑：").append(name).append("（").append(periodDesc).append("截止）\n");
+                        }
+                    }
+                    // 即将开始的里程碑
+                    else if (milestone.isPending() && dueDate.isAfter(endDate)) {
+                        long daysUntilStart = ChronoUnit.DAYS.between(today, dueDate);
+                        if (daysUntilStart <= days * 2) { // 两个周期内的里程碑
+                            content.append("准备启动：").append(name).append("（").append(daysUntilStart).append("天后开始）\n");
+                        }
+                    }
+                }
+            }
+
+            if (content.length() == 0) {
+                // 根据当前里程碑的预估进度生成计划内容
+                String planContent = generatePlanContentByMilestoneProgress(milestones, today);
+                content.append(planContent);
+            }
+
+            return content.toString().trim();
+        } catch (Exception e) {
+            return "收集和处理用户反馈，持续优化用户体验";
+        }
+    }
+
+    /**
+     * 根据当前里程碑的预估进度生成工作内容
+     */
+    private String generateWorkContentByMilestoneProgress(List<Milestone> milestones, LocalDate today) {
+        // 找到当前正在进行的里程碑或最近的里程碑
+        Milestone currentMilestone = findCurrentMilestone(milestones, today);
+
+        if (currentMilestone == null) {
+            return "完成上线，交付试用";
+        }
+
+        String name = currentMilestone.getName();
+        if (currentMilestone.getDueDate() == null) {
+            return "推进里程碑：" + name + "（进度未知），按计划完成相关工作";
+        }
+
+        double progress = calculateMilestoneTimeProgress(milestones, currentMilestone, today);
+
+        StringBuilder content = new StringBuilder();
+        content.append("推进里程碑：").append(name);
+        content.append("（预估进度").append(String.format("%.0f", progress * 100)).append("%）");
+
+        if (currentMilestone.isCompleted()) {
+            content.append("，已完成");
+        } else if (currentMilestone.isInProgress()) {
+            content.append("，进行中");
+        } else {
+            if (progress < 0.3) {
+                content.append("，启动阶段工作，完善需求和方案设计");
+            } else if (progress < 0.7) {
+                content.append("，开发阶段工作，推进核心功能实现");
+            } else {
+                content.append("，收尾阶段工作，完成测试和优化");
+            }
+        }
+
+        return content.toString();
+    }
+
+    /**
+     * 根据当前里程碑的预估进度生成计划内容
+     */
+    private String generatePlanContentByMilestoneProgress(List<Milestone> milestones, LocalDate today) {
+        // 找到下一个里程碑或当前里程碑
+        Milestone nextMilestone = findNextMilestone(milestones, today);
+
+        if (nextMilestone == null) {
+            return "收集和处理用户反馈，持续优化用户体验";
+        }
+
+        String name = nextMilestone.getName();
+        LocalDate dueDate = nextMilestone.getDueDate();
+        if (dueDate == null) {
+            return "计划推进里程碑：" + name + "（进度未知），制定详细实施方案";
+        }
+
+        double progress = calculateMilestoneTimeProgress(milestones, nextMilestone, today);
+        long daysLeft = ChronoUnit.DAYS.between(today, dueDate);
+
+        StringBuilder content = new StringBuilder();
+        content.append("持续推进：").append(name);
+        content.append("（预估进度").append(String.format("%.0f", progress * 100)).append("%）");
+
+        if (daysLeft <= 0) {
+            content.append("，重点推进");
+        } else if (daysLeft <= 7) {
+            content.append("，").append(daysLeft).append("天内截止，重点推进");
+        } else if (progress >= 0.7) {
+            content.append("，完善功能测试，准备交付和上线");
+        }
+
+        return content.toString();
+    }
+
+    /**
+     * 找到当前正在进行的里程碑
+     */
+    private Milestone findCurrentMilestone(List<Milestone> milestones, LocalDate today) {
+        // 优先找进行中的里程碑
+        for (Milestone milestone : milestones) {
+            if (milestone.isInProgress()) {
+                return milestone;
+            }
+        }
+
+        // 找最近的未完成里程碑
+        Milestone nearestMilestone = null;
+        long minDays = Long.MAX_VALUE;
+
+        for (Milestone milestone : milestones) {
+            if (!milestone.isCompleted() && milestone.getDueDate() != null) {
+                long days = Math.abs(ChronoUnit.DAYS.between(today, milestone.getDueDate()));
+                if (days < minDays) {
+                    minDays = days;
+                    nearestMilestone = milestone;
+                }
+            }
+        }
+
+        return nearestMilestone;
+    }
+
+    /**
+     * 找到下一个里程碑
+     */
+    private Milestone findNextMilestone(List<Milestone> milestones, LocalDate today) {
+        Milestone nextMilestone = null;
+        long minDays = Long.MAX_VALUE;
+
+        for (Milestone milestone : milestones) {
+            if (!milestone.isCompleted() && milestone.getDueDate() != null) {
+                long days = ChronoUnit.DAYS.between(today, milestone.getDueDate());
+                if (days >= 0 && days < minDays) {
+                    minDays = days;
+                    nextMilestone = milestone;
+                }
+            }
+        }
+
+        // 如果没有找到未来的里程碑，返回当前里程碑
+        if (nextMilestone == null) {
+            nextMilestone = findCurrentMilestone(milestones, today);
+        }
+
+        return nextMilestone;
+    }
+
+    /**
+     * 计算里程碑的预估进度
+     */
+    private double calculateMilestoneTimeProgress(List<Milestone> milestones, Milestone milestone, LocalDate today) {
+        LocalDate dueDate = milestone.getDueDate();
+        if (dueDate == null) {
+            return 0.5; // 默认50%进度
+        }
+
+        // 找到上一个里程碑的结束时间作为当前里程碑的开始时间
+        LocalDate startDate = findPreviousMilestoneEndDate(milestones, milestone);
+
+        // 如果今天在开始时间之前，进度为0
+        if (today.isBefore(startDate)) {
+            return 0.0;
+        }
+
+        // 如果今天在截止时间之后，进度为100%
+        if (today.isAfter(dueDate)) {
+            return 1.0;
+        }
+
+        // 计算预估进度
+        long totalDays = ChronoUnit.DAYS.between(startDate, dueDate);
+        long passedDays = ChronoUnit.DAYS.between(startDate, today);
+
+        if (totalDays <= 0) {
+            return 1.0;
+        }
+
+        return Math.min(1.0, Math.max(0.0, (double) passedDays / totalDays));
+    }
+
+    /**
+     * 找到上一个里程碑的结束时间作为当前里程碑的开始时间
+     */
+    private LocalDate findPreviousMilestoneEndDate(List<Milestone> milestones, Milestone currentMilestone) {
+        LocalDate currentDueDate = currentMilestone.getDueDate();
+        LocalDate previousEndDate = null;
+
+        // 找到在当前里程碑之前且最接近的里程碑
+        for (Milestone milestone : milestones) {
+            LocalDate dueDate = milestone.getDueDate();
+            if (milestone != currentMilestone && dueDate != null && dueDate.isBefore(currentDueDate)) {
+                if (previousEndDate == null || dueDate.isAfter(previousEndDate)) {
+                    previousEndDate = dueDate;
+                }
+            }
+        }
+
+        // 如果没有找到上一个里程碑，使用当前里程碑截止时间前30天作为开始时间
+        return previousEndDate != null ? previousEndDate : currentDueDate.minusDays(30);
+    }
+
+    /**
+     * 合并任务内容和项目整体状态
+     */
+    private String combineWorkContent(String taskContent, String milestoneContent) {
+        StringBuilder combined = new StringBuilder();
+
+        // 添加任务内容
+        if (taskContent != null && !taskContent.trim().isEmpty()) {
+            combined.append(taskContent.trim());
+        }
+
+        // 添加项目整体状态
+        if (milestoneContent != null && !milestoneContent.trim().isEmpty()) {
+            if (combined.length() > 0) {
+                combined.append("\n\n");
+            }
+            combined.append(milestoneContent.trim());
+        }
+
+        // 如果都为空，返回默认内容
+        if (combined.length() == 0) {
+            return "项目正常推进中，按计划执行各项工作";
+        }
+
+        return combined.toString();
+    }
+}
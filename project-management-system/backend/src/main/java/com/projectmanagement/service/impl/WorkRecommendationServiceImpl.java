@@ -27,6 +27,7 @@ public class WorkRecommendationServiceImpl implements WorkRecommendationService
 
     private final ProjectService projectService;
     private final TodoService todoService;
+    private final MilestoneCache milestoneCache;
 
     @Override
     public WorkRecommendationDTO.RecommendationSummary getUserRecommendations(Long userId) {
@@ -405,33 +406,33 @@ public class WorkRecommendationServiceImpl implements WorkRecommendationService
         }
 
         try {
-            // 解析里程碑JSON数据
-            com.google.gson.Gson gson = new com.google.gson.Gson();
-            com.google.gson.reflect.TypeToken<List<java.util.Map<String, Object>>> typeToken = 
-                new com.google.gson.reflect.TypeToken<List<java.util.Map<String, Object>>>() {};
-            List<java.util.Map<String, Object>> milestones = gson.fromJson(project.getMilestones(), typeToken.getType());
+            // 已解析的里程碑（按项目版本缓存）
+            List<Milestone> milestones = milestoneCache.get(project);
 
             // 优先分析进行中的里程碑
-            List<java.util.Map<String, Object>> progressMilestones = milestones.stream()
-                .filter(milestone -> "PROGRESS".equals(milestone.get("status")))
-                .collect(java.util.stream.Collectors.toList());
+            List<Milestone> progressMilestones = milestones.stream()
+                .filter(Milestone::isInProgress)
+                .collect(Collectors.toList());
 
             // 如果没有进行中的里程碑，则分析待开始的里程碑
             if (progressMilestones.isEmpty()) {
                 progressMilestones = milestones.stream()
-                    .filter(milestone -> "PENDING".equals(milestone.get("status")))
-                    .collect(java.util.stream.Collectors.toList());
+                    .filter(Milestone::isPending)
+                    .collect(Collectors.toList());
             }
 
-            for (java.util.Map<String, Object> milestone : progressMilestones) {
-                String name = (String) milestone.get("name");
-                String status = (String) milestone.get("status");
-                String dueDateStr = (String) milestone.get("dueDate");
+            for (Milestone milestone : progressMilestones) {
+                String name = milestone.getName();
+                String status = milestone.getStatus();
 
-                if (dueDateStr != null && !dueDateStr.trim().isEmpty()) {
+                if (milestone.hasDueDateText()) {
                     try {
-                        // 解析里程碑截止日期
-                        java.time.LocalDate dueDate = java.time.LocalDate.parse(dueDateStr);
+                        // 里程碑截止日期
+                        java.time.LocalDate dueDate = milestone.getDueDate();
+                        if (dueDate == null) {
+                            log.warn("里程碑日期格式错误: {}, 日期字符串: {}", name, milestone.getDueDateText());
+                            continue;
+                        }
                         LocalDateTime dueDatetime = dueDate.atTime(23, 59, 59);
                         long daysUntilMilestone = ChronoUnit.DAYS.between(now, dueDatetime);
 
@@ -500,7 +501,7 @@ public class WorkRecommendationServiceImpl implements WorkRecommendationService
                         }
 
                     } catch (Exception e) {
-                        log.warn("解析里程碑日期失败: {}, 日期字符串: {}", name, dueDateStr, e);
+                        log.warn("分析里程碑风险失败: {}, 日期字符串: {}", name, milestone.getDueDateText(), e);
                     }
                 }
             }
@@ -521,18 +522,16 @@ public class WorkRecommendationServiceImpl implements WorkRecommendationService
      * 分析逾期的里程碑（当没有当前进行中的里程碑时）
      */
     private List<WorkRecommendationDTO.RecommendationItem> analyzeOverdueMilestones(Project project, 
-            List<java.util.Map<String, Object>> milestones, LocalDateTime now) {
+            List<Milestone> milestones, LocalDateTime now) {
         List<WorkRecommendationDTO.RecommendationItem> overdueMilestones = new ArrayList<>();
 
-        for (java.util.Map<String, Object> milestone : milestones) {
-            String name = (String) milestone.get("name");
-            String status = (String) milestone.get("status");
-            String dueDateStr = (String) milestone.get("dueDate");
+        for (Milestone milestone : milestones) {
+            String name = milestone.getName();
+            java.time.LocalDate dueDate = milestone.getDueDate();
 
             // 只分析未完成且有截止日期的里程碑
-            if (!"COMPLETED".equals(status) && dueDateStr != null && !dueDateStr.trim().isEmpty()) {
+            if (!milestone.isCompleted() && dueDate != null) {
                 try {
-                    java.time.LocalDate dueDate = java.time.LocalDate.parse(dueDateStr);
                     LocalDateTime dueDatetime = dueDate.atTime(23, 59, 59);
                     long daysUntilMilestone = ChronoUnit.DAYS.between(now, dueDatetime);
 
@@ -552,7 +551,7 @@ public class WorkRecommendationServiceImpl implements WorkRecommendationService
                         overdueMilestones.add(item);
                     }
                 } catch (Exception e) {
-                    log.warn("解析逾期里程碑日期失败: {}, 日期字符串: {}", name, dueDateStr, e);
+                    log.warn("分析逾期里程碑失败: {}, 日期字符串: {}", name, milestone.getDueDateText(), e);
                 }
             }
         }
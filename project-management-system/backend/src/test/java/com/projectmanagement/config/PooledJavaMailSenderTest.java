@@ -0,0 +1,184 @@
+package com.projectmanagement.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 带连接池的邮件发送器测试
+ * 使用进程内的简易SMTP服务代替真实邮件服务器
+ */
+class PooledJavaMailSenderTest {
+
+    private FakeSmtpServer smtpServer;
+    private PooledJavaMailSender mailSender;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtpServer = new FakeSmtpServer();
+        mailSender = new PooledJavaMailSender(2, 60000, 1000);
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtpServer.getPort());
+        mailSender.setDefaultEncoding("UTF-8");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mailSender.destroy();
+        smtpServer.close();
+    }
+
+    @Test
+    void testSequentialSendsReuseConnection() {
+        for (int i = 0; i < 5; i++) {
+            mailSender.send(message("user" + i + "@example.com"));
+        }
+
+        assertEquals(5, smtpServer.getMessageCount());
+        assertEquals(1, smtpServer.getConnectionCount());
+
+        Map<String, Object> stats = mailSender.getPoolStats();
+        assertEquals(1L, stats.get("createdCount"));
+        assertEquals(4L, stats.get("reusedCount"));
+        assertEquals(5L, stats.get("sentCount"));
+        assertEquals(1, stats.get("idleConnections"));
+    }
+
+    @Test
+    void testBatchSessionSendsOverOneConnection() {
+        try (PooledJavaMailSender.BatchSession ignored = mailSender.openBatchSession()) {
+            for (int i = 0; i < 3; i++) {
+                mailSender.send(message("batch" + i + "@example.com"));
+            }
+            // 会话内连接不归还连接池
+            assertEquals(0, mailSender.getPoolStats().get("idleConnections"));
+        }
+
+        assertEquals(3, smtpServer.getMessageCount());
+        assertEquals(1, smtpServer.getConnectionCount());
+        assertEquals(1, mailSender.getPoolStats().get("idleConnections"));
+    }
+
+    @Test
+    void testIdleConnectionsEvicted() throws InterruptedException {
+        PooledJavaMailSender shortIdleSender = new PooledJavaMailSender(2, 50, 1000);
+        shortIdleSender.setHost("127.0.0.1");
+        shortIdleSender.setPort(smtpServer.getPort());
+        try {
+            shortIdleSender.send(message("idle@example.com"));
+            Thread.sleep(120);
+
+            assertEquals(1, shortIdleSender.evictIdleConnections());
+            assertEquals(0, shortIdleSender.getPoolStats().get("openConnections"));
+
+            shortIdleSender.send(message("idle@example.com"));
+            assertEquals(2, smtpServer.getConnectionCount());
+        } finally {
+            shortIdleSender.destroy();
+        }
+    }
+
+    private SimpleMailMessage message(String to) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("noreply@example.com");
+        message.setTo(to);
+        message.setSubject("测试邮件");
+        message.setText("连接池测试");
+        return message;
+    }
+
+    /**
+     * 只实现发送所需命令的简易SMTP服务
+     */
+    private static class FakeSmtpServer {
+
+        private final ServerSocket serverSocket;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        private final AtomicInteger connectionCount = new AtomicInteger();
+        private final AtomicInteger messageCount = new AtomicInteger();
+
+        FakeSmtpServer() throws IOException {
+            serverSocket = new ServerSocket(0);
+            executor.submit(this::acceptLoop);
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        int getConnectionCount() {
+            return connectionCount.get();
+        }
+
+        int getMessageCount() {
+            return messageCount.get();
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+            executor.shutdownNow();
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connectionCount.incrementAndGet();
+                    executor.submit(() -> handle(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void handle(Socket socket) {
+            try (Socket client = socket;
+                    BufferedReader in = new BufferedReader(
+                            new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+                    PrintWriter out = new PrintWriter(client.getOutputStream(), true)) {
+                reply(out, "220 localhost ESMTP");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase();
+                    if (command.startsWith("EHLO")) {
+                        reply(out, "250 localhost");
+                    } else if (command.startsWith("DATA")) {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !".".equals(line)) {
+                            // 忽略邮件内容
+                        }
+                        messageCount.incrementAndGet();
+                        reply(out, "250 OK");
+                    } else if (command.startsWith("QUIT")) {
+                        reply(out, "221 Bye");
+                        return;
+                    } else {
+                        reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException e) {
+                // 连接被客户端关闭
+            }
+        }
+
+        private void reply(PrintWriter out, String response) {
+            out.print(response + "\r\n");
+            out.flush();
+        }
+    }
+}
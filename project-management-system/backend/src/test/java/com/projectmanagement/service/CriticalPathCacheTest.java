@@ -0,0 +1,66 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.mapper.TodoDependencyMapper;
+import com.projectmanagement.mapper.TodoMapper;
+import com.projectmanagement.service.impl.CriticalPathCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * 项目关键路径缓存测试
+ */
+@ExtendWith(MockitoExtension.class)
+class CriticalPathCacheTest {
+
+    @Mock
+    private TodoMapper todoMapper;
+
+    @Mock
+    private TodoDependencyMapper todoDependencyMapper;
+
+    @Test
+    void testGet_ChangeDuringBuildNotCached() {
+        CriticalPathCache cache = new CriticalPathCache(todoMapper, todoDependencyMapper, 10);
+        Todo before = todo(2);
+        Todo after = todo(9);
+        when(todoDependencyMapper.selectList(any())).thenReturn(Collections.emptyList());
+        when(todoMapper.selectOne(any())).thenReturn(after);
+        when(todoMapper.selectList(any()))
+                .thenAnswer(invocation -> {
+                    // 读取任务后、构建完成前，任务修改已提交
+                    cache.todoChanged(1L, null);
+                    return Collections.singletonList(before);
+                })
+                .thenReturn(Collections.singletonList(after));
+
+        Object staleFinish = cache.get(100L).toMap().get("finishDate");
+        Object finish = cache.get(100L).toMap().get("finishDate");
+
+        assertEquals(LocalDate.now().plusDays(2).toString(), staleFinish);
+        assertEquals(LocalDate.now().plusDays(9).toString(), finish);
+        assertEquals(2L, cache.getStats().get("builds"));
+        // 第二次构建期间无写入，结果已缓存
+        cache.get(100L);
+        assertEquals(1L, cache.getStats().get("hits"));
+    }
+
+    private static Todo todo(int days) {
+        Todo todo = new Todo();
+        todo.setId(1L);
+        todo.setProjectId(100L);
+        todo.setCreateTime(LocalDateTime.now());
+        todo.setDueDate(LocalDate.now().plusDays(days));
+        return todo;
+    }
+}
@@ -0,0 +1,143 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.entity.TodoDependency;
+import com.projectmanagement.service.impl.CriticalPathEngine;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 关键路径计算引擎测试
+ */
+class CriticalPathEngineTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void computesCriticalPathAndSlack() {
+        List<Todo> todos = Arrays.asList(todo(1L, 0, 2), todo(2L, 0, 3), todo(3L, 0, 1), todo(4L, 0, 1));
+        CriticalPathEngine engine = CriticalPathEngine.build(todos,
+                Arrays.asList(dependency(1L, 2L), dependency(2L, 3L)), START);
+
+        Map<String, Object> schedule = engine.toMap();
+        assertEquals("2024-01-01", schedule.get("startDate"));
+        assertEquals("2024-01-07", schedule.get("finishDate"));
+        assertEquals(Arrays.asList("task_1", "task_2", "task_3"), schedule.get("criticalPath"));
+        assertEquals(2, schedule.get("dependencyCount"));
+
+        Map<String, Map<String, Object>> bars = annotate(engine, 1L, 2L, 3L, 4L);
+        assertEquals("2024-01-03", bars.get("task_2").get("earliestStart"));
+        assertEquals("2024-01-06", bars.get("task_3").get("earliestStart"));
+        assertEquals(Boolean.TRUE, bars.get("task_3").get("critical"));
+        assertEquals(Arrays.asList("task_2"), bars.get("task_3").get("predecessors"));
+        assertEquals(5, bars.get("task_4").get("slack"));
+        assertEquals(Boolean.FALSE, bars.get("task_4").get("critical"));
+        assertEquals("2024-01-06", bars.get("task_4").get("latestStart"));
+    }
+
+    @Test
+    void incrementalUpdateMatchesRebuild() {
+        List<Todo> todos = new ArrayList<>(Arrays.asList(todo(1L, 0, 2), todo(2L, 0, 3), todo(3L, 0, 1),
+                todo(4L, 0, 1)));
+        List<TodoDependency> dependencies = Arrays.asList(dependency(1L, 2L), dependency(2L, 3L));
+        CriticalPathEngine engine = CriticalPathEngine.build(todos, dependencies, START);
+
+        // 独立任务延长到10天，成为新的关键路径
+        Todo longer = todo(4L, 0, 10);
+        todos.set(3, longer);
+        assertTrue(engine.updateTodo(longer, START));
+        assertEquals(Arrays.asList("task_4"), engine.toMap().get("criticalPath"));
+        assertEquals(4, annotate(engine, 1L).get("task_1").get("slack"));
+        assertEquals(annotate(CriticalPathEngine.build(todos, dependencies, START), 1L, 2L, 3L, 4L),
+                annotate(engine, 1L, 2L, 3L, 4L));
+
+        // 不在图中或早于起始日期的任务需要重建
+        assertFalse(engine.updateTodo(todo(99L, 0, 1), START));
+        assertFalse(engine.updateTodo(todo(1L, -1, 1), START));
+    }
+
+    @Test
+    void randomIncrementalUpdatesMatchRebuild() {
+        Random random = new Random(42);
+        int n = 2000;
+        List<Todo> todos = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            todos.add(todo((long) i, random.nextInt(30), random.nextInt(10)));
+        }
+        List<TodoDependency> dependencies = new ArrayList<>();
+        for (int i = 2; i <= n; i++) {
+            for (int k = 0; k < 2; k++) {
+                dependencies.add(dependency((long) (1 + random.nextInt(i - 1)), (long) i));
+            }
+        }
+        CriticalPathEngine engine = CriticalPathEngine.build(todos, dependencies, START);
+
+        for (int round = 0; round < 50; round++) {
+            int index = random.nextInt(n);
+            Todo changed = todo(todos.get(index).getId(), 30, random.nextInt(20));
+            todos.set(index, changed);
+            assertTrue(engine.updateTodo(changed, START));
+        }
+        CriticalPathEngine rebuilt = CriticalPathEngine.build(todos, dependencies, START);
+        assertEquals(rebuilt.toMap(), engine.toMap());
+        Long[] ids = todos.stream().map(Todo::getId).toArray(Long[]::new);
+        assertEquals(annotate(rebuilt, ids), annotate(engine, ids));
+    }
+
+    @Test
+    void ignoresCyclicDependencies() {
+        List<Todo> todos = Arrays.asList(todo(1L, 0, 1), todo(2L, 0, 1), todo(3L, 0, 1));
+        List<TodoDependency> dependencies = Arrays.asList(dependency(1L, 2L), dependency(2L, 1L),
+                dependency(2L, 3L));
+
+        CriticalPathEngine engine = CriticalPathEngine.build(todos, dependencies, START);
+
+        assertEquals(1, engine.toMap().get("ignoredDependencies"));
+        assertEquals(2, engine.toMap().get("dependencyCount"));
+        assertEquals("2024-01-04", engine.toMap().get("finishDate"));
+
+        List<TodoDependency> acyclic = Arrays.asList(dependency(1L, 2L), dependency(2L, 3L));
+        assertTrue(CriticalPathEngine.createsCycle(acyclic, 3L, 1L));
+        assertTrue(CriticalPathEngine.createsCycle(acyclic, 1L, 1L));
+        assertFalse(CriticalPathEngine.createsCycle(acyclic, 1L, 3L));
+    }
+
+    private static Map<String, Map<String, Object>> annotate(CriticalPathEngine engine, Long... ids) {
+        List<Map<String, Object>> bars = new ArrayList<>();
+        for (Long id : ids) {
+            Map<String, Object> bar = new HashMap<>();
+            bar.put("id", "task_" + id);
+            bars.add(bar);
+        }
+        engine.annotate(bars);
+        Map<String, Map<String, Object>> byId = new HashMap<>();
+        for (Map<String, Object> bar : bars) {
+            byId.put((String) bar.get("id"), bar);
+        }
+        return byId;
+    }
+
+    private static Todo todo(Long id, int startOffset, int days) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setCreateTime(START.plusDays(startOffset).atTime(9, 0));
+        todo.setDueDate(START.plusDays(startOffset + days));
+        return todo;
+    }
+
+    private static TodoDependency dependency(Long predecessorId, Long successorId) {
+        TodoDependency dependency = new TodoDependency();
+        dependency.setPredecessorId(predecessorId);
+        dependency.setSuccessorId(successorId);
+        return dependency;
+    }
+}
@@ -0,0 +1,91 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.entity.EmailSendQueue;
+import com.projectmanagement.mapper.EmailSendQueueMapper;
+import com.projectmanagement.service.impl.DeferredEmailDigester;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 推迟邮件汇总器测试
+ */
+@ExtendWith(MockitoExtension.class)
+class DeferredEmailDigesterTest {
+
+    private static final LocalDateTime UNTIL = LocalDateTime.of(2024, 5, 15, 9, 0);
+
+    @Mock
+    private EmailSendQueueMapper emailSendQueueMapper;
+
+    @Test
+    void testFold_ConcurrentFoldsKeepAllItems() {
+        DeferredEmailDigester digester = new DeferredEmailDigester(emailSendQueueMapper);
+        // 数据库中的汇总邮件，初始包含邮件1
+        EmailSendQueue row = digester.combine(10L, Collections.singletonList(email(1L, "a")), "汇总");
+        row.setId(100L);
+        row.setScheduledTime(UNTIL);
+
+        when(emailSendQueueMapper.update(isNull(), any())).thenReturn(1);
+        when(emailSendQueueMapper.appendDigest(anyLong(), anyString(), anyString(), any())).thenAnswer(invocation -> {
+            if (!Objects.equals(row.getTemplateVariables(), invocation.getArgument(1))) {
+                return 0;
+            }
+            row.setTemplateVariables(invocation.getArgument(2));
+            return 1;
+        });
+
+        // 两次合并读到同一版本的汇总邮件，第一次先写入
+        EmailSendQueue staleCopy = copyOf(row);
+        when(emailSendQueueMapper.selectPendingDigest(10L))
+                .thenReturn(copyOf(row))
+                .thenReturn(staleCopy)
+                .thenAnswer(invocation -> copyOf(row));
+
+        digester.fold(10L, Collections.singletonList(email(2L, "b")), UNTIL);
+        digester.fold(10L, Collections.singletonList(email(3L, "c")), UNTIL);
+
+        List<Object> queueIds = digester.parseItems(row.getTemplateVariables()).stream()
+                .map(item -> ((Number) item.get("queueId")).longValue())
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(1L, 2L, 3L), queueIds);
+        verify(emailSendQueueMapper, never()).insert(any(EmailSendQueue.class));
+    }
+
+    private static EmailSendQueue copyOf(EmailSendQueue row) {
+        EmailSendQueue copy = new EmailSendQueue();
+        copy.setId(row.getId());
+        copy.setTemplateVariables(row.getTemplateVariables());
+        copy.setScheduledTime(row.getScheduledTime());
+        return copy;
+    }
+
+    private static EmailSendQueue email(Long id, String token) {
+        EmailSendQueue email = new EmailSendQueue();
+        email.setId(id);
+        email.setUserId(10L);
+        email.setRecipientEmail("user@example.com");
+        email.setEmailType("TASK_REMINDER");
+        email.setTemplateCode("TASK_REMINDER");
+        email.setTemplateVariables("{}");
+        email.setClaimToken(token);
+        return email;
+    }
+}
@@ -0,0 +1,107 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.entity.EmailSendQueue;
+import com.projectmanagement.entity.UserEmailPreference;
+import com.projectmanagement.service.impl.EmailDeliveryGate;
+import com.projectmanagement.service.impl.UserEmailPreferenceCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * 邮件发送闸门测试
+ */
+@ExtendWith(MockitoExtension.class)
+class EmailDeliveryGateTest {
+
+    @Mock
+    private UserEmailPreferenceCache preferenceCache;
+
+    private EmailDeliveryGate gate;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        gate = new EmailDeliveryGate(preferenceCache, 8);
+    }
+
+    @Test
+    void testEvaluate_QuietHoursDeferToQuietEnd() {
+        when(preferenceCache.get(10L)).thenReturn(preference("22:00", "08:00", 10, false));
+
+        EmailDeliveryGate.Decision night = gate.evaluate(email("TASK_ASSIGNMENT", 5), today.atTime(23, 30));
+        assertTrue(night.isDeferred());
+        assertTrue(night.isFoldable());
+        assertEquals(today.plusDays(1).atTime(8, 0), night.getDeferUntil());
+
+        EmailDeliveryGate.Decision earlyMorning = gate.evaluate(email("TASK_ASSIGNMENT", 5), today.atTime(6, 0));
+        assertEquals(today.atTime(8, 0), earlyMorning.getDeferUntil());
+
+        // 紧急邮件不受免打扰限制
+        assertFalse(gate.evaluate(email("OVERDUE_REMINDER", 5), today.atTime(23, 30)).isDeferred());
+        assertFalse(gate.evaluate(email("TASK_ASSIGNMENT", 9), today.atTime(23, 30)).isDeferred());
+
+        // 汇总邮件只改期，不再合并
+        EmailDeliveryGate.Decision digest = gate.evaluate(email(EmailDeliveryGate.DIGEST_EMAIL_TYPE, 5),
+                today.atTime(23, 30));
+        assertTrue(digest.isDeferred());
+        assertFalse(digest.isFoldable());
+    }
+
+    @Test
+    void testEvaluate_BudgetExhaustedDefersNonUrgentMail() {
+        when(preferenceCache.get(10L)).thenReturn(preference(null, null, 2, false));
+        LocalDateTime noon = today.atTime(12, 0);
+
+        assertFalse(gate.evaluate(email("TASK_ASSIGNMENT", 5), noon).isDeferred());
+        assertFalse(gate.evaluate(email("TASK_ASSIGNMENT", 5), noon).isDeferred());
+
+        EmailDeliveryGate.Decision third = gate.evaluate(email("TASK_ASSIGNMENT", 5), noon);
+        assertTrue(third.isDeferred());
+        // 每日2封，约12小时补充一个令牌
+        assertTrue(third.getDeferUntil().isAfter(noon.plusHours(11)));
+        assertFalse(gate.evaluate(email("DEADLINE_REMINDER", 5), noon).isDeferred());
+    }
+
+    @Test
+    void testEvaluate_UrgentOnlyFoldsNonUrgentMail() {
+        when(preferenceCache.get(10L)).thenReturn(preference(null, null, null, true));
+        LocalDateTime afternoon = today.atTime(15, 0);
+
+        EmailDeliveryGate.Decision decision = gate.evaluate(email("STATUS_CHANGE", 5), afternoon);
+        assertTrue(decision.isDeferred());
+        assertTrue(decision.isFoldable());
+        assertEquals(LocalTime.of(8, 0), decision.getDeferUntil().toLocalTime());
+        assertFalse(gate.evaluate(email("DEADLINE_REMINDER", 5), afternoon).isDeferred());
+    }
+
+    private EmailSendQueue email(String emailType, int priority) {
+        EmailSendQueue email = new EmailSendQueue();
+        email.setId(1L);
+        email.setUserId(10L);
+        email.setEmailType(emailType);
+        email.setPriority(priority);
+        return email;
+    }
+
+    private UserEmailPreference preference(String quietStart, String quietEnd, Integer maxEmailsPerDay,
+            boolean urgentOnly) {
+        UserEmailPreference preference = new UserEmailPreference();
+        preference.setUserId(10L);
+        preference.setQuietStart(quietStart);
+        preference.setQuietEnd(quietEnd);
+        preference.setMaxEmailsPerDay(maxEmailsPerDay);
+        preference.setUrgentOnly(urgentOnly);
+        return preference;
+    }
+}
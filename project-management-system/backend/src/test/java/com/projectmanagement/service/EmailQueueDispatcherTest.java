@@ -0,0 +1,176 @@
+package com.projectmanagement.service;
+
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.projectmanagement.entity.EmailSendQueue;
+import com.projectmanagement.entity.UserEmailPreference;
+import com.projectmanagement.mapper.EmailSendQueueMapper;
+import com.projectmanagement.service.impl.DeferredEmailDigester;
+import com.projectmanagement.service.impl.EmailDeliveryGate;
+import com.projectmanagement.service.impl.EmailQueueDispatcher;
+import com.projectmanagement.service.impl.UserEmailPreferenceCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import javax.mail.MessagingException;
+import java.net.SocketTimeoutException;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 邮件队列分发器测试
+ */
+@ExtendWith(MockitoExtension.class)
+class EmailQueueDispatcherTest {
+
+    @Mock
+    private EmailSendQueueMapper emailSendQueueMapper;
+
+    @Mock
+    private JavaMailSender mailSender;
+
+    @Mock
+    private UserEmailPreferenceCache preferenceCache;
+
+    @Mock
+    private DeferredEmailDigester digester;
+
+    @Test
+    void testDispatch_FailureIsolatedPerMessage() {
+        when(emailSendQueueMapper.claimBatch(anyString(), anyInt(), anyInt())).thenReturn(3).thenReturn(0);
+        when(emailSendQueueMapper.selectByClaimToken(anyString()))
+                .thenReturn(Arrays.asList(claimed(1L), claimed(2L), claimed(3L)));
+
+        // 单worker
+        EmailQueueDispatcher dispatcher = newDispatcher(1);
+
+        int handled = dispatcher.dispatch(email -> {
+            if (email.getId() == 2L) {
+                return false;
+            }
+            if (email.getId() == 3L) {
+                throw new IllegalStateException("SMTP异常");
+            }
+            return true;
+        });
+
+        assertEquals(3, handled);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<UpdateWrapper<EmailSendQueue>> captor = ArgumentCaptor.forClass(UpdateWrapper.class);
+        verify(emailSendQueueMapper, times(3)).update(isNull(), captor.capture());
+        List<Collection<Object>> results = captor.getAllValues().stream()
+                .map(wrapper -> {
+                    // 生成WHERE片段后条件参数才会写入参数表
+                    wrapper.getSqlSegment();
+                    return wrapper.getParamNameValuePairs().values();
+                })
+                .collect(Collectors.toList());
+
+        // 结果按发送顺序回写，且只对本批次令牌占有的记录生效
+        assertTrue(results.get(0).contains("COMPLETED"));
+        assertTrue(results.get(1).contains("PENDING"));
+        assertTrue(results.get(1).contains(1));
+        // 重试时间推迟到退避时间之后
+        assertTrue(results.get(1).stream().anyMatch(value -> value instanceof LocalDateTime
+                && ((LocalDateTime) value).isAfter(LocalDateTime.now().plusSeconds(20))));
+        assertTrue(results.get(2).contains("FAILED"));
+        results.forEach(values -> assertTrue(values.contains("token-1")));
+        verify(emailSendQueueMapper, never()).releaseClaim(anyString());
+    }
+
+    @Test
+    void testDispatch_EmptyQueue() {
+        when(emailSendQueueMapper.claimBatch(anyString(), anyInt(), anyInt())).thenReturn(0);
+
+        EmailQueueDispatcher dispatcher = newDispatcher(3);
+
+        List<Long> delivered = new ArrayList<>();
+        int handled = dispatcher.dispatch(email -> delivered.add(email.getId()));
+
+        assertEquals(0, handled);
+        assertTrue(delivered.isEmpty());
+        verify(emailSendQueueMapper, times(3)).claimBatch(anyString(), anyInt(), anyInt());
+        verify(emailSendQueueMapper, never()).selectByClaimToken(anyString());
+    }
+
+    @Test
+    void testDispatch_TransientSmtpErrorIsRetried() {
+        when(emailSendQueueMapper.claimBatch(anyString(), anyInt(), anyInt())).thenReturn(1).thenReturn(0);
+        when(emailSendQueueMapper.selectByClaimToken(anyString())).thenReturn(Arrays.asList(claimed(1L)));
+
+        EmailQueueDispatcher dispatcher = newDispatcher(1);
+
+        dispatcher.dispatch(email -> {
+            throw new MailSendException("Mail server connection failed",
+                    new MessagingException("连接失败", new SocketTimeoutException("connect timed out")));
+        });
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<UpdateWrapper<EmailSendQueue>> captor = ArgumentCaptor.forClass(UpdateWrapper.class);
+        verify(emailSendQueueMapper, times(1)).update(isNull(), captor.capture());
+        captor.getValue().getSqlSegment();
+        assertTrue(captor.getValue().getParamNameValuePairs().values().contains("PENDING"));
+    }
+
+    @Test
+    void testDispatch_QuietHoursMailFoldedPerUser() {
+        when(emailSendQueueMapper.claimBatch(anyString(), anyInt(), anyInt())).thenReturn(3).thenReturn(0);
+        when(emailSendQueueMapper.selectByClaimToken(anyString()))
+                .thenReturn(Arrays.asList(claimed(1L), claimed(2L), claimed(3L)));
+        // 全天免打扰（跨午夜的23小时59分）
+        UserEmailPreference preference = new UserEmailPreference();
+        preference.setUserId(10L);
+        LocalTime now = LocalTime.now();
+        preference.setQuietStart(now.minusMinutes(1).withSecond(0).withNano(0).toString());
+        preference.setQuietEnd(now.minusMinutes(2).withSecond(0).withNano(0).toString());
+        when(preferenceCache.get(10L)).thenReturn(preference);
+
+        List<Long> delivered = new ArrayList<>();
+        int handled = newDispatcher(1).dispatch(email -> delivered.add(email.getId()));
+
+        assertEquals(3, handled);
+        assertTrue(delivered.isEmpty());
+        verify(digester, times(1)).fold(eq(10L), argThat(emails -> emails.size() == 3), any(LocalDateTime.class));
+        verify(emailSendQueueMapper, never()).update(isNull(), any());
+    }
+
+    private EmailQueueDispatcher newDispatcher(int workers) {
+        // 同步执行、不限速
+        return new EmailQueueDispatcher(emailSendQueueMapper, mailSender, new EmailDeliveryGate(preferenceCache, 8),
+                digester, Runnable::run, workers, 10, 0, 10000, 120, 60, 3600);
+    }
+
+    private EmailSendQueue claimed(Long id) {
+        EmailSendQueue queue = new EmailSendQueue();
+        queue.setId(id);
+        queue.setStatus("PROCESSING");
+        queue.setUserId(10L);
+        queue.setEmailType("TASK_ASSIGNMENT");
+        queue.setClaimToken("token-1");
+        queue.setRetryCount(0);
+        queue.setMaxRetries(3);
+        return queue;
+    }
+}
@@ -0,0 +1,60 @@
+package com.projectmanagement.service;
+
+import com.sun.mail.smtp.SMTPAddressFailedException;
+import com.sun.mail.smtp.SMTPSendFailedException;
+import com.projectmanagement.service.impl.EmailRetryPolicy;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.AddressException;
+import javax.mail.internet.InternetAddress;
+import java.net.ConnectException;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 邮件重试策略测试
+ */
+class EmailRetryPolicyTest {
+
+    private final EmailRetryPolicy policy = new EmailRetryPolicy(60, 3600);
+
+    @Test
+    void testNextDelaySeconds_GrowsExponentiallyWithinJitterBounds() {
+        for (int i = 0; i < 100; i++) {
+            long first = policy.nextDelaySeconds(1);
+            long third = policy.nextDelaySeconds(3);
+            long capped = policy.nextDelaySeconds(20);
+            assertTrue(first >= 30 && first <= 60, "第1次重试延迟: " + first);
+            assertTrue(third >= 120 && third <= 240, "第3次重试延迟: " + third);
+            assertTrue(capped >= 1800 && capped <= 3600, "封顶延迟: " + capped);
+        }
+    }
+
+    @Test
+    void testIsPermanent_ClassifiesSmtpReplyCodes() throws Exception {
+        InternetAddress address = new InternetAddress("nobody@example.com");
+        SMTPAddressFailedException unknownUser =
+                new SMTPAddressFailedException(address, "RCPT TO", 550, "User unknown");
+        SMTPAddressFailedException mailboxBusy =
+                new SMTPAddressFailedException(address, "RCPT TO", 450, "Mailbox busy");
+
+        assertTrue(policy.isPermanent(new MailSendException("发送失败", unknownUser)));
+        assertFalse(policy.isPermanent(new MailSendException("发送失败", mailboxBusy)));
+        assertTrue(policy.isPermanent(new MailSendException(Collections.singletonMap(new Object(),
+                new SMTPSendFailedException("DATA", 554, "Message rejected", null, null, null, null)))));
+    }
+
+    @Test
+    void testIsPermanent_NetworkAndAuthErrorsAreTransient() {
+        assertFalse(policy.isPermanent(new MailSendException("Mail server connection failed",
+                new MessagingException("Could not connect", new ConnectException("Connection refused")))));
+        assertFalse(policy.isPermanent(new MailAuthenticationException("认证失败")));
+        assertFalse(policy.isPermanent(new MailSendException("发送失败")));
+        assertTrue(policy.isPermanent(new AddressException("地址格式错误")));
+        assertTrue(policy.isPermanent(new IllegalStateException("模板渲染异常")));
+    }
+}
@@ -0,0 +1,109 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.entity.EmailSendRule;
+import com.projectmanagement.mapper.EmailSendRuleMapper;
+import com.projectmanagement.service.impl.CompiledEmailRule;
+import com.projectmanagement.service.impl.EmailRuleIndex;
+import com.projectmanagement.service.impl.EmailRuleProcessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 邮件规则索引测试
+ */
+@ExtendWith(MockitoExtension.class)
+class EmailRuleIndexTest {
+
+    @Mock
+    private EmailSendRuleMapper emailSendRuleMapper;
+
+    private EmailRuleIndex emailRuleIndex;
+
+    @BeforeEach
+    void setUp() {
+        emailRuleIndex = new EmailRuleIndex(emailSendRuleMapper, new EmailRuleProcessor());
+    }
+
+    @Test
+    void testGetRules_IndexedByTypeAndEvent() {
+        when(emailSendRuleMapper.selectList(any())).thenReturn(Arrays.asList(
+                rule(1L, "STATUS_CHANGE",
+                        "{\"event\":\"ASSIGNED\",\"immediate\":true,\"task_status\":[\"TODO\",\"PROGRESS\"]}"),
+                rule(2L, "STATUS_CHANGE",
+                        "{\"event\":\"STATUS_CHANGED\",\"notify_creator\":true,\"excluded_status\":[\"TODO\"]}"),
+                rule(3L, "DEADLINE", "{\"days_before\":[3,1],\"send_time\":\"09:00\",\"task_priority\":[\"HIGH\"]}")));
+
+        List<CompiledEmailRule> assignment = emailRuleIndex.getRules("STATUS_CHANGE", "ASSIGNED");
+        assertEquals(1, assignment.size());
+        CompiledEmailRule assignmentRule = assignment.get(0);
+        assertTrue(assignmentRule.isImmediate());
+        assertTrue(assignmentRule.matchesStatus("PROGRESS"));
+        assertFalse(assignmentRule.matchesStatus("DONE"));
+
+        CompiledEmailRule statusRule = emailRuleIndex.getRules("STATUS_CHANGE", "STATUS_CHANGED").get(0);
+        assertTrue(statusRule.isNotifyCreator());
+        assertFalse(statusRule.isNotifyAssignee());
+        assertTrue(statusRule.isStatusExcluded("TODO"));
+
+        CompiledEmailRule deadlineRule = emailRuleIndex.getRules("DEADLINE").get(0);
+        assertEquals(Arrays.asList(3, 1), deadlineRule.getDaysBefore());
+        assertEquals("09:00", deadlineRule.getSendTime());
+        assertTrue(deadlineRule.matchesPriority("HIGH"));
+        assertFalse(deadlineRule.matchesPriority("LOW"));
+
+        assertEquals(2, emailRuleIndex.getRules("STATUS_CHANGE").size());
+        assertTrue(emailRuleIndex.getRules("SUMMARY").isEmpty());
+        assertTrue(emailRuleIndex.getRules("STATUS_CHANGE", "COMPLETED").isEmpty());
+
+        // 多次查询只加载一次
+        verify(emailSendRuleMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    void testRefresh_ReloadsRules() {
+        when(emailSendRuleMapper.selectList(any()))
+                .thenReturn(Collections.singletonList(rule(1L, "STATUS_CHANGE", "{\"event\":\"ASSIGNED\"}")))
+                .thenReturn(Collections.emptyList());
+
+        assertEquals(1, emailRuleIndex.getRules("STATUS_CHANGE", "ASSIGNED").size());
+
+        emailRuleIndex.refresh();
+
+        assertTrue(emailRuleIndex.getRules("STATUS_CHANGE", "ASSIGNED").isEmpty());
+        verify(emailSendRuleMapper, times(2)).selectList(any());
+    }
+
+    @Test
+    void testGetRules_InvalidConditionCompilesToEmpty() {
+        when(emailSendRuleMapper.selectList(any()))
+                .thenReturn(Collections.singletonList(rule(1L, "STATUS_CHANGE", "not json")));
+
+        CompiledEmailRule rule = emailRuleIndex.getRules("STATUS_CHANGE").get(0);
+        assertNull(rule.getEvent());
+        assertTrue(rule.matchesStatus("DONE"));
+        assertTrue(rule.getConditions().isEmpty());
+    }
+
+    private EmailSendRule rule(Long id, String ruleType, String triggerCondition) {
+        EmailSendRule rule = new EmailSendRule();
+        rule.setId(id);
+        rule.setRuleName("规则" + id);
+        rule.setRuleType(ruleType);
+        rule.setTriggerCondition(triggerCondition);
+        rule.setEnabled(true);
+        return rule;
+    }
+}
@@ -0,0 +1,117 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.entity.EmailTemplate;
+import com.projectmanagement.mapper.EmailTemplateMapper;
+import com.projectmanagement.service.impl.EmailTemplateRenderer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 邮件模板渲染器测试
+ */
+@ExtendWith(MockitoExtension.class)
+class EmailTemplateRendererTest {
+
+    @Mock
+    private EmailTemplateMapper emailTemplateMapper;
+
+    private EmailTemplateRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        renderer = new EmailTemplateRenderer(emailTemplateMapper);
+    }
+
+    @Test
+    void testRender_AllPlaceholderStyles() {
+        EmailTemplateRenderer.CompiledTemplate compiled = renderer.compile(template(
+                "【任务分配】${taskTitle}",
+                "<p>你好 [[${assigneeName}]]，{assignedBy} 分配了任务 ${taskTitle}</p>"
+                        + "<style>body { color: #333 }</style>{{ Math.floor(taskCount) }}"));
+
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("taskTitle", "接口联调");
+        variables.put("assigneeName", "张三");
+        variables.put("assignedBy", "李四");
+
+        assertEquals("【任务分配】接口联调", compiled.renderSubject(variables));
+        assertEquals("<p>你好 张三，李四 分配了任务 接口联调</p>"
+                + "<style>body { color: #333 }</style>{{ Math.floor(taskCount) }}",
+                compiled.renderContent(variables));
+    }
+
+    @Test
+    void testRender_MissingAndNullVariables() {
+        EmailTemplateRenderer.CompiledTemplate compiled = renderer.compile(template(
+                "${subject}", "截止: ${dueDate}，描述: ${description}"));
+
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("description", null);
+
+        // 未提供的变量保留原样，值为null的变量替换为空串
+        assertEquals("${subject}", compiled.renderSubject(variables));
+        assertEquals("截止: ${dueDate}，描述: ", compiled.renderContent(variables));
+        assertEquals("${subject}", compiled.renderSubject(null));
+    }
+
+    @Test
+    void testGetTemplate_CachedUntilInvalidated() {
+        EmailTemplate template = template("${a}", "${b}");
+        when(emailTemplateMapper.selectByTemplateCode("TASK_ASSIGNMENT")).thenReturn(template);
+
+        EmailTemplateRenderer.CompiledTemplate first = renderer.getTemplate("TASK_ASSIGNMENT");
+        EmailTemplateRenderer.CompiledTemplate second = renderer.getTemplate("TASK_ASSIGNMENT");
+        assertSame(first, second);
+        verify(emailTemplateMapper, times(1)).selectByTemplateCode("TASK_ASSIGNMENT");
+
+        template.setSubjectTemplate("新主题 ${a}");
+        template.setUpdateTime(template.getUpdateTime().plusMinutes(1));
+        renderer.invalidate("TASK_ASSIGNMENT");
+
+        EmailTemplateRenderer.CompiledTemplate reloaded = renderer.getTemplate("TASK_ASSIGNMENT");
+        assertNotSame(first, reloaded);
+        assertEquals("新主题 1", reloaded.renderSubject(singleton("a", 1)));
+        verify(emailTemplateMapper, times(2)).selectByTemplateCode("TASK_ASSIGNMENT");
+    }
+
+    @Test
+    void testCompile_ReusesSameVersion() {
+        EmailTemplate template = template("${a}", "${b}");
+
+        EmailTemplateRenderer.CompiledTemplate first = renderer.compile(template);
+        assertSame(first, renderer.compile(template));
+
+        template.setUpdateTime(template.getUpdateTime().plusSeconds(1));
+        assertNotSame(first, renderer.compile(template));
+    }
+
+    private Map<String, Object> singleton(String key, Object value) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put(key, value);
+        return variables;
+    }
+
+    private EmailTemplate template(String subject, String content) {
+        EmailTemplate template = new EmailTemplate();
+        template.setTemplateCode("TASK_ASSIGNMENT");
+        template.setTemplateName("任务分配通知");
+        template.setTemplateType("HTML");
+        template.setSubjectTemplate(subject);
+        template.setContentTemplate(content);
+        template.setEnabled(true);
+        template.setUpdateTime(LocalDateTime.of(2024, 1, 1, 9, 0));
+        return template;
+    }
+}
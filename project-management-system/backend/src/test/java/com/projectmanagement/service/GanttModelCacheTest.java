@@ -0,0 +1,323 @@
+package com.projectmanagement.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectmanagement.entity.Project;
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.entity.User;
+import com.projectmanagement.mapper.ProjectMapper;
+import com.projectmanagement.mapper.TodoMapper;
+import com.projectmanagement.mapper.UserMapper;
+import com.projectmanagement.service.impl.GanttModelCache;
+import com.projectmanagement.service.impl.GanttWindow;
+import com.projectmanagement.service.impl.MilestoneCache;
+import com.projectmanagement.service.impl.ProjectMembershipIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 全局甘特图内存模型测试
+ */
+@ExtendWith(MockitoExtension.class)
+class GanttModelCacheTest {
+
+    @Mock
+    private ProjectMapper projectMapper;
+
+    @Mock
+    private TodoMapper todoMapper;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private ProjectMembershipIndex membershipIndex;
+
+    private final Map<Long, Project> knownProjects = new HashMap<>();
+
+    /**
+     * 关系索引中项目 -> 相关用户
+     */
+    private final Map<Long, Set<Long>> projectUsers = new HashMap<>();
+
+    @Test
+    void testSnapshotUserGantt_RepeatedRefreshServedFromMemory() {
+        GanttModelCache cache = newCache(10);
+        relate(1L, project(100L, 1L), project(101L, 1L));
+        when(todoMapper.selectList(any())).thenReturn(Arrays.asList(todo(1L, 100L, 2L), todo(2L, 101L, null)));
+        when(userMapper.selectBatchIds(anyCollection())).thenReturn(Collections.singletonList(user(2L)));
+
+        Map<String, Object> first = gantt(cache, 1L);
+        Map<String, Object> second = gantt(cache, 1L);
+
+        assertEquals(first, second);
+        assertEquals(2, tracks(first).size());
+        assertEquals("project_100", tracks(first).get(0).get("id"));
+        verify(membershipIndex, times(1)).getProjectIds(1L);
+        verify(todoMapper, times(1)).selectList(any());
+        verify(userMapper, times(1)).selectBatchIds(anyCollection());
+        assertEquals(2L, cache.getStats().get("snapshots"));
+    }
+
+    @Test
+    void testTodoChanged_PatchesOnlyAffectedTrack() {
+        GanttModelCache cache = newCache(10);
+        relate(1L, project(100L, 1L), project(101L, 1L));
+        when(todoMapper.selectList(any())).thenReturn(Arrays.asList(todo(1L, 100L, 2L), todo(2L, 101L, null)));
+        when(userMapper.selectBatchIds(anyCollection())).thenReturn(Collections.singletonList(user(2L)));
+        Map<String, Object> before = gantt(cache, 1L);
+        Object untouchedTasks = tracks(before).get(1).get("tasks");
+
+        Todo renamed = todo(1L, 100L, 2L);
+        renamed.setTitle("改名后的任务");
+        when(todoMapper.selectById(1L)).thenReturn(renamed);
+        // 没有事务时修补立即执行
+        cache.todoChanged(1L);
+
+        Map<String, Object> after = gantt(cache, 1L);
+        List<Map<String, Object>> tasks = tasks(tracks(after).get(0));
+        assertEquals("改名后的任务", tasks.get(0).get("title"));
+        // 未修改的轨道直接复用
+        assertSame(untouchedTasks, tracks(after).get(1).get("tasks"));
+        verify(todoMapper, times(1)).selectList(any());
+        // 处理人已在轨道中，不再查询用户
+        verify(userMapper, never()).selectById(any());
+    }
+
+    @Test
+    void testTodoChanged_AddsProjectForNewAssignee() {
+        GanttModelCache cache = newCache(10);
+        relate(1L, project(100L, 1L));
+        relate(2L, project(101L, 2L));
+        when(todoMapper.selectList(any())).thenReturn(Collections.emptyList());
+        assertEquals(1, tracks(gantt(cache, 1L)).size());
+        gantt(cache, 2L);
+
+        // 用户2被分配了项目100的任务，关系索引先于模型修正
+        when(todoMapper.selectById(5L)).thenReturn(todo(5L, 100L, 2L));
+        when(userMapper.selectById(2L)).thenReturn(user(2L));
+        projectUsers.get(100L).add(2L);
+        cache.todoChanged(5L);
+
+        assertEquals(2, tracks(gantt(cache, 2L)).size());
+        verify(membershipIndex, times(1)).getProjectIds(2L);
+
+        // 删除后用户2不再与项目100相关
+        projectUsers.get(100L).remove(2L);
+        cache.todoDeleted(5L);
+        assertEquals(1, tracks(gantt(cache, 2L)).size());
+    }
+
+    @Test
+    void testProjectChanged_KeepsMemberOnlyProject() {
+        GanttModelCache cache = newCache(10);
+        // 用户3只是项目100的成员，既不是创建人也没有任务
+        relate(3L, project(100L, 1L));
+        when(todoMapper.selectList(any())).thenReturn(Collections.singletonList(todo(1L, 100L, null)));
+        assertEquals(1, tracks(gantt(cache, 3L)).size());
+
+        Project renamed = project(100L, 1L);
+        renamed.setName("改名后的项目");
+        when(projectMapper.selectById(100L)).thenReturn(renamed);
+        cache.projectChanged(100L);
+        when(todoMapper.selectById(1L)).thenReturn(todo(1L, 100L, null));
+        cache.todoChanged(1L);
+
+        List<Map<String, Object>> tracks = tracks(gantt(cache, 3L));
+        assertEquals(1, tracks.size());
+        assertEquals("📋 改名后的项目", tracks.get(0).get("name"));
+        verify(membershipIndex, times(1)).getProjectIds(3L);
+    }
+
+    @Test
+    void testEviction_BoundsTrackCount() {
+        GanttModelCache cache = newCache(1);
+        relate(1L, project(100L, 1L));
+        relate(2L, project(101L, 2L));
+        when(todoMapper.selectList(any())).thenReturn(Collections.emptyList());
+
+        gantt(cache, 1L);
+        gantt(cache, 2L);
+        // 项目100的轨道已被淘汰，重新加载
+        assertEquals(1, tracks(gantt(cache, 1L)).size());
+
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(1, stats.get("tracks"));
+        assertTrue((Long) stats.get("evictions") >= 2);
+        // 两次加载用户模型，一次重新加载被淘汰的轨道
+        verify(projectMapper, times(3)).selectBatchIds(anyCollection());
+    }
+
+    @Test
+    void testSnapshotUserGantt_StreamsSameDataAsMap() throws Exception {
+        GanttModelCache cache = newCache(10);
+        relate(1L, project(100L, 1L), project(101L, 1L));
+        when(todoMapper.selectList(any())).thenReturn(Arrays.asList(todo(1L, 100L, 2L), todo(2L, 101L, null)));
+        when(userMapper.selectBatchIds(anyCollection())).thenReturn(Collections.singletonList(user(2L)));
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(json)) {
+            cache.snapshotUserGantt(1L, GanttWindow.ALL).writeTo(generator);
+        }
+
+        Map<String, Object> streamed = objectMapper.readValue(json.toString(), new TypeReference<Map<String, Object>>() {
+        });
+        Map<String, Object> assembled = objectMapper.readValue(objectMapper.writeValueAsString(gantt(cache, 1L)),
+                new TypeReference<Map<String, Object>>() {
+                });
+        assertEquals(assembled, streamed);
+        assertEquals(2, tracks(streamed).size());
+        assertEquals(2L, cache.getStats().get("snapshots"));
+    }
+
+    @Test
+    void testSnapshotUserGantt_WindowFiltersTasksAndPagesTracks() {
+        GanttModelCache cache = newCache(10);
+        relate(1L, project(100L, 1L), project(101L, 1L), project(102L, 1L));
+        Todo old = todo(2L, 101L, null);
+        old.setCreateTime(LocalDateTime.now().minusDays(120));
+        old.setDueDate(LocalDate.now().minusDays(100));
+        when(todoMapper.selectList(any())).thenReturn(Arrays.asList(todo(1L, 100L, null), old,
+                todo(3L, 102L, null), todo(4L, 102L, null)));
+
+        // 窗口只覆盖近两周，项目101的任务不在窗口内
+        LocalDate today = LocalDate.now();
+        Map<String, Object> first = cache.snapshotUserGantt(1L,
+                GanttWindow.of(today.minusDays(7), today.plusDays(7), null, 1)).toMap();
+        assertEquals(1, tracks(first).size());
+        assertEquals("project_100", tracks(first).get(0).get("id"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> page = (Map<String, Object>) first.get("page");
+        assertEquals(2, page.get("total"));
+        assertEquals(true, page.get("hasMore"));
+        assertEquals(today.minusDays(7).toString(), ((Map<?, ?>) first.get("timeRange")).get("startDate"));
+
+        Map<String, Object> second = cache.snapshotUserGantt(1L,
+                GanttWindow.of(today.minusDays(7), today.plusDays(7), null, 1, (String) page.get("nextCursor"))).toMap();
+        assertEquals("project_102", tracks(second).get(0).get("id"));
+        assertEquals(2, tasks(tracks(second).get(0)).size());
+        assertEquals(false, ((Map<?, ?>) second.get("page")).get("hasMore"));
+
+        // 完整输出不受影响
+        assertEquals(3, tracks(gantt(cache, 1L)).size());
+        // 游标与日期范围绑定
+        assertThrows(IllegalArgumentException.class, () -> GanttWindow.of(today.minusDays(1), today.plusDays(7), null, 1,
+                (String) page.get("nextCursor")));
+    }
+
+    @Test
+    void testSnapshotUserGantt_CursorSurvivesDeletedProject() {
+        GanttModelCache cache = newCache(10);
+        relate(1L, project(100L, 1L), project(101L, 1L), project(102L, 1L));
+        when(todoMapper.selectList(any())).thenReturn(Collections.emptyList());
+
+        Map<String, Object> first = cache.snapshotUserGantt(1L, GanttWindow.of(null, null, null, 1)).toMap();
+        assertEquals("project_100", tracks(first).get(0).get("id"));
+        String cursor = (String) ((Map<?, ?>) first.get("page")).get("nextCursor");
+
+        // 翻页之间删除已返回的项目，下一页仍从项目101开始，不会跳过
+        cache.projectDeleted(100L);
+        Map<String, Object> second = cache.snapshotUserGantt(1L, GanttWindow.of(null, null, null, 1, cursor)).toMap();
+        assertEquals(1, tracks(second).size());
+        assertEquals("project_101", tracks(second).get(0).get("id"));
+        assertEquals(2, ((Map<?, ?>) second.get("page")).get("total"));
+        assertEquals(true, ((Map<?, ?>) second.get("page")).get("hasMore"));
+    }
+
+    private GanttModelCache newCache(int maxTracks) {
+        return new GanttModelCache(projectMapper, todoMapper, userMapper, new MilestoneCache(100), membershipIndex, 10,
+                maxTracks, 600);
+    }
+
+    /**
+     * 用户全局甘特图的完整输出
+     */
+    private static Map<String, Object> gantt(GanttModelCache cache, Long userId) {
+        return cache.snapshotUserGantt(userId, GanttWindow.ALL).toMap();
+    }
+
+    /**
+     * 关系索引中用户相关的项目，按主键查询时返回对应项目
+     */
+    private void relate(Long userId, Project... projects) {
+        when(membershipIndex.getProjectIds(userId))
+                .thenReturn(Arrays.stream(projects).map(Project::getId).collect(Collectors.toList()));
+        for (Project project : projects) {
+            knownProjects.put(project.getId(), project);
+            projectUsers.computeIfAbsent(project.getId(), id -> new HashSet<>()).add(userId);
+        }
+        lenient().when(membershipIndex.getUserIds(any())).thenAnswer(invocation ->
+                new ArrayList<>(projectUsers.getOrDefault(invocation.<Long>getArgument(0), Collections.emptySet())));
+        when(projectMapper.selectBatchIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(knownProjects::get).collect(Collectors.toList());
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> tracks(Map<String, Object> gantt) {
+        return (List<Map<String, Object>>) gantt.get("taskTracks");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> tasks(Map<String, Object> track) {
+        return (List<Map<String, Object>>) track.get("tasks");
+    }
+
+    private Project project(Long id, Long creatorId) {
+        Project project = new Project();
+        project.setId(id);
+        project.setName("项目" + id);
+        project.setCreatorId(creatorId);
+        project.setStatus("PROGRESS");
+        project.setProgress(50);
+        project.setCreateTime(LocalDateTime.now().minusDays(200 - id));
+        return project;
+    }
+
+    private Todo todo(Long id, Long projectId, Long assigneeId) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setTitle("任务" + id);
+        todo.setProjectId(projectId);
+        todo.setAssigneeId(assigneeId);
+        todo.setStatus("TODO");
+        todo.setDueDate(LocalDate.now().plusDays(3));
+        todo.setCreateTime(LocalDateTime.now().minusDays(1));
+        return todo;
+    }
+
+    private User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        return user;
+    }
+}
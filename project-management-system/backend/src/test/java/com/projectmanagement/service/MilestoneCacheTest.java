@@ -0,0 +1,72 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.entity.Project;
+import com.projectmanagement.service.impl.Milestone;
+import com.projectmanagement.service.impl.MilestoneCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 项目里程碑解析缓存测试
+ */
+class MilestoneCacheTest {
+
+    private static final String MILESTONES = "[{\"name\":\"需求评审\",\"status\":\"COMPLETED\",\"dueDate\":\"2025-01-10\"},"
+            + "{\"name\":\"开发完成\",\"status\":\"PROGRESS\",\"dueDate\":\"2025-02-20\"},"
+            + "{\"name\":\"上线\",\"status\":\"PENDING\",\"dueDate\":\"待定\"}]";
+
+    @Test
+    void testGet_ParsesOncePerProjectVersion() {
+        MilestoneCache cache = new MilestoneCache(10);
+        LocalDateTime updateTime = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+        List<Milestone> first = cache.get(project(1L, MILESTONES, updateTime));
+        List<Milestone> second = cache.get(project(1L, MILESTONES, updateTime));
+
+        assertSame(first, second);
+        assertEquals(1L, cache.getStats().get("parses"));
+        assertEquals(3, first.size());
+        assertTrue(first.get(0).isCompleted());
+        assertEquals(LocalDate.of(2025, 2, 20), first.get(1).getDueDate());
+        // 日期格式错误时保留原始字符串
+        assertNull(first.get(2).getDueDate());
+        assertTrue(first.get(2).hasDueDateText());
+    }
+
+    @Test
+    void testGet_ReparsesWhenProjectChanges() {
+        MilestoneCache cache = new MilestoneCache(10);
+        LocalDateTime updateTime = LocalDateTime.of(2025, 1, 1, 10, 0);
+        List<Milestone> first = cache.get(project(1L, MILESTONES, updateTime));
+
+        // 更新时间变化
+        assertNotSame(first, cache.get(project(1L, MILESTONES, updateTime.plusSeconds(1))));
+        // 同一秒内修改了内容
+        String changed = "[{\"name\":\"开发完成\",\"status\":\"COMPLETED\",\"dueDate\":\"2025-02-20\"}]";
+        List<Milestone> updated = cache.get(project(1L, changed, updateTime.plusSeconds(1)));
+        assertEquals(1, updated.size());
+        assertTrue(updated.get(0).isCompleted());
+        assertEquals(3L, cache.getStats().get("parses"));
+    }
+
+    @Test
+    void testGet_InvalidJsonReturnsEmptyList() {
+        MilestoneCache cache = new MilestoneCache(10);
+
+        assertTrue(cache.get(project(1L, "not json", LocalDateTime.now())).isEmpty());
+        assertTrue(cache.get(project(2L, " ", LocalDateTime.now())).isEmpty());
+    }
+
+    private Project project(Long id, String milestones, LocalDateTime updateTime) {
+        Project project = new Project();
+        project.setId(id);
+        project.setMilestones(milestones);
+        project.setUpdateTime(updateTime);
+        return project;
+    }
+}
@@ -0,0 +1,99 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.entity.Project;
+import com.projectmanagement.service.impl.ProjectListCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 项目列表缓存测试
+ */
+class ProjectListCacheTest {
+
+    private final ProjectListCache cache = new ProjectListCache(60, 100);
+
+    @Test
+    void testGet_RepeatedReadsHitCache() {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<Project>> loader = counting(loads, project(1L));
+
+        cache.get(ProjectListCache.VIEW_USER, 10L, loader);
+        List<Project> second = cache.get(ProjectListCache.VIEW_USER, 10L, loader);
+        // 不同视图分别缓存
+        cache.get(ProjectListCache.VIEW_USER_OVERVIEW, 10L, loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(1, second.size());
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(2L, stats.get("misses"));
+    }
+
+    @Test
+    void testProjectChanged_InvalidatesOnlyAffectedViews() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(ProjectListCache.VIEW_ALL, null, counting(loads, project(1L), project(2L)));
+        cache.get(ProjectListCache.VIEW_USER, 10L, counting(loads, project(1L)));
+        cache.get(ProjectListCache.VIEW_USER, 20L, counting(loads, project(2L)));
+        cache.get(ProjectListCache.VIEW_USER, 30L, counting(loads));
+
+        // 项目1被修改，负责人改为用户30
+        cache.projectChanged(1L, Arrays.asList(10L, 30L));
+
+        assertEquals(3L, cache.getStats().get("invalidations"), "全局视图、用户10和用户30的视图失效");
+        int before = loads.get();
+        cache.get(ProjectListCache.VIEW_USER, 20L, counting(loads, project(2L)));
+        assertEquals(before, loads.get());
+        cache.get(ProjectListCache.VIEW_USER, 10L, counting(loads, project(1L)));
+        assertEquals(before + 1, loads.get());
+    }
+
+    @Test
+    void testMembershipChanged_InvalidatesUserViews() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(ProjectListCache.VIEW_USER, 10L, counting(loads, project(1L)));
+        cache.get(ProjectListCache.VIEW_ALL, null, counting(loads, project(1L)));
+
+        cache.membershipChanged(Collections.singletonList(10L));
+
+        cache.get(ProjectListCache.VIEW_USER, 10L, counting(loads, project(1L), project(2L)));
+        cache.get(ProjectListCache.VIEW_ALL, null, counting(loads, project(1L)));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testGet_LoadRacingWithInvalidationIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(ProjectListCache.VIEW_USER, 10L, () -> {
+            loads.incrementAndGet();
+            // 加载期间发生写入
+            cache.projectChanged(1L, Collections.singletonList(10L));
+            return Collections.singletonList(project(1L));
+        });
+
+        cache.get(ProjectListCache.VIEW_USER, 10L, counting(loads, project(1L)));
+        assertEquals(2, loads.get());
+    }
+
+    private Supplier<List<Project>> counting(AtomicInteger loads, Project... projects) {
+        return () -> {
+            loads.incrementAndGet();
+            return Arrays.asList(projects);
+        };
+    }
+
+    private Project project(Long id) {
+        Project project = new Project();
+        project.setId(id);
+        project.setName("项目" + id);
+        return project;
+    }
+}
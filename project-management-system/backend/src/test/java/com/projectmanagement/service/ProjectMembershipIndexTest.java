@@ -0,0 +1,116 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.mapper.ProjectMapper;
+import com.projectmanagement.service.impl.ProjectMembershipIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用户-项目关系索引测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ProjectMembershipIndexTest {
+
+    @Mock
+    private ProjectMapper projectMapper;
+
+    private ProjectMembershipIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProjectMembershipIndex(projectMapper, 1800);
+    }
+
+    @Test
+    void testGetProjectIds_BuildsOnceFromAllRelations() {
+        when(projectMapper.selectProjectUserRelations(isNull()))
+                .thenReturn(Arrays.asList(relation(1L, 10L), relation(1L, 20L), relation(2L, 20L), relation(3L, 30L)));
+
+        assertEquals(Arrays.asList(1L, 2L), sorted(index.getProjectIds(20L)));
+        assertEquals(Arrays.asList(1L), index.getProjectIds(10L));
+        assertTrue(index.getProjectIds(99L).isEmpty());
+
+        verify(projectMapper, times(1)).selectProjectUserRelations(any());
+        assertEquals(3L, index.getStats().get("lookups"));
+        assertEquals(4L, index.getStats().get("relations"));
+    }
+
+    @Test
+    void testProjectChanged_AppliesDifferenceOfOneProject() {
+        when(projectMapper.selectProjectUserRelations(isNull()))
+                .thenReturn(Arrays.asList(relation(1L, 10L), relation(1L, 20L), relation(2L, 20L)));
+        index.getProjectIds(10L);
+
+        // 项目1的待办任务负责人由用户20改为用户30
+        when(projectMapper.selectProjectUserRelations(1L)).thenReturn(Arrays.asList(relation(1L, 10L), relation(1L, 30L)));
+        // 没有事务时立即修正
+        index.projectChanged(1L);
+
+        assertEquals(Arrays.asList(2L), index.getProjectIds(20L));
+        assertEquals(Arrays.asList(1L), index.getProjectIds(30L));
+        assertEquals(Arrays.asList(1L), index.getProjectIds(10L));
+
+        // 项目删除后不再与任何用户相关
+        when(projectMapper.selectProjectUserRelations(1L)).thenReturn(new ArrayList<>());
+        index.projectChanged(1L);
+        assertTrue(index.getProjectIds(10L).isEmpty());
+        assertEquals(1, index.getStats().get("projects"));
+    }
+
+    @Test
+    void testProjectChanged_BeforeBuildDoesNotQuery() {
+        index.projectChanged(1L);
+
+        verify(projectMapper, never()).selectProjectUserRelations(any());
+    }
+
+    @Test
+    void testProjectChanged_ManyProjectsOfOneUser() {
+        List<Map<String, Object>> relations = new ArrayList<>();
+        for (long projectId = 1; projectId <= 1000; projectId++) {
+            relations.add(relation(projectId, 10L));
+        }
+        when(projectMapper.selectProjectUserRelations(isNull())).thenReturn(relations);
+        assertEquals(1000, index.getProjectIds(10L).size());
+
+        // 移除一半项目后其余项目仍能查到
+        when(projectMapper.selectProjectUserRelations(any(Long.class))).thenReturn(new ArrayList<>());
+        for (long projectId = 2; projectId <= 1000; projectId += 2) {
+            index.projectChanged(projectId);
+        }
+        List<Long> remaining = sorted(index.getProjectIds(10L));
+        assertEquals(500, remaining.size());
+        assertEquals(Long.valueOf(1L), remaining.get(0));
+        assertEquals(Long.valueOf(999L), remaining.get(499));
+    }
+
+    private List<Long> sorted(List<Long> values) {
+        List<Long> copy = new ArrayList<>(values);
+        copy.sort(null);
+        return copy;
+    }
+
+    private Map<String, Object> relation(Long projectId, Long userId) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("project_id", projectId);
+        row.put("user_id", userId);
+        return row;
+    }
+}
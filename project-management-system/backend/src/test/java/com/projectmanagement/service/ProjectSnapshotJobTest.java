@@ -0,0 +1,165 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.entity.Project;
+import com.projectmanagement.entity.ProjectSnapshot;
+import com.projectmanagement.mapper.ProjectMapper;
+import com.projectmanagement.mapper.ProjectSnapshotMapper;
+import com.projectmanagement.service.impl.MilestoneCache;
+import com.projectmanagement.service.impl.ProjectSnapshotJob;
+import com.projectmanagement.service.impl.ProjectSnapshotSummary;
+import org.apache.ibatis.annotations.Select;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 项目每日快照任务测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ProjectSnapshotJobTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 15);
+
+    @Mock
+    private ProjectSnapshotMapper snapshotMapper;
+
+    @Mock
+    private ProjectMapper projectMapper;
+
+    private ProjectSnapshotJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new ProjectSnapshotJob(snapshotMapper, projectMapper, new MilestoneCache(100), 3);
+    }
+
+    @Test
+    void testSnapshot_OneRowPerProjectIncludingProjectsWithoutTodos() {
+        ProjectSnapshot stats = new ProjectSnapshot();
+        stats.setProjectId(1L);
+        stats.setOpenCount(4);
+        stats.setProgressCount(2);
+        stats.setCompletedCount(1);
+        when(snapshotMapper.selectTodoStats(eq(DAY), any(), any())).thenReturn(Collections.singletonList(stats));
+        when(projectMapper.selectList(any())).thenReturn(Arrays.asList(project(1L), project(2L)));
+        List<ProjectSnapshot> written = new ArrayList<>();
+        when(snapshotMapper.upsertBatch(anyCollection())).thenAnswer(invocation -> {
+            Collection<ProjectSnapshot> batch = invocation.getArgument(0);
+            written.addAll(batch);
+            return batch.size();
+        });
+
+        assertEquals(2, job.snapshot(DAY));
+
+        assertEquals(2, written.size());
+        ProjectSnapshot first = written.get(0);
+        assertEquals(DAY, first.getSnapshotDate());
+        assertEquals(4, first.getOpenCount());
+        assertEquals(0, first.getDoneCount());
+        assertEquals("PROGRESS", first.getProjectStatus());
+        assertEquals("项目1", first.getMilestoneName());
+        assertEquals(40, first.getMilestoneProgress());
+        ProjectSnapshot empty = written.get(1);
+        assertEquals(2L, empty.getProjectId());
+        assertEquals(0, empty.getOpenCount());
+        verify(snapshotMapper, times(1)).upsertBatch(anyCollection());
+    }
+
+    @Test
+    void testSnapshotThrough_OnlyWritesMissingDaysWithinBackfillLimit() {
+        when(projectMapper.selectList(any())).thenReturn(Collections.emptyList());
+
+        // 已是最新，不重算
+        when(snapshotMapper.selectLatestDate()).thenReturn(DAY);
+        assertEquals(0, job.snapshotThrough(DAY));
+
+        // 缺两天，只补写缺失的日期
+        when(snapshotMapper.selectLatestDate()).thenReturn(DAY.minusDays(2));
+        assertEquals(2, job.snapshotThrough(DAY));
+        verify(snapshotMapper).selectTodoStats(eq(DAY.minusDays(1)), any(), any());
+        verify(snapshotMapper).selectTodoStats(eq(DAY), any(), any());
+
+        // 长时间未运行时最多补写3天
+        when(snapshotMapper.selectLatestDate()).thenReturn(DAY.minusDays(30));
+        assertEquals(3, job.snapshotThrough(DAY));
+        verify(snapshotMapper, never()).selectTodoStats(eq(DAY.minusDays(3)), any(), any());
+    }
+
+    @Test
+    void testSnapshotThrough_BackfilledDayCountsLaterCompletionsAsSlips() throws Exception {
+        when(projectMapper.selectList(any())).thenReturn(Collections.emptyList());
+        when(snapshotMapper.selectLatestDate()).thenReturn(DAY.minusDays(2));
+
+        assertEquals(2, job.snapshotThrough(DAY));
+
+        // 补写的日期以当天结束为界，之后完成的任务在当天仍算到期未完成
+        verify(snapshotMapper).selectTodoStats(DAY.minusDays(1), DAY.minusDays(1).atStartOfDay(), DAY.atStartOfDay());
+        String sql = String.join("", ProjectSnapshotMapper.class
+                .getMethod("selectTodoStats", LocalDate.class, LocalDateTime.class, LocalDateTime.class)
+                .getAnnotation(Select.class).value());
+        assertTrue(sql.contains("SUM(due_date = #{date} AND (status != 'DONE' OR completed_time >= #{dayEnd}))"
+                + " AS slipped_count"));
+        assertTrue(sql.contains("SUM(due_date <= #{date} AND (status != 'DONE' OR completed_time >= #{dayEnd}))"
+                + " AS overdue_count"));
+    }
+
+    @Test
+    void testSummary_SumsPeriodAndUsesEndOfPeriodState() {
+        List<ProjectSnapshot> snapshots = Arrays.asList(
+                snapshot(1L, DAY.minusDays(2), 2, 1, 5, 3),
+                snapshot(1L, DAY.minusDays(1), 1, 0, 4, 2),
+                snapshot(1L, DAY, 3, 2, 2, 1),
+                // 期末没有快照的项目不汇总
+                snapshot(2L, DAY.minusDays(1), 1, 0, 1, 1));
+
+        ProjectSnapshotSummary summary = ProjectSnapshotSummary.of(snapshots, DAY);
+
+        ProjectSnapshotSummary.PeriodStats stats = summary.get(1L);
+        assertEquals(6, stats.getCompleted());
+        assertEquals(3, stats.getSlipped());
+        assertEquals(2, stats.getOpen());
+        assertEquals(1, stats.getInProgress());
+        assertNull(summary.get(2L));
+        assertTrue(ProjectSnapshotSummary.of(Collections.emptyList(), DAY).isEmpty());
+    }
+
+    private static Project project(Long id) {
+        Project project = new Project();
+        project.setId(id);
+        project.setName("项目" + id);
+        project.setStatus("PROGRESS");
+        project.setProgress(40);
+        return project;
+    }
+
+    private static ProjectSnapshot snapshot(Long projectId, LocalDate date, int completed, int slipped, int open,
+            int inProgress) {
+        ProjectSnapshot snapshot = new ProjectSnapshot();
+        snapshot.setProjectId(projectId);
+        snapshot.setSnapshotDate(date);
+        snapshot.setCompletedCount(completed);
+        snapshot.setSlippedCount(slipped);
+        snapshot.setOpenCount(open);
+        snapshot.setProgressCount(inProgress);
+        return snapshot;
+    }
+}
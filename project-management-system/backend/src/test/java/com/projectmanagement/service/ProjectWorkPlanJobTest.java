@@ -0,0 +1,155 @@
+package com.projectmanagement.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.projectmanagement.entity.Project;
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.mapper.ProjectMapper;
+import com.projectmanagement.mapper.TodoMapper;
+import com.projectmanagement.service.impl.MilestoneCache;
+import com.projectmanagement.service.impl.ProjectListCache;
+import com.projectmanagement.service.impl.ProjectWorkPlanJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 项目工作计划批量更新任务测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ProjectWorkPlanJobTest {
+
+    @Mock
+    private ProjectMapper projectMapper;
+
+    @Mock
+    private TodoMapper todoMapper;
+
+    private final List<Project> projects = Arrays.asList(project(1L), project(2L), project(3L));
+
+    private final List<List<Project>> updatedChunks = new ArrayList<>();
+
+    private final ProjectListCache projectListCache = new ProjectListCache(60, 100);
+
+    private ProjectWorkPlanJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new ProjectWorkPlanJob(projectMapper, todoMapper, projectListCache, new MilestoneCache(10),
+                Runnable::run, 2);
+        when(projectMapper.selectCount(any())).thenReturn((long) projects.size());
+        // 按断点返回下一块项目
+        when(projectMapper.selectList(any())).thenAnswer(invocation -> {
+            QueryWrapper<Project> wrapper = invocation.getArgument(0);
+            wrapper.getSqlSegment();
+            long cursor = (Long) wrapper.getParamNameValuePairs().values().iterator().next();
+            return projects.stream().filter(p -> p.getId() > cursor).limit(2).collect(Collectors.toList());
+        });
+        when(todoMapper.selectList(any())).thenReturn(Arrays.asList(todo(10L, 1L, "DONE"), todo(11L, 3L, "PROGRESS")));
+    }
+
+    @Test
+    void testRun_ProcessesProjectsInChunksWithOneUpdatePerChunk() {
+        recordUpdates();
+
+        Map<String, Object> result = job.run(7, true);
+
+        assertEquals(ProjectWorkPlanJob.STATUS_COMPLETED, result.get("status"));
+        assertEquals(3, result.get("processed"));
+        assertEquals(100L, result.get("percent"));
+        verify(projectMapper, times(2)).selectList(any());
+        verify(todoMapper, times(2)).selectList(any());
+        assertEquals(2, updatedChunks.size());
+        assertEquals(2, updatedChunks.get(0).size());
+        Project third = updatedChunks.get(1).get(0);
+        assertEquals(3L, third.getId());
+        assertTrue(third.getThisWeekWork().contains("进行中任务"));
+    }
+
+    @Test
+    void testRun_InvalidatesProjectOverviews() {
+        recordUpdates();
+        projectListCache.get(ProjectListCache.VIEW_OVERVIEW, null, () -> new ArrayList<>(projects));
+        projectListCache.get(ProjectListCache.VIEW_USER_OVERVIEW, 5L, () -> Arrays.asList(project(3L)));
+        projectListCache.get(ProjectListCache.VIEW_USER_OVERVIEW, 6L, () -> Arrays.asList(project(9L)));
+
+        job.run(7, true);
+
+        List<Long> loaded = new ArrayList<>();
+        projectListCache.get(ProjectListCache.VIEW_OVERVIEW, null, () -> {
+            loaded.add(0L);
+            return new ArrayList<>();
+        });
+        projectListCache.get(ProjectListCache.VIEW_USER_OVERVIEW, 5L, () -> {
+            loaded.add(5L);
+            return new ArrayList<>();
+        });
+        projectListCache.get(ProjectListCache.VIEW_USER_OVERVIEW, 6L, () -> {
+            loaded.add(6L);
+            return new ArrayList<>();
+        });
+        // 不包含已更新项目的用户视图仍命中缓存
+        assertEquals(Arrays.asList(0L, 5L), loaded);
+    }
+
+    @Test
+    void testRun_ResumesFromLastCommittedChunk() {
+        when(projectMapper.updateWorkPlans(anyList()))
+                .thenAnswer(invocation -> copyUpdates(invocation.getArgument(0)))
+                .thenThrow(new RuntimeException("连接中断"))
+                .thenAnswer(invocation -> copyUpdates(invocation.getArgument(0)));
+
+        Map<String, Object> failed = job.run(7, true);
+        assertEquals(ProjectWorkPlanJob.STATUS_FAILED, failed.get("status"));
+        assertEquals(2, failed.get("processed"));
+        assertEquals(2L, failed.get("lastProjectId"));
+
+        Map<String, Object> resumed = job.run(7, true);
+        assertEquals(ProjectWorkPlanJob.STATUS_COMPLETED, resumed.get("status"));
+        assertEquals(3, resumed.get("processed"));
+        // 断点之前的项目不再重复处理
+        assertEquals(Arrays.asList(1L, 2L, 3L), updatedChunks.stream().flatMap(List::stream)
+                .map(Project::getId).collect(Collectors.toList()));
+    }
+
+    private void recordUpdates() {
+        when(projectMapper.updateWorkPlans(anyList())).thenAnswer(invocation -> copyUpdates(invocation.getArgument(0)));
+    }
+
+    private int copyUpdates(List<Project> chunk) {
+        updatedChunks.add(new ArrayList<>(chunk));
+        return chunk.size();
+    }
+
+    private Project project(Long id) {
+        Project project = new Project();
+        project.setId(id);
+        project.setName("项目" + id);
+        return project;
+    }
+
+    private Todo todo(Long id, Long projectId, String status) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setProjectId(projectId);
+        todo.setTitle("任务" + id);
+        todo.setStatus(status);
+        todo.setCompletedTime("DONE".equals(status) ? LocalDateTime.now() : null);
+        return todo;
+    }
+}
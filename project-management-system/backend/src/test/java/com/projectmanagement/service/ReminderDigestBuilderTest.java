@@ -0,0 +1,218 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.entity.EmailReminderLedger;
+import com.projectmanagement.entity.EmailSendQueue;
+import com.projectmanagement.entity.Project;
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.entity.User;
+import com.projectmanagement.entity.UserEmailPreference;
+import com.projectmanagement.mapper.EmailSendQueueMapper;
+import com.projectmanagement.mapper.ProjectMapper;
+import com.projectmanagement.mapper.UserEmailPreferenceMapper;
+import com.projectmanagement.mapper.UserMapper;
+import com.projectmanagement.service.impl.ReminderDigestBuilder;
+import com.projectmanagement.service.impl.ReminderLedger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 提醒摘要构建器测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ReminderDigestBuilderTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private ProjectMapper projectMapper;
+
+    @Mock
+    private UserEmailPreferenceMapper userEmailPreferenceMapper;
+
+    @Mock
+    private EmailSendQueueMapper emailSendQueueMapper;
+
+    @Mock
+    private ReminderLedger reminderLedger;
+
+    private ReminderDigestBuilder builder;
+
+    @BeforeEach
+    void setUp() {
+        builder = new ReminderDigestBuilder(userMapper, projectMapper, userEmailPreferenceMapper,
+                emailSendQueueMapper, reminderLedger);
+    }
+
+    @Test
+    void testEnqueueDeadlineDigests_OneDigestPerRecipientWithConstantQueries() {
+        LocalDate today = LocalDate.now();
+        List<Todo> tasks = Arrays.asList(
+                todo(1L, 10L, 100L, today.plusDays(2), true),
+                todo(2L, 10L, 101L, today, true),
+                todo(3L, 11L, 100L, today.plusDays(1), true),
+                todo(4L, 11L, null, today.plusDays(1), false),
+                todo(5L, 12L, 101L, today.plusDays(3), true));
+
+        when(userMapper.selectBatchIds(anyCollection()))
+                .thenReturn(Arrays.asList(user(10L), user(11L), user(12L)));
+        when(userEmailPreferenceMapper.selectList(any()))
+                .thenReturn(Arrays.asList(preference(10L, true), preference(11L, true), preference(12L, false)));
+        when(projectMapper.selectBatchIds(anyCollection()))
+                .thenReturn(Arrays.asList(project(100L, "项目A"), project(101L, "项目B")));
+        claimAll();
+
+        // 写入后暂存列表会被清空，这里保存一份副本
+        List<EmailSendQueue> queued = new ArrayList<>();
+        when(emailSendQueueMapper.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<EmailSendQueue> batch = invocation.getArgument(0);
+            queued.addAll(batch);
+            return batch.size();
+        });
+
+        int enqueued = builder.enqueueDeadlineDigests(tasks, 0L, "DEADLINE_REMINDER");
+
+        assertEquals(2, enqueued);
+        verify(userMapper, times(1)).selectBatchIds(anyCollection());
+        verify(projectMapper, times(1)).selectBatchIds(anyCollection());
+        verify(userEmailPreferenceMapper, times(1)).selectList(any());
+        verify(projectMapper, never()).selectById(any());
+        verify(userMapper, never()).selectById(any());
+
+        verify(emailSendQueueMapper, times(1)).insertBatch(anyList());
+        assertEquals(2, queued.size());
+
+        EmailSendQueue first = queued.get(0);
+        assertEquals(10L, first.getUserId());
+        assertEquals("DEADLINE_REMINDER", first.getEmailType());
+        assertEquals("user10@example.com", first.getRecipientEmail());
+        // 按截止日期排序，今天到期的任务排在前面
+        String variables = first.getTemplateVariables();
+        assertTrue(variables.indexOf("任务2") < variables.indexOf("任务1"));
+        assertTrue(variables.contains("项目A") && variables.contains("项目B"));
+
+        // 未启用邮件通知的任务不计入摘要
+        assertTrue(queued.get(1).getTemplateVariables().contains("\"taskCount\":1"));
+    }
+
+    @Test
+    void testEnqueueOverdueDigests_NoEnabledTasksSkipsQueries() {
+        List<Todo> tasks = Arrays.asList(todo(1L, 10L, 100L, LocalDate.now().minusDays(2), false));
+
+        assertEquals(0, builder.enqueueOverdueDigests(tasks));
+        verify(userMapper, never()).selectBatchIds(anyCollection());
+        verify(emailSendQueueMapper, never()).insertBatch(any());
+    }
+
+    @Test
+    void testEnqueueDeadlineDigests_SkipsTasksAlreadyReminded() {
+        LocalDate today = LocalDate.now();
+        List<Todo> tasks = Arrays.asList(
+                todo(1L, 10L, 100L, today.plusDays(1), true),
+                todo(2L, 10L, 100L, today.plusDays(2), true),
+                todo(3L, 11L, 100L, today.plusDays(1), true));
+
+        when(userMapper.selectBatchIds(anyCollection())).thenReturn(Arrays.asList(user(10L), user(11L)));
+        when(userEmailPreferenceMapper.selectList(any()))
+                .thenReturn(Arrays.asList(preference(10L, true), preference(11L, true)));
+        when(projectMapper.selectBatchIds(anyCollection())).thenReturn(Arrays.asList(project(100L, "项目A")));
+        // 用户11的任务当天已提醒过，用户10只剩任务2未提醒
+        Set<String> claimed = new HashSet<>(Collections.singletonList(ReminderLedger.key(2L, 10L)));
+        when(reminderLedger.claim(eq("DEADLINE_REMINDER"), eq(7L), eq(today), anyCollection())).thenReturn(claimed);
+
+        List<EmailSendQueue> queued = new ArrayList<>();
+        when(emailSendQueueMapper.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<EmailSendQueue> batch = invocation.getArgument(0);
+            queued.addAll(batch);
+            return batch.size();
+        });
+
+        assertEquals(1, builder.enqueueDeadlineDigests(tasks, 7L, "RULE_TEMPLATE"));
+        assertEquals(1, queued.size());
+        assertEquals(10L, queued.get(0).getUserId());
+        assertEquals("RULE_TEMPLATE", queued.get(0).getTemplateCode());
+        String variables = queued.get(0).getTemplateVariables();
+        assertTrue(variables.contains("任务2") && !variables.contains("任务1"));
+    }
+
+    @Test
+    void testEnqueueDeadlineDigests_AllRemindedSkipsInsert() {
+        List<Todo> tasks = Arrays.asList(todo(1L, 10L, 100L, LocalDate.now().plusDays(1), true));
+        when(userMapper.selectBatchIds(anyCollection())).thenReturn(Arrays.asList(user(10L)));
+        when(userEmailPreferenceMapper.selectList(any())).thenReturn(Arrays.asList(preference(10L, true)));
+        when(reminderLedger.claim(any(), any(), any(), anyCollection())).thenReturn(Collections.emptySet());
+
+        assertEquals(0, builder.enqueueDeadlineDigests(tasks, 0L, "DEADLINE_REMINDER"));
+        verify(emailSendQueueMapper, never()).insertBatch(any());
+    }
+
+    /**
+     * 台账对所有候选提醒都登记成功
+     */
+    private void claimAll() {
+        when(reminderLedger.claim(any(), any(), any(), anyCollection())).thenAnswer(invocation -> {
+            Set<String> claimed = new HashSet<>();
+            Collection<EmailReminderLedger> candidates = invocation.getArgument(3);
+            candidates.forEach(entry -> claimed.add(ReminderLedger.key(entry.getTodoId(), entry.getUserId())));
+            return claimed;
+        });
+    }
+
+    private Todo todo(Long id, Long assigneeId, Long projectId, LocalDate dueDate, boolean emailEnabled) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setTitle("任务" + id);
+        todo.setAssigneeId(assigneeId);
+        todo.setProjectId(projectId);
+        todo.setDueDate(dueDate);
+        todo.setPriority("HIGH");
+        todo.setStatus("TODO");
+        todo.setEmailEnabled(emailEnabled);
+        return todo;
+    }
+
+    private User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setEmail("user" + id + "@example.com");
+        return user;
+    }
+
+    private UserEmailPreference preference(Long userId, boolean deadlineReminder) {
+        UserEmailPreference preference = new UserEmailPreference();
+        preference.setUserId(userId);
+        preference.setEnableEmail(true);
+        preference.setDeadlineReminder(deadlineReminder);
+        return preference;
+    }
+
+    private Project project(Long id, String name) {
+        Project project = new Project();
+        project.setId(id);
+        project.setName(name);
+        return project;
+    }
+}
@@ -0,0 +1,111 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.entity.EmailReminderLedger;
+import com.projectmanagement.mapper.EmailReminderLedgerMapper;
+import com.projectmanagement.service.impl.ReminderLedger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 提醒去重台账测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ReminderLedgerTest {
+
+    @Mock
+    private EmailReminderLedgerMapper ledgerMapper;
+
+    private ReminderLedger ledger;
+
+    /**
+     * 模拟数据库中已登记的记录
+     */
+    private final List<EmailReminderLedger> recorded = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ledger = new ReminderLedger(ledgerMapper);
+    }
+
+    @Test
+    void testClaim_FirstRunClaimsAllWithoutLookup() {
+        mockInsert(Collections.emptyList());
+        LocalDate today = LocalDate.now();
+
+        Set<String> claimed = ledger.claim("DEADLINE_REMINDER", 0L, today,
+                Arrays.asList(ReminderLedger.entry(1L, 10L), ReminderLedger.entry(2L, 10L)));
+
+        assertEquals(2, claimed.size());
+        assertTrue(claimed.contains(ReminderLedger.key(1L, 10L)));
+        // 布隆过滤器为空，无需到台账表确认
+        verify(ledgerMapper, never()).selectRecorded(any(), any(), any(), anyCollection());
+    }
+
+    @Test
+    void testClaim_RerunSkipsRecordedAfterSingleLookup() {
+        mockInsert(Collections.emptyList());
+        LocalDate today = LocalDate.now();
+        ledger.claim("DEADLINE_REMINDER", 0L, today, Arrays.asList(ReminderLedger.entry(1L, 10L)));
+        when(ledgerMapper.selectRecorded(any(), anyString(), any(), anyCollection()))
+                .thenReturn(Collections.singletonList(row(1L, 10L)));
+
+        Set<String> claimed = ledger.claim("DEADLINE_REMINDER", 0L, today,
+                Arrays.asList(ReminderLedger.entry(1L, 10L)));
+
+        assertTrue(claimed.isEmpty());
+        verify(ledgerMapper, times(1)).selectRecorded(any(), anyString(), any(), anyCollection());
+        verify(ledgerMapper, times(1)).insertIgnoreBatch(anyCollection(), anyString());
+    }
+
+    @Test
+    void testClaim_ConcurrentlyClaimedRowsAreNotReturned() {
+        // 另一节点已登记任务1，INSERT IGNORE 只写入了任务2
+        mockInsert(Collections.singletonList(1L));
+
+        Set<String> claimed = ledger.claim("OVERDUE_REMINDER", 0L, LocalDate.now(),
+                Arrays.asList(ReminderLedger.entry(1L, 10L), ReminderLedger.entry(2L, 10L)));
+
+        assertEquals(Collections.singleton(ReminderLedger.key(2L, 10L)), claimed);
+    }
+
+    /**
+     * 模拟 INSERT IGNORE：已被其他节点登记的任务不会带上本批次令牌
+     */
+    private void mockInsert(Collection<Long> takenTodoIds) {
+        when(ledgerMapper.insertIgnoreBatch(anyCollection(), anyString())).thenAnswer(invocation -> {
+            Collection<EmailReminderLedger> entries = invocation.getArgument(0);
+            recorded.clear();
+            for (EmailReminderLedger entry : entries) {
+                if (!takenTodoIds.contains(entry.getTodoId())) {
+                    recorded.add(row(entry.getTodoId(), entry.getUserId()));
+                }
+            }
+            return recorded.size();
+        });
+        when(ledgerMapper.selectByClaimToken(anyString())).thenAnswer(invocation -> new ArrayList<>(recorded));
+    }
+
+    private EmailReminderLedger row(Long todoId, Long userId) {
+        return ReminderLedger.entry(todoId, userId);
+    }
+}
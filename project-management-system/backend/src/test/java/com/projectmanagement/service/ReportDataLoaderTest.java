@@ -0,0 +1,125 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.entity.Project;
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.entity.User;
+import com.projectmanagement.mapper.ProjectMapper;
+import com.projectmanagement.mapper.ProjectSnapshotMapper;
+import com.projectmanagement.mapper.TodoMapper;
+import com.projectmanagement.mapper.UserMapper;
+import com.projectmanagement.service.impl.ReportDataLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 报告数据加载器测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ReportDataLoaderTest {
+
+    @Mock
+    private TodoMapper todoMapper;
+
+    @Mock
+    private ProjectMapper projectMapper;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private ProjectSnapshotMapper snapshotMapper;
+
+    private ReportDataLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        loader = new ReportDataLoader(todoMapper, projectMapper, userMapper, snapshotMapper);
+    }
+
+    @Test
+    void testLoad_BatchLoadsProjectsAndAssigneesOnce() {
+        List<Todo> todos = new ArrayList<>();
+        for (long i = 1; i <= 200; i++) {
+            todos.add(todo(i, 10L + i % 3, 100L + i % 5));
+        }
+        when(todoMapper.selectList(any())).thenReturn(todos);
+        List<Long> requestedProjects = new ArrayList<>();
+        when(projectMapper.selectBatchIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            requestedProjects.addAll(ids);
+            List<Project> projects = new ArrayList<>();
+            ids.forEach(id -> projects.add(project(id)));
+            return projects;
+        });
+        when(userMapper.selectList(any())).thenReturn(Arrays.asList(user(100L), user(101L), user(102L),
+                user(103L), user(104L)));
+
+        ReportDataLoader.ReportData data = loader.load("WEEKLY", LocalDate.of(2024, 5, 15), Arrays.asList(10L, 99L));
+
+        assertEquals(LocalDate.of(2024, 5, 9), data.getStartDate());
+        assertEquals(LocalDate.of(2024, 5, 15), data.getEndDate());
+        assertEquals(200, data.getTodos().size());
+        for (Todo todo : data.getTodos()) {
+            assertEquals(todo.getProjectId(), todo.getProject().getId());
+            assertEquals(todo.getAssigneeId(), todo.getAssignee().getId());
+        }
+        // 指定但没有任务的项目也一并加载
+        assertEquals(Arrays.asList(10L, 99L, 11L, 12L), requestedProjects);
+        assertNotNull(data.getProject(99L));
+
+        verify(todoMapper, times(1)).selectList(any());
+        verify(projectMapper, times(1)).selectBatchIds(anyCollection());
+        verify(userMapper, times(1)).selectList(any());
+        verify(projectMapper, never()).selectById(any());
+        verify(userMapper, never()).selectById(any());
+    }
+
+    @Test
+    void testWindowStart_ByReportType() {
+        LocalDate date = LocalDate.of(2024, 5, 15);
+        assertEquals(LocalDate.of(2024, 5, 9), ReportDataLoader.windowStart("WEEKLY", date));
+        assertEquals(LocalDate.of(2024, 5, 2), ReportDataLoader.windowStart("BIWEEKLY", date));
+        assertEquals(LocalDate.of(2024, 5, 1), ReportDataLoader.windowStart("MONTHLY", date));
+        assertEquals(LocalDate.of(2024, 4, 16), ReportDataLoader.windowStart("STAGE", date));
+    }
+
+    private static Todo todo(Long id, Long projectId, Long assigneeId) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setProjectId(projectId);
+        todo.setAssigneeId(assigneeId);
+        todo.setStatus("PROGRESS");
+        return todo;
+    }
+
+    private static Project project(Long id) {
+        Project project = new Project();
+        project.setId(id);
+        project.setName("项目" + id);
+        return project;
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setNickname("用户" + id);
+        return user;
+    }
+}
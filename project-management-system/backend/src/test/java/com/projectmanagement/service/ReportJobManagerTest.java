@@ -0,0 +1,158 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.dto.ReportDTO;
+import com.projectmanagement.entity.Report;
+import com.projectmanagement.exception.BusinessException;
+import com.projectmanagement.service.impl.ReportJob;
+import com.projectmanagement.service.impl.ReportJobManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 报告生成任务管理器测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ReportJobManagerTest {
+
+    @Mock
+    private ReportService reportService;
+
+    private final Deque<Runnable> queue = new ArrayDeque<>();
+
+    private int capacity = 10;
+
+    private ReportJobManager manager;
+
+    private String currentJobId;
+
+    @BeforeEach
+    void setUp() {
+        Executor executor = task -> {
+            if (queue.size() >= capacity) {
+                throw new RejectedExecutionException("full");
+            }
+            queue.add(task);
+        };
+        manager = new ReportJobManager(reportService, executor, 60);
+    }
+
+    @Test
+    void testSubmit_DeduplicatesIdenticalRequestsUntilFinished() {
+        Report report = new Report();
+        report.setId(7L);
+        when(reportService.generateReport(any(ReportDTO.class), any())).thenAnswer(invocation -> {
+            ReportService.ProgressListener listener = invocation.getArgument(1);
+            listener.onProgress(40, "生成报告内容");
+            return report;
+        });
+        when(reportService.getReportById(7L)).thenReturn(report);
+
+        ReportJob first = manager.submit(request(Arrays.asList(2L, 1L)));
+        ReportJob second = manager.submit(request(Arrays.asList(2L, 1L, 1L)));
+        assertSame(first, second);
+        assertEquals(1, queue.size());
+        assertThrows(BusinessException.class, () -> manager.getResult(first.getId()));
+
+        // 主项目不同的请求不复用
+        assertNotEquals(first.getId(), manager.submit(request(Arrays.asList(1L, 2L))).getId());
+        queue.pollLast();
+
+        queue.poll().run();
+        // 按请求中的顺序生成，主项目与同步生成一致
+        verify(reportService).generateReport(argThat(dto -> dto.getProjectIds().equals(Arrays.asList(2L, 1L))),
+                any());
+        assertEquals(ReportJob.SUCCEEDED, first.getStatus());
+        assertEquals(100, first.toMap().get("progress"));
+        assertSame(report, manager.getResult(first.getId()));
+
+        // 前一个任务结束后，相同请求重新生成
+        ReportJob third = manager.submit(request(Arrays.asList(2L, 1L)));
+        assertNotEquals(first.getId(), third.getId());
+        assertEquals(1L, manager.getStats().get("deduplicated"));
+    }
+
+    @Test
+    void testSubmit_DifferentCreatorsNotDeduplicated() {
+        ReportDTO mine = request(Arrays.asList(1L, 2L));
+        mine.setCreatorId(1L);
+        mine.setTitle("五月月报");
+        ReportDTO theirs = request(Arrays.asList(1L, 2L));
+        theirs.setCreatorId(2L);
+        theirs.setTitle("五月月报");
+        ReportDTO retitled = request(Arrays.asList(1L, 2L));
+        retitled.setCreatorId(1L);
+        retitled.setTitle("五月项目月报");
+
+        ReportJob first = manager.submit(mine);
+        assertNotSame(first, manager.submit(theirs));
+        assertNotSame(first, manager.submit(retitled));
+        assertEquals(3, queue.size());
+        assertEquals(0L, manager.getStats().get("deduplicated"));
+    }
+
+    @Test
+    void testCancel_QueuedJobNeverRuns() {
+        ReportJob job = manager.submit(request(Arrays.asList(1L)));
+        assertTrue(manager.cancel(job.getId()));
+        assertEquals(ReportJob.CANCELLED, job.getStatus());
+
+        queue.poll().run();
+        verify(reportService, never()).generateReport(any(ReportDTO.class), any());
+        assertFalse(manager.cancel(job.getId()));
+    }
+
+    @Test
+    void testCancel_RunningJobStopsAtNextStage() {
+        when(reportService.generateReport(any(ReportDTO.class), any())).thenAnswer(invocation -> {
+            ReportService.ProgressListener listener = invocation.getArgument(1);
+            listener.onProgress(10, "加载任务数据");
+            manager.cancel(currentJobId);
+            listener.onProgress(40, "生成报告内容");
+            fail("取消后不应继续生成");
+            return null;
+        });
+
+        ReportJob job = manager.submit(request(Arrays.asList(3L)));
+        currentJobId = job.getId();
+        queue.poll().run();
+
+        assertEquals(ReportJob.CANCELLED, job.getStatus());
+        assertEquals(1L, manager.getStats().get("cancelled"));
+        verify(reportService, times(1)).generateReport(any(ReportDTO.class), any());
+    }
+
+    @Test
+    void testSubmit_RejectsWhenQueueFull() {
+        capacity = 1;
+        manager.submit(request(Arrays.asList(1L)));
+        assertThrows(BusinessException.class, () -> manager.submit(request(Arrays.asList(2L))));
+        assertEquals(1L, manager.getStats().get("rejected"));
+    }
+
+    private static ReportDTO request(List<Long> projectIds) {
+        ReportDTO dto = new ReportDTO();
+        dto.setType("MONTHLY");
+        dto.setReportDate(LocalDate.of(2024, 5, 31));
+        dto.setProjectIds(projectIds);
+        return dto;
+    }
+}
@@ -0,0 +1,44 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.dto.ReportListQuery;
+import com.projectmanagement.dto.ReportSummary;
+import com.projectmanagement.exception.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 报告列表分页游标测试
+ */
+class ReportListQueryTest {
+
+    @Test
+    void cursorRoundTripsCreateTimeAndId() {
+        LocalDateTime created = LocalDateTime.of(2024, 5, 1, 9, 30);
+        ReportListQuery first = ReportListQuery.of(3L, "WEEKLY", null).page(null, 20);
+        assertFalse(first.isAfterCursor());
+        assertEquals(21, first.getFetchSize());
+
+        ReportListQuery next = ReportListQuery.of(3L, "WEEKLY", null).page(first.cursorAfter(summary(42L, created)), 20);
+        assertTrue(next.isAfterCursor());
+        assertEquals(created, next.getAfterCreateTime());
+        assertEquals(42L, next.getAfterId());
+        assertEquals(3L, next.getProjectId());
+        assertEquals("WEEKLY", next.getType());
+    }
+
+    @Test
+    void rejectsInvalidCursor() {
+        assertThrows(ValidationException.class, () -> ReportListQuery.of(null, null, null).page("not-a-cursor!", 10));
+        assertThrows(ValidationException.class, () -> ReportListQuery.of(null, null, null).page("YWJj", 10));
+    }
+
+    private static ReportSummary summary(Long id, LocalDateTime createTime) {
+        ReportSummary summary = new ReportSummary();
+        summary.setId(id);
+        summary.setCreateTime(createTime);
+        return summary;
+    }
+}
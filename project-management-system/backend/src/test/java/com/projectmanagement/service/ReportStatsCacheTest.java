@@ -0,0 +1,70 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.mapper.ReportMapper;
+import com.projectmanagement.service.impl.ReportStatsCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 报告统计缓存测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ReportStatsCacheTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 3, 31);
+
+    @Mock
+    private ReportMapper reportMapper;
+
+    @Test
+    void testGet_SingleGroupedQuery() {
+        when(reportMapper.countByType(START, END, 1L)).thenReturn(Arrays.asList(row("WEEKLY", 5L), row("MONTHLY", 2L),
+                row("DAILY", 1L)));
+        ReportStatsCache cache = new ReportStatsCache(reportMapper, 30, 10);
+
+        Map<String, Object> stats = cache.get(START, END, 1L);
+        cache.get(START, END, 1L);
+
+        assertEquals(5L, stats.get("weekly"));
+        assertEquals(0L, stats.get("biweekly"));
+        assertEquals(2L, stats.get("monthly"));
+        assertEquals(0L, stats.get("stage"));
+        assertEquals(8L, stats.get("total"));
+        verify(reportMapper, times(1)).countByType(START, END, 1L);
+        assertEquals(1L, cache.getStats().get("hits"));
+    }
+
+    @Test
+    void testReportsChanged_Invalidates() {
+        when(reportMapper.countByType(null, null, null)).thenReturn(Arrays.asList(row("STAGE", 1L)),
+                Arrays.asList(row("STAGE", 2L)));
+        ReportStatsCache cache = new ReportStatsCache(reportMapper, 30, 10);
+
+        assertEquals(1L, cache.get(null, null, null).get("stage"));
+        cache.reportsChanged();
+        assertEquals(2L, cache.get(null, null, null).get("total"));
+
+        verify(reportMapper, times(2)).countByType(null, null, null);
+        assertEquals(1L, cache.getStats().get("invalidations"));
+    }
+
+    private static Map<String, Object> row(String type, long count) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("type", type);
+        row.put("count", count);
+        return row;
+    }
+}
@@ -0,0 +1,79 @@
+package com.projectmanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.projectmanagement.dto.TodoDTO;
+import com.projectmanagement.exception.ValidationException;
+import com.projectmanagement.service.impl.TodoImportReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 待办任务批量导入数据读取测试
+ */
+class TodoImportReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final TodoImportReader reader = new TodoImportReader(objectMapper, 3);
+
+    @Test
+    void readsCsvWithQuotedFields() throws IOException {
+        String csv = "\uFEFFtitle,project_id,assigneeId,priority,dueDate,unknown\r\n"
+                + "\"设计, 评审\",1,2,high,2024-03-01,x\r\n"
+                + "\"多行\n描述里的\"\"引号\"\"\",1,3,,,\n"
+                + "\n";
+
+        List<TodoDTO> todos = reader.read(stream(csv), TodoImportReader.formatOf("text/csv; charset=UTF-8"));
+
+        assertEquals(2, todos.size());
+        assertEquals("设计, 评审", todos.get(0).getTitle());
+        assertEquals(1L, todos.get(0).getProjectId());
+        assertEquals(2L, todos.get(0).getAssigneeId());
+        assertEquals("HIGH", todos.get(0).getPriority());
+        assertEquals(LocalDate.of(2024, 3, 1), todos.get(0).getDueDate());
+        assertEquals("多行\n描述里的\"引号\"", todos.get(1).getTitle());
+        assertNull(todos.get(1).getPriority());
+    }
+
+    @Test
+    void readsNdjsonAndJsonArray() throws IOException {
+        String ndjson = "{\"title\":\"a\",\"projectId\":1}\n\n{\"title\":\"b\",\"dueDate\":\"2024-03-01\"}\n";
+        List<TodoDTO> lines = reader.read(stream(ndjson), TodoImportReader.formatOf("application/x-ndjson"));
+        assertEquals(2, lines.size());
+        assertEquals("b", lines.get(1).getTitle());
+
+        String array = "[{\"title\":\"a\"},{\"title\":\"b\",\"assigneeId\":5}]";
+        List<TodoDTO> items = reader.read(stream(array), TodoImportReader.formatOf("application/json"));
+        assertEquals(2, items.size());
+        assertEquals(5L, items.get(1).getAssigneeId());
+    }
+
+    @Test
+    void rejectsMalformedInputWithRowNumber() {
+        ValidationException badLine = assertThrows(ValidationException.class, () -> reader.read(
+                stream("{\"title\":\"a\"}\n{\"projectId\":\"x\"}\n"), TodoImportReader.FORMAT_NDJSON));
+        assertTrue(badLine.getMessage().contains("第 2 行"));
+
+        ValidationException badCell = assertThrows(ValidationException.class, () -> reader.read(
+                stream("title,projectId\na,abc\n"), TodoImportReader.FORMAT_CSV));
+        assertTrue(badCell.getMessage().contains("第 1 条"));
+
+        assertThrows(ValidationException.class, () -> reader.read(
+                stream("[{},{},{},{}]"), TodoImportReader.FORMAT_JSON));
+        assertThrows(ValidationException.class, () -> reader.read(
+                stream("{\"title\":\"a\"}"), TodoImportReader.FORMAT_JSON));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,140 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.dto.TodoDTO;
+import com.projectmanagement.dto.TodoImportResult;
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.mapper.ProjectMapper;
+import com.projectmanagement.mapper.TodoMapper;
+import com.projectmanagement.mapper.UserMapper;
+import com.projectmanagement.service.impl.CriticalPathCache;
+import com.projectmanagement.service.impl.GanttModelCache;
+import com.projectmanagement.service.impl.ProjectListCache;
+import com.projectmanagement.service.impl.ProjectMembershipIndex;
+import com.projectmanagement.service.impl.TodoServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 待办任务批量导入测试
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TodoImportTest {
+
+    @Mock
+    private TodoMapper todoMapper;
+
+    @Mock
+    private ProjectMapper projectMapper;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private GanttModelCache ganttModelCache;
+
+    @Mock
+    private ProjectListCache projectListCache;
+
+    @Mock
+    private ProjectMembershipIndex projectMembershipIndex;
+
+    @Mock
+    private CriticalPathCache criticalPathCache;
+
+    @InjectMocks
+    private TodoServiceImpl todoService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(todoService, "importMaxRows", 100);
+        ReflectionTestUtils.setField(todoService, "importBatchSize", 2);
+        when(projectMapper.selectObjs(any())).thenReturn(Collections.singletonList(1L));
+        when(userMapper.selectObjs(any())).thenReturn(Arrays.asList(2L, 3L));
+    }
+
+    @Test
+    void collectsAllErrorsWithoutWriting() {
+        when(todoMapper.selectBatchIds(anyList())).thenReturn(Collections.singletonList(existing(7L)));
+
+        TodoImportResult result = todoService.importTodos(Arrays.asList(
+                dto(null, "ok", 1L, 2L),
+                dto(null, " ", 9L, 2L),
+                dto(8L, "missing", 1L, 2L),
+                dto(7L, "first", 1L, 3L),
+                dto(7L, "second", 1L, 4L)), 1L);
+
+        assertTrue(result.hasErrors());
+        assertEquals(3, result.getErrors().size());
+        assertEquals(2, result.getErrors().get(0).getRow());
+        assertTrue(result.getErrors().get(0).getMessage().contains("任务标题不能为空"));
+        assertTrue(result.getErrors().get(0).getMessage().contains("项目不存在: 9"));
+        assertTrue(result.getErrors().get(1).getMessage().contains("任务不存在: 8"));
+        assertTrue(result.getErrors().get(2).getMessage().contains("与第 4 条修改同一任务"));
+        assertTrue(result.getErrors().get(2).getMessage().contains("负责人不存在: 4"));
+        verify(todoMapper, never()).insertBatch(anyList());
+        verify(ganttModelCache, never()).todosChanged(any());
+    }
+
+    @Test
+    void insertsInMultiRowChunks() {
+        List<Integer> chunkSizes = new ArrayList<>();
+        when(todoMapper.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<Todo> chunk = invocation.getArgument(0);
+            chunkSizes.add(chunk.size());
+            return chunk.size();
+        });
+
+        TodoImportResult result = todoService.importTodos(Arrays.asList(
+                dto(null, "a", 1L, 2L), dto(null, "b", 1L, 2L), dto(null, "c", 1L, 3L)), 5L);
+
+        assertFalse(result.hasErrors());
+        assertEquals(3, result.getCreated());
+        assertEquals(Arrays.asList(2, 1), chunkSizes);
+        assertEquals(3, result.getAssignedTodos().size());
+        assertEquals(5L, result.getAssignedTodos().get(0).getCreatorId());
+        assertEquals("MEDIUM", result.getAssignedTodos().get(0).getPriority());
+        // 按项目修正一次缓存，甘特图一次批量修补
+        verify(projectMembershipIndex, times(1)).projectChanged(1L);
+        verify(criticalPathCache, times(1)).projectChanged(1L);
+        verify(ganttModelCache, times(1)).todosChanged(any());
+    }
+
+    private static TodoDTO dto(Long id, String title, Long projectId, Long assigneeId) {
+        TodoDTO dto = new TodoDTO();
+        dto.setId(id);
+        dto.setTitle(title);
+        dto.setProjectId(projectId);
+        dto.setAssigneeId(assigneeId);
+        return dto;
+    }
+
+    private static Todo existing(Long id) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setProjectId(1L);
+        todo.setAssigneeId(2L);
+        todo.setStatus("TODO");
+        return todo;
+    }
+}
@@ -0,0 +1,79 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.dto.TodoListQuery;
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.enums.TodoListView;
+import com.projectmanagement.exception.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 任务列表分页游标测试
+ */
+class TodoListQueryTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 5, 15);
+
+    @Test
+    void cursorRoundTripsSortKey() {
+        TodoListQuery first = TodoListQuery.of(TodoListView.TODAY, 7L, TODAY).page(null, 20);
+        assertFalse(first.isAfterCursor());
+        assertEquals(21, first.getFetchSize());
+
+        String cursor = first.cursorAfter(todo(42L, TODAY, null));
+        TodoListQuery next = TodoListQuery.of(TodoListView.TODAY, 7L, TODAY).page(cursor, 20);
+        assertTrue(next.isAfterCursor());
+        assertEquals(TODAY, next.getAfterDueDate());
+        assertEquals(42L, next.getAfterId());
+
+        // 截止日期为空的任务排在最前，游标中记录为空
+        TodoListQuery all = TodoListQuery.of(TodoListView.ALL, null, TODAY);
+        TodoListQuery noDue = TodoListQuery.of(TodoListView.ALL, null, TODAY)
+                .page(all.cursorAfter(todo(3L, null, null)), 20);
+        assertTrue(noDue.isAfterCursor());
+        assertNull(noDue.getAfterDueDate());
+        assertEquals(3L, noDue.getAfterId());
+    }
+
+    @Test
+    void relatedViewUsesCreateTime() {
+        LocalDateTime created = LocalDateTime.of(2024, 5, 1, 9, 30);
+        TodoListQuery query = TodoListQuery.of(TodoListView.RELATED, 7L, TODAY);
+        TodoListQuery next = TodoListQuery.of(TodoListView.RELATED, 7L, TODAY)
+                .page(query.cursorAfter(todo(5L, TODAY, created)), 10);
+        assertEquals(created, next.getAfterCreateTime());
+        assertEquals(5L, next.getAfterId());
+    }
+
+    @Test
+    void rejectsInvalidOrForeignCursor() {
+        String cursor = TodoListQuery.of(TodoListView.WEEK, null, TODAY).cursorAfter(todo(1L, TODAY, null));
+        assertThrows(ValidationException.class,
+                () -> TodoListQuery.of(TodoListView.HIGH, null, TODAY).page(cursor, 10));
+        assertThrows(ValidationException.class,
+                () -> TodoListQuery.of(TodoListView.WEEK, null, TODAY).page("not-a-cursor!", 10));
+    }
+
+    @Test
+    void weekRangeStartsOnSundayWithinYear() {
+        TodoListQuery query = TodoListQuery.of(TodoListView.WEEK, null, TODAY);
+        assertEquals(LocalDate.of(2024, 5, 12), query.getWeekStart());
+        assertEquals(LocalDate.of(2024, 5, 18), query.getWeekEnd());
+
+        TodoListQuery newYear = TodoListQuery.of(TodoListView.WEEK, null, LocalDate.of(2025, 1, 2));
+        assertEquals(LocalDate.of(2025, 1, 1), newYear.getWeekStart());
+        assertEquals(LocalDate.of(2025, 1, 4), newYear.getWeekEnd());
+    }
+
+    private static Todo todo(Long id, LocalDate dueDate, LocalDateTime createTime) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setDueDate(dueDate);
+        todo.setCreateTime(createTime);
+        return todo;
+    }
+}
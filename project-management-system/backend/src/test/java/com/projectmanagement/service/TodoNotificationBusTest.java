@@ -0,0 +1,151 @@
+package com.projectmanagement.service;
+
+import com.projectmanagement.entity.Todo;
+import com.projectmanagement.entity.User;
+import com.projectmanagement.mapper.EmailSendQueueMapper;
+import com.projectmanagement.mapper.UserMapper;
+import com.projectmanagement.service.impl.DeferredEmailDigester;
+import com.projectmanagement.service.impl.TodoNotificationBus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 任务通知事件总线测试
+ */
+@ExtendWith(MockitoExtension.class)
+class TodoNotificationBusTest {
+
+    @Mock
+    private EmailSendService emailSendService;
+
+    @Mock
+    private EmailSendQueueMapper emailSendQueueMapper;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private DeferredEmailDigester deferredEmailDigester;
+
+    /**
+     * 不启动处理线程，事件只在flush或关闭时处理
+     */
+    private final Executor idleExecutor = task -> {
+    };
+
+    @Test
+    void testFlush_CoalescesEventsOfSameTodo() {
+        TodoNotificationBus bus = newBus(idleExecutor);
+        bus.start();
+        Todo todo = todo(10L);
+        User operator = user(1L);
+        User finalAssignee = user(3L);
+        when(userMapper.selectBatchIds(anyCollection())).thenReturn(Arrays.asList(finalAssignee));
+
+        bus.publishAssignment(todo, 2L, operator);
+        bus.publishAssignment(todo, 3L, operator);
+        bus.publishStatusChange(todo, "TODO", "PROGRESS");
+        bus.publishStatusChange(todo, "PROGRESS", "DONE");
+
+        bus.flush();
+
+        // 只通知最后一次分配，状态变更合并为 TODO -> DONE
+        verify(emailSendService, times(1)).handleTaskAssignmentNotification(todo, finalAssignee, operator);
+        verify(emailSendService, times(1)).handleTaskStatusChangeNotification(todo, "TODO", "DONE");
+        verify(emailSendService, times(1)).handleTaskStatusChangeNotification(any(), anyString(), anyString());
+        verify(emailSendQueueMapper, never()).insertBatch(any());
+    }
+
+    @Test
+    void testFlush_DropsStatusChangeThatReturnsToOriginal() {
+        TodoNotificationBus bus = newBus(idleExecutor);
+        bus.start();
+        Todo todo = todo(10L);
+
+        bus.publishStatusChange(todo, "TODO", "PROGRESS");
+        bus.publishStatusChange(todo, "PROGRESS", "TODO");
+
+        bus.flush();
+
+        verify(emailSendService, never()).handleTaskStatusChangeNotification(any(), any(), any());
+        verify(userMapper, never()).selectBatchIds(anyCollection());
+    }
+
+    @Test
+    void testStop_DrainsPendingEventsAndProcessesLaterOnesInline() {
+        TodoNotificationBus bus = newBus(task -> new Thread(task, "todo-notification-test").start());
+        bus.start();
+        Todo first = todo(10L);
+        Todo second = todo(11L);
+
+        bus.publishStatusChange(first, "TODO", "PROGRESS");
+        bus.stop();
+        verify(emailSendService, times(1)).handleTaskStatusChangeNotification(first, "TODO", "PROGRESS");
+
+        // 停止后发布的事件在调用线程中直接处理
+        bus.publishStatusChange(second, "PROGRESS", "DONE");
+        verify(emailSendService, times(1)).handleTaskStatusChangeNotification(eq(second), eq("PROGRESS"),
+                eq("DONE"));
+    }
+
+    @Test
+    void testPublishBulkAssignment_GroupsByAssignee() {
+        TodoNotificationBus bus = newBus(idleExecutor);
+        bus.start();
+        User operator = user(1L);
+        when(userMapper.selectBatchIds(anyCollection())).thenReturn(Arrays.asList(user(3L), user(4L)));
+
+        Todo first = todo(10L);
+        first.setAssigneeId(3L);
+        Todo second = todo(11L);
+        second.setAssigneeId(3L);
+        Todo third = todo(12L);
+        third.setAssigneeId(4L);
+        Todo unassigned = todo(13L);
+        bus.publishBulkAssignment(Arrays.asList(first, second, third, unassigned), operator);
+
+        // 每个负责人一个事件，同一负责人的任务在一个事件中处理
+        assertEquals(2, bus.flush());
+        verify(emailSendService).handleTaskAssignmentNotification(eq(first), any(User.class), eq(operator));
+        verify(emailSendService).handleTaskAssignmentNotification(eq(second), any(User.class), eq(operator));
+        verify(emailSendService).handleTaskAssignmentNotification(eq(third), any(User.class), eq(operator));
+        verify(emailSendService, never()).handleTaskAssignmentNotification(eq(unassigned), any(User.class),
+                any(User.class));
+    }
+
+    private TodoNotificationBus newBus(Executor executor) {
+        return new TodoNotificationBus(emailSendService, emailSendQueueMapper, userMapper, deferredEmailDigester,
+                executor, 100, 50, 0);
+    }
+
+    private Todo todo(Long id) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setTitle("任务" + id);
+        todo.setEmailEnabled(true);
+        return todo;
+    }
+
+    private User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setEmail("user" + id + "@example.com");
+        return user;
+    }
+}
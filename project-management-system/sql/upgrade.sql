@@ -0,0 +1,96 @@
+-- ========================================
+-- 项目管理系统数据库升级脚本
+-- 在已有数据库上按顺序执行，每节对应一次结构变更
+-- ========================================
+SET NAMES utf8mb4;
+SET TIME_ZONE = '+08:00';
+-- ========================================
+-- 1. 邮件发送队列：原子领取与租约
+-- ========================================
+ALTER TABLE `email_send_queue`
+    ADD COLUMN `claim_token` VARCHAR(64) NULL COMMENT '领取令牌' AFTER `error_message`,
+    ADD COLUMN `lease_expire_time` DATETIME NULL COMMENT '领取租约到期时间' AFTER `claim_token`,
+    ADD KEY `idx_status_scheduled` (`status`, `scheduled_time`),
+    ADD KEY `idx_claim_token` (`claim_token`);
+-- ========================================
+-- 2. 提醒去重台账：同一规则、任务、用户每天只提醒一次
+-- ========================================
+CREATE TABLE IF NOT EXISTS `email_reminder_ledger` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键',
+    `remind_date` DATE NOT NULL COMMENT '提醒日期',
+    `reminder_type` VARCHAR(20) NOT NULL COMMENT '提醒类型(DEADLINE/OVERDUE)',
+    `rule_id` BIGINT NOT NULL DEFAULT 0 COMMENT '邮件规则ID，默认提醒为0',
+    `todo_id` BIGINT NOT NULL COMMENT '任务ID',
+    `user_id` BIGINT NOT NULL COMMENT '收件用户ID',
+    `claim_token` VARCHAR(64) NULL COMMENT '写入批次令牌',
+    `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_reminder` (`remind_date`, `reminder_type`, `rule_id`, `todo_id`, `user_id`),
+    KEY `idx_claim_token` (`claim_token`)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '提醒去重台账';
+-- ========================================
+-- 3. 甘特图日期窗口查询：按项目、状态和任务条起止日期过滤
+-- ========================================
+CREATE INDEX `idx_todos_project_status_due` ON `todos` (`project_id`, `status`, `due_date`);
+CREATE INDEX `idx_todos_project_status_create` ON `todos` (`project_id`, `status`, `create_time`);
+-- ========================================
+-- 4. 待办任务依赖关系：关键路径计算
+-- ========================================
+CREATE TABLE IF NOT EXISTS `todo_dependencies` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键',
+    `project_id` BIGINT NOT NULL COMMENT '项目ID',
+    `predecessor_id` BIGINT NOT NULL COMMENT '前置任务ID',
+    `successor_id` BIGINT NOT NULL COMMENT '后续任务ID',
+    `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_dependency` (`predecessor_id`, `successor_id`),
+    KEY `idx_successor_id` (`successor_id`),
+    KEY `idx_project_id` (`project_id`)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '待办任务依赖关系';
+-- ========================================
+-- 5. 任务列表游标分页：按负责人读取时沿 (due_date, id) 顺序续读
+-- ========================================
+CREATE INDEX `idx_todos_assignee_due` ON `todos` (`assignee_id`, `due_date`);
+-- ========================================
+-- 6. 报告数据加载：按项目、状态读取未完成任务和周期内完成的任务
+-- ========================================
+CREATE INDEX `idx_todos_project_status_completed` ON `todos` (`project_id`, `status`, `completed_time`);
+CREATE INDEX `idx_todos_status_completed` ON `todos` (`status`, `completed_time`);
+-- ========================================
+-- 7. 项目每日快照：周报、双周报、月报按周期汇总
+-- ========================================
+CREATE TABLE IF NOT EXISTS `project_daily_snapshots` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键',
+    `project_id` BIGINT NOT NULL COMMENT '项目ID',
+    `snapshot_date` DATE NOT NULL COMMENT '快照日期',
+    `todo_count` INT NOT NULL DEFAULT 0 COMMENT '待开始任务数',
+    `progress_count` INT NOT NULL DEFAULT 0 COMMENT '进行中任务数',
+    `done_count` INT NOT NULL DEFAULT 0 COMMENT '已完成任务数',
+    `open_count` INT NOT NULL DEFAULT 0 COMMENT '未完成任务数',
+    `high_open_count` INT NOT NULL DEFAULT 0 COMMENT '未完成高优先级任务数',
+    `medium_open_count` INT NOT NULL DEFAULT 0 COMMENT '未完成中优先级任务数',
+    `low_open_count` INT NOT NULL DEFAULT 0 COMMENT '未完成低优先级任务数',
+    `completed_count` INT NOT NULL DEFAULT 0 COMMENT '当天完成任务数',
+    `slipped_count` INT NOT NULL DEFAULT 0 COMMENT '当天到期未完成任务数',
+    `overdue_count` INT NOT NULL DEFAULT 0 COMMENT '截至当天已逾期任务数',
+    `project_status` VARCHAR(20) NULL COMMENT '项目状态',
+    `project_progress` INT NULL COMMENT '项目进度',
+    `milestone_name` VARCHAR(200) NULL COMMENT '当前里程碑名称',
+    `milestone_progress` INT NULL COMMENT '当前里程碑进度',
+    `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_project_date` (`project_id`, `snapshot_date`),
+    KEY `idx_snapshot_date` (`snapshot_date`)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '项目每日快照';
+
+-- ========================================
+-- 8. 报告统计：按类型分组计数，支持报告日期和项目筛选
+-- ========================================
+CREATE INDEX `idx_reports_type_date_project` ON `reports` (`type`, `report_date`, `project_id`);
+
+-- ========================================
+-- 9. 报告列表：按创建时间倒序游标分页
+-- ========================================
+CREATE INDEX `idx_reports_create_time` ON `reports` (`create_time`, `id`);
+CREATE INDEX `idx_reports_project_create_time` ON `reports` (`project_id`, `create_time`, `id`);
+CREATE INDEX `idx_reports_creator_create_time` ON `reports` (`creator_id`, `create_time`, `id`);